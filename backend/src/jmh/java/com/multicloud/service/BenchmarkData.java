@@ -0,0 +1,104 @@
+package com.multicloud.service;
+
+import com.multicloud.model.CloudAccount;
+import com.multicloud.model.CloudProvider;
+import com.multicloud.model.FileMetadata;
+import com.multicloud.model.User;
+import com.multicloud.provider.CloudItem;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic datasets shaped like a large synced account: mostly files with a mix of
+ * mime types, a tenth folders, some starred or trashed, spread over three accounts.
+ */
+final class BenchmarkData {
+
+    private static final String[] MIME_TYPES = {
+            "image/jpeg", "image/png", "application/pdf", "video/mp4", "audio/mpeg", "text/plain",
+            "application/vnd.openxmlformats-officedocument.wordprocessingml.document"
+    };
+    private static final String[] EXTENSIONS = {"jpg", "png", "pdf", "mp4", "mp3", "txt", "docx"};
+
+    private BenchmarkData() {
+    }
+
+    static User user() {
+        return User.builder().id(1L).username("bench").email("bench@example.com").build();
+    }
+
+    static List<CloudAccount> accounts(User user) {
+        List<CloudAccount> accounts = new ArrayList<>();
+        CloudProvider[] providers = {CloudProvider.GOOGLE_DRIVE, CloudProvider.ONEDRIVE, CloudProvider.DROPBOX};
+        for (int i = 0; i < providers.length; i++) {
+            accounts.add(account((long) i + 1, user, providers[i]));
+        }
+        return accounts;
+    }
+
+    static CloudAccount account(Long id, User user, CloudProvider provider) {
+        return CloudAccount.builder()
+                .id(id)
+                .user(user)
+                .providerName(provider)
+                .accountEmail("account" + id + "@example.com")
+                .accessToken("access-" + id)
+                .refreshToken("refresh-" + id)
+                .tokenExpiry(LocalDateTime.now().plusHours(1))
+                .isActive(true)
+                .build();
+    }
+
+    static List<CloudItem> cloudItems(int size) {
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<CloudItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            boolean folder = random.nextInt(10) == 0;
+            int type = random.nextInt(MIME_TYPES.length);
+            String id = "1AbCdEfGhIjKlMnOpQrStUvWxYz" + i;
+            items.add(new CloudItem(
+                    id,
+                    folder ? "Folder " + i : "document-" + i + "." + EXTENSIONS[type],
+                    folder ? CloudItem.FOLDER_MIME_TYPE : MIME_TYPES[type],
+                    folder ? 0L : random.nextLong(1, 50L * 1024 * 1024),
+                    folder,
+                    i > 100 ? "1AbCdEfGhIjKlMnOpQrStUvWxYz" + random.nextInt(100) : null,
+                    "https://drive.google.com/file/d/" + id + "/view",
+                    folder ? null : "https://lh3.googleusercontent.com/thumb/" + id,
+                    base.plusSeconds(random.nextInt(60 * 60 * 24 * 365))));
+        }
+        return items;
+    }
+
+    static List<FileMetadata> fileMetadata(int size, List<CloudAccount> accounts) {
+        SplittableRandom random = new SplittableRandom(7);
+        List<CloudItem> items = cloudItems(size);
+        List<FileMetadata> files = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            CloudItem item = items.get(i);
+            CloudAccount account = accounts.get(i % accounts.size());
+            files.add(FileMetadata.builder()
+                    .id((long) i + 1)
+                    .user(account.getUser())
+                    .cloudAccount(account)
+                    .cloudFileId(item.id())
+                    .fileName(item.name())
+                    .mimeType(item.mimeType())
+                    .fileSize(item.size())
+                    .isFolder(item.folder())
+                    .parentFolderId(item.parentId())
+                    .webViewLink(item.webViewLink())
+                    .thumbnailUrl(item.thumbnailUrl())
+                    .isStarred(random.nextInt(20) == 0)
+                    .isTrashed(random.nextInt(50) == 0)
+                    .createdAt(item.modifiedAt())
+                    .modifiedAt(item.modifiedAt())
+                    .build());
+        }
+        return files;
+    }
+}
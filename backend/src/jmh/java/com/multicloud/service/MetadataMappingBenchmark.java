@@ -0,0 +1,63 @@
+package com.multicloud.service;
+
+import com.multicloud.model.CloudAccount;
+import com.multicloud.model.FileMetadata;
+import com.multicloud.provider.CloudItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-item costs of a sync and of a file listing: mapping provider items onto metadata
+ * entities, and entities onto the DTOs the API returns. Scores are per pass over the whole
+ * dataset; divide by {@code size} for the per-item cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class MetadataMappingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    private CloudAccount account;
+    private List<CloudItem> items;
+    private List<FileMetadata> files;
+
+    @Setup
+    public void setUp() {
+        List<CloudAccount> accounts = BenchmarkData.accounts(BenchmarkData.user());
+        account = accounts.get(0);
+        items = BenchmarkData.cloudItems(size);
+        files = BenchmarkData.fileMetadata(size, accounts);
+    }
+
+    @Benchmark
+    public void toFileMetadata(Blackhole blackhole) {
+        for (CloudItem item : items) {
+            blackhole.consume(FileMetadataMapper.toFileMetadata(account, item));
+        }
+    }
+
+    @Benchmark
+    public void toFileDTO(Blackhole blackhole) {
+        for (FileMetadata file : files) {
+            blackhole.consume(FileMetadataMapper.toFileDTO(file));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.multicloud.service;
+
+import com.multicloud.dto.FileSearchRequest;
+import com.multicloud.model.FileMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory filtering that {@code searchFiles} applies to the name matches returned by the
+ * repository, with no optional filters and with every filter set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SearchFilterBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    @Param({"none", "all"})
+    private String filters;
+
+    private List<FileMetadata> files;
+    private FileSearchRequest request;
+
+    @Setup
+    public void setUp() {
+        files = BenchmarkData.fileMetadata(size, BenchmarkData.accounts(BenchmarkData.user()));
+        request = filters.equals("all")
+                ? FileSearchRequest.builder()
+                        .query("document")
+                        .fileType("image")
+                        .cloudAccountId(1L)
+                        .isStarred(false)
+                        .minSize(1024L)
+                        .maxSize(40L * 1024 * 1024)
+                        .build()
+                : FileSearchRequest.builder().query("document").build();
+    }
+
+    @Benchmark
+    public List<FileMetadata> apply() {
+        return FileSearchFilter.apply(files, request);
+    }
+}
@@ -0,0 +1,114 @@
+package com.multicloud.service;
+
+import com.multicloud.model.CloudAccount;
+import com.multicloud.model.CloudProvider;
+import com.multicloud.model.User;
+import com.multicloud.repository.CloudAccountRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The token check every provider call makes before it runs: the cache lookup by account id
+ * and the expiry test, with tokens that are still valid so no refresh is triggered. The cache
+ * is warmed once from a stubbed store, so the store is not part of what is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TokenCheckBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int accounts;
+
+    private TokenManager tokenManager;
+    private long[] accountIds;
+
+    @Setup
+    public void setUp() throws Exception {
+        User user = BenchmarkData.user();
+        CloudProvider[] providers = {CloudProvider.GOOGLE_DRIVE, CloudProvider.ONEDRIVE, CloudProvider.DROPBOX};
+        Map<Long, CloudAccountRepository.StoredTokens> store = new HashMap<>();
+        accountIds = new long[accounts];
+        for (int i = 0; i < accounts; i++) {
+            CloudAccount account = BenchmarkData.account((long) i + 1, user, providers[i % providers.length]);
+            store.put(account.getId(), storedTokens(account));
+            accountIds[i] = account.getId();
+        }
+
+        CloudAccountRepository repository = mock(CloudAccountRepository.class);
+        when(repository.findTokensById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(store.get(invocation.<Long>getArgument(0))));
+
+        tokenManager = new TokenManager();
+        ReflectionTestUtils.setField(tokenManager, "cloudAccountRepository", repository);
+        ReflectionTestUtils.setField(tokenManager, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(tokenManager, "maxCachedTokens", accounts);
+        tokenManager.createTransactionTemplate();
+        for (long accountId : accountIds) {
+            tokenManager.getAccessToken(accountId);
+        }
+    }
+
+    @Benchmark
+    public void getAccessToken(Blackhole blackhole) throws Exception {
+        for (long accountId : accountIds) {
+            blackhole.consume(tokenManager.getAccessToken(accountId));
+        }
+    }
+
+    @Benchmark
+    public void canRefresh(Blackhole blackhole) {
+        for (long accountId : accountIds) {
+            blackhole.consume(tokenManager.canRefresh(accountId));
+        }
+    }
+
+    private static CloudAccountRepository.StoredTokens storedTokens(CloudAccount account) {
+        return new CloudAccountRepository.StoredTokens() {
+            @Override
+            public CloudProvider getProviderName() {
+                return account.getProviderName();
+            }
+
+            @Override
+            public String getAccessToken() {
+                return account.getAccessToken();
+            }
+
+            @Override
+            public String getRefreshToken() {
+                return account.getRefreshToken();
+            }
+
+            @Override
+            public LocalDateTime getTokenExpiry() {
+                return account.getTokenExpiry();
+            }
+        };
+    }
+}
@@ -0,0 +1,117 @@
+package com.multicloud.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Minimal client for the REST API under test, authenticated with a JWT from {@code /api/auth/login}.
+ */
+class ApiClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(120);
+    private static final String MULTIPART_BOUNDARY = "loadtest-boundary";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private String accessToken;
+
+    ApiClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    void signUpAndLogin(String username, String password) throws IOException, InterruptedException {
+        Map<String, String> signup = Map.of(
+                "username", username,
+                "email", username + "@loadtest.local",
+                "password", password);
+        send(jsonPost("/api/auth/signup", signup));
+
+        HttpResponse<byte[]> login = send(jsonPost("/api/auth/login", Map.of("username", username, "password", password)));
+        if (login.statusCode() != 200) {
+            throw new IllegalStateException("Login failed with status " + login.statusCode());
+        }
+        accessToken = objectMapper.readTree(login.body()).get("accessToken").asText();
+    }
+
+    HttpResponse<byte[]> get(String path) throws IOException, InterruptedException {
+        return send(authorized(path).GET().build());
+    }
+
+    JsonNode getJson(String path) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = get(path);
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + path + " failed with status " + response.statusCode());
+        }
+        return readJson(response);
+    }
+
+    JsonNode readJson(HttpResponse<byte[]> response) throws IOException {
+        return objectMapper.readTree(response.body());
+    }
+
+    /**
+     * Reads the response body to the end without keeping it, as a client saving a download would.
+     */
+    int download(String path) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = httpClient.send(authorized(path).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+        return response.statusCode();
+    }
+
+    HttpResponse<byte[]> upload(String path, String fileName, byte[] content) throws IOException, InterruptedException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 256);
+        body.writeBytes(("--" + MULTIPART_BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + MULTIPART_BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        return send(authorized(path)
+                .header("Content-Type", "multipart/form-data; boundary=" + MULTIPART_BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build());
+    }
+
+    static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private HttpRequest jsonPost(String path, Object body) throws IOException {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + accessToken);
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+}
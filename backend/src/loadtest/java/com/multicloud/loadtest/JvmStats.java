@@ -0,0 +1,80 @@
+package com.multicloud.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Heap and GC figures over the measured window. The application and the harness share the
+ * JVM, so they include the client side as well; the harness itself allocates little beyond
+ * response buffers.
+ */
+class JvmStats implements AutoCloseable {
+
+    record CollectorDelta(long collections, long timeMillis) {
+    }
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 250;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "loadtest-heap-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong peakHeapUsed = new AtomicLong();
+    private Map<String, long[]> baseline = new LinkedHashMap<>();
+
+    JvmStats() {
+        sampler.scheduleAtFixedRate(() -> peakHeapUsed.accumulateAndGet(heapUsed(), Math::max),
+                0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts the measured window: GC counters are read relative to this point.
+     */
+    void reset() {
+        baseline = collectorTotals();
+        peakHeapUsed.set(heapUsed());
+    }
+
+    Map<String, CollectorDelta> collectorDeltas() {
+        Map<String, CollectorDelta> deltas = new LinkedHashMap<>();
+        collectorTotals().forEach((name, totals) -> {
+            long[] start = baseline.getOrDefault(name, new long[2]);
+            deltas.put(name, new CollectorDelta(totals[0] - start[0], totals[1] - start[1]));
+        });
+        return deltas;
+    }
+
+    long peakHeapUsed() {
+        return peakHeapUsed.get();
+    }
+
+    long heapUsed() {
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    long heapMax() {
+        return memory.getHeapMemoryUsage().getMax();
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+    }
+
+    private static Map<String, long[]> collectorTotals() {
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals.put(collector.getName(), new long[]{collector.getCollectionCount(), collector.getCollectionTime()});
+        }
+        return totals;
+    }
+}
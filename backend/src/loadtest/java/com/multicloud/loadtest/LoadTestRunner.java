@@ -0,0 +1,269 @@
+package com.multicloud.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.multicloud.MulticloudApplication;
+import com.multicloud.emulator.EmulatorSettings;
+import com.multicloud.emulator.ProviderEmulator;
+import com.multicloud.model.CloudAccount;
+import com.multicloud.model.CloudProvider;
+import com.multicloud.model.User;
+import com.multicloud.repository.CloudAccountRepository;
+import com.multicloud.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end load test: starts the {@link ProviderEmulator}, boots the application against it
+ * with the {@code emulator} and {@code loadtest} profiles, then has a fixed number of virtual
+ * users call the REST API with a weighted mix of operations. Prints throughput and latency
+ * percentiles per operation plus GC and heap figures, and writes the same table as CSV.
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.jvm-args="-Xmx2g -Dloadtest.concurrency=32"
+ * </pre>
+ * Settings are listed on {@link LoadTestSettings}; emulator latency and fault rates use the
+ * usual {@code emulator.*} properties.
+ */
+public class LoadTestRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    private static final String USERNAME = "loadtest";
+    private static final String PASSWORD = "loadtest-password";
+    private static final int SEARCH_TERMS = 100;
+    private static final int SYNC_MAX_POLLS = 120;
+
+    private final LoadTestSettings settings;
+    private final ApiClient client;
+    private final List<Long> accountIds;
+    private final List<Long> fileIds;
+    private final Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+    private final Operation[] weightedOperations;
+    private final byte[] uploadContent;
+    private final AtomicLong uploadCounter = new AtomicLong();
+
+    LoadTestRunner(LoadTestSettings settings, ApiClient client, List<Long> accountIds, List<Long> fileIds) {
+        this.settings = settings;
+        this.client = client;
+        this.accountIds = accountIds;
+        this.fileIds = fileIds;
+        this.uploadContent = new byte[settings.uploadSize()];
+        this.weightedOperations = settings.mix().entrySet().stream()
+                .flatMap(entry -> Collections.nCopies(entry.getValue(), entry.getKey()).stream())
+                .toArray(Operation[]::new);
+        for (Operation operation : settings.mix().keySet()) {
+            recorders.put(operation, new LatencyRecorder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        try (ProviderEmulator emulator = ProviderEmulator.start(0, EmulatorSettings.fromSystemProperties())) {
+            emulator.seed(settings.seedFiles(), settings.seedFileSize());
+            // System properties outrank the profile file, which otherwise points at a fixed port
+            System.setProperty("provider.emulator.url", emulator.baseUrl());
+
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MulticloudApplication.class)
+                    .profiles("emulator", "loadtest")
+                    .run(args);
+                 JvmStats jvmStats = new JvmStats()) {
+                String port = context.getEnvironment().getProperty("local.server.port");
+                ApiClient client = new ApiClient("http://localhost:" + port);
+                client.signUpAndLogin(USERNAME, PASSWORD);
+
+                List<Long> accountIds = connectAccounts(context);
+                List<Long> fileIds = syncFiles(client, accountIds);
+                logger.info("Synced {} files across {} accounts", fileIds.size(), accountIds.size());
+
+                LoadTestRunner runner = new LoadTestRunner(settings, client, accountIds, fileIds);
+                runner.run(settings.warmupSeconds());
+                runner.resetRecorders();
+                jvmStats.reset();
+                runner.run(settings.durationSeconds());
+                runner.report(jvmStats);
+            }
+        }
+    }
+
+    /**
+     * Stores one account per emulated provider directly, standing in for the OAuth flow.
+     */
+    private static List<Long> connectAccounts(ConfigurableApplicationContext context) {
+        User user = context.getBean(UserRepository.class).findByUsername(USERNAME)
+                .orElseThrow(() -> new RuntimeException("Load test user not found"));
+        CloudAccountRepository cloudAccountRepository = context.getBean(CloudAccountRepository.class);
+
+        List<Long> accountIds = new ArrayList<>();
+        for (CloudProvider provider : List.of(CloudProvider.GOOGLE_DRIVE, CloudProvider.ONEDRIVE, CloudProvider.DROPBOX)) {
+            CloudAccount account = CloudAccount.builder()
+                    .user(user)
+                    .providerName(provider)
+                    .accountEmail(provider.name().toLowerCase(Locale.ROOT) + "@loadtest.local")
+                    .accessToken("emulator-access-token")
+                    .refreshToken("emulator-refresh-token")
+                    .tokenExpiry(LocalDateTime.now().plusDays(1))
+                    .isActive(true)
+                    .build();
+            accountIds.add(cloudAccountRepository.save(account).getId());
+        }
+        return accountIds;
+    }
+
+    /**
+     * Lists each account's files once its first sync is done. A never-synced account answers
+     * 202 with an empty list and the sync still running, so the request is repeated after
+     * Retry-After until the stored list is served and no sync is running.
+     */
+    private static List<Long> syncFiles(ApiClient client, List<Long> accountIds) throws IOException, InterruptedException {
+        List<Long> fileIds = new ArrayList<>();
+        for (Long accountId : accountIds) {
+            for (JsonNode file : awaitSyncedFiles(client, accountId)) {
+                if (!file.path("isFolder").asBoolean(false)) {
+                    fileIds.add(file.get("id").asLong());
+                }
+            }
+        }
+        if (fileIds.isEmpty()) {
+            throw new IllegalStateException("No files synced from the emulator; check loadtest.seed-files");
+        }
+        return fileIds;
+    }
+
+    private static JsonNode awaitSyncedFiles(ApiClient client, Long accountId) throws IOException, InterruptedException {
+        String path = "/api/cloud-accounts/" + accountId + "/files";
+        for (int attempt = 0; attempt < SYNC_MAX_POLLS; attempt++) {
+            HttpResponse<byte[]> response = client.get(path);
+            boolean syncing = response.statusCode() == 202
+                    || response.headers().firstValue("X-Files-Syncing").map(Boolean::parseBoolean).orElse(false);
+            if (!syncing) {
+                return client.readJson(response);
+            }
+            long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+            TimeUnit.SECONDS.sleep(Math.max(1, retryAfter));
+        }
+        throw new IllegalStateException("Account " + accountId + " did not finish its first sync");
+    }
+
+    private void run(int seconds) throws InterruptedException {
+        if (seconds <= 0) {
+            return;
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService users = Executors.newFixedThreadPool(settings.concurrency());
+        for (int i = 0; i < settings.concurrency(); i++) {
+            users.submit(() -> {
+                while (running.get()) {
+                    execute(weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)]);
+                }
+            });
+        }
+        TimeUnit.SECONDS.sleep(seconds);
+        running.set(false);
+        users.shutdown();
+        if (!users.awaitTermination(2, TimeUnit.MINUTES)) {
+            users.shutdownNow();
+        }
+    }
+
+    private void execute(Operation operation) {
+        LatencyRecorder recorder = recorders.get(operation);
+        long start = System.nanoTime();
+        try {
+            int status = call(operation);
+            if (status >= 200 && status < 300) {
+                recorder.record(System.nanoTime() - start);
+            } else {
+                recorder.recordError();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            recorder.recordError();
+        }
+    }
+
+    private int call(Operation operation) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long accountId = accountIds.get(random.nextInt(accountIds.size()));
+        Long fileId = fileIds.get(random.nextInt(fileIds.size()));
+
+        return switch (operation) {
+            case FILES -> client.get("/api/cloud-accounts/" + accountId + "/files").statusCode();
+            case SEARCH -> client.get("/api/cloud-accounts/search?query="
+                    + ApiClient.encode("seed-" + random.nextInt(SEARCH_TERMS))).statusCode();
+            case DOWNLOAD -> client.download("/api/cloud-accounts/files/" + fileId + "/download");
+            case PREVIEW -> client.get("/api/cloud-accounts/files/" + fileId + "/preview").statusCode();
+            case ANALYTICS -> client.get("/api/cloud-accounts/analytics").statusCode();
+            case UPLOAD -> {
+                HttpResponse<byte[]> response = client.upload("/api/cloud-accounts/" + accountId + "/upload",
+                        "loadtest-" + uploadCounter.incrementAndGet() + ".bin", uploadContent);
+                yield response.statusCode();
+            }
+        };
+    }
+
+    private void resetRecorders() {
+        recorders.values().forEach(LatencyRecorder::reset);
+    }
+
+    private void report(JvmStats jvmStats) throws IOException {
+        int seconds = settings.durationSeconds();
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT,
+                "%nLoad test: %d users, %d s, %d seeded files per provider%n"
+                        + "%-10s %9s %7s %9s %9s %9s %9s %9s%n",
+                settings.concurrency(), seconds, settings.seedFiles(),
+                "operation", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        Path reportFile = Path.of(settings.reportFile());
+        if (reportFile.getParent() != null) {
+            Files.createDirectories(reportFile.getParent());
+        }
+
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(reportFile))) {
+            csv.println("operation,requests,errors,throughput_per_sec,p50_ms,p90_ms,p99_ms,max_ms");
+            long totalRequests = 0;
+            for (Map.Entry<Operation, LatencyRecorder> entry : recorders.entrySet()) {
+                LatencyRecorder.Summary summary = entry.getValue().summarize();
+                String name = entry.getKey().name().toLowerCase(Locale.ROOT);
+                double throughput = (double) summary.count() / seconds;
+                totalRequests += summary.count();
+                table.append(String.format(Locale.ROOT, "%-10s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                        name, summary.count(), summary.errors(), throughput,
+                        summary.p50Millis(), summary.p90Millis(), summary.p99Millis(), summary.maxMillis()));
+                csv.printf(Locale.ROOT, "%s,%d,%d,%.2f,%.3f,%.3f,%.3f,%.3f%n",
+                        name, summary.count(), summary.errors(), throughput,
+                        summary.p50Millis(), summary.p90Millis(), summary.p99Millis(), summary.maxMillis());
+            }
+            table.append(String.format(Locale.ROOT, "%-10s %9d %7s %9.1f%n",
+                    "total", totalRequests, "", (double) totalRequests / seconds));
+        }
+
+        jvmStats.collectorDeltas().forEach((collector, delta) -> table.append(String.format(Locale.ROOT,
+                "GC %-24s %6d collections %8d ms%n", collector, delta.collections(), delta.timeMillis())));
+        table.append(String.format(Locale.ROOT, "Heap used: peak %d MB, now %d MB, max %d MB%n",
+                jvmStats.peakHeapUsed() >> 20, jvmStats.heapUsed() >> 20, jvmStats.heapMax() >> 20));
+
+        logger.info(table.toString());
+        logger.info("Per-operation results written to {}", reportFile.toAbsolutePath());
+    }
+}
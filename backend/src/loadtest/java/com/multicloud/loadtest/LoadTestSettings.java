@@ -0,0 +1,56 @@
+package com.multicloud.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test parameters, read from {@code loadtest.*} system properties.
+ *
+ * @param concurrency     virtual users issuing requests back to back
+ * @param warmupSeconds   run time before measuring starts; results are discarded
+ * @param durationSeconds measured run time
+ * @param seedFiles       files seeded into each emulated provider
+ * @param seedFileSize    size of every seeded file in bytes
+ * @param uploadSize      size of every uploaded file in bytes
+ * @param mix             relative weight of each operation
+ * @param reportFile      CSV file the per-operation results are written to
+ */
+record LoadTestSettings(int concurrency, int warmupSeconds, int durationSeconds, int seedFiles, int seedFileSize,
+                        int uploadSize, Map<Operation, Integer> mix, String reportFile) {
+
+    private static final String DEFAULT_MIX = "files:30,search:20,download:15,preview:15,analytics:10,upload:10";
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.concurrency", 16),
+                Integer.getInteger("loadtest.warmup-seconds", 10),
+                Integer.getInteger("loadtest.duration-seconds", 60),
+                Integer.getInteger("loadtest.seed-files", 2000),
+                Integer.getInteger("loadtest.seed-file-size", 64 * 1024),
+                Integer.getInteger("loadtest.upload-size", 256 * 1024),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+                System.getProperty("loadtest.report-file", "target/loadtest-report.csv"));
+    }
+
+    /**
+     * Parses {@code operation:weight} pairs, e.g. {@code files:50,download:50}. Operations
+     * that are left out are not run.
+     */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid loadtest.mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.fromName(parts[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix selects no operations");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,22 @@
+package com.multicloud.loadtest;
+
+/**
+ * REST operations driven by the load test.
+ */
+enum Operation {
+    FILES,
+    SEARCH,
+    DOWNLOAD,
+    PREVIEW,
+    ANALYTICS,
+    UPLOAD;
+
+    static Operation fromName(String name) {
+        for (Operation operation : values()) {
+            if (operation.name().equalsIgnoreCase(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown load test operation: " + name);
+    }
+}
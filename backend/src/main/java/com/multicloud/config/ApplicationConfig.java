@@ -1,5 +1,6 @@
 package com.multicloud.config;
 
+import com.multicloud.service.ProviderRateLimiter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -8,6 +9,7 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.multipart.support.StandardServletMultipartResolver;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -25,6 +27,57 @@ public class ApplicationConfig {
         return executor;
     }
 
+    /**
+     * Pool for fan-out work against provider APIs, such as batch requests.
+     * Kept separate from {@code taskExecutor} so background jobs that wait on provider I/O
+     * cannot starve the tasks they are waiting for. Tasks inherit the submitting thread's
+     * rate limit binding, so their requests count against the right account.
+     */
+    @Bean(name = "providerIoExecutor")
+    public Executor providerIoExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(16);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("provider-io-");
+        executor.setTaskDecorator(ProviderRateLimiter::propagate);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Chunk appends of parallel uploads. Bounded on its own so that large uploads cannot fill
+     * {@code providerIoExecutor}; once it is saturated the uploading thread appends the chunk
+     * itself, which slows the upload down instead of failing it.
+     */
+    @Bean(name = "providerUploadExecutor")
+    public Executor providerUploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(16);
+        executor.setThreadNamePrefix("provider-upload-");
+        executor.setTaskDecorator(ProviderRateLimiter::propagate);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Workers for batch jobs. Each job contributes a few lanes per cloud account, so a large
+     * multi-select action cannot take over the pool used by background syncs.
+     */
+    @Bean(name = "batchJobExecutor")
+    public Executor batchJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("batch-job-");
+        executor.initialize();
+        return executor;
+    }
+
     @Bean
     public StandardServletMultipartResolver multipartResolver() {
         return new StandardServletMultipartResolver();
@@ -0,0 +1,158 @@
+package com.multicloud.config;
+
+import com.dropbox.core.DbxRequestConfig;
+import com.dropbox.core.http.OkHttp3Requestor;
+import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.multicloud.exception.ProviderRateLimitExceededException;
+import com.multicloud.service.ProviderRateLimiter;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared HTTP clients for the provider integrations. Each is built once so that trust store
+ * loading, connection pools and TLS sessions are reused across every file operation; access
+ * tokens are attached per request instead of per client.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    public static final String DROPBOX_CLIENT_IDENTIFIER = "MultiCloudStorage/1.0";
+
+    @Value("${http.client.max-idle-connections:32}")
+    private int maxIdleConnections;
+
+    @Value("${http.client.keep-alive-minutes:5}")
+    private long keepAliveMinutes;
+
+    @Value("${http.client.connect-timeout-seconds:10}")
+    private long connectTimeoutSeconds;
+
+    @Value("${http.client.read-timeout-seconds:60}")
+    private long readTimeoutSeconds;
+
+    @Value("${http.client.write-timeout-seconds:120}")
+    private long writeTimeoutSeconds;
+
+    @Value("${dropbox.api.base-url:}")
+    private String dropboxApiBaseUrl;
+
+    @Autowired
+    private ProviderRateLimiter rateLimiter;
+
+    /**
+     * Pooled client used for Microsoft Graph, the OAuth token endpoints and the Dropbox SDK.
+     * HTTP/2 is negotiated through ALPN where the server offers it. Every request is first
+     * admitted by the rate limiter of the provider call it belongs to.
+     */
+    @Bean
+    public OkHttpClient providerHttpClient() {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMinutes, TimeUnit.MINUTES))
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(connectTimeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+                .writeTimeout(writeTimeoutSeconds, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .addInterceptor(rateLimitAdmission(rateLimiter));
+
+        if (dropboxApiBaseUrl != null && !dropboxApiBaseUrl.isBlank()) {
+            builder.addInterceptor(dropboxRedirect(HttpUrl.get(dropboxApiBaseUrl)));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Waits for a rate limit slot before the request is sent. The account comes from the
+     * request's {@link ProviderRateLimiter.Admission} tag when the caller set one, since
+     * OkHttp runs asynchronous calls on its own threads, and otherwise from the calling
+     * thread. A rejection is thrown as the cause of an IOException, the only failure OkHttp
+     * reports cleanly from an asynchronous call.
+     */
+    private static Interceptor rateLimitAdmission(ProviderRateLimiter rateLimiter) {
+        return chain -> {
+            Request request = chain.request();
+            ProviderRateLimiter.Admission admission = request.tag(ProviderRateLimiter.Admission.class);
+            try {
+                if (admission != null) {
+                    rateLimiter.admitRequest(admission);
+                } else {
+                    rateLimiter.admitRequest();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a rate limit slot");
+            } catch (ProviderRateLimitExceededException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            return chain.proceed(request);
+        };
+    }
+
+    /**
+     * The Dropbox SDK has fixed https hosts (api, content and notify), so pointing it at an
+     * emulator means rewriting its requests: every {@code *.dropboxapi.com} call goes to the
+     * configured base URL with the original path appended.
+     */
+    private static Interceptor dropboxRedirect(HttpUrl target) {
+        String basePath = target.encodedPath().endsWith("/")
+                ? target.encodedPath().substring(0, target.encodedPath().length() - 1)
+                : target.encodedPath();
+        return chain -> {
+            Request request = chain.request();
+            HttpUrl url = request.url();
+            if (!url.host().endsWith(".dropboxapi.com")) {
+                return chain.proceed(request);
+            }
+            HttpUrl redirected = url.newBuilder()
+                    .scheme(target.scheme())
+                    .host(target.host())
+                    .port(target.port())
+                    .encodedPath(basePath + url.encodedPath())
+                    .build();
+            return chain.proceed(request.newBuilder().url(redirected).build());
+        };
+    }
+
+    /**
+     * Transport for the Google API client. Building it loads the bundled trust store, so it is
+     * created once; HttpURLConnection keeps the underlying connections alive between calls.
+     */
+    @Bean
+    public NetHttpTransport googleHttpTransport() throws Exception {
+        return GoogleNetHttpTransport.newTrustedTransport();
+    }
+
+    /**
+     * The SDK streams uploads through asynchronous OkHttp calls, so each request is tagged
+     * with the caller's rate limit binding while still on the calling thread.
+     */
+    @Bean
+    public DbxRequestConfig dropboxRequestConfig(OkHttpClient providerHttpClient) {
+        OkHttp3Requestor requestor = new OkHttp3Requestor(providerHttpClient) {
+            @Override
+            protected void configureRequest(Request.Builder request) {
+                ProviderRateLimiter.Admission admission = ProviderRateLimiter.current();
+                if (admission != null) {
+                    request.tag(ProviderRateLimiter.Admission.class, admission);
+                }
+            }
+        };
+        return DbxRequestConfig.newBuilder(DROPBOX_CLIENT_IDENTIFIER)
+                .withHttpRequestor(requestor)
+                .build();
+    }
+}
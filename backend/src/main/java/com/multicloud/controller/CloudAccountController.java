@@ -1,15 +1,17 @@
 package com.multicloud.controller;
 
 import com.multicloud.dto.*;
-import com.multicloud.model.FileMetadata;
+import com.multicloud.exception.ProviderCallRejectedException;
 import com.multicloud.model.User;
-import com.multicloud.repository.FileMetadataRepository;
 import com.multicloud.repository.UserRepository;
+import com.multicloud.service.AccountSyncScheduler;
+import com.multicloud.service.BatchJobService;
 import com.multicloud.service.CloudAccountService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -18,7 +20,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -28,14 +31,21 @@ public class CloudAccountController {
 
     private static final Logger logger = LoggerFactory.getLogger(CloudAccountController.class);
 
+    static final String FILES_SYNCED_AT_HEADER = "X-Files-Synced-At";
+    static final String FILES_SYNC_AGE_HEADER = "X-Files-Sync-Age";
+    static final String FILES_SYNCING_HEADER = "X-Files-Syncing";
+
     @Autowired
     private CloudAccountService cloudAccountService;
 
     @Autowired
-    private UserRepository userRepository;
+    private AccountSyncScheduler accountSyncScheduler;
+
+    @Autowired
+    private BatchJobService batchJobService;
 
     @Autowired
-    private FileMetadataRepository fileMetadataRepository;
+    private UserRepository userRepository;
 
     // Get all cloud accounts for current user
     @GetMapping
@@ -53,13 +63,37 @@ public class CloudAccountController {
         }
     }
 
-    // Get files from specific cloud account
+    // Get files from specific cloud account, served from the last background sync
     @GetMapping("/{accountId}/files")
-    public ResponseEntity<?> getFiles(@PathVariable Long accountId) {
+    public ResponseEntity<?> getFiles(
+            @PathVariable Long accountId,
+            @RequestParam(defaultValue = "false") boolean refresh) {
         try {
-            List<FileDTO> files = cloudAccountService.getFilesFromCloudAccount(accountId);
+            LocalDateTime syncedAt = cloudAccountService.getFilesSyncedAt(accountId);
+            if (syncedAt == null) {
+                // Nothing stored to serve yet: start the first sync and let the client poll
+                boolean syncing = accountSyncScheduler.requestSync(accountId);
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .header(FILES_SYNCING_HEADER, String.valueOf(syncing))
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .body(List.of());
+            }
+
+            if (refresh) {
+                accountSyncScheduler.requestRefresh(accountId);
+            } else {
+                accountSyncScheduler.recordRead(accountId);
+            }
+
+            List<FileDTO> files = cloudAccountService.getStoredFiles(accountId);
             logger.info("Retrieved {} files from account: {}", files.size(), accountId);
-            return ResponseEntity.ok(files);
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(FILES_SYNCED_AT_HEADER, syncedAt.toString());
+            headers.set(FILES_SYNC_AGE_HEADER,
+                    String.valueOf(Math.max(0, Duration.between(syncedAt, LocalDateTime.now()).getSeconds())));
+            headers.set(FILES_SYNCING_HEADER, String.valueOf(accountSyncScheduler.isSyncing(accountId)));
+            return ResponseEntity.ok().headers(headers).body(files);
         } catch (Exception e) {
             logger.error("Error retrieving files from account: {}", accountId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -84,6 +118,8 @@ public class CloudAccountController {
             FileDTO uploadedFile = cloudAccountService.uploadFile(accountId, file, folderPath);
             logger.info("File uploaded successfully: {}", uploadedFile.getFileName());
             return ResponseEntity.ok(uploadedFile);
+        } catch (ProviderCallRejectedException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Upload failed for file: {} to account: {}", 
                     file.getOriginalFilename(), accountId, e);
@@ -92,24 +128,49 @@ public class CloudAccountController {
         }
     }
 
-    // Download file
+    // Upload several files to cloud account in one request
+    @PostMapping("/{accountId}/upload/batch")
+    public ResponseEntity<?> uploadFiles(
+            @PathVariable Long accountId,
+            @RequestParam("files") List<MultipartFile> files) {
+        try {
+            if (files == null || files.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(new MessageResponse("Files cannot be empty"));
+            }
+
+            logger.info("Uploading {} files to account: {}", files.size(), accountId);
+            BatchUploadResponse response = cloudAccountService.uploadFiles(accountId, files);
+            logger.info("Uploaded {} files to account: {}, {} failed", response.getUploaded(), accountId, response.getFailed());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(new MessageResponse(ex.getMessage()));
+        } catch (ProviderCallRejectedException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Batch upload failed for account: {}", accountId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new MessageResponse("Upload failed: " + e.getMessage()));
+        }
+    }
+
+    // Download file (streamed from the provider, never buffered in full)
     @GetMapping("/files/{fileId}/download")
     public ResponseEntity<?> downloadFile(@PathVariable Long fileId) {
         try {
             logger.info("Downloading file: {}", fileId);
-            ByteArrayOutputStream outputStream = cloudAccountService.downloadFile(fileId);
-            
-            FileMetadata metadata = fileMetadataRepository.findById(fileId)
-                    .orElseThrow(() -> new RuntimeException("File not found"));
+            FileDownload download = cloudAccountService.downloadFile(fileId);
             
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", metadata.getFileName());
+            headers.setContentDispositionFormData("attachment", download.getFileName());
             
-            logger.info("File downloaded successfully: {}", metadata.getFileName());
+            logger.info("Streaming download for file: {}", download.getFileName());
             return ResponseEntity.ok()
                     .headers(headers)
-                    .body(outputStream.toByteArray());
+                    .body(new InputStreamResource(download.getContent()));
+        } catch (ProviderCallRejectedException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Download failed for file: {}", fileId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -126,6 +187,8 @@ public class CloudAccountController {
         } catch (IllegalArgumentException ex) {
             logger.warn("Preview validation failed for file {}: {}", fileId, ex.getMessage());
             return ResponseEntity.badRequest().body(new MessageResponse(ex.getMessage()));
+        } catch (ProviderCallRejectedException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Preview failed for file: {}", fileId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -141,6 +204,8 @@ public class CloudAccountController {
             cloudAccountService.deleteFile(fileId);
             logger.info("File deleted successfully: {}", fileId);
             return ResponseEntity.ok(new MessageResponse("File deleted successfully"));
+        } catch (ProviderCallRejectedException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Delete failed for file: {}", fileId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -158,6 +223,8 @@ public class CloudAccountController {
             FileDTO updatedFile = cloudAccountService.renameFile(fileId, request.getNewName());
             logger.info("File renamed successfully");
             return ResponseEntity.ok(updatedFile);
+        } catch (ProviderCallRejectedException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Rename failed for file: {}", fileId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -175,6 +242,8 @@ public class CloudAccountController {
             FileDTO movedFile = cloudAccountService.moveFile(fileId, request.getNewPath());
             logger.info("File moved successfully");
             return ResponseEntity.ok(movedFile);
+        } catch (ProviderCallRejectedException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Move failed for file: {}", fileId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -200,6 +269,8 @@ public class CloudAccountController {
         } catch (IllegalArgumentException ex) {
             logger.warn("Copy validation failed for file {}: {}", fileId, ex.getMessage());
             return ResponseEntity.badRequest().body(new MessageResponse(ex.getMessage()));
+        } catch (ProviderCallRejectedException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Copy failed for file: {}", fileId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -220,6 +291,8 @@ public class CloudAccountController {
                     request.getParentFolderId());
             logger.info("Folder created successfully: {}", folder.getFileName());
             return ResponseEntity.ok(folder);
+        } catch (ProviderCallRejectedException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Folder creation failed in account: {}", accountId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -260,10 +333,9 @@ public class CloudAccountController {
     public ResponseEntity<?> batchDeleteFiles(@Valid @RequestBody BatchFileOperationRequest request) {
         try {
             logger.info("Batch deleting {} files", request.getFileIds().size());
-            int deletedCount = cloudAccountService.batchDeleteFiles(request.getFileIds());
-            logger.info("Successfully deleted {} files", deletedCount);
-            return ResponseEntity.ok(new MessageResponse(
-                    String.format("Successfully deleted %d files", deletedCount)));
+            BatchDeleteResponse response = cloudAccountService.batchDeleteFiles(request.getFileIds());
+            logger.info("Successfully deleted {} files, {} failed", response.getDeleted(), response.getFailed());
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Batch delete failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -271,6 +343,41 @@ public class CloudAccountController {
         }
     }
 
+    // Start a batch job of mixed file operations; progress is polled with the returned id
+    @PostMapping("/files/batch-jobs")
+    public ResponseEntity<?> submitBatchJob(
+            @Valid @RequestBody BatchJobRequest request,
+            Authentication authentication) {
+        try {
+            User user = getUserFromAuthentication(authentication);
+            BatchJobDTO job = batchJobService.submit(user, request.getOperations());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException ex) {
+            logger.warn("Batch job rejected: {}", ex.getMessage());
+            return ResponseEntity.badRequest().body(new MessageResponse(ex.getMessage()));
+        } catch (Exception e) {
+            logger.error("Batch job submission failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new MessageResponse("Batch job submission failed: " + e.getMessage()));
+        }
+    }
+
+    // Get batch job progress
+    @GetMapping("/files/batch-jobs/{jobId}")
+    public ResponseEntity<?> getBatchJob(
+            @PathVariable Long jobId,
+            @RequestParam(defaultValue = "false") boolean includeItems,
+            Authentication authentication) {
+        try {
+            User user = getUserFromAuthentication(authentication);
+            return ResponseEntity.ok(batchJobService.getJob(user, jobId, includeItems));
+        } catch (Exception e) {
+            logger.error("Failed to get batch job: {}", jobId, e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new MessageResponse(e.getMessage()));
+        }
+    }
+
     // Star/unstar file
     @PutMapping("/files/{fileId}/star")
     public ResponseEntity<?> toggleStarFile(@PathVariable Long fileId) {
@@ -0,0 +1,16 @@
+package com.multicloud.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchDeleteResponse {
+    private int deleted;
+    private int failed;
+    private List<FileOperationResult> results; // In request order
+}
@@ -0,0 +1,26 @@
+package com.multicloud.dto;
+
+import com.multicloud.model.BatchJob;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchJobDTO {
+    private Long id;
+    private BatchJob.JobStatus status;
+    private Integer totalItems;
+    private Integer completedItems;
+    private Integer failedItems;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private List<BatchJobItemDTO> items; // Only when requested
+}
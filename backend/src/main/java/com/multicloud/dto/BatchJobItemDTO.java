@@ -0,0 +1,23 @@
+package com.multicloud.dto;
+
+import com.multicloud.model.BatchJobItem;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchJobItemDTO {
+    private Integer index;
+    private BatchJobItem.Operation operation;
+    private Long fileId;
+    private BatchJobItem.ItemStatus status;
+    private String error;
+    private Long resultFileId;
+    private LocalDateTime updatedAt;
+}
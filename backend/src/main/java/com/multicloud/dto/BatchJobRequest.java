@@ -0,0 +1,18 @@
+package com.multicloud.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchJobRequest {
+    @NotEmpty(message = "Operations cannot be empty")
+    @Valid
+    private List<BatchOperationRequest> operations;
+}
@@ -0,0 +1,23 @@
+package com.multicloud.dto;
+
+import com.multicloud.model.BatchJobItem;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchOperationRequest {
+    @NotNull(message = "Operation is required")
+    private BatchJobItem.Operation operation;
+
+    @NotNull(message = "File ID is required")
+    private Long fileId;
+
+    private String newName;         // RENAME
+    private String newPath;         // MOVE
+    private Long targetAccountId;   // COPY
+    private String targetFolderId;  // COPY
+}
@@ -0,0 +1,16 @@
+package com.multicloud.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchUploadResponse {
+    private int uploaded;
+    private int failed;
+    private List<FileUploadResult> results; // In request order
+}
@@ -0,0 +1,23 @@
+package com.multicloud.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.InputStream;
+
+/**
+ * Open download handed from the service layer to the controller. The content stream is
+ * read straight from the provider and must be closed by whoever consumes it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileDownload {
+    private Long fileId;
+    private String fileName;
+    private String contentType;
+    private InputStream content;
+}
@@ -0,0 +1,14 @@
+package com.multicloud.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FileOperationResult {
+    private Long fileId;
+    private boolean success;
+    private String error;
+}
@@ -0,0 +1,15 @@
+package com.multicloud.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FileUploadResult {
+    private String fileName;
+    private boolean success;
+    private FileDTO file; // Null when the upload failed
+    private String error;
+}
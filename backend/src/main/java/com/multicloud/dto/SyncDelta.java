@@ -0,0 +1,35 @@
+package com.multicloud.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of incremental changes reported by a provider.
+ *
+ * @param <T> provider item type
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncDelta<T> {
+    @Builder.Default
+    private List<T> changedItems = new ArrayList<>();
+
+    @Builder.Default
+    private List<String> removedIds = new ArrayList<>();
+
+    // Position to persist once this page has been applied
+    private String cursor;
+
+    // True when another page is available right away at the new cursor
+    private boolean hasMore;
+
+    // True when the provider discarded the stored cursor and a full enumeration is needed
+    private boolean resyncRequired;
+}
@@ -0,0 +1,20 @@
+package com.multicloud.exception;
+
+import java.io.IOException;
+
+/**
+ * Failure reading the source file of a cross-account copy. The copy runs under the target
+ * account's token, so a rejected source token must not look like an expired target token:
+ * the source side already refreshes its own token when opening the stream.
+ */
+public class CopySourceException extends IOException {
+
+    public CopySourceException(Throwable cause) {
+        super("Failed to read copy source: " + cause.getMessage(), cause);
+    }
+
+    public ProviderErrorCategory getCategory() {
+        ProviderErrorCategory category = ProviderErrorClassifier.classify(getCause());
+        return category == ProviderErrorCategory.AUTH_EXPIRED ? ProviderErrorCategory.PERMANENT : category;
+    }
+}
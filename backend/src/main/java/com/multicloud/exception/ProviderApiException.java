@@ -0,0 +1,43 @@
+package com.multicloud.exception;
+
+import com.multicloud.model.CloudProvider;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Non-success HTTP response from a provider API that is called without an SDK. Carries the
+ * status code and any Retry-After hint so callers can react without parsing messages.
+ */
+public class ProviderApiException extends IOException {
+
+    private final CloudProvider provider;
+    private final int statusCode;
+    private final Duration retryAfter;
+
+    public ProviderApiException(CloudProvider provider, int statusCode, String message, Duration retryAfter) {
+        super(message);
+        this.provider = provider;
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public CloudProvider getProvider() {
+        return provider;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Delay requested by the provider, or null when the response carried none.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public ProviderErrorCategory getCategory() {
+        return ProviderErrorClassifier.classifyStatus(statusCode);
+    }
+}
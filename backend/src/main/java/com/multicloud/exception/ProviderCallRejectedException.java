@@ -0,0 +1,22 @@
+package com.multicloud.exception;
+
+import com.multicloud.model.CloudProvider;
+
+/**
+ * A provider call refused locally by admission control, by the rate limiter or an open
+ * circuit breaker. Service code passes these through unwrapped so that they reach
+ * {@link GlobalExceptionHandler} and are answered with 429 or 503 instead of 500.
+ */
+public abstract class ProviderCallRejectedException extends RuntimeException {
+
+    private final CloudProvider provider;
+
+    protected ProviderCallRejectedException(CloudProvider provider, String message) {
+        super(message);
+        this.provider = provider;
+    }
+
+    public CloudProvider getProvider() {
+        return provider;
+    }
+}
@@ -0,0 +1,15 @@
+package com.multicloud.exception;
+
+/**
+ * What a failed provider call means for the caller, independent of which SDK raised it.
+ */
+public enum ProviderErrorCategory {
+    /** The access token was rejected; refreshing it and retrying once can succeed. */
+    AUTH_EXPIRED,
+    /** The provider asked us to slow down (429, quota errors); retry after a delay. */
+    THROTTLED,
+    /** Network failure or server-side error; retrying the same request may succeed. */
+    TRANSIENT,
+    /** The request itself is wrong or not allowed; retrying cannot help. */
+    PERMANENT
+}
@@ -0,0 +1,245 @@
+package com.multicloud.exception;
+
+import com.dropbox.core.BadResponseCodeException;
+import com.dropbox.core.DbxException;
+import com.dropbox.core.InvalidAccessTokenException;
+import com.dropbox.core.NetworkIOException;
+import com.dropbox.core.RateLimitException;
+import com.dropbox.core.RetryException;
+import com.dropbox.core.ServerException;
+import com.google.api.client.auth.oauth2.TokenResponseException;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpResponseException;
+
+import okhttp3.internal.http2.ConnectionShutdownException;
+import okhttp3.internal.http2.StreamResetException;
+
+import java.io.EOFException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+
+/**
+ * Maps failures from the Google, Dropbox and Graph clients onto {@link ProviderErrorCategory}
+ * by exception type and status code. The first provider-specific exception in the cause
+ * chain decides; otherwise a chain holding a network failure (timeout, reset, refused or
+ * dropped connection) is transient and anything else, including local I/O and parse errors,
+ * permanent.
+ */
+public final class ProviderErrorClassifier {
+
+    // Drive reports quota exhaustion as 403 with one of these reasons
+    private static final Set<String> GOOGLE_RATE_LIMIT_REASONS =
+            Set.of("rateLimitExceeded", "userRateLimitExceeded", "dailyLimitExceeded");
+
+    private ProviderErrorClassifier() {
+    }
+
+    public static ProviderErrorCategory classify(Throwable error) {
+        boolean networkFailure = false;
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            ProviderErrorCategory category = classifyOne(current);
+            if (category != null) {
+                return category;
+            }
+            networkFailure |= isNetworkFailure(current);
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return networkFailure ? ProviderErrorCategory.TRANSIENT : ProviderErrorCategory.PERMANENT;
+    }
+
+    /**
+     * Whether a failed call certainly had no effect at the provider: the connection was never
+     * established, or the provider throttled the request instead of running it. Only these
+     * failures are safe to retry for calls that are not idempotent. Source failures of a copy
+     * do not count; the source side has already done its own retries.
+     */
+    public static boolean isRejectedBeforeProcessing(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof CopySourceException) {
+                return false;
+            }
+            if (current instanceof ConnectException || current instanceof NoRouteToHostException
+                    || current instanceof UnknownHostException) {
+                return true;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return classify(error) == ProviderErrorCategory.THROTTLED;
+    }
+
+    /**
+     * Whether the failure came from the source side of a copy rather than from the provider
+     * the call was sent to.
+     */
+    public static boolean isCopySourceFailure(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof CopySourceException) {
+                return true;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A rejection by our own rate limiter or circuit breaker in the cause chain, or null.
+     * Rejections raised inside an HTTP client come back wrapped in its I/O exceptions, or
+     * attached as suppressed exceptions by OkHttp's asynchronous calls.
+     */
+    public static ProviderCallRejectedException findRejection(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof ProviderCallRejectedException rejection) {
+                return rejection;
+            }
+            for (Throwable suppressed : current.getSuppressed()) {
+                if (suppressed instanceof ProviderCallRejectedException rejection) {
+                    return rejection;
+                }
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Delay the provider asked for before retrying, or null if it did not specify one.
+     */
+    public static Duration retryAfter(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof ProviderApiException apiException) {
+                return apiException.getRetryAfter();
+            }
+            if (current instanceof RetryException retryException) {
+                return retryException.getBackoffMillis() > 0
+                        ? Duration.ofMillis(retryException.getBackoffMillis()) : null;
+            }
+            if (current instanceof HttpResponseException responseException) {
+                return parseRetryAfter(responseException.getHeaders().getFirstHeaderStringValue("Retry-After"));
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    public static ProviderErrorCategory classifyStatus(int statusCode) {
+        if (statusCode == 401) {
+            return ProviderErrorCategory.AUTH_EXPIRED;
+        }
+        if (statusCode == 429) {
+            return ProviderErrorCategory.THROTTLED;
+        }
+        if (statusCode == 408 || statusCode >= 500) {
+            return ProviderErrorCategory.TRANSIENT;
+        }
+        return ProviderErrorCategory.PERMANENT;
+    }
+
+    /**
+     * Parses a Retry-After header given either as delta seconds or as an HTTP date.
+     */
+    public static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(trimmed)));
+        } catch (NumberFormatException ignored) {
+            // Not delta seconds; try the date form
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME);
+            Duration delay = Duration.between(ZonedDateTime.now(at.getZone()), at);
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Timeouts, resets, refused connections and shut-down HTTP/2 streams from any client.
+     */
+    private static boolean isNetworkFailure(Throwable error) {
+        return error instanceof InterruptedIOException
+                || error instanceof SocketException
+                || error instanceof UnknownHostException
+                || error instanceof EOFException
+                || error instanceof HttpTimeoutException
+                || error instanceof StreamResetException
+                || error instanceof ConnectionShutdownException;
+    }
+
+    private static ProviderErrorCategory classifyOne(Throwable error) {
+        if (error instanceof TokenRefreshRejectedException) {
+            return ProviderErrorCategory.PERMANENT;
+        }
+        if (error instanceof ProviderApiException apiException) {
+            return apiException.getCategory();
+        }
+        if (error instanceof CopySourceException sourceException) {
+            return sourceException.getCategory();
+        }
+
+        // Google: a failed refresh (invalid_grant etc.) cannot be fixed by refreshing again
+        if (error instanceof TokenResponseException) {
+            return ProviderErrorCategory.PERMANENT;
+        }
+        if (error instanceof GoogleJsonResponseException jsonException
+                && jsonException.getStatusCode() == 403 && hasRateLimitReason(jsonException.getDetails())) {
+            return ProviderErrorCategory.THROTTLED;
+        }
+        if (error instanceof HttpResponseException responseException) {
+            return classifyStatus(responseException.getStatusCode());
+        }
+
+        // Dropbox
+        if (error instanceof InvalidAccessTokenException) {
+            return ProviderErrorCategory.AUTH_EXPIRED;
+        }
+        if (error instanceof RateLimitException) {
+            return ProviderErrorCategory.THROTTLED;
+        }
+        if (error instanceof RetryException || error instanceof ServerException || error instanceof NetworkIOException) {
+            return ProviderErrorCategory.TRANSIENT;
+        }
+        if (error instanceof BadResponseCodeException codeException) {
+            return classifyStatus(codeException.getStatusCode());
+        }
+        if (error instanceof DbxException) {
+            return ProviderErrorCategory.PERMANENT;
+        }
+        return null;
+    }
+
+    /**
+     * Whether a Google error (e.g. a 403 inside a batch response) is a rate limit rather than
+     * a permission problem.
+     */
+    public static boolean hasRateLimitReason(GoogleJsonError details) {
+        if (details == null || details.getErrors() == null) {
+            return false;
+        }
+        return details.getErrors().stream()
+                .anyMatch(info -> GOOGLE_RATE_LIMIT_REASONS.contains(info.getReason()));
+    }
+}
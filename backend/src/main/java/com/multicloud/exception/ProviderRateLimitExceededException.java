@@ -0,0 +1,24 @@
+package com.multicloud.exception;
+
+import com.multicloud.model.CloudProvider;
+
+import java.time.Duration;
+
+/**
+ * Raised when a provider request could not be admitted by the local rate limiter within the
+ * allowed queueing time. That request was not sent to the provider. {@link #getRetryAfter()}
+ * is how long the limiter would have made it wait.
+ */
+public class ProviderRateLimitExceededException extends ProviderCallRejectedException {
+
+    private final Duration retryAfter;
+
+    public ProviderRateLimitExceededException(CloudProvider provider, String message, Duration retryAfter) {
+        super(provider, message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
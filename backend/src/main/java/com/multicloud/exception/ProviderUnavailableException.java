@@ -0,0 +1,14 @@
+package com.multicloud.exception;
+
+import com.multicloud.model.CloudProvider;
+
+/**
+ * Raised instead of calling a provider whose circuit breaker is open, i.e. one that has
+ * recently been failing most of its requests.
+ */
+public class ProviderUnavailableException extends ProviderCallRejectedException {
+
+    public ProviderUnavailableException(CloudProvider provider, String message) {
+        super(provider, message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.multicloud.exception;
+
+/**
+ * The provider's token endpoint rejected the refresh token itself, e.g. because it was
+ * revoked or rotated out. Refreshing again cannot help, so this is always permanent; the
+ * account has to be reconnected.
+ */
+public class TokenRefreshRejectedException extends Exception {
+
+    public TokenRefreshRejectedException(Long accountId, Throwable cause) {
+        super("Refresh token rejected for account " + accountId + ": " + cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,55 @@
+package com.multicloud.model;
+
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "batch_jobs", indexes = {
+    @Index(name = "idx_batch_job_user", columnList = "user_id,created_at"),
+    @Index(name = "idx_batch_job_status", columnList = "status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    @Builder.Default
+    private JobStatus status = JobStatus.PENDING;
+
+    @Column(name = "total_items", nullable = false)
+    private Integer totalItems;
+
+    @Column(name = "completed_items", nullable = false)
+    @Builder.Default
+    private Integer completedItems = 0;
+
+    @Column(name = "failed_items", nullable = false)
+    @Builder.Default
+    private Integer failedItems = 0;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public enum JobStatus {
+        PENDING, RUNNING, COMPLETED, COMPLETED_WITH_ERRORS
+    }
+}
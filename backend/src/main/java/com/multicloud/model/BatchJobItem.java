@@ -0,0 +1,70 @@
+package com.multicloud.model;
+
+import lombok.*;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "batch_job_items", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_batch_job_item_index", columnNames = {"job_id", "item_index"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchJobItem {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "job_id", nullable = false)
+    private BatchJob job;
+
+    @Column(name = "item_index", nullable = false)
+    private Integer itemIndex; // Position in the submitted request
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Operation operation;
+
+    @Column(name = "file_id", nullable = false)
+    private Long fileId;
+
+    @Column(name = "cloud_account_id")
+    private Long cloudAccountId;
+
+    @Column(name = "new_name", length = 500)
+    private String newName;
+
+    @Column(name = "new_path", length = 1000)
+    private String newPath;
+
+    @Column(name = "target_account_id")
+    private Long targetAccountId;
+
+    @Column(name = "target_folder_id", length = 500)
+    private String targetFolderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private ItemStatus status = ItemStatus.PENDING;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    @Column(name = "result_file_id")
+    private Long resultFileId;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum Operation {
+        DELETE, MOVE, COPY, RENAME, STAR, UNSTAR
+    }
+
+    public enum ItemStatus {
+        PENDING, SUCCEEDED, FAILED
+    }
+}
@@ -2,6 +2,7 @@ package com.multicloud.model;
 
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import jakarta.persistence.*;
@@ -9,6 +10,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "cloud_accounts")
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -47,6 +49,14 @@ public class CloudAccount {
     @Column(name = "is_active")
     private Boolean isActive = true;
 
+    // Provider-specific incremental sync position (Drive page token, Graph delta link, Dropbox cursor)
+    @Column(name = "sync_cursor", columnDefinition = "TEXT")
+    private String syncCursor;
+
+    // Set while a full enumeration is paged through; an interrupted one restarts from the first page
+    @Column(name = "full_sync_in_progress")
+    private Boolean fullSyncInProgress;
+
     @CreationTimestamp
     @Column(name = "connected_at", updatable = false)
     private LocalDateTime connectedAt;
@@ -54,4 +64,8 @@ public class CloudAccount {
     @UpdateTimestamp
     @Column(name = "last_synced")
     private LocalDateTime lastSynced;
+
+    // Set only by a completed file sync; last_synced also moves on token refreshes
+    @Column(name = "files_synced_at")
+    private LocalDateTime filesSyncedAt;
 }
\ No newline at end of file
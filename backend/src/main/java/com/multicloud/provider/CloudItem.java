@@ -0,0 +1,21 @@
+package com.multicloud.provider;
+
+import java.time.LocalDateTime;
+
+/**
+ * A file or folder as reported by a provider, mapped straight from the provider response.
+ * Fields the provider did not return are null.
+ */
+public record CloudItem(
+        String id,
+        String name,
+        String mimeType,
+        Long size,
+        boolean folder,
+        String parentId,
+        String webViewLink,
+        String thumbnailUrl,
+        LocalDateTime modifiedAt) {
+
+    public static final String FOLDER_MIME_TYPE = "folder";
+}
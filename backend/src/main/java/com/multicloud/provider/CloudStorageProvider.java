@@ -0,0 +1,112 @@
+package com.multicloud.provider;
+
+import com.multicloud.dto.SyncDelta;
+import com.multicloud.exception.ProviderApiException;
+import com.multicloud.model.CloudProvider;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * File operations of one cloud provider. Implementations are Spring beans collected by
+ * {@link CloudStorageProviderRegistry}; optional operations are advertised through
+ * {@link #getCapabilities()} and fail with {@link UnsupportedOperationException} otherwise.
+ */
+public interface CloudStorageProvider {
+
+    CloudProvider getProvider();
+
+    Set<ProviderCapability> getCapabilities();
+
+    default boolean supports(ProviderCapability capability) {
+        return getCapabilities().contains(capability);
+    }
+
+    /**
+     * Exchanges a refresh token. The result carries {@code access_token} and, when the provider
+     * returns them, {@code refresh_token} and {@code expires_in}.
+     */
+    Map<String, String> refreshAccessToken(String refreshToken) throws Exception;
+
+    /**
+     * Reads one page of changes. A null cursor starts a full enumeration; the returned cursor
+     * is the position to persist once the page has been applied.
+     */
+    SyncDelta<CloudItem> listChanges(String accessToken, String cursor) throws Exception;
+
+    CloudItem uploadFile(String accessToken, MultipartFile file, String folderPath) throws Exception;
+
+    /**
+     * Uploads several files. The result is aligned with the input and carries the provider's
+     * error for each file it refused.
+     */
+    default List<UploadResult> uploadFiles(String accessToken, List<MultipartFile> files) throws Exception {
+        List<UploadResult> uploaded = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            uploaded.add(UploadResult.uploaded(uploadFile(accessToken, file, null)));
+        }
+        return uploaded;
+    }
+
+    /**
+     * Opens the content stream of a file. The caller owns the returned stream and must close it.
+     */
+    InputStream openDownloadStream(String accessToken, String fileId) throws Exception;
+
+    default InputStream openExportStream(String accessToken, String fileId, String exportMimeType) throws Exception {
+        throw new UnsupportedOperationException("Export not supported for " + getProvider());
+    }
+
+    void deleteFile(String accessToken, String fileId) throws Exception;
+
+    /**
+     * Deletes several files and returns the failures keyed by file id; files that no longer
+     * exist count as deleted.
+     */
+    default Map<String, ProviderApiException> deleteFiles(String accessToken, List<String> fileIds) throws Exception {
+        Map<String, ProviderApiException> failures = new HashMap<>();
+        for (String fileId : fileIds) {
+            try {
+                deleteFile(accessToken, fileId);
+            } catch (ProviderApiException e) {
+                if (e.getStatusCode() != 404) {
+                    failures.put(fileId, e);
+                }
+            }
+        }
+        return failures;
+    }
+
+    CloudItem renameFile(String accessToken, String fileId, String newName) throws Exception;
+
+    default CloudItem moveFile(String accessToken, String fileId, String newPath) throws Exception {
+        throw new UnsupportedOperationException("Move operation not supported for " + getProvider());
+    }
+
+    /**
+     * Copies a file within the account. {@code targetFolderId} is null for the root.
+     */
+    default CloudItem copyFile(String accessToken, String fileId, String targetFolderId, String fileName) throws Exception {
+        throw new UnsupportedOperationException("Server-side copy not supported for " + getProvider());
+    }
+
+    CloudItem createFolder(String accessToken, String folderName, String parentFolderId) throws Exception;
+
+    StorageQuota getStorageQuota(String accessToken) throws Exception;
+
+    /**
+     * Browser URL for previewing a file that can be built without calling the provider, or null.
+     */
+    default String getPreviewUrl(String fileId) {
+        return null;
+    }
+
+    default String getTemporaryLink(String accessToken, String fileId) throws Exception {
+        throw new UnsupportedOperationException("Temporary links not supported for " + getProvider());
+    }
+}
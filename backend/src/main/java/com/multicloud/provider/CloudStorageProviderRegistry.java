@@ -0,0 +1,40 @@
+package com.multicloud.provider;
+
+import com.multicloud.model.CloudProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Looks up the {@link CloudStorageProvider} bean of a provider. Adding a provider only needs a
+ * new bean; the orchestration code dispatches through this registry. Every implementation is
+ * handed out wrapped in a {@link MeteredCloudStorageProvider}.
+ */
+@Component
+public class CloudStorageProviderRegistry {
+
+    private final Map<CloudProvider, CloudStorageProvider> providers = new EnumMap<>(CloudProvider.class);
+
+    public CloudStorageProviderRegistry(List<CloudStorageProvider> implementations, MeterRegistry meterRegistry) {
+        Map<CloudProvider, CloudStorageProvider> byProvider = new EnumMap<>(CloudProvider.class);
+        for (CloudStorageProvider implementation : implementations) {
+            CloudStorageProvider previous = byProvider.put(implementation.getProvider(), implementation);
+            if (previous != null) {
+                throw new IllegalStateException("Duplicate storage provider for " + implementation.getProvider()
+                        + ": " + previous.getClass().getName() + " and " + implementation.getClass().getName());
+            }
+            providers.put(implementation.getProvider(), new MeteredCloudStorageProvider(implementation, meterRegistry));
+        }
+    }
+
+    public CloudStorageProvider get(CloudProvider provider) {
+        CloudStorageProvider implementation = providers.get(provider);
+        if (implementation == null) {
+            throw new RuntimeException("Unsupported cloud provider: " + provider);
+        }
+        return implementation;
+    }
+}
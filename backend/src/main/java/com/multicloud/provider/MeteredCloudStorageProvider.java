@@ -0,0 +1,219 @@
+package com.multicloud.provider;
+
+import com.multicloud.dto.SyncDelta;
+import com.multicloud.exception.ProviderApiException;
+import com.multicloud.exception.ProviderErrorClassifier;
+import com.multicloud.model.CloudProvider;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records every call of a {@link CloudStorageProvider} in Micrometer: a {@code provider.requests}
+ * timer tagged with provider, operation and outcome (success or the
+ * {@link com.multicloud.exception.ProviderErrorCategory}), plus bytes transferred by uploads and
+ * downloads. Each attempt is timed separately, so retries show up as extra requests.
+ */
+class MeteredCloudStorageProvider implements CloudStorageProvider {
+
+    private static final String SUCCESS = "success";
+
+    private final CloudStorageProvider delegate;
+    private final MeterRegistry meterRegistry;
+    private final String providerTag;
+
+    MeteredCloudStorageProvider(CloudStorageProvider delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.providerTag = delegate.getProvider().name().toLowerCase(Locale.ROOT);
+    }
+
+    @FunctionalInterface
+    private interface Operation<T> {
+        T call() throws Exception;
+    }
+
+    @Override
+    public CloudProvider getProvider() {
+        return delegate.getProvider();
+    }
+
+    @Override
+    public Set<ProviderCapability> getCapabilities() {
+        return delegate.getCapabilities();
+    }
+
+    @Override
+    public Map<String, String> refreshAccessToken(String refreshToken) throws Exception {
+        return timed("token_refresh", () -> delegate.refreshAccessToken(refreshToken));
+    }
+
+    @Override
+    public SyncDelta<CloudItem> listChanges(String accessToken, String cursor) throws Exception {
+        return timed("list", () -> delegate.listChanges(accessToken, cursor));
+    }
+
+    @Override
+    public CloudItem uploadFile(String accessToken, MultipartFile file, String folderPath) throws Exception {
+        CloudItem uploaded = timed("upload", () -> delegate.uploadFile(accessToken, file, folderPath));
+        recordTransfer("upload", file.getSize());
+        return uploaded;
+    }
+
+    @Override
+    public List<UploadResult> uploadFiles(String accessToken, List<MultipartFile> files) throws Exception {
+        List<UploadResult> uploaded = timed("upload_batch", () -> delegate.uploadFiles(accessToken, files));
+        for (int i = 0; i < uploaded.size(); i++) {
+            if (uploaded.get(i).succeeded()) {
+                recordTransfer("upload", files.get(i).getSize());
+            }
+        }
+        return uploaded;
+    }
+
+    @Override
+    public InputStream openDownloadStream(String accessToken, String fileId) throws Exception {
+        return new CountingInputStream(timed("download", () -> delegate.openDownloadStream(accessToken, fileId)));
+    }
+
+    @Override
+    public InputStream openExportStream(String accessToken, String fileId, String exportMimeType) throws Exception {
+        return new CountingInputStream(
+                timed("export", () -> delegate.openExportStream(accessToken, fileId, exportMimeType)));
+    }
+
+    @Override
+    public void deleteFile(String accessToken, String fileId) throws Exception {
+        timed("delete", () -> {
+            delegate.deleteFile(accessToken, fileId);
+            return null;
+        });
+    }
+
+    @Override
+    public Map<String, ProviderApiException> deleteFiles(String accessToken, List<String> fileIds) throws Exception {
+        return timed("delete_batch", () -> delegate.deleteFiles(accessToken, fileIds));
+    }
+
+    @Override
+    public CloudItem renameFile(String accessToken, String fileId, String newName) throws Exception {
+        return timed("rename", () -> delegate.renameFile(accessToken, fileId, newName));
+    }
+
+    @Override
+    public CloudItem moveFile(String accessToken, String fileId, String newPath) throws Exception {
+        return timed("move", () -> delegate.moveFile(accessToken, fileId, newPath));
+    }
+
+    @Override
+    public CloudItem copyFile(String accessToken, String fileId, String targetFolderId, String fileName) throws Exception {
+        return timed("copy", () -> delegate.copyFile(accessToken, fileId, targetFolderId, fileName));
+    }
+
+    @Override
+    public CloudItem createFolder(String accessToken, String folderName, String parentFolderId) throws Exception {
+        return timed("create_folder", () -> delegate.createFolder(accessToken, folderName, parentFolderId));
+    }
+
+    @Override
+    public StorageQuota getStorageQuota(String accessToken) throws Exception {
+        return timed("quota", () -> delegate.getStorageQuota(accessToken));
+    }
+
+    @Override
+    public String getPreviewUrl(String fileId) {
+        return delegate.getPreviewUrl(fileId);
+    }
+
+    @Override
+    public String getTemporaryLink(String accessToken, String fileId) throws Exception {
+        return timed("temporary_link", () -> delegate.getTemporaryLink(accessToken, fileId));
+    }
+
+    private <T> T timed(String operation, Operation<T> call) throws Exception {
+        long start = System.nanoTime();
+        String outcome = SUCCESS;
+        try {
+            return call.call();
+        } catch (Exception e) {
+            outcome = ProviderErrorClassifier.classify(e).name().toLowerCase(Locale.ROOT);
+            throw e;
+        } finally {
+            Timer.builder("provider.requests")
+                    .description("Calls to cloud provider APIs")
+                    .tags("provider", providerTag, "operation", operation, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void recordTransfer(String direction, long bytes) {
+        meterRegistry.counter("provider.transfer.bytes", "provider", providerTag, "direction", direction)
+                .increment(bytes);
+        DistributionSummary.builder("provider.transfer.size")
+                .description("Size of individual file transfers")
+                .baseUnit("bytes")
+                .tags("provider", providerTag, "direction", direction)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    /**
+     * Counts the bytes a caller actually reads and records them once the stream is closed.
+     */
+    private final class CountingInputStream extends FilterInputStream {
+
+        private long bytesRead;
+        private boolean closed;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytesRead++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                bytesRead += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            bytesRead += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                recordTransfer("download", bytesRead);
+            }
+            super.close();
+        }
+    }
+}
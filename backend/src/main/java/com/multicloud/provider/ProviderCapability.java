@@ -0,0 +1,24 @@
+package com.multicloud.provider;
+
+/**
+ * Optional features of a {@link CloudStorageProvider}. The orchestrator checks these instead of
+ * the provider type before taking a provider-specific fast path.
+ */
+public enum ProviderCapability {
+    // Incremental change listing from a stored cursor
+    DELTA_SYNC,
+    // Several deletes in one request or job
+    BATCH_DELETE,
+    // Several uploads committed with one call
+    BATCH_UPLOAD,
+    // Copies within the same account without moving the bytes through this server
+    SERVER_SIDE_COPY,
+    // Moves to an arbitrary path
+    MOVE,
+    // Native documents that have to be exported to a download format
+    EXPORT,
+    // Short-lived direct download links
+    TEMPORARY_LINKS,
+    // Item ids are paths, so removing a folder removes every id below it
+    PATH_IDS
+}
@@ -0,0 +1,8 @@
+package com.multicloud.provider;
+
+/**
+ * Storage allocation of an account in bytes; either value is null when the provider does not
+ * report it.
+ */
+public record StorageQuota(Long total, Long used) {
+}
@@ -0,0 +1,20 @@
+package com.multicloud.provider;
+
+/**
+ * Outcome of one file of a batch upload: the uploaded item, or the provider's reason for
+ * refusing it.
+ */
+public record UploadResult(CloudItem item, String error) {
+
+    public static UploadResult uploaded(CloudItem item) {
+        return new UploadResult(item, null);
+    }
+
+    public static UploadResult failed(String error) {
+        return new UploadResult(null, error);
+    }
+
+    public boolean succeeded() {
+        return item != null;
+    }
+}
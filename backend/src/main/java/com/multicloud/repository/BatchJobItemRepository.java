@@ -0,0 +1,45 @@
+package com.multicloud.repository;
+
+import com.multicloud.model.BatchJobItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BatchJobItemRepository extends JpaRepository<BatchJobItem, Long>, BatchJobItemRepositoryCustom {
+    List<BatchJobItem> findByJobIdOrderByItemIndex(Long jobId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE BatchJobItem i SET i.status = :status, i.error = :error, i.resultFileId = :resultFileId, " +
+           "i.updatedAt = :updatedAt WHERE i.job.id = :jobId AND i.itemIndex = :itemIndex")
+    int markFinished(@Param("jobId") Long jobId,
+                     @Param("itemIndex") Integer itemIndex,
+                     @Param("status") BatchJobItem.ItemStatus status,
+                     @Param("error") String error,
+                     @Param("resultFileId") Long resultFileId,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE BatchJobItem i SET i.status = :failed, i.error = :error, i.updatedAt = :updatedAt " +
+           "WHERE i.job.id IN :jobIds AND i.status = :pending")
+    int failPending(@Param("jobIds") Collection<Long> jobIds,
+                    @Param("pending") BatchJobItem.ItemStatus pending,
+                    @Param("failed") BatchJobItem.ItemStatus failed,
+                    @Param("error") String error,
+                    @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BatchJobItem i WHERE i.job.id IN " +
+           "(SELECT j.id FROM BatchJob j WHERE j.finishedAt < :cutoff)")
+    int deleteForJobsFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,14 @@
+package com.multicloud.repository;
+
+import com.multicloud.model.BatchJobItem;
+
+import java.util.List;
+
+public interface BatchJobItemRepositoryCustom {
+
+    /**
+     * Inserts the items of a job with JDBC batching. Items are addressed by job id and
+     * item index afterwards, so generated ids are not read back.
+     */
+    void insertAll(Long jobId, List<BatchJobItem> items);
+}
@@ -0,0 +1,46 @@
+package com.multicloud.repository;
+
+import com.multicloud.model.BatchJobItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class BatchJobItemRepositoryImpl implements BatchJobItemRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO batch_job_items (" +
+            "job_id, item_index, operation, file_id, cloud_account_id, new_name, new_path, " +
+            "target_account_id, target_folder_id, status, error, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(Long jobId, List<BatchJobItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, items, BATCH_SIZE, (ps, item) -> {
+            ps.setLong(1, jobId);
+            ps.setInt(2, item.getItemIndex());
+            ps.setString(3, item.getOperation().name());
+            ps.setLong(4, item.getFileId());
+            ps.setObject(5, item.getCloudAccountId(), Types.BIGINT);
+            ps.setString(6, item.getNewName());
+            ps.setString(7, item.getNewPath());
+            ps.setObject(8, item.getTargetAccountId(), Types.BIGINT);
+            ps.setString(9, item.getTargetFolderId());
+            ps.setString(10, item.getStatus().name());
+            ps.setString(11, item.getError());
+            ps.setTimestamp(12, now);
+        });
+    }
+}
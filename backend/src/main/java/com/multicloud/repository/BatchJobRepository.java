@@ -0,0 +1,56 @@
+package com.multicloud.repository;
+
+import com.multicloud.model.BatchJob;
+import com.multicloud.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BatchJobRepository extends JpaRepository<BatchJob, Long> {
+    Optional<BatchJob> findByIdAndUser(Long id, User user);
+
+    List<BatchJob> findByStatusIn(Collection<BatchJob.JobStatus> statuses);
+
+    // Counters are incremented in the database since several workers report on one job
+    @Modifying
+    @Transactional
+    @Query("UPDATE BatchJob j SET j.completedItems = j.completedItems + :succeeded, " +
+           "j.failedItems = j.failedItems + :failed WHERE j.id = :id")
+    int addProgress(@Param("id") Long id, @Param("succeeded") int succeeded, @Param("failed") int failed);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE BatchJob j SET j.status = :status, j.startedAt = :startedAt WHERE j.id = :id")
+    int markStarted(@Param("id") Long id,
+                    @Param("status") BatchJob.JobStatus status,
+                    @Param("startedAt") LocalDateTime startedAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE BatchJob j SET j.status = :status, j.finishedAt = :finishedAt WHERE j.id = :id")
+    int markFinished(@Param("id") Long id,
+                     @Param("status") BatchJob.JobStatus status,
+                     @Param("finishedAt") LocalDateTime finishedAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE BatchJob j SET j.failedItems = j.totalItems - j.completedItems, j.status = :status, " +
+           "j.finishedAt = :finishedAt WHERE j.id IN :ids")
+    int failRemaining(@Param("ids") Collection<Long> ids,
+                      @Param("status") BatchJob.JobStatus status,
+                      @Param("finishedAt") LocalDateTime finishedAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BatchJob j WHERE j.finishedAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
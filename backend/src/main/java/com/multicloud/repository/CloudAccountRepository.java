@@ -4,10 +4,13 @@ import com.multicloud.model.CloudAccount;
 import com.multicloud.model.CloudProvider;
 import com.multicloud.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +18,8 @@ import java.util.Optional;
 public interface CloudAccountRepository extends JpaRepository<CloudAccount, Long> {
     List<CloudAccount> findByUser(User user);
     List<CloudAccount> findByUserAndIsActive(User user, Boolean isActive);
+    List<CloudAccount> findByIsActive(Boolean isActive);
+    List<CloudAccount> findByProviderNameAndIsActive(CloudProvider provider, Boolean isActive);
     Optional<CloudAccount> findByUserAndProviderName(User user, CloudProvider provider);
     Optional<CloudAccount> findByUserAndProviderNameAndAccountEmail(
             User user, CloudProvider provider, String email);
@@ -25,6 +30,51 @@ public interface CloudAccountRepository extends JpaRepository<CloudAccount, Long
     @Query("SELECT SUM(c.usedStorage) FROM CloudAccount c WHERE c.user = :user AND c.isActive = true")
     Long getTotalStorageUsedByUser(@Param("user") User user);
     
-    @Query("SELECT c FROM CloudAccount c WHERE c.isActive = true AND c.tokenExpiry < CURRENT_TIMESTAMP")
-    List<CloudAccount> findAccountsWithExpiredTokens();
-}
\ No newline at end of file
+    @Modifying
+    @Transactional
+    @Query("UPDATE CloudAccount c SET c.accessToken = :accessToken, c.refreshToken = :refreshToken, " +
+           "c.tokenExpiry = :tokenExpiry WHERE c.id = :id")
+    int updateTokens(@Param("id") Long id,
+                     @Param("accessToken") String accessToken,
+                     @Param("refreshToken") String refreshToken,
+                     @Param("tokenExpiry") LocalDateTime tokenExpiry);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CloudAccount c SET c.syncCursor = :syncCursor, c.fullSyncInProgress = :fullSyncInProgress " +
+           "WHERE c.id = :id")
+    int updateSyncState(@Param("id") Long id,
+                        @Param("syncCursor") String syncCursor,
+                        @Param("fullSyncInProgress") Boolean fullSyncInProgress);
+
+    @Modifying
+    @Transactional
+    // The casts type the parameters, which Hibernate cannot infer for a null inside COALESCE
+    @Query("UPDATE CloudAccount c SET c.totalStorage = COALESCE(CAST(:totalStorage AS Long), c.totalStorage), " +
+           "c.usedStorage = COALESCE(CAST(:usedStorage AS Long), c.usedStorage), c.lastSynced = :lastSynced " +
+           "WHERE c.id = :id")
+    int updateStorageUsage(@Param("id") Long id,
+                           @Param("totalStorage") Long totalStorage,
+                           @Param("usedStorage") Long usedStorage,
+                           @Param("lastSynced") LocalDateTime lastSynced);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CloudAccount c SET c.filesSyncedAt = :filesSyncedAt WHERE c.id = :id")
+    int updateFilesSyncedAt(@Param("id") Long id, @Param("filesSyncedAt") LocalDateTime filesSyncedAt);
+
+    @Query("SELECT c.providerName AS providerName, c.accessToken AS accessToken, c.refreshToken AS refreshToken, " +
+           "c.tokenExpiry AS tokenExpiry FROM CloudAccount c WHERE c.id = :id")
+    Optional<StoredTokens> findTokensById(@Param("id") Long id);
+
+    @Query("SELECT c FROM CloudAccount c WHERE c.isActive = true AND c.refreshToken IS NOT NULL " +
+           "AND (c.tokenExpiry IS NULL OR c.tokenExpiry < :threshold) ORDER BY c.tokenExpiry ASC")
+    List<CloudAccount> findRefreshableAccountsWithTokensExpiringBefore(@Param("threshold") LocalDateTime threshold);
+
+    interface StoredTokens {
+        CloudProvider getProviderName();
+        String getAccessToken();
+        String getRefreshToken();
+        LocalDateTime getTokenExpiry();
+    }
+}
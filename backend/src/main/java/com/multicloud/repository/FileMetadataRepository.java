@@ -11,11 +11,12 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long> {
+public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long>, FileMetadataRepositoryCustom {
     List<FileMetadata> findByUser(User user);
     List<FileMetadata> findByCloudAccount(CloudAccount cloudAccount);
     List<FileMetadata> findByUserAndIsTrashed(User user, Boolean isTrashed);
@@ -23,6 +24,13 @@ public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long
     List<FileMetadata> findByUserAndFileNameContainingIgnoreCase(User user, String fileName);
     Optional<FileMetadata> findByCloudAccountAndCloudFileId(
             CloudAccount cloudAccount, String cloudFileId);
+    List<FileMetadata> findByCloudAccountAndCloudFileIdIn(
+            CloudAccount cloudAccount, Collection<String> cloudFileIds);
+    List<FileMetadata> findByCloudAccountAndCloudFileIdStartingWith(
+            CloudAccount cloudAccount, String cloudFileIdPrefix);
+    
+    @Query("SELECT f FROM FileMetadata f JOIN FETCH f.cloudAccount WHERE f.id IN :ids")
+    List<FileMetadata> findAllWithCloudAccountByIdIn(@Param("ids") Collection<Long> ids);
     
     // Folder navigation
     List<FileMetadata> findByCloudAccountAndParentFolderId(
@@ -0,0 +1,13 @@
+package com.multicloud.repository;
+
+import com.multicloud.model.FileMetadata;
+
+import java.util.List;
+
+public interface FileMetadataRepositoryCustom {
+
+    /**
+     * Inserts new rows with JDBC batching. Generated ids are not read back into the entities.
+     */
+    void insertAll(List<FileMetadata> files);
+}
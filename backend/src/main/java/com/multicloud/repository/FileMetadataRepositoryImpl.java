@@ -0,0 +1,56 @@
+package com.multicloud.repository;
+
+import com.multicloud.model.FileMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Plain JDBC insert path for provider listings. Ids stay IDENTITY-generated, which keeps
+ * Hibernate from batching persist calls, so bulk inserts bypass the persistence context.
+ */
+public class FileMetadataRepositoryImpl implements FileMetadataRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO file_metadata (" +
+            "user_id, cloud_account_id, cloud_file_id, file_name, mime_type, file_size, " +
+            "parent_folder_id, is_folder, thumbnail_url, web_view_link, is_starred, is_trashed, " +
+            "is_encrypted, version_number, created_at, modified_at, last_accessed) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<FileMetadata> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, files, BATCH_SIZE, (ps, file) -> {
+            ps.setLong(1, file.getUser().getId());
+            ps.setLong(2, file.getCloudAccount().getId());
+            ps.setString(3, file.getCloudFileId());
+            ps.setString(4, file.getFileName());
+            ps.setString(5, file.getMimeType());
+            ps.setObject(6, file.getFileSize(), Types.BIGINT);
+            ps.setString(7, file.getParentFolderId());
+            ps.setBoolean(8, Boolean.TRUE.equals(file.getIsFolder()));
+            ps.setString(9, file.getThumbnailUrl());
+            ps.setString(10, file.getWebViewLink());
+            ps.setBoolean(11, Boolean.TRUE.equals(file.getIsStarred()));
+            ps.setBoolean(12, Boolean.TRUE.equals(file.getIsTrashed()));
+            ps.setBoolean(13, Boolean.TRUE.equals(file.getIsEncrypted()));
+            ps.setInt(14, file.getVersionNumber() != null ? file.getVersionNumber() : 1);
+            ps.setTimestamp(15, now);
+            ps.setTimestamp(16, file.getModifiedAt() != null ? Timestamp.valueOf(file.getModifiedAt()) : null);
+            ps.setTimestamp(17, now);
+        });
+    }
+}
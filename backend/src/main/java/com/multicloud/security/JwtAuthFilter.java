@@ -37,7 +37,8 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             "/oauth2/",
             "/login",
             "/error",
-            "/actuator/health"
+            "/actuator/health",
+            "/actuator/prometheus"
     );
 
     @Override
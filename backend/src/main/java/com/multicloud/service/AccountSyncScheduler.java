@@ -0,0 +1,244 @@
+package com.multicloud.service;
+
+import com.multicloud.model.CloudAccount;
+import com.multicloud.repository.CloudAccountRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps file_metadata current for every active cloud account so the file list endpoint can
+ * read from the database. Each account has its own interval: it drops to the minimum when a
+ * sync finds changes or the listing is being read, and doubles up to the maximum while the
+ * account stays quiet or keeps failing. Accounts of a provider whose circuit is open are left
+ * until it recovers, keeping their stored listing in place. Accounts with a live change
+ * watcher are only polled as a backstop.
+ */
+@Component
+public class AccountSyncScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountSyncScheduler.class);
+
+    @Value("${sync.scheduler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sync.scheduler.min-interval-seconds:60}")
+    private long minIntervalSeconds;
+
+    @Value("${sync.scheduler.max-interval-seconds:1800}")
+    private long maxIntervalSeconds;
+
+    @Value("${sync.scheduler.refresh-min-age-seconds:30}")
+    private long refreshMinAgeSeconds;
+
+    @Value("${sync.scheduler.watched-backstop-seconds:3600}")
+    private long watchedBackstopSeconds;
+
+    @Autowired
+    private CloudAccountRepository cloudAccountRepository;
+
+    @Autowired
+    private CloudAccountService cloudAccountService;
+
+    @Autowired
+    private ProviderCircuitBreaker circuitBreaker;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    private final Map<Long, SyncState> states = new ConcurrentHashMap<>();
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final Set<Long> watched = ConcurrentHashMap.newKeySet();
+
+    @Scheduled(fixedDelayString = "${sync.scheduler.tick-ms:15000}", initialDelay = 20000)
+    public void dispatchDueSyncs() {
+        if (!enabled) {
+            return;
+        }
+
+        List<CloudAccount> accounts = cloudAccountRepository.findByIsActive(true);
+        Set<Long> activeIds = accounts.stream().map(CloudAccount::getId).collect(Collectors.toSet());
+        states.keySet().retainAll(activeIds);
+
+        Instant now = Instant.now();
+        for (CloudAccount account : accounts) {
+            SyncState state = states.computeIfAbsent(account.getId(), id -> new SyncState(minInterval()));
+            if (state.nextRunAt.isAfter(now) || circuitBreaker.isOpen(account.getProviderName())) {
+                continue;
+            }
+            if (watched.contains(account.getId()) && state.ranWithin(Duration.ofSeconds(watchedBackstopSeconds))) {
+                // A change watcher syncs it on demand; polling is only a backstop in case it stalls
+                continue;
+            }
+            dispatch(account.getId());
+        }
+    }
+
+    /**
+     * Starts a background sync of an account unless one is already running. Returns whether
+     * a sync is running for it afterwards; false means the sync queue was full.
+     */
+    public boolean requestSync(Long accountId) {
+        return dispatch(accountId) || isSyncing(accountId);
+    }
+
+    /**
+     * Handles an explicit refresh of the file list. Refreshes are served by a background sync
+     * and at most one per {@code sync.scheduler.refresh-min-age-seconds}; a more recent sync
+     * is taken as fresh enough. Returns whether a sync is running for the account afterwards.
+     */
+    public boolean requestRefresh(Long accountId) {
+        SyncState state = states.get(accountId);
+        if (state != null && state.ranWithin(Duration.ofSeconds(refreshMinAgeSeconds))) {
+            return isSyncing(accountId);
+        }
+        return requestSync(accountId);
+    }
+
+    /**
+     * Syncs an account on the calling thread unless a sync for it is already running.
+     * Returns false when the call was skipped for that reason.
+     */
+    public boolean syncNow(Long accountId) throws Exception {
+        if (!inFlight.add(accountId)) {
+            return false;
+        }
+        try {
+            SyncState state = states.computeIfAbsent(accountId, id -> new SyncState(minInterval()));
+            try {
+                int changes = cloudAccountService.synchronizeAccount(accountId);
+                state.recordSuccess(changes, minInterval(), maxInterval());
+            } catch (Exception e) {
+                state.recordFailure(maxInterval());
+                throw e;
+            }
+            return true;
+        } finally {
+            inFlight.remove(accountId);
+        }
+    }
+
+    /**
+     * Marks an account's listing as being read, so it is refreshed at the minimum interval
+     * rather than waiting out a long back-off.
+     */
+    public void recordRead(Long accountId) {
+        SyncState state = states.get(accountId);
+        if (state != null) {
+            state.recordRead(minInterval());
+        }
+    }
+
+    /**
+     * Marks an account as covered by a change watcher, such as a Dropbox longpoll, that syncs
+     * it as soon as something changes. Watched accounts are polled only once per
+     * {@code sync.scheduler.watched-backstop-seconds} without a sync.
+     */
+    public void setWatched(Long accountId, boolean isWatched) {
+        if (isWatched) {
+            watched.add(accountId);
+        } else {
+            watched.remove(accountId);
+        }
+    }
+
+    public boolean isSyncing(Long accountId) {
+        return inFlight.contains(accountId);
+    }
+
+    private boolean dispatch(Long accountId) {
+        if (!inFlight.add(accountId)) {
+            return false;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    runSync(accountId);
+                } finally {
+                    inFlight.remove(accountId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(accountId);
+            logger.debug("Sync queue full, account {} deferred to the next tick", accountId);
+            return false;
+        }
+    }
+
+    private void runSync(Long accountId) {
+        SyncState state = states.computeIfAbsent(accountId, id -> new SyncState(minInterval()));
+        try {
+            int changes = cloudAccountService.synchronizeAccount(accountId);
+            state.recordSuccess(changes, minInterval(), maxInterval());
+            logger.debug("Background sync of account {} applied {} changes, next in {}s",
+                    accountId, changes, state.interval.getSeconds());
+        } catch (Exception e) {
+            state.recordFailure(maxInterval());
+            logger.warn("Background sync of account {} failed, retrying in {}s: {}",
+                    accountId, state.interval.getSeconds(), e.getMessage());
+        }
+    }
+
+    private Duration minInterval() {
+        return Duration.ofSeconds(minIntervalSeconds);
+    }
+
+    private Duration maxInterval() {
+        return Duration.ofSeconds(Math.max(minIntervalSeconds, maxIntervalSeconds));
+    }
+
+    private static final class SyncState {
+        private Duration interval;
+        private Instant lastRunAt;
+        private Instant nextRunAt = Instant.now();
+
+        private SyncState(Duration interval) {
+            this.interval = interval;
+        }
+
+        synchronized void recordSuccess(int changes, Duration min, Duration max) {
+            interval = changes > 0 ? min : doubled(max);
+            lastRunAt = Instant.now();
+            nextRunAt = lastRunAt.plus(interval);
+        }
+
+        synchronized void recordFailure(Duration max) {
+            interval = doubled(max);
+            lastRunAt = Instant.now();
+            nextRunAt = lastRunAt.plus(interval);
+        }
+
+        synchronized boolean ranWithin(Duration age) {
+            return lastRunAt != null && lastRunAt.plus(age).isAfter(Instant.now());
+        }
+
+        synchronized void recordRead(Duration min) {
+            interval = min;
+            Instant soonest = (lastRunAt != null ? lastRunAt : Instant.now()).plus(min);
+            if (soonest.isBefore(nextRunAt)) {
+                nextRunAt = soonest;
+            }
+        }
+
+        private Duration doubled(Duration max) {
+            Duration next = interval.multipliedBy(2);
+            return next.compareTo(max) > 0 ? max : next;
+        }
+    }
+}
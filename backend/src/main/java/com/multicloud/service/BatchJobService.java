@@ -0,0 +1,393 @@
+package com.multicloud.service;
+
+import com.multicloud.dto.BatchDeleteResponse;
+import com.multicloud.dto.BatchJobDTO;
+import com.multicloud.dto.BatchJobItemDTO;
+import com.multicloud.dto.BatchOperationRequest;
+import com.multicloud.dto.FileDTO;
+import com.multicloud.dto.FileOperationResult;
+import com.multicloud.model.BatchJob;
+import com.multicloud.model.BatchJobItem;
+import com.multicloud.model.FileMetadata;
+import com.multicloud.model.User;
+import com.multicloud.repository.BatchJobItemRepository;
+import com.multicloud.repository.BatchJobRepository;
+import com.multicloud.repository.FileMetadataRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs multi-file operations as persisted jobs. Items are grouped by cloud account: each
+ * account's deletes go through native batch deletes, and its other operations are spread
+ * over a few lanes that run concurrently on {@code batchJobExecutor}, with the operations on
+ * one file kept in order and ahead of that file's delete. Progress is written to
+ * the job row as items finish so clients can poll it.
+ */
+@Service
+public class BatchJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchJobService.class);
+
+    @Value("${batch.jobs.max-items:1000}")
+    private int maxItems;
+
+    @Value("${batch.jobs.per-account-parallelism:2}")
+    private int perAccountParallelism;
+
+    @Value("${batch.jobs.retention-days:7}")
+    private long retentionDays;
+
+    @Autowired
+    private BatchJobRepository batchJobRepository;
+
+    @Autowired
+    private BatchJobItemRepository batchJobItemRepository;
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    @Autowired
+    private CloudAccountService cloudAccountService;
+
+    @Autowired
+    @Qualifier("batchJobExecutor")
+    private Executor batchJobExecutor;
+
+    /** Lanes the pool rejected, waiting for {@link #dispatchDeferredLanes()}. */
+    private final Deque<Runnable> deferredLanes = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Records a job for the operations and starts it. Items on files the user does not own
+     * are failed up front; everything else runs in the background.
+     */
+    public BatchJobDTO submit(User user, List<BatchOperationRequest> operations) {
+        if (operations.size() > maxItems) {
+            throw new IllegalArgumentException("A batch job can contain at most " + maxItems + " operations");
+        }
+        operations.forEach(this::validate);
+
+        Map<Long, FileMetadata> filesById = new HashMap<>();
+        Set<Long> fileIds = operations.stream().map(BatchOperationRequest::getFileId).collect(Collectors.toSet());
+        for (FileMetadata file : fileMetadataRepository.findAllWithCloudAccountByIdIn(fileIds)) {
+            filesById.put(file.getId(), file);
+        }
+
+        BatchJob job = batchJobRepository.save(BatchJob.builder()
+                .user(user)
+                .totalItems(operations.size())
+                .build());
+
+        List<BatchJobItem> items = new ArrayList<>(operations.size());
+        List<BatchJobItem> runnable = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperationRequest operation = operations.get(i);
+            FileMetadata file = filesById.get(operation.getFileId());
+            boolean owned = file != null && Objects.equals(file.getUser().getId(), user.getId());
+
+            BatchJobItem item = BatchJobItem.builder()
+                    .itemIndex(i)
+                    .operation(operation.getOperation())
+                    .fileId(operation.getFileId())
+                    .cloudAccountId(owned ? file.getCloudAccount().getId() : null)
+                    .newName(operation.getNewName())
+                    .newPath(operation.getNewPath())
+                    .targetAccountId(operation.getTargetAccountId())
+                    .targetFolderId(operation.getTargetFolderId())
+                    .build();
+            if (owned) {
+                runnable.add(item);
+            } else {
+                item.setStatus(BatchJobItem.ItemStatus.FAILED);
+                item.setError("File not found with ID: " + operation.getFileId());
+            }
+            items.add(item);
+        }
+
+        batchJobItemRepository.insertAll(job.getId(), items);
+        if (runnable.size() < items.size()) {
+            batchJobRepository.addProgress(job.getId(), 0, items.size() - runnable.size());
+        }
+
+        logger.info("Batch job {} submitted with {} operations", job.getId(), items.size());
+        start(job.getId(), user.getId(), runnable);
+        return getJob(user, job.getId(), false);
+    }
+
+    public BatchJobDTO getJob(User user, Long jobId, boolean includeItems) {
+        BatchJob job = batchJobRepository.findByIdAndUser(jobId, user)
+                .orElseThrow(() -> new RuntimeException("Batch job not found with ID: " + jobId));
+
+        List<BatchJobItemDTO> items = null;
+        if (includeItems) {
+            items = batchJobItemRepository.findByJobIdOrderByItemIndex(jobId).stream()
+                    .map(item -> BatchJobItemDTO.builder()
+                            .index(item.getItemIndex())
+                            .operation(item.getOperation())
+                            .fileId(item.getFileId())
+                            .status(item.getStatus())
+                            .error(item.getError())
+                            .resultFileId(item.getResultFileId())
+                            .updatedAt(item.getUpdatedAt())
+                            .build())
+                    .collect(Collectors.toList());
+        }
+
+        return BatchJobDTO.builder()
+                .id(job.getId())
+                .status(job.getStatus())
+                .totalItems(job.getTotalItems())
+                .completedItems(job.getCompletedItems())
+                .failedItems(job.getFailedItems())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .items(items)
+                .build();
+    }
+
+    /**
+     * Jobs are only run in memory, so any left unfinished by a previous shutdown are closed
+     * with their pending items failed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedJobs() {
+        List<Long> interrupted = batchJobRepository
+                .findByStatusIn(List.of(BatchJob.JobStatus.PENDING, BatchJob.JobStatus.RUNNING)).stream()
+                .map(BatchJob::getId)
+                .collect(Collectors.toList());
+        if (interrupted.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        batchJobItemRepository.failPending(interrupted, BatchJobItem.ItemStatus.PENDING,
+                BatchJobItem.ItemStatus.FAILED, "Interrupted by a server restart", now);
+        batchJobRepository.failRemaining(interrupted, BatchJob.JobStatus.COMPLETED_WITH_ERRORS, now);
+        logger.warn("Closed {} batch jobs interrupted by a restart", interrupted.size());
+    }
+
+    @Scheduled(fixedDelayString = "${batch.jobs.purge-interval-ms:3600000}", initialDelay = 300000)
+    public void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        batchJobItemRepository.deleteForJobsFinishedBefore(cutoff);
+        int purged = batchJobRepository.deleteFinishedBefore(cutoff);
+        if (purged > 0) {
+            logger.info("Purged {} batch jobs finished before {}", purged, cutoff);
+        }
+    }
+
+    private void validate(BatchOperationRequest operation) {
+        switch (operation.getOperation()) {
+            case RENAME -> {
+                if (operation.getNewName() == null || operation.getNewName().isBlank()) {
+                    throw new IllegalArgumentException("New file name is required for RENAME of file " + operation.getFileId());
+                }
+            }
+            case MOVE -> {
+                if (operation.getNewPath() == null || operation.getNewPath().isBlank()) {
+                    throw new IllegalArgumentException("New path is required for MOVE of file " + operation.getFileId());
+                }
+            }
+            case COPY -> {
+                if (operation.getTargetAccountId() == null) {
+                    throw new IllegalArgumentException("Target account is required for COPY of file " + operation.getFileId());
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void start(Long jobId, Long userId, List<BatchJobItem> items) {
+        if (items.isEmpty()) {
+            finish(jobId);
+            return;
+        }
+        batchJobRepository.markStarted(jobId, BatchJob.JobStatus.RUNNING, LocalDateTime.now());
+
+        Map<Long, List<BatchJobItem>> itemsByAccount = new LinkedHashMap<>();
+        for (BatchJobItem item : items) {
+            itemsByAccount.computeIfAbsent(item.getCloudAccountId(), id -> new ArrayList<>()).add(item);
+        }
+
+        List<Runnable> lanes = new ArrayList<>();
+        for (List<BatchJobItem> accountItems : itemsByAccount.values()) {
+            lanes.addAll(accountLanes(jobId, userId, accountItems));
+        }
+
+        AtomicInteger remaining = new AtomicInteger(lanes.size());
+        for (Runnable lane : lanes) {
+            Runnable task = () -> {
+                try {
+                    lane.run();
+                } catch (Exception e) {
+                    logger.error("Batch job {} lane failed", jobId, e);
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        finish(jobId);
+                    }
+                }
+            };
+            if (!deferredLanes.isEmpty() || !tryExecute(task)) {
+                // Saturated pool: park the lane for the drain below, never run it on the caller
+                logger.warn("Batch job pool is saturated, deferring a lane of job {}", jobId);
+                deferredLanes.offerLast(task);
+            }
+        }
+    }
+
+    /**
+     * Splits one account's items into at most {@code perAccountParallelism} lanes. All items on
+     * a file share a lane and run in submission order. Deletes go through one batch delete; a
+     * delete of a file that also has other operations in the job runs after the lanes holding
+     * them are done, on the last of those lanes to finish, so it never overtakes them.
+     */
+    private List<Runnable> accountLanes(Long jobId, Long userId, List<BatchJobItem> items) {
+        Map<Long, List<BatchJobItem>> othersByFile = new LinkedHashMap<>();
+        List<BatchJobItem> deletes = new ArrayList<>();
+        for (BatchJobItem item : items) {
+            if (item.getOperation() == BatchJobItem.Operation.DELETE) {
+                deletes.add(item);
+            } else {
+                othersByFile.computeIfAbsent(item.getFileId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+        List<List<BatchJobItem>> files = new ArrayList<>(othersByFile.values());
+
+        int parallelism = Math.max(1, perAccountParallelism);
+        if (parallelism == 1) {
+            return List.of(() -> {
+                files.forEach(fileItems -> fileItems.forEach(item -> runItem(jobId, userId, item)));
+                if (!deletes.isEmpty()) {
+                    runDeletes(jobId, deletes);
+                }
+            });
+        }
+
+        List<BatchJobItem> independentDeletes = new ArrayList<>();
+        List<BatchJobItem> dependentDeletes = new ArrayList<>();
+        for (BatchJobItem delete : deletes) {
+            (othersByFile.containsKey(delete.getFileId()) ? dependentDeletes : independentDeletes).add(delete);
+        }
+
+        List<Runnable> lanes = new ArrayList<>();
+        if (!independentDeletes.isEmpty()) {
+            lanes.add(() -> runDeletes(jobId, independentDeletes));
+        }
+        int laneCount = Math.min(parallelism - lanes.size(), files.size());
+        AtomicInteger running = new AtomicInteger(laneCount);
+        for (int lane = 0; lane < laneCount; lane++) {
+            List<BatchJobItem> laneItems = new ArrayList<>();
+            for (int i = lane; i < files.size(); i += laneCount) {
+                laneItems.addAll(files.get(i));
+            }
+            lanes.add(() -> {
+                try {
+                    laneItems.forEach(item -> runItem(jobId, userId, item));
+                } finally {
+                    if (running.decrementAndGet() == 0 && !dependentDeletes.isEmpty()) {
+                        runDeletes(jobId, dependentDeletes);
+                    }
+                }
+            });
+        }
+        return lanes;
+    }
+
+    /**
+     * Hands lanes parked by a saturated pool back to it, oldest first, until it rejects again.
+     */
+    @Scheduled(fixedDelayString = "${batch.jobs.deferred-retry-interval-ms:1000}")
+    public void dispatchDeferredLanes() {
+        Runnable task;
+        while ((task = deferredLanes.pollFirst()) != null) {
+            if (!tryExecute(task)) {
+                deferredLanes.offerFirst(task);
+                return;
+            }
+        }
+    }
+
+    private boolean tryExecute(Runnable task) {
+        try {
+            batchJobExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void runDeletes(Long jobId, List<BatchJobItem> items) {
+        List<Long> fileIds = items.stream().map(BatchJobItem::getFileId).collect(Collectors.toList());
+        BatchDeleteResponse response = cloudAccountService.batchDeleteFiles(fileIds);
+
+        Map<Long, FileOperationResult> results = new HashMap<>();
+        for (FileOperationResult result : response.getResults()) {
+            results.put(result.getFileId(), result);
+        }
+        for (BatchJobItem item : items) {
+            FileOperationResult result = results.get(item.getFileId());
+            recordResult(jobId, item, null, result != null && result.isSuccess() ? null
+                    : result != null ? result.getError() : "Delete did not report a result");
+        }
+    }
+
+    private void runItem(Long jobId, Long userId, BatchJobItem item) {
+        try {
+            FileDTO result = switch (item.getOperation()) {
+                case MOVE -> cloudAccountService.moveFile(item.getFileId(), item.getNewPath());
+                case COPY -> cloudAccountService.copyFile(item.getFileId(), item.getTargetAccountId(),
+                        item.getTargetFolderId(), userId);
+                case RENAME -> cloudAccountService.renameFile(item.getFileId(), item.getNewName());
+                case STAR -> cloudAccountService.setStarred(item.getFileId(), true);
+                case UNSTAR -> cloudAccountService.setStarred(item.getFileId(), false);
+                case DELETE -> throw new IllegalStateException("Deletes are run as a batch");
+            };
+            recordResult(jobId, item, result != null ? result.getId() : null, null);
+        } catch (Exception e) {
+            logger.warn("Batch job {} item {} ({} of file {}) failed: {}",
+                    jobId, item.getItemIndex(), item.getOperation(), item.getFileId(), e.getMessage());
+            recordResult(jobId, item, null, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    private void recordResult(Long jobId, BatchJobItem item, Long resultFileId, String error) {
+        boolean succeeded = error == null;
+        batchJobItemRepository.markFinished(jobId, item.getItemIndex(),
+                succeeded ? BatchJobItem.ItemStatus.SUCCEEDED : BatchJobItem.ItemStatus.FAILED,
+                error, resultFileId, LocalDateTime.now());
+        batchJobRepository.addProgress(jobId, succeeded ? 1 : 0, succeeded ? 0 : 1);
+    }
+
+    private void finish(Long jobId) {
+        batchJobRepository.findById(jobId).ifPresent(job -> {
+            BatchJob.JobStatus status = job.getFailedItems() > 0
+                    ? BatchJob.JobStatus.COMPLETED_WITH_ERRORS : BatchJob.JobStatus.COMPLETED;
+            batchJobRepository.markFinished(jobId, status, LocalDateTime.now());
+            logger.info("Batch job {} finished: {} succeeded, {} failed",
+                    jobId, job.getCompletedItems(), job.getFailedItems());
+        });
+    }
+}
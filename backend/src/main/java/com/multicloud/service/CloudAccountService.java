@@ -1,23 +1,44 @@
 package com.multicloud.service;
 
-import com.google.api.services.drive.model.File;
 import com.multicloud.dto.*;
+import com.multicloud.exception.CopySourceException;
+import com.multicloud.exception.ProviderApiException;
+import com.multicloud.exception.ProviderCallRejectedException;
+import com.multicloud.exception.ProviderErrorCategory;
+import com.multicloud.exception.ProviderErrorClassifier;
 import com.multicloud.model.*;
+import com.multicloud.provider.CloudItem;
+import com.multicloud.provider.CloudStorageProvider;
+import com.multicloud.provider.CloudStorageProviderRegistry;
+import com.multicloud.provider.ProviderCapability;
+import com.multicloud.provider.StorageQuota;
+import com.multicloud.provider.UploadResult;
 import com.multicloud.repository.CloudAccountRepository;
 import com.multicloud.repository.FileMetadataRepository;
 import com.multicloud.repository.UserRepository;
-import com.multicloud.util.InMemoryMultipartFile;
+import com.multicloud.util.StreamingMultipartFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Service
@@ -49,17 +70,30 @@ public class CloudAccountService {
     @Autowired
     private FileMetadataRepository fileMetadataRepository;
 
+    @Autowired
+    private FileMetadataSyncService fileMetadataSyncService;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private GoogleDriveService googleDriveService;
+    private CloudStorageProviderRegistry providerRegistry;
+
+    @Autowired
+    private TokenManager tokenManager;
+
+    @Autowired
+    private ProviderCallExecutor providerCallExecutor;
 
     @Autowired
-    private OneDriveService oneDriveService;
+    private ProviderRateLimiter providerRateLimiter;
 
     @Autowired
-    private DropboxService dropboxService;
+    @Qualifier("providerIoExecutor")
+    private Executor providerIoExecutor;
+
+    private static final int BATCH_DELETE_MAX_ROUNDS = 3;
+    private static final int SYNC_MAX_ENUMERATIONS = 3;
 
     /**
      * Save or update a cloud account for a user
@@ -94,13 +128,22 @@ public class CloudAccountService {
             logger.info("Creating new cloud account");
         }
 
-        refreshStorageQuota(account);
-
         // Set token expiry (1 hour from now)
         account.setTokenExpiry(LocalDateTime.now().plusHours(1));
         account.setLastSynced(LocalDateTime.now());
 
         CloudAccount savedAccount = cloudAccountRepository.save(account);
+        tokenManager.evict(savedAccount.getId());
+
+        // The tokens were issued just now and are not committed yet, so the quota is read with
+        // them directly rather than through the token cache
+        try {
+            StorageQuota quota = providerCallExecutor.execute(savedAccount.getId(), provider, true,
+                    () -> providerRegistry.get(provider).getStorageQuota(accessToken));
+            applyStorageQuota(savedAccount, quota);
+        } catch (Exception e) {
+            logger.warn("Failed to read storage quota for account {}: {}", savedAccount.getId(), e.getMessage());
+        }
         logger.info("Cloud account saved successfully with ID: {}", savedAccount.getId());
         
         return savedAccount;
@@ -124,184 +167,190 @@ public class CloudAccountService {
     }
 
     /**
-     * Get all files from a specific cloud account
+     * Get the stored files of a cloud account. The listing is kept current by
+     * {@link AccountSyncScheduler}, so this never calls the provider.
      */
-    public List<FileDTO> getFilesFromCloudAccount(Long cloudAccountId) throws Exception {
-        logger.info("Fetching files from cloud account ID: {}", cloudAccountId);
-        
+    public List<FileDTO> getStoredFiles(Long cloudAccountId) {
         CloudAccount account = cloudAccountRepository.findById(cloudAccountId)
                 .orElseThrow(() -> new RuntimeException("Cloud account not found with ID: " + cloudAccountId));
+        return getCachedFiles(account);
+    }
 
-        try {
-            List<FileDTO> files = executeWithTokenRefresh(account, token -> fetchFilesForProvider(account, token));
+    /**
+     * When the stored file listing of an account was last brought up to date, or null if it
+     * has never been synced.
+     */
+    public LocalDateTime getFilesSyncedAt(Long cloudAccountId) {
+        return cloudAccountRepository.findById(cloudAccountId)
+                .orElseThrow(() -> new RuntimeException("Cloud account not found with ID: " + cloudAccountId))
+                .getFilesSyncedAt();
+    }
 
-            refreshStorageQuota(account);
-            account.setLastSynced(LocalDateTime.now());
-            cloudAccountRepository.save(account);
+    /**
+     * Brings the stored file metadata of an account up to date with its provider, reading only
+     * the changes since the last sync where the provider supports it. Returns the number of
+     * added, updated and removed items that were applied.
+     */
+    public int synchronizeAccount(Long cloudAccountId) throws Exception {
+        CloudAccount account = cloudAccountRepository.findById(cloudAccountId)
+                .orElseThrow(() -> new RuntimeException("Cloud account not found with ID: " + cloudAccountId));
 
-            return files;
+        int changes = executeWithTokenRefresh(account.getId(), (provider, token) -> syncFilesForProvider(account, token));
 
-        } catch (Exception e) {
-            logger.error("Error fetching files from cloud account ID: {}", cloudAccountId, e);
+        account.setFilesSyncedAt(recordAccountActivity(account.getId()));
+        cloudAccountRepository.updateFilesSyncedAt(account.getId(), account.getFilesSyncedAt());
+        return changes;
+    }
 
-            List<FileDTO> cachedFiles = getCachedFiles(account);
-            if (!cachedFiles.isEmpty()) {
-                logger.warn("Returning cached metadata for cloud account ID: {}", cloudAccountId);
-                return cachedFiles;
+    /**
+     * Follows the provider's change feed from the stored cursor. Without a cursor, or for a
+     * provider without delta support, the whole account is enumerated and rows missing from
+     * the listing are dropped afterwards. The cursor is saved after every applied page so an
+     * interrupted incremental sync resumes where it stopped; an interrupted full enumeration
+     * starts over, because only a run that saw every page can tell which rows to drop. A cursor
+     * the provider rejects is dropped and the account enumerated again; the sync fails once
+     * {@value #SYNC_MAX_ENUMERATIONS} passes in a row were rejected.
+     */
+    private int syncFilesForProvider(CloudAccount account, String accessToken) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            Integer changedCount = applyProviderChanges(account, accessToken);
+            if (changedCount != null) {
+                return changedCount;
             }
-
-            throw new Exception("Failed to fetch files: " + e.getMessage());
+            saveSyncState(account, null, false);
+            if (attempt >= SYNC_MAX_ENUMERATIONS) {
+                throw new IllegalStateException(account.getProviderName() + " kept rejecting the sync cursor of account "
+                        + account.getId() + " after " + attempt + " attempts");
+            }
+            logger.warn("{} sync cursor rejected for account {}, enumerating again",
+                    account.getProviderName(), account.getId());
         }
     }
 
-    private List<FileDTO> fetchFilesForProvider(CloudAccount account, String accessToken) throws Exception {
-        if (account.getProviderName() == CloudProvider.GOOGLE_DRIVE) {
-            List<File> googleFiles = googleDriveService.listFiles(accessToken);
-            logger.info("Retrieved {} files from Google Drive", googleFiles.size());
-
-            return googleFiles.stream()
-                    .map(file -> saveGoogleDriveFileMetadata(account, file))
-                    .map(this::convertFileToDTO)
-                    .collect(Collectors.toList());
-        } else if (account.getProviderName() == CloudProvider.ONEDRIVE) {
-            List<Map<String, Object>> oneDriveFiles = oneDriveService.listFiles(accessToken);
-            logger.info("Retrieved {} files from OneDrive", oneDriveFiles.size());
-
-            return oneDriveFiles.stream()
-                    .map(file -> saveOneDriveFileMetadata(account, file))
-                    .map(this::convertFileToDTO)
-                    .collect(Collectors.toList());
-        } else if (account.getProviderName() == CloudProvider.DROPBOX) {
-            List<Map<String, Object>> dropboxFiles = dropboxService.listFiles(accessToken);
-            logger.info("Retrieved {} files from Dropbox", dropboxFiles.size());
-
-            return dropboxFiles.stream()
-                    .map(file -> saveDropboxFileMetadata(account, file))
-                    .map(this::convertFileToDTO)
-                    .collect(Collectors.toList());
-        }
-
-        throw new RuntimeException("Unsupported cloud provider: " + account.getProviderName());
-    }
-
-    private FileDTO uploadFileForProvider(CloudAccount account, MultipartFile file, String folderPath, String accessToken) throws Exception {
-        if (account.getProviderName() == CloudProvider.GOOGLE_DRIVE) {
-            File uploadedFile = googleDriveService.uploadFile(accessToken, file, folderPath);
-            FileMetadata metadata = saveGoogleDriveFileMetadata(account, uploadedFile);
-            logger.info("File uploaded successfully to Google Drive");
-            return convertFileToDTO(metadata);
-        } else if (account.getProviderName() == CloudProvider.ONEDRIVE) {
-            Map<String, Object> uploadedFile = oneDriveService.uploadFile(accessToken, file);
-            FileMetadata metadata = saveOneDriveFileMetadata(account, uploadedFile);
-            logger.info("File uploaded successfully to OneDrive");
-            return convertFileToDTO(metadata);
-        } else if (account.getProviderName() == CloudProvider.DROPBOX) {
-            Map<String, Object> uploadedFile = dropboxService.uploadFile(accessToken, file);
-            FileMetadata metadata = saveDropboxFileMetadata(account, uploadedFile);
-            logger.info("File uploaded successfully to Dropbox");
-            return convertFileToDTO(metadata);
-        }
-
-        throw new RuntimeException("Unsupported cloud provider: " + account.getProviderName());
-    }
+    /**
+     * One pass of {@link #syncFilesForProvider}: the number of changes applied, or null when
+     * the provider rejected the cursor and the account has to be enumerated again.
+     */
+    private Integer applyProviderChanges(CloudAccount account, String accessToken) throws Exception {
+        CloudStorageProvider provider = providerRegistry.get(account.getProviderName());
+        String cursor = provider.supports(ProviderCapability.DELTA_SYNC) ? account.getSyncCursor() : null;
+        if (Boolean.TRUE.equals(account.getFullSyncInProgress()) && cursor != null) {
+            logger.info("Restarting interrupted full enumeration of account {}", account.getId());
+            cursor = null;
+        }
+        boolean fullEnumeration = cursor == null || cursor.isBlank();
+        Set<String> seenIds = fullEnumeration ? new HashSet<>() : null;
+        int changedCount = 0;
+        if (fullEnumeration) {
+            saveSyncState(account, null, true);
+        }
+
+        SyncDelta<CloudItem> page;
+        do {
+            page = provider.listChanges(accessToken, cursor);
+            if (page.isResyncRequired()) {
+                return null;
+            }
 
-    private ByteArrayOutputStream downloadFileForProvider(CloudAccount account, String cloudFileId, String accessToken) throws Exception {
-        if (account.getProviderName() == CloudProvider.GOOGLE_DRIVE) {
-            return googleDriveService.downloadFile(accessToken, cloudFileId);
-        } else if (account.getProviderName() == CloudProvider.ONEDRIVE) {
-            return oneDriveService.downloadFile(accessToken, cloudFileId);
-        } else if (account.getProviderName() == CloudProvider.DROPBOX) {
-            return dropboxService.downloadFile(accessToken, cloudFileId);
-        }
+            // Deletions come first: a path deleted and re-created in one page must survive
+            if (provider.supports(ProviderCapability.PATH_IDS)) {
+                removePathsWithDescendants(account, page.getRemovedIds());
+            } else {
+                removeFileMetadata(account, page.getRemovedIds());
+            }
+            List<FileMetadata> changed = new ArrayList<>(page.getChangedItems().size());
+            for (CloudItem item : page.getChangedItems()) {
+                changed.add(FileMetadataMapper.toFileMetadata(account, item));
+            }
+            fileMetadataSyncService.upsertAll(account, changed);
+            if (seenIds != null) {
+                changed.forEach(metadata -> seenIds.add(metadata.getCloudFileId()));
+            }
+            changedCount += page.getChangedItems().size() + page.getRemovedIds().size();
 
-        throw new RuntimeException("Unsupported cloud provider: " + account.getProviderName());
-    }
+            cursor = page.getCursor();
+            saveSyncState(account, cursor, fullEnumeration);
+        } while (page.isHasMore());
 
-    private void deleteFileForProvider(CloudAccount account, String cloudFileId, String accessToken) throws Exception {
-        if (account.getProviderName() == CloudProvider.GOOGLE_DRIVE) {
-            googleDriveService.deleteFile(accessToken, cloudFileId);
-        } else if (account.getProviderName() == CloudProvider.ONEDRIVE) {
-            oneDriveService.deleteFile(accessToken, cloudFileId);
-        } else if (account.getProviderName() == CloudProvider.DROPBOX) {
-            dropboxService.deleteFile(accessToken, cloudFileId);
-        } else {
-            throw new RuntimeException("Unsupported cloud provider: " + account.getProviderName());
+        // Only a run that saw the enumeration from its first page knows the complete item set
+        if (seenIds != null) {
+            removeMissingFileMetadata(account, seenIds);
+            saveSyncState(account, cursor, false);
         }
+        logger.info("Applied {} {} changes for account {}", changedCount, account.getProviderName(), account.getId());
+        return changedCount;
     }
 
-    private FileMetadata renameFileForProvider(CloudAccount account, FileMetadata metadata, String newName, String accessToken) throws Exception {
-        String cloudFileId = metadata.getCloudFileId();
+    private void saveSyncState(CloudAccount account, String cursor, boolean fullSyncInProgress) {
+        account.setSyncCursor(cursor);
+        account.setFullSyncInProgress(fullSyncInProgress);
+        cloudAccountRepository.updateSyncState(account.getId(), cursor, fullSyncInProgress);
+    }
 
-        if (account.getProviderName() == CloudProvider.GOOGLE_DRIVE) {
-            File renamed = googleDriveService.renameFile(accessToken, cloudFileId, newName);
-            if (renamed != null) {
-                metadata.setFileName(renamed.getName());
-                if (renamed.getModifiedTime() != null) {
-                    metadata.setModifiedAt(LocalDateTime.ofInstant(
-                            java.time.Instant.ofEpochMilli(renamed.getModifiedTime().getValue()),
-                            ZoneId.systemDefault()));
-                }
-            }
-        } else if (account.getProviderName() == CloudProvider.ONEDRIVE) {
-            Map<String, Object> renamed = oneDriveService.renameFile(accessToken, cloudFileId, newName);
-            if (renamed != null) {
-                metadata.setFileName((String) renamed.getOrDefault("name", newName));
-            } else {
-                metadata.setFileName(newName);
-            }
-        } else if (account.getProviderName() == CloudProvider.DROPBOX) {
-            Map<String, Object> renamed = dropboxService.renameFile(accessToken, cloudFileId, newName);
-            if (renamed != null) {
-                metadata.setFileName((String) renamed.getOrDefault("name", newName));
-                metadata.setCloudFileId((String) renamed.getOrDefault("id", metadata.getCloudFileId()));
-            } else {
-                metadata.setFileName(newName);
+    /**
+     * For providers whose ids are paths, a deleted folder takes everything below it along.
+     */
+    private void removePathsWithDescendants(CloudAccount account, List<String> paths) {
+        removeFileMetadata(account, paths);
+        for (String path : paths) {
+            List<FileMetadata> descendants =
+                    fileMetadataRepository.findByCloudAccountAndCloudFileIdStartingWith(account, path + "/");
+            if (!descendants.isEmpty()) {
+                fileMetadataRepository.deleteAll(descendants);
             }
-        } else {
-            throw new RuntimeException("Rename not supported for provider: " + account.getProviderName());
         }
+    }
 
-        return fileMetadataRepository.save(metadata);
+    private FileDTO uploadFileForProvider(CloudAccount account, CloudStorageProvider provider, MultipartFile file,
+                                          String folderPath, String accessToken) throws Exception {
+        CloudItem uploaded = provider.uploadFile(accessToken, file, folderPath);
+        FileMetadata metadata = saveFileMetadata(account, uploaded);
+        logger.info("File uploaded successfully to {}", provider.getProvider());
+        return FileMetadataMapper.toFileDTO(metadata);
     }
 
-    private FileMetadata moveFileForProvider(CloudAccount account, FileMetadata metadata, String newPath, String accessToken) throws Exception {
-        if (account.getProviderName() != CloudProvider.DROPBOX) {
-            throw new RuntimeException("Move operation not supported for " + account.getProviderName());
-        }
+    private FileMetadata renameFileForProvider(CloudStorageProvider provider, FileMetadata metadata, String newName, String accessToken) throws Exception {
+        CloudItem renamed = provider.renameFile(accessToken, metadata.getCloudFileId(), newName);
+        metadata.setFileName(renamed.name() != null ? renamed.name() : newName);
+        applyRelocation(metadata, renamed);
+        return fileMetadataRepository.save(metadata);
+    }
 
-        Map<String, Object> moved = dropboxService.moveFile(accessToken, metadata.getCloudFileId(), newPath);
-        if (moved != null) {
-            metadata.setCloudFileId((String) moved.getOrDefault("id", newPath));
-            metadata.setFileName((String) moved.getOrDefault("name", metadata.getFileName()));
+    private FileMetadata moveFileForProvider(CloudStorageProvider provider, FileMetadata metadata, String newPath, String accessToken) throws Exception {
+        CloudItem moved = provider.moveFile(accessToken, metadata.getCloudFileId(), newPath);
+        if (moved.name() != null) {
+            metadata.setFileName(moved.name());
         }
+        applyRelocation(metadata, moved);
         metadata.setFilePath(newPath);
         return fileMetadataRepository.save(metadata);
     }
 
-    private FileDTO createFolderForProvider(CloudAccount account, String folderName, String parentFolderId, String accessToken) throws Exception {
+    /**
+     * Path-addressed providers hand out a new id when an item is renamed or moved.
+     */
+    private void applyRelocation(FileMetadata metadata, CloudItem item) {
+        if (item.id() != null) {
+            metadata.setCloudFileId(item.id());
+        }
+        if (item.parentId() != null) {
+            metadata.setParentFolderId(item.parentId());
+        }
+        if (item.modifiedAt() != null) {
+            metadata.setModifiedAt(item.modifiedAt());
+        }
+    }
+
+    private FileDTO createFolderForProvider(CloudAccount account, CloudStorageProvider provider, String folderName,
+                                            String parentFolderId, String accessToken) throws Exception {
         String normalizedParentId = (parentFolderId != null && !parentFolderId.trim().isEmpty())
                 ? parentFolderId.trim()
                 : null;
 
-        if (account.getProviderName() == CloudProvider.DROPBOX) {
-            Map<String, Object> folderData = dropboxService.createFolder(accessToken, folderName, normalizedParentId);
-            FileMetadata metadata = saveDropboxFileMetadata(account, folderData);
-            logger.info("Folder created successfully in Dropbox");
-            return convertFileToDTO(metadata);
-        } else if (account.getProviderName() == CloudProvider.GOOGLE_DRIVE) {
-            com.google.api.services.drive.model.File folder =
-                    googleDriveService.createFolder(accessToken, folderName, normalizedParentId);
-            FileMetadata metadata = saveGoogleDriveFileMetadata(account, folder);
-            logger.info("Folder created successfully in Google Drive");
-            return convertFileToDTO(metadata);
-        } else if (account.getProviderName() == CloudProvider.ONEDRIVE) {
-            Map<String, Object> folderData = oneDriveService.createFolder(accessToken, folderName, normalizedParentId);
-            FileMetadata metadata = saveOneDriveFileMetadata(account, folderData);
-            logger.info("Folder created successfully in OneDrive");
-            return convertFileToDTO(metadata);
-        }
-
-        throw new RuntimeException("Unsupported cloud provider: " + account.getProviderName());
+        CloudItem folder = provider.createFolder(accessToken, folderName, normalizedParentId);
+        FileMetadata metadata = saveFileMetadata(account, folder);
+        logger.info("Folder created successfully in {}", provider.getProvider());
+        return FileMetadataMapper.toFileDTO(metadata);
     }
 
     /**
@@ -321,25 +370,89 @@ public class CloudAccountService {
                 .orElseThrow(() -> new RuntimeException("Cloud account not found with ID: " + cloudAccountId));
 
         try {
-            FileDTO uploadedFile = executeWithTokenRefresh(account,
-                    token -> uploadFileForProvider(account, file, folderPath, token));
+            FileDTO uploadedFile = executeOnceWithTokenRefresh(cloudAccountId,
+                    (provider, token) -> uploadFileForProvider(account, provider, file, folderPath, token));
 
-            refreshStorageQuota(account);
-            account.setLastSynced(LocalDateTime.now());
-            cloudAccountRepository.save(account);
+            recordAccountActivity(cloudAccountId);
 
             return uploadedFile;
 
         } catch (Exception e) {
             logger.error("Error uploading file to cloud account ID: {}", cloudAccountId, e);
-            throw new Exception("Failed to upload file: " + e.getMessage());
+            throw failure("Failed to upload file", e);
         }
     }
 
     /**
-     * Download a file from cloud storage
+     * Upload several files to a cloud account. Providers with batch upload commit the whole
+     * set with one call; others upload the files one after another. Every file gets a result,
+     * so files the provider refused are reported rather than dropped.
      */
-    public ByteArrayOutputStream downloadFile(Long fileId) throws Exception {
+    @Transactional
+    public BatchUploadResponse uploadFiles(Long cloudAccountId, List<MultipartFile> files) throws Exception {
+        logger.info("Uploading {} files to account ID: {}", files.size(), cloudAccountId);
+
+        List<MultipartFile> nonEmptyFiles = files.stream()
+                .filter(file -> !file.isEmpty())
+                .collect(Collectors.toList());
+        if (nonEmptyFiles.isEmpty()) {
+            throw new IllegalArgumentException("Files cannot be empty");
+        }
+
+        CloudAccount account = cloudAccountRepository.findById(cloudAccountId)
+                .orElseThrow(() -> new RuntimeException("Cloud account not found with ID: " + cloudAccountId));
+
+        try {
+            CloudStorageProvider provider = providerRegistry.get(account.getProviderName());
+            List<FileUploadResult> results = new ArrayList<>(nonEmptyFiles.size());
+            if (provider.supports(ProviderCapability.BATCH_UPLOAD)) {
+                List<UploadResult> uploaded = executeOnceWithTokenRefresh(cloudAccountId,
+                        (batchProvider, token) -> batchProvider.uploadFiles(token, nonEmptyFiles));
+
+                for (int i = 0; i < nonEmptyFiles.size(); i++) {
+                    String fileName = nonEmptyFiles.get(i).getOriginalFilename();
+                    UploadResult result = i < uploaded.size() ? uploaded.get(i) : UploadResult.failed("No result returned");
+                    if (result.succeeded()) {
+                        FileDTO file = FileMetadataMapper.toFileDTO(saveFileMetadata(account, result.item()));
+                        results.add(new FileUploadResult(fileName, true, file, null));
+                    } else {
+                        results.add(new FileUploadResult(fileName, false, null, result.error()));
+                    }
+                }
+            } else {
+                for (MultipartFile file : nonEmptyFiles) {
+                    try {
+                        FileDTO uploaded = executeOnceWithTokenRefresh(cloudAccountId,
+                                (fileProvider, token) -> uploadFileForProvider(account, fileProvider, file, null, token));
+                        results.add(new FileUploadResult(file.getOriginalFilename(), true, uploaded, null));
+                    } catch (ProviderCallRejectedException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        logger.warn("Upload of {} to account {} failed: {}",
+                                file.getOriginalFilename(), cloudAccountId, e.getMessage());
+                        results.add(new FileUploadResult(file.getOriginalFilename(), false, null, e.getMessage()));
+                    }
+                }
+            }
+
+            int failedCount = (int) results.stream().filter(result -> !result.isSuccess()).count();
+            if (failedCount < results.size()) {
+                recordAccountActivity(cloudAccountId);
+            }
+
+            return new BatchUploadResponse(results.size() - failedCount, failedCount, results);
+
+        } catch (Exception e) {
+            logger.error("Error uploading files to cloud account ID: {}", cloudAccountId, e);
+            throw failure("Failed to upload files", e);
+        }
+    }
+
+    /**
+     * Open a streaming download from cloud storage. The returned content stream is read
+     * directly from the provider; the caller is responsible for closing it.
+     */
+    public FileDownload downloadFile(Long fileId) throws Exception {
         logger.info("Downloading file ID: {}", fileId);
         
         FileMetadata metadata = fileMetadataRepository.findById(fileId)
@@ -349,18 +462,23 @@ public class CloudAccountService {
         String cloudFileId = metadata.getCloudFileId();
 
         try {
-            ByteArrayOutputStream outputStream = executeWithTokenRefresh(account,
-                    token -> downloadFileForProvider(account, cloudFileId, token));
+            InputStream content = executeWithTokenRefresh(account.getId(),
+                    (provider, token) -> provider.openDownloadStream(token, cloudFileId));
 
             metadata.setLastAccessed(LocalDateTime.now());
             fileMetadataRepository.save(metadata);
 
-            logger.info("File downloaded successfully: {}", metadata.getFileName());
-            return outputStream;
+            logger.info("Download stream opened for file: {}", metadata.getFileName());
+            return FileDownload.builder()
+                    .fileId(fileId)
+                    .fileName(metadata.getFileName())
+                    .contentType(metadata.getMimeType())
+                    .content(content)
+                    .build();
 
         } catch (Exception e) {
             logger.error("Error downloading file ID: {}", fileId, e);
-            throw new Exception("Failed to download file: " + e.getMessage());
+            throw failure("Failed to download file", e);
         }
     }
 
@@ -395,16 +513,18 @@ public class CloudAccountService {
                 .thumbnailUrl(metadata.getThumbnailUrl());
 
         try {
-            if (account.getProviderName() == CloudProvider.GOOGLE_DRIVE
+            if (providerRegistry.get(account.getProviderName()).supports(ProviderCapability.EXPORT)
                     && isGoogleWorkspaceMimeType(metadata.getMimeType())) {
                 return buildGoogleWorkspacePreview(account, metadata, builder);
             }
 
             if (shouldAttemptInline(metadata)) {
-                ByteArrayOutputStream stream = executeWithTokenRefresh(account,
-                        token -> downloadFileForProvider(account, metadata.getCloudFileId(), token));
+                byte[] fileBytes;
+                try (InputStream in = executeWithTokenRefresh(account.getId(),
+                        (provider, token) -> provider.openDownloadStream(token, metadata.getCloudFileId()))) {
+                    fileBytes = readUpToLimit(in);
+                }
 
-                byte[] fileBytes = stream.toByteArray();
                 if (fileBytes.length <= INLINE_PREVIEW_MAX_BYTES) {
                     return buildInlinePreviewResponse(metadata, builder, fileBytes,
                             metadata.getMimeType() != null ? metadata.getMimeType() : "application/octet-stream");
@@ -443,7 +563,7 @@ public class CloudAccountService {
                         .build());
             }
 
-            throw new Exception("Failed to prepare preview: " + e.getMessage());
+            throw failure("Failed to prepare preview", e);
         }
     }
 
@@ -461,21 +581,19 @@ public class CloudAccountService {
         String cloudFileId = metadata.getCloudFileId();
 
         try {
-            executeWithTokenRefresh(account, token -> {
-                deleteFileForProvider(account, cloudFileId, token);
+            executeWithTokenRefresh(account.getId(), (provider, token) -> {
+                provider.deleteFile(token, cloudFileId);
                 return Boolean.TRUE;
             });
 
             fileMetadataRepository.delete(metadata);
             logger.info("File deleted successfully: {}", metadata.getFileName());
 
-            refreshStorageQuota(account);
-            account.setLastSynced(LocalDateTime.now());
-            cloudAccountRepository.save(account);
+            recordAccountActivity(account.getId());
 
         } catch (Exception e) {
             logger.error("Error deleting file ID: {}", fileId, e);
-            throw new Exception("Failed to delete file: " + e.getMessage());
+            throw failure("Failed to delete file", e);
         }
     }
 
@@ -497,16 +615,16 @@ public class CloudAccountService {
         String cloudFileId = metadata.getCloudFileId();
 
         try {
-            FileMetadata updatedMetadata = executeWithTokenRefresh(account,
-                    token -> renameFileForProvider(account, metadata, newName, token));
+            FileMetadata updatedMetadata = executeOnceWithTokenRefresh(account.getId(),
+                    (provider, token) -> renameFileForProvider(provider, metadata, newName, token));
 
             logger.info("File renamed successfully");
 
-            return convertFileToDTO(updatedMetadata);
+            return FileMetadataMapper.toFileDTO(updatedMetadata);
 
         } catch (Exception e) {
             logger.error("Error renaming file ID: {}", fileId, e);
-            throw new Exception("Failed to rename file: " + e.getMessage());
+            throw failure("Failed to rename file", e);
         }
     }
 
@@ -544,51 +662,97 @@ public class CloudAccountService {
                 ? sourceMetadata.getMimeType()
                 : "application/octet-stream";
 
-        ByteArrayOutputStream downloadedStream;
-
-        if (sourceAccount.getProviderName() == CloudProvider.GOOGLE_DRIVE
+        CloudStorageProvider sourceProvider = providerRegistry.get(sourceAccount.getProviderName());
+        GoogleExportFormat exportFormat = null;
+        if (sourceProvider.supports(ProviderCapability.EXPORT)
                 && isGoogleWorkspaceMimeType(sourceMetadata.getMimeType())) {
-            GoogleExportFormat exportFormat = resolveGoogleExportFormat(sourceMetadata.getMimeType());
+            exportFormat = resolveGoogleExportFormat(sourceMetadata.getMimeType());
             effectiveContentType = exportFormat.mimeType();
-
-            downloadedStream = executeWithTokenRefresh(sourceAccount,
-                    token -> googleDriveService.exportFile(token, sourceMetadata.getCloudFileId(), exportFormat.mimeType()));
-
             effectiveFileName = ensureFileExtension(effectiveFileName, exportFormat.extension());
-        } else {
-            downloadedStream = executeWithTokenRefresh(sourceAccount,
-                    token -> downloadFileForProvider(sourceAccount, sourceMetadata.getCloudFileId(), token));
-        }
-
-        byte[] fileBytes = downloadedStream.toByteArray();
-        if (fileBytes.length == 0) {
-            throw new IllegalStateException("Source file returned no data");
         }
 
-        InMemoryMultipartFile inMemoryFile = new InMemoryMultipartFile(
-            effectiveFileName,
-            effectiveFileName,
-            effectiveContentType,
-            fileBytes
-        );
-
         String normalizedTargetFolderId = (targetFolderId != null && !targetFolderId.isBlank())
                 ? targetFolderId.trim()
                 : null;
 
+        String uploadFileName = effectiveFileName;
+        String uploadContentType = effectiveContentType;
+        GoogleExportFormat sourceExportFormat = exportFormat;
+        boolean serverSideCopy = exportFormat == null
+                && Objects.equals(sourceAccount.getId(), targetAccount.getId())
+                && sourceProvider.supports(ProviderCapability.SERVER_SIDE_COPY);
+
         try {
-            FileDTO copiedFile = executeWithTokenRefresh(targetAccount,
-                    token -> uploadFileForProvider(targetAccount, inMemoryFile, normalizedTargetFolderId, token));
+            // The source is opened inside the target operation so a token-refresh retry on the
+            // target side starts again from a fresh source stream.
+            FileDTO copiedFile = executeOnceWithTokenRefresh(targetAccountId, (targetProvider, token) -> {
+                if (serverSideCopy) {
+                    CloudItem copy = sourceProvider.copyFile(token, sourceMetadata.getCloudFileId(),
+                            normalizedTargetFolderId, uploadFileName);
+                    return FileMetadataMapper.toFileDTO(saveFileMetadata(targetAccount, copy));
+                }
+                try (CopySource source = openCopySource(sourceAccount, sourceMetadata, sourceExportFormat)) {
+                    StreamingMultipartFile upload = new StreamingMultipartFile(
+                            uploadFileName,
+                            uploadFileName,
+                            uploadContentType,
+                            source.size(),
+                            source.stream());
+                    return uploadFileForProvider(targetAccount, targetProvider, upload, normalizedTargetFolderId, token);
+                }
+            });
 
-            refreshStorageQuota(targetAccount);
-            targetAccount.setLastSynced(LocalDateTime.now());
-            cloudAccountRepository.save(targetAccount);
+            recordAccountActivity(targetAccountId);
 
             logger.info("Copied file '{}' to account {}", sourceMetadata.getFileName(), targetAccountId);
             return copiedFile;
         } catch (Exception e) {
             logger.error("Failed to copy file ID: {} to account {}", fileId, targetAccountId, e);
-            throw new Exception("Failed to copy file: " + e.getMessage());
+            throw failure("Failed to copy file", e);
+        }
+    }
+
+    /**
+     * Opens the source side of a copy. Regular files are streamed straight from the provider;
+     * Workspace exports carry no length and are capped by Google, so they are buffered, and
+     * files of unknown size are spooled to a temp file because chunked uploads need a length.
+     * Source failures surface as {@link CopySourceException} so they are not mistaken for
+     * failures of the target account.
+     */
+    private CopySource openCopySource(CloudAccount sourceAccount, FileMetadata sourceMetadata,
+                                      GoogleExportFormat exportFormat) throws Exception {
+        try {
+            if (exportFormat != null) {
+                byte[] exported;
+                try (InputStream in = executeWithTokenRefresh(sourceAccount.getId(),
+                        (provider, token) -> provider.openExportStream(token, sourceMetadata.getCloudFileId(),
+                                exportFormat.mimeType()))) {
+                    exported = in.readAllBytes();
+                }
+                return new CopySource(new ByteArrayInputStream(exported), exported.length);
+            }
+
+            InputStream in = new CopySourceInputStream(executeWithTokenRefresh(sourceAccount.getId(),
+                    (provider, token) -> provider.openDownloadStream(token, sourceMetadata.getCloudFileId())));
+            if (sourceMetadata.getFileSize() == null || sourceMetadata.getFileSize() < 0) {
+                return spoolCopySource(in);
+            }
+            return new CopySource(in, sourceMetadata.getFileSize());
+        } catch (CopySourceException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CopySourceException(e);
+        }
+    }
+
+    private CopySource spoolCopySource(InputStream in) throws IOException {
+        Path spool = Files.createTempFile("multicloud-copy-", ".tmp");
+        try (in) {
+            Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+            return new CopySource(Files.newInputStream(spool, StandardOpenOption.DELETE_ON_CLOSE), Files.size(spool));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spool);
+            throw e;
         }
     }
 
@@ -601,10 +765,12 @@ public class CloudAccountService {
                                                              FilePreviewResponse.FilePreviewResponseBuilder builder) throws Exception {
         GoogleExportFormat exportFormat = resolveGoogleExportFormat(metadata.getMimeType());
 
-        ByteArrayOutputStream exportedStream = executeWithTokenRefresh(account,
-                token -> googleDriveService.exportFile(token, metadata.getCloudFileId(), exportFormat.mimeType()));
+        byte[] bytes;
+        try (InputStream in = executeWithTokenRefresh(account.getId(),
+                (provider, token) -> provider.openExportStream(token, metadata.getCloudFileId(), exportFormat.mimeType()))) {
+            bytes = readUpToLimit(in);
+        }
 
-        byte[] bytes = exportedStream.toByteArray();
         if (bytes.length > INLINE_PREVIEW_MAX_BYTES) {
             String externalLink = resolveExternalPreviewUrl(account, metadata);
             return finalizePreviewResponse(metadata, builder.previewAvailable(false)
@@ -618,6 +784,14 @@ public class CloudAccountService {
         return buildInlinePreviewResponse(metadata, builder, bytes, contentType);
     }
 
+    /**
+     * Reads at most one byte past the inline preview limit so oversized content is detected
+     * without buffering the whole file.
+     */
+    private byte[] readUpToLimit(InputStream in) throws IOException {
+        return in.readNBytes((int) INLINE_PREVIEW_MAX_BYTES + 1);
+    }
+
     private boolean shouldAttemptInline(FileMetadata metadata) {
         if (metadata.getMimeType() == null) {
             return false;
@@ -665,15 +839,14 @@ public class CloudAccountService {
             return metadata.getWebViewLink();
         }
 
-        if (account.getProviderName() == CloudProvider.GOOGLE_DRIVE) {
-            if (metadata.getCloudFileId() != null && !metadata.getCloudFileId().isBlank()) {
-                return "https://drive.google.com/file/d/" + metadata.getCloudFileId() + "/preview";
-            }
-        } else if (account.getProviderName() == CloudProvider.ONEDRIVE) {
-            return metadata.getWebViewLink();
-        } else if (account.getProviderName() == CloudProvider.DROPBOX) {
-            return executeWithTokenRefresh(account,
-                    token -> dropboxService.getTemporaryLink(token, metadata.getCloudFileId()));
+        CloudStorageProvider provider = providerRegistry.get(account.getProviderName());
+        String previewUrl = provider.getPreviewUrl(metadata.getCloudFileId());
+        if (previewUrl != null) {
+            return previewUrl;
+        }
+        if (provider.supports(ProviderCapability.TEMPORARY_LINKS)) {
+            return executeWithTokenRefresh(account.getId(),
+                    (linkProvider, token) -> linkProvider.getTemporaryLink(token, metadata.getCloudFileId()));
         }
 
         return null;
@@ -730,6 +903,46 @@ public class CloudAccountService {
     private record GoogleExportFormat(String mimeType, String extension) {
     }
 
+    private record CopySource(InputStream stream, long size) implements AutoCloseable {
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+
+    /**
+     * Reports read failures of a copy source as {@link CopySourceException}; they happen while
+     * the target upload is running and would otherwise be attributed to the target account.
+     */
+    private static final class CopySourceInputStream extends FilterInputStream {
+
+        private CopySourceInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (CopySourceException e) {
+                throw e;
+            } catch (IOException e) {
+                throw new CopySourceException(e);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (CopySourceException e) {
+                throw e;
+            } catch (IOException e) {
+                throw new CopySourceException(e);
+            }
+        }
+    }
+
     /**
      * Move a file to a different location
      */
@@ -748,16 +961,16 @@ public class CloudAccountService {
         String cloudFileId = metadata.getCloudFileId();
 
         try {
-            FileMetadata updatedMetadata = executeWithTokenRefresh(account,
-                    token -> moveFileForProvider(account, metadata, newPath, token));
+            FileMetadata updatedMetadata = executeOnceWithTokenRefresh(account.getId(),
+                    (provider, token) -> moveFileForProvider(provider, metadata, newPath, token));
 
             logger.info("File moved successfully");
 
-            return convertFileToDTO(updatedMetadata);
+            return FileMetadataMapper.toFileDTO(updatedMetadata);
 
         } catch (Exception e) {
             logger.error("Error moving file ID: {}", fileId, e);
-            throw new Exception("Failed to move file: " + e.getMessage());
+            throw failure("Failed to move file", e);
         }
     }
 
@@ -776,18 +989,16 @@ public class CloudAccountService {
                 .orElseThrow(() -> new RuntimeException("Cloud account not found with ID: " + cloudAccountId));
 
         try {
-            FileDTO folder = executeWithTokenRefresh(account,
-                    token -> createFolderForProvider(account, folderName, parentFolderId, token));
+            FileDTO folder = executeOnceWithTokenRefresh(cloudAccountId,
+                    (provider, token) -> createFolderForProvider(account, provider, folderName, parentFolderId, token));
 
-            refreshStorageQuota(account);
-            account.setLastSynced(LocalDateTime.now());
-            cloudAccountRepository.save(account);
+            recordAccountActivity(cloudAccountId);
 
             return folder;
 
         } catch (Exception e) {
             logger.error("Error creating folder in account ID: {}", cloudAccountId, e);
-            throw new Exception("Failed to create folder: " + e.getMessage());
+            throw failure("Failed to create folder", e);
         }
     }
 
@@ -805,71 +1016,133 @@ public class CloudAccountService {
         List<FileMetadata> results = fileMetadataRepository
                 .findByUserAndFileNameContainingIgnoreCase(user, searchRequest.getQuery());
 
-        // Apply additional filters
-        results = results.stream()
-                .filter(file -> !file.getIsTrashed()) // Exclude trashed files
+        results = FileSearchFilter.apply(results, searchRequest);
+
+        logger.info("Found {} files matching search criteria", results.size());
+
+        return results.stream()
+                .map(FileMetadataMapper::toFileDTO)
                 .collect(Collectors.toList());
+    }
 
-        if (searchRequest.getFileType() != null) {
-            results = results.stream()
-                    .filter(f -> f.getMimeType() != null && 
-                            f.getMimeType().toLowerCase().contains(searchRequest.getFileType().toLowerCase()))
-                    .collect(Collectors.toList());
+    /**
+     * Batch delete multiple files. Files are grouped by account and each group is deleted
+     * with the provider's batch API, with the groups running concurrently. Throttled or
+     * transiently failing items are retried in a later round; every file gets its own result,
+     * including the files of a group the saturated provider pool refused to take.
+     */
+    public BatchDeleteResponse batchDeleteFiles(List<Long> fileIds) {
+        logger.info("Batch deleting {} files", fileIds.size());
+
+        Map<Long, FileMetadata> filesById = new HashMap<>();
+        for (FileMetadata file : fileMetadataRepository.findAllWithCloudAccountByIdIn(new HashSet<>(fileIds))) {
+            filesById.put(file.getId(), file);
         }
 
-        if (searchRequest.getCloudAccountId() != null) {
-            results = results.stream()
-                    .filter(f -> f.getCloudAccount().getId().equals(searchRequest.getCloudAccountId()))
-                    .collect(Collectors.toList());
+        Map<Long, String> errors = new ConcurrentHashMap<>();
+        Map<Long, List<FileMetadata>> filesByAccount = new LinkedHashMap<>();
+        for (Long fileId : new LinkedHashSet<>(fileIds)) {
+            FileMetadata file = filesById.get(fileId);
+            if (file == null) {
+                errors.put(fileId, "File not found with ID: " + fileId);
+            } else {
+                filesByAccount.computeIfAbsent(file.getCloudAccount().getId(), id -> new ArrayList<>()).add(file);
+            }
         }
 
-        if (searchRequest.getIsStarred() != null) {
-            results = results.stream()
-                    .filter(f -> f.getIsStarred().equals(searchRequest.getIsStarred()))
-                    .collect(Collectors.toList());
+        List<CompletableFuture<List<FileMetadata>>> groups = new ArrayList<>();
+        for (List<FileMetadata> group : filesByAccount.values()) {
+            try {
+                groups.add(CompletableFuture.supplyAsync(() -> deleteAccountFiles(group, errors), providerIoExecutor));
+            } catch (RejectedExecutionException e) {
+                // Saturated pool: fail the group's files rather than running provider calls on the caller
+                logger.warn("Provider pool is saturated, failing batch delete of {} files on account {}",
+                        group.size(), group.get(0).getCloudAccount().getId());
+                group.forEach(file -> errors.put(file.getId(), "Provider pool is busy; retry the delete later"));
+            }
         }
 
-        if (searchRequest.getMinSize() != null) {
-            results = results.stream()
-                    .filter(f -> f.getFileSize() != null && f.getFileSize() >= searchRequest.getMinSize())
-                    .collect(Collectors.toList());
+        List<Long> deletedIds = new ArrayList<>();
+        Set<Long> touchedAccountIds = new LinkedHashSet<>();
+        for (CompletableFuture<List<FileMetadata>> group : groups) {
+            for (FileMetadata file : group.join()) {
+                deletedIds.add(file.getId());
+                touchedAccountIds.add(file.getCloudAccount().getId());
+            }
         }
 
-        if (searchRequest.getMaxSize() != null) {
-            results = results.stream()
-                    .filter(f -> f.getFileSize() != null && f.getFileSize() <= searchRequest.getMaxSize())
-                    .collect(Collectors.toList());
+        if (!deletedIds.isEmpty()) {
+            fileMetadataRepository.deleteAllByIdInBatch(deletedIds);
         }
+        touchedAccountIds.forEach(this::recordAccountActivity);
 
-        logger.info("Found {} files matching search criteria", results.size());
+        List<FileOperationResult> results = new ArrayList<>();
+        for (Long fileId : fileIds) {
+            String error = errors.get(fileId);
+            results.add(new FileOperationResult(fileId, error == null, error));
+        }
+        int failedCount = (int) results.stream().filter(result -> !result.isSuccess()).count();
 
-        return results.stream()
-                .map(this::convertFileToDTO)
-                .collect(Collectors.toList());
+        logger.info("Batch delete completed: {} succeeded, {} failed", results.size() - failedCount, failedCount);
+        return new BatchDeleteResponse(results.size() - failedCount, failedCount, results);
     }
 
     /**
-     * Batch delete multiple files
+     * Deletes one account's files and returns those that are gone, recording an error for
+     * each of the others.
      */
-    @Transactional
-    public int batchDeleteFiles(List<Long> fileIds) {
-        logger.info("Batch deleting {} files", fileIds.size());
-        
-        int deletedCount = 0;
-        int failedCount = 0;
+    private List<FileMetadata> deleteAccountFiles(List<FileMetadata> files, Map<Long, String> errors) {
+        Long accountId = files.get(0).getCloudAccount().getId();
+        List<FileMetadata> deleted = new ArrayList<>();
+        Map<String, FileMetadata> pending = new LinkedHashMap<>();
+        for (FileMetadata file : files) {
+            pending.put(file.getCloudFileId(), file);
+        }
 
-        for (Long fileId : fileIds) {
+        for (int round = 1; !pending.isEmpty(); round++) {
+            List<String> cloudFileIds = new ArrayList<>(pending.keySet());
+            Map<String, ProviderApiException> failures;
             try {
-                deleteFile(fileId);
-                deletedCount++;
+                failures = executeWithTokenRefresh(accountId,
+                        (provider, token) -> provider.deleteFiles(token, cloudFileIds));
             } catch (Exception e) {
-                logger.error("Failed to delete file ID: {} - {}", fileId, e.getMessage());
-                failedCount++;
+                logger.error("Batch delete on account {} failed: {}", accountId, e.getMessage());
+                pending.values().forEach(file -> errors.put(file.getId(), "Failed to delete file: " + e.getMessage()));
+                break;
+            }
+
+            Map<String, FileMetadata> retry = new LinkedHashMap<>();
+            long retryDelayMillis = 1000L * round;
+            for (Map.Entry<String, FileMetadata> entry : pending.entrySet()) {
+                ProviderApiException failure = failures.get(entry.getKey());
+                if (failure == null) {
+                    deleted.add(entry.getValue());
+                } else if (round < BATCH_DELETE_MAX_ROUNDS && failure.getCategory() != ProviderErrorCategory.PERMANENT
+                        && failure.getCategory() != ProviderErrorCategory.AUTH_EXPIRED) {
+                    retry.put(entry.getKey(), entry.getValue());
+                    if (failure.getRetryAfter() != null) {
+                        retryDelayMillis = Math.max(retryDelayMillis, failure.getRetryAfter().toMillis());
+                    }
+                } else {
+                    errors.put(entry.getValue().getId(), failure.getMessage());
+                }
+            }
+
+            pending = retry;
+            if (!pending.isEmpty()) {
+                logger.info("Retrying {} throttled deletes on account {} in {} ms",
+                        pending.size(), accountId, retryDelayMillis);
+                try {
+                    Thread.sleep(retryDelayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    pending.values().forEach(file -> errors.put(file.getId(), "Delete interrupted"));
+                    break;
+                }
             }
         }
 
-        logger.info("Batch delete completed: {} succeeded, {} failed", deletedCount, failedCount);
-        return deletedCount;
+        return deleted;
     }
 
     /**
@@ -886,7 +1159,20 @@ public class CloudAccountService {
         metadata = fileMetadataRepository.save(metadata);
         
         logger.info("File star toggled to: {}", metadata.getIsStarred());
-        return convertFileToDTO(metadata);
+        return FileMetadataMapper.toFileDTO(metadata);
+    }
+
+    /**
+     * Set the star status of a file
+     */
+    @Transactional
+    public FileDTO setStarred(Long fileId, boolean starred) {
+        FileMetadata metadata = fileMetadataRepository.findById(fileId)
+                .orElseThrow(() -> new RuntimeException("File not found with ID: " + fileId));
+
+        metadata.setIsStarred(starred);
+        metadata = fileMetadataRepository.save(metadata);
+        return FileMetadataMapper.toFileDTO(metadata);
     }
 
     /**
@@ -957,6 +1243,8 @@ public class CloudAccountService {
         // Soft delete - mark as inactive
         account.setIsActive(false);
         cloudAccountRepository.save(account);
+        providerRateLimiter.evict(accountId);
+        tokenManager.evict(accountId);
 
         logger.info("Cloud account disconnected successfully");
     }
@@ -964,130 +1252,31 @@ public class CloudAccountService {
     // ==================== PRIVATE HELPER METHODS ====================
 
     /**
-     * Save or update Google Drive file metadata
+     * Save or update file metadata
      */
-    private FileMetadata saveGoogleDriveFileMetadata(CloudAccount account, File file) {
-        var existing = fileMetadataRepository.findByCloudAccountAndCloudFileId(
-                account, file.getId());
-
-        FileMetadata metadata;
-        if (existing.isPresent()) {
-            metadata = existing.get();
-        } else {
-            metadata = FileMetadata.builder()
-                    .user(account.getUser())
-                    .cloudAccount(account)
-                    .cloudFileId(file.getId())
-                    .isStarred(false)
-                    .isTrashed(false)
-                    .build();
-        }
-
-        metadata.setFileName(file.getName());
-        metadata.setMimeType(file.getMimeType());
-        metadata.setFileSize(file.getSize());
-        metadata.setWebViewLink(file.getWebViewLink());
-        metadata.setThumbnailUrl(file.getThumbnailLink());
-        if (file.getParents() != null && !file.getParents().isEmpty()) {
-            metadata.setParentFolderId(file.getParents().get(0));
-        } else {
-            metadata.setParentFolderId(null);
-        }
-        metadata.setIsFolder(file.getMimeType() != null && 
-                file.getMimeType().equals("application/vnd.google-apps.folder"));
-
-        if (file.getModifiedTime() != null) {
-            metadata.setModifiedAt(LocalDateTime.ofInstant(
-                    java.time.Instant.ofEpochMilli(file.getModifiedTime().getValue()),
-                    ZoneId.systemDefault()));
-        }
-
-        return fileMetadataRepository.save(metadata);
+    private FileMetadata saveFileMetadata(CloudAccount account, CloudItem item) {
+        return fileMetadataSyncService.upsert(account, FileMetadataMapper.toFileMetadata(account, item));
     }
 
-    /**
-     * Save or update OneDrive file metadata
-     */
-    private FileMetadata saveOneDriveFileMetadata(CloudAccount account, Map<String, Object> file) {
-        String fileId = (String) file.get("id");
-        var existing = fileMetadataRepository.findByCloudAccountAndCloudFileId(account, fileId);
-
-        FileMetadata metadata;
-        if (existing.isPresent()) {
-            metadata = existing.get();
-        } else {
-            metadata = FileMetadata.builder()
-                    .user(account.getUser())
-                    .cloudAccount(account)
-                    .cloudFileId(fileId)
-                    .isStarred(false)
-                    .isTrashed(false)
-                    .build();
-        }
-
-        metadata.setFileName((String) file.get("name"));
-        metadata.setMimeType((String) file.get("mimeType"));
-        
-        Object sizeObj = file.get("size");
-        if (sizeObj instanceof Number) {
-            metadata.setFileSize(((Number) sizeObj).longValue());
-        }
-        
-        metadata.setWebViewLink((String) file.get("webUrl"));
-        metadata.setIsFolder((Boolean) file.getOrDefault("isFolder", false));
-        metadata.setParentFolderId((String) file.get("parentId"));
-
-        String modifiedDate = (String) file.get("lastModifiedDateTime");
-        if (modifiedDate != null && modifiedDate.length() >= 19) {
-            try {
-                metadata.setModifiedAt(LocalDateTime.parse(modifiedDate.substring(0, 19)));
-            } catch (Exception e) {
-                logger.warn("Failed to parse OneDrive modified date: {}", modifiedDate);
-            }
+    private void removeFileMetadata(CloudAccount account, Collection<String> cloudFileIds) {
+        if (cloudFileIds == null || cloudFileIds.isEmpty()) {
+            return;
         }
-
-        return fileMetadataRepository.save(metadata);
+        fileMetadataRepository.deleteAll(
+                fileMetadataRepository.findByCloudAccountAndCloudFileIdIn(account, cloudFileIds));
     }
 
     /**
-     * Save or update Dropbox file metadata
+     * Drops metadata rows that a complete provider listing no longer contains.
      */
-    private FileMetadata saveDropboxFileMetadata(CloudAccount account, Map<String, Object> file) {
-        String fileId = (String) file.get("id");
-        var existing = fileMetadataRepository.findByCloudAccountAndCloudFileId(account, fileId);
-
-        FileMetadata metadata;
-        if (existing.isPresent()) {
-            metadata = existing.get();
-        } else {
-            metadata = FileMetadata.builder()
-                    .user(account.getUser())
-                    .cloudAccount(account)
-                    .cloudFileId(fileId)
-                    .isStarred(false)
-                    .isTrashed(false)
-                    .build();
-        }
-
-        metadata.setFileName((String) file.get("name"));
-        metadata.setMimeType((String) file.get("mimeType"));
-        
-        Object sizeObj = file.get("size");
-        if (sizeObj instanceof Number) {
-            metadata.setFileSize(((Number) sizeObj).longValue());
-        }
-        
-        metadata.setIsFolder((Boolean) file.getOrDefault("isFolder", false));
-        metadata.setParentFolderId((String) file.get("parentId"));
-
-        Object modifiedAt = file.get("modifiedAt");
-        if (modifiedAt != null && modifiedAt instanceof java.util.Date) {
-            metadata.setModifiedAt(LocalDateTime.ofInstant(
-                ((java.util.Date) modifiedAt).toInstant(),
-                java.time.ZoneId.systemDefault()));
+    private void removeMissingFileMetadata(CloudAccount account, Set<String> listedIds) {
+        List<FileMetadata> missing = fileMetadataRepository.findByCloudAccount(account).stream()
+                .filter(metadata -> !listedIds.contains(metadata.getCloudFileId()))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            logger.info("Removing {} files no longer present in account {}", missing.size(), account.getId());
+            fileMetadataRepository.deleteAll(missing);
         }
-
-        return fileMetadataRepository.save(metadata);
     }
 
     /**
@@ -1113,238 +1302,102 @@ public class CloudAccountService {
     }
 
     /**
-     * Convert FileMetadata entity to DTO
+     * Runs an idempotent provider call (a read or a delete) with token refresh and retries.
      */
-    private FileDTO convertFileToDTO(FileMetadata metadata) {
-        return FileDTO.builder()
-                .id(metadata.getId())
-                .cloudFileId(metadata.getCloudFileId())
-                .fileName(metadata.getFileName())
-                .filePath(metadata.getFilePath())
-                .mimeType(metadata.getMimeType())
-                .fileSize(metadata.getFileSize())
-                .isFolder(metadata.getIsFolder())
-                .thumbnailUrl(metadata.getThumbnailUrl())
-                .webViewLink(metadata.getWebViewLink())
-                .isStarred(metadata.getIsStarred())
-                .isTrashed(metadata.getIsTrashed())
-                .cloudProvider(metadata.getCloudAccount().getProviderName().toString())
-                .parentFolderId(metadata.getParentFolderId())
-                .createdAt(metadata.getCreatedAt())
-                .modifiedAt(metadata.getModifiedAt())
-                .build();
+    private <T> T executeWithTokenRefresh(Long accountId, TokenAwareOperation<T> operation) throws Exception {
+        return executeWithTokenRefresh(accountId, true, operation);
     }
 
-    private <T> T executeWithTokenRefresh(CloudAccount account, TokenAwareOperation<T> operation) throws Exception {
-        String accessToken = account.getAccessToken();
-
-        if (shouldProactivelyRefresh(account)) {
-            logger.debug("Access token expired or near expiry for account {}. Refreshing before operation.", account.getId());
-            accessToken = refreshAndPersistToken(account);
-        }
-
-        try {
-            return operation.execute(accessToken);
-        } catch (Exception ex) {
-            if (!isRefreshTokenAvailable(account) || !shouldAttemptTokenRefresh(ex)) {
-                throw ex;
-            }
-
-            logger.warn("Access token likely expired for account {}. Attempting refresh after failure.", account.getId());
-            String refreshedToken = refreshAndPersistToken(account);
-            return operation.execute(refreshedToken);
-        }
-    }
-
-    private boolean isRefreshTokenAvailable(CloudAccount account) {
-        return account.getRefreshToken() != null && !account.getRefreshToken().isBlank();
-    }
-
-    private boolean shouldProactivelyRefresh(CloudAccount account) {
-        if (!isRefreshTokenAvailable(account)) {
-            return false;
-        }
-
-        LocalDateTime expiry = account.getTokenExpiry();
-        if (expiry == null) {
-            return true;
-        }
-
-        LocalDateTime now = LocalDateTime.now();
-        return expiry.isBefore(now.plusMinutes(1));
+    /**
+     * Runs a provider call that creates or changes something, such as an upload, rename or
+     * copy. It is only retried when it never reached the provider, so a lost response cannot
+     * turn into a duplicate.
+     */
+    private <T> T executeOnceWithTokenRefresh(Long accountId, TokenAwareOperation<T> operation) throws Exception {
+        return executeWithTokenRefresh(accountId, false, operation);
     }
 
-    private boolean shouldAttemptTokenRefresh(Throwable throwable) {
-        Throwable current = throwable;
-        while (current != null) {
-            String message = current.getMessage();
-            if (message != null) {
-                String lower = message.toLowerCase(Locale.ROOT);
-                if (lower.contains("invalid_grant") || lower.contains("token has expired")
-                        || lower.contains("expired token") || lower.contains("401")
-                        || lower.contains("unauthorized") || lower.contains("invalid access token")
-                        || lower.contains("access token has been revoked")
-                        || lower.contains("does not support refreshing the access token")) {
-                    return true;
-                }
-            }
-
-            if (current instanceof com.google.api.client.http.HttpResponseException responseException) {
-                int statusCode = responseException.getStatusCode();
-                if (statusCode == 401 || statusCode == 403) {
-                    return true;
-                }
-            }
-
-            if (current instanceof okhttp3.internal.http2.ConnectionShutdownException) {
-                return true;
-            }
+    /**
+     * Tokens and the provider come from {@link TokenManager} by account id, so a call on a
+     * lazily referenced account never loads its row.
+     */
+    private <T> T executeWithTokenRefresh(Long accountId, boolean idempotent,
+                                          TokenAwareOperation<T> operation) throws Exception {
+        CloudProvider providerName = tokenManager.getProvider(accountId);
+        CloudStorageProvider provider = providerRegistry.get(providerName);
+        return providerCallExecutor.execute(accountId, providerName, idempotent, () -> {
+            String accessToken = tokenManager.getAccessToken(accountId);
 
-            if (current instanceof com.dropbox.core.DbxException dbxException) {
-                String error = dbxException.getMessage();
-                if (error != null && error.toLowerCase(Locale.ROOT).contains("expired")) {
-                    return true;
+            try {
+                return operation.execute(provider, accessToken);
+            } catch (Exception ex) {
+                if (!tokenManager.canRefresh(accountId)
+                        || ProviderErrorClassifier.classify(ex) != ProviderErrorCategory.AUTH_EXPIRED) {
+                    throw ex;
                 }
-            }
 
-            if (current instanceof java.io.IOException ioException) {
-                String error = ioException.getMessage();
-                if (error != null && error.toLowerCase(Locale.ROOT).contains("expired")) {
-                    return true;
-                }
+                logger.warn("Access token likely expired for account {}. Attempting refresh after failure.", accountId);
+                String refreshedToken = tokenManager.refresh(accountId, accessToken);
+                return operation.execute(provider, refreshedToken);
             }
-
-            current = current.getCause();
-        }
-        return false;
+        });
     }
 
-    private String refreshAndPersistToken(CloudAccount account) throws Exception {
-        String refreshToken = account.getRefreshToken();
-        if (refreshToken == null || refreshToken.isBlank()) {
-            throw new IllegalStateException("No refresh token available for account " + account.getId());
-        }
-
-        Map<String, ?> tokenResponse;
-
-        if (account.getProviderName() == CloudProvider.GOOGLE_DRIVE) {
-            tokenResponse = googleDriveService.refreshAccessToken(refreshToken);
-        } else if (account.getProviderName() == CloudProvider.ONEDRIVE) {
-            tokenResponse = oneDriveService.refreshAccessToken(refreshToken);
-        } else if (account.getProviderName() == CloudProvider.DROPBOX) {
-            tokenResponse = dropboxService.refreshAccessToken(refreshToken);
-        } else {
-            throw new IllegalStateException("Unsupported provider for refresh: " + account.getProviderName());
-        }
-
-        if (tokenResponse == null || tokenResponse.get("access_token") == null) {
-            throw new IllegalStateException("Token refresh failed: missing access token for account " + account.getId());
-        }
-
-        String newAccessToken = tokenResponse.get("access_token").toString();
-        account.setAccessToken(newAccessToken);
-
-        Object newRefreshToken = tokenResponse.get("refresh_token");
-        if (newRefreshToken != null && !newRefreshToken.toString().isBlank()) {
-            account.setRefreshToken(newRefreshToken.toString());
-        }
-
-        Object expiresIn = tokenResponse.get("expires_in");
-        if (expiresIn != null) {
-            try {
-                long expiresInSeconds = Long.parseLong(expiresIn.toString());
-                long adjustedSeconds = Math.max(0, expiresInSeconds - 60); // buffer refresh by 1 minute
-                account.setTokenExpiry(LocalDateTime.now().plusSeconds(adjustedSeconds));
-            } catch (NumberFormatException ex) {
-                logger.warn("Unable to parse expires_in value '{}', defaulting to 1 hour", expiresIn);
-                account.setTokenExpiry(LocalDateTime.now().plusHours(1));
-            }
-        } else {
-            account.setTokenExpiry(LocalDateTime.now().plusHours(1));
+    /**
+     * Wraps a failed file operation with what was being attempted. Rejections by our own rate
+     * limiter or circuit breaker pass through unchanged so they are answered with 429 or 503.
+     */
+    private static Exception failure(String action, Exception cause) {
+        if (cause instanceof ProviderCallRejectedException) {
+            return cause;
         }
-
-        cloudAccountRepository.save(account);
-        logger.info("Successfully refreshed access token for account {}", account.getId());
-        return newAccessToken;
+        return new Exception(action + ": " + cause.getMessage(), cause);
     }
 
     @FunctionalInterface
     private interface TokenAwareOperation<T> {
-        T execute(String accessToken) throws Exception;
-    }
-
-    private void refreshStorageQuota(CloudAccount account) {
-        try {
-            Map<String, Object> quota = executeWithTokenRefresh(account, accessToken -> {
-                if (account.getProviderName() == CloudProvider.GOOGLE_DRIVE) {
-                    return googleDriveService.getStorageQuota(accessToken);
-                } else if (account.getProviderName() == CloudProvider.ONEDRIVE) {
-                    return oneDriveService.getStorageQuota(accessToken);
-                } else if (account.getProviderName() == CloudProvider.DROPBOX) {
-                    return dropboxService.getStorageQuota(accessToken);
-                }
-                return null;
-            });
-
-            if (quota != null) {
-                if (account.getProviderName() == CloudProvider.GOOGLE_DRIVE) {
-                    applyQuotaValues(account, quota, "limit", "usage");
-                } else if (account.getProviderName() == CloudProvider.ONEDRIVE) {
-                    applyQuotaValues(account, quota, "total", "used");
-                } else if (account.getProviderName() == CloudProvider.DROPBOX) {
-                    applyQuotaValues(account, quota, "allocated", "used");
-                }
-            }
-
-            if (quota != null) {
-                logger.debug("Updated quota for account {}: total={}, used={}",
-                        account.getId(), account.getTotalStorage(), account.getUsedStorage());
-            }
-        } catch (Exception e) {
-            logger.warn("Failed to refresh storage quota for account {}: {}", account.getId(), e.getMessage());
-        }
+        T execute(CloudStorageProvider provider, String accessToken) throws Exception;
     }
 
-    private void applyQuotaValues(CloudAccount account, Map<String, Object> quota, String totalKey, String usedKey) {
-        if (quota == null) {
-            return;
-        }
-
-        Long total = toLong(quota.get(totalKey));
-        Long used = toLong(quota.get(usedKey));
-
-        if (total != null) {
-            account.setTotalStorage(total);
-        }
-
-        if (used != null) {
-            account.setUsedStorage(used);
-        }
+    /**
+     * Records a completed provider operation: refreshes the quota and writes it with
+     * lastSynced through a targeted update, returning the new lastSynced. A whole-entity save
+     * would undo a disconnect or token rotation made since the account was loaded.
+     */
+    private LocalDateTime recordAccountActivity(Long accountId) {
+        StorageQuota quota = refreshStorageQuota(accountId);
+        LocalDateTime lastSynced = LocalDateTime.now();
+        cloudAccountRepository.updateStorageUsage(accountId,
+                quota != null ? quota.total() : null,
+                quota != null ? quota.used() : null,
+                lastSynced);
+        return lastSynced;
     }
 
-    private Long toLong(Object value) {
-        if (value == null) {
+    private StorageQuota refreshStorageQuota(Long accountId) {
+        try {
+            StorageQuota quota = executeWithTokenRefresh(accountId,
+                    (provider, accessToken) -> provider.getStorageQuota(accessToken));
+            logger.debug("Updated quota for account {}: total={}, used={}", accountId, quota.total(), quota.used());
+            return quota;
+        } catch (Exception e) {
+            logger.warn("Failed to refresh storage quota for account {}: {}", accountId, e.getMessage());
             return null;
         }
+    }
 
-        if (value instanceof Number) {
-            return ((Number) value).longValue();
+    private void applyStorageQuota(CloudAccount account, StorageQuota quota) {
+        if (quota.total() != null) {
+            account.setTotalStorage(quota.total());
         }
-
-        if (value instanceof String) {
-            try {
-                return Double.valueOf((String) value).longValue();
-            } catch (NumberFormatException ex) {
-                logger.warn("Unable to parse numeric value: {}", value);
-            }
+        if (quota.used() != null) {
+            account.setUsedStorage(quota.used());
         }
-
-        return null;
     }
 
     private List<FileDTO> getCachedFiles(CloudAccount account) {
         return fileMetadataRepository.findByCloudAccount(account).stream()
-                .map(this::convertFileToDTO)
+                .map(FileMetadataMapper::toFileDTO)
                 .collect(Collectors.toList());
     }
 }
\ No newline at end of file
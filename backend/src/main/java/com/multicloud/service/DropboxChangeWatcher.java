@@ -0,0 +1,160 @@
+package com.multicloud.service;
+
+import com.dropbox.core.v2.files.ListFolderLongpollErrorException;
+import com.dropbox.core.v2.files.ListFolderLongpollResult;
+import com.multicloud.model.CloudAccount;
+import com.multicloud.model.CloudProvider;
+import com.multicloud.repository.CloudAccountRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps one list_folder/longpoll call open per connected Dropbox account and runs an
+ * incremental sync only when Dropbox reports a change, instead of re-listing on a timer.
+ */
+@Component
+public class DropboxChangeWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(DropboxChangeWatcher.class);
+
+    @Value("${dropbox.longpoll.enabled:true}")
+    private boolean enabled;
+
+    @Value("${dropbox.longpoll.timeout-seconds:300}")
+    private long timeoutSeconds;
+
+    @Value("${dropbox.longpoll.max-watchers:100}")
+    private int maxWatchers;
+
+    @Autowired
+    private CloudAccountRepository cloudAccountRepository;
+
+    @Autowired
+    private DropboxService dropboxService;
+
+    @Autowired
+    private AccountSyncScheduler accountSyncScheduler;
+
+    private final Map<Long, Future<?>> watchers = new ConcurrentHashMap<>();
+    private final ExecutorService executor = createExecutor();
+
+    /**
+     * Starts watchers for newly synced accounts and stops those of disconnected ones. A watcher
+     * that ended on an error is picked up again on the next pass.
+     */
+    @Scheduled(fixedDelayString = "${dropbox.longpoll.refresh-ms:60000}", initialDelay = 30000)
+    public void refreshWatchers() {
+        if (!enabled) {
+            return;
+        }
+
+        watchers.entrySet().removeIf(entry -> entry.getValue().isDone());
+
+        List<CloudAccount> accounts = cloudAccountRepository.findByProviderNameAndIsActive(CloudProvider.DROPBOX, true);
+        Set<Long> watchable = accounts.stream()
+                .filter(account -> account.getSyncCursor() != null && !account.getSyncCursor().isBlank())
+                .map(CloudAccount::getId)
+                .collect(Collectors.toSet());
+
+        watchers.entrySet().removeIf(entry -> {
+            if (watchable.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().cancel(true);
+            return true;
+        });
+
+        for (Long accountId : watchable) {
+            if (watchers.containsKey(accountId)) {
+                continue;
+            }
+            if (watchers.size() >= maxWatchers) {
+                logger.warn("Dropbox watcher limit of {} reached, {} accounts left unwatched",
+                        maxWatchers, watchable.size() - watchers.size());
+                break;
+            }
+            watchers.put(accountId, executor.submit(() -> watch(accountId)));
+        }
+    }
+
+    private void watch(Long accountId) {
+        logger.debug("Watching Dropbox account {}", accountId);
+        accountSyncScheduler.setWatched(accountId, true);
+        try {
+            watchUntilStopped(accountId);
+        } finally {
+            accountSyncScheduler.setWatched(accountId, false);
+        }
+    }
+
+    private void watchUntilStopped(Long accountId) {
+        while (!Thread.currentThread().isInterrupted()) {
+            CloudAccount account = cloudAccountRepository.findById(accountId).orElse(null);
+            if (account == null || !Boolean.TRUE.equals(account.getIsActive())
+                    || account.getSyncCursor() == null || account.getSyncCursor().isBlank()) {
+                return;
+            }
+
+            boolean changed;
+            Long backoff = null;
+            try {
+                ListFolderLongpollResult result = dropboxService.waitForChanges(
+                        account.getAccessToken(), account.getSyncCursor(), timeoutSeconds);
+                changed = result.getChanges();
+                backoff = result.getBackoff();
+            } catch (ListFolderLongpollErrorException e) {
+                // The cursor was reset; a sync replaces it with a fresh one
+                changed = true;
+            } catch (Exception e) {
+                logger.warn("Stopping Dropbox watcher for account {}: {}", accountId, e.getMessage());
+                return;
+            }
+
+            if (changed) {
+                try {
+                    if (!accountSyncScheduler.syncNow(accountId)) {
+                        // A sync is already running; give it time to move the cursor on
+                        backoff = backoff != null ? backoff : 1L;
+                    }
+                } catch (Exception e) {
+                    logger.warn("Dropbox sync for account {} failed, stopping watcher: {}", accountId, e.getMessage());
+                    return;
+                }
+            }
+
+            if (backoff != null) {
+                try {
+                    Thread.sleep(backoff * 1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static ExecutorService createExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("dropbox-longpoll-");
+        threadFactory.setDaemon(true);
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+}
@@ -1,29 +1,58 @@
 package com.multicloud.service;
 
+import com.dropbox.core.DbxDownloader;
 import com.dropbox.core.DbxException;
 import com.dropbox.core.DbxRequestConfig;
+import com.dropbox.core.http.OkHttp3Requestor;
 import com.dropbox.core.oauth.DbxCredential;
 import com.dropbox.core.v2.DbxClientV2;
 import com.dropbox.core.v2.files.*;
 import com.dropbox.core.v2.users.FullAccount;
 import com.dropbox.core.v2.users.SpaceUsage;
+import com.multicloud.config.HttpClientConfig;
+import com.multicloud.dto.SyncDelta;
+import com.multicloud.exception.ProviderApiException;
+import com.multicloud.exception.ProviderErrorCategory;
+import com.multicloud.exception.ProviderErrorClassifier;
+import com.multicloud.model.CloudProvider;
+import com.multicloud.provider.CloudItem;
+import com.multicloud.provider.CloudStorageProvider;
+import com.multicloud.provider.ProviderCapability;
+import com.multicloud.provider.StorageQuota;
+import com.multicloud.provider.UploadResult;
 import okhttp3.*;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Service
-public class DropboxService {
+public class DropboxService implements CloudStorageProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(DropboxService.class);
 
     @Value("${dropbox.client.id}")
     private String clientId;
@@ -40,7 +69,46 @@ public class DropboxService {
     @Value("${dropbox.token.uri}")
     private String tokenUri;
 
-    private final OkHttpClient httpClient = new OkHttpClient();
+    @Value("${dropbox.upload.chunk-size:8388608}")
+    private long uploadChunkSize;
+
+    @Value("${dropbox.upload.parallelism:4}")
+    private int uploadParallelism;
+
+    @Autowired
+    @Qualifier("providerUploadExecutor")
+    private Executor providerUploadExecutor;
+
+    private static final long LONGPOLL_JITTER_SECONDS = 90;
+    private static final long CHUNK_UNIT = 4L * 1024 * 1024;
+    private static final long MAX_CHUNK_SIZE = 148L * 1024 * 1024;
+    private static final int FINISH_BATCH_MAX_ENTRIES = 1000;
+    private static final int DELETE_BATCH_MAX_ENTRIES = 1000;
+    private static final long DELETE_BATCH_POLL_MAX_MS = 2000;
+    private static final Set<ProviderCapability> CAPABILITIES = Collections.unmodifiableSet(EnumSet.of(
+            ProviderCapability.DELTA_SYNC,
+            ProviderCapability.BATCH_DELETE,
+            ProviderCapability.BATCH_UPLOAD,
+            ProviderCapability.SERVER_SIDE_COPY,
+            ProviderCapability.MOVE,
+            ProviderCapability.TEMPORARY_LINKS,
+            ProviderCapability.PATH_IDS));
+
+    @Autowired
+    private OkHttpClient httpClient;
+
+    @Autowired
+    private DbxRequestConfig dropboxRequestConfig;
+
+    @Override
+    public CloudProvider getProvider() {
+        return CloudProvider.DROPBOX;
+    }
+
+    @Override
+    public Set<ProviderCapability> getCapabilities() {
+        return CAPABILITIES;
+    }
 
     public String getAuthorizationUrl() {
         return authUri +
@@ -66,7 +134,8 @@ public class DropboxService {
 
         try (Response response = httpClient.newCall(request).execute()) {
             if (!response.isSuccessful()) {
-                throw new IOException("Failed to exchange code: " + response.body().string());
+                throw new ProviderApiException(CloudProvider.DROPBOX, response.code(),
+                        "Failed to exchange code: " + response.body().string(), null);
             }
 
             JSONObject json = new JSONObject(response.body().string());
@@ -78,6 +147,7 @@ public class DropboxService {
         }
     }
 
+    @Override
     public Map<String, String> refreshAccessToken(String refreshToken) throws IOException {
         RequestBody formBody = new FormBody.Builder()
                 .add("grant_type", "refresh_token")
@@ -92,7 +162,8 @@ public class DropboxService {
 
         try (Response response = httpClient.newCall(request).execute()) {
             if (!response.isSuccessful()) {
-                throw new IOException("Failed to refresh token: " + response.body().string());
+                throw new ProviderApiException(CloudProvider.DROPBOX, response.code(),
+                        "Failed to refresh token: " + response.body().string(), null);
             }
 
             JSONObject json = new JSONObject(response.body().string());
@@ -107,83 +178,375 @@ public class DropboxService {
     }
 
     private DbxClientV2 getClient(String accessToken) {
-        DbxRequestConfig config = DbxRequestConfig.newBuilder("MultiCloudStorage/1.0").build();
-        return new DbxClientV2(config, accessToken);
+        return new DbxClientV2(dropboxRequestConfig, accessToken);
     }
 
-    public List<Map<String, Object>> listFiles(String accessToken) throws DbxException {
+    /**
+     * Reads one page of the recursive folder listing. A null cursor starts from the root;
+     * afterwards the stored cursor only yields what changed. Deleted entries are reported by
+     * their lower-cased path, and a cursor Dropbox has reset is reported as {@code resyncRequired}.
+     */
+    @Override
+    public SyncDelta<CloudItem> listChanges(String accessToken, String cursor) throws DbxException {
         DbxClientV2 client = getClient(accessToken);
-        
-        ListFolderResult result = client.files().listFolder("");
-        List<Map<String, Object>> files = new ArrayList<>();
 
-        for (Metadata metadata : result.getEntries()) {
-            Map<String, Object> fileInfo = new HashMap<>();
-            fileInfo.put("id", metadata.getPathLower());
-            fileInfo.put("name", metadata.getName());
-            
-            if (metadata instanceof FileMetadata) {
-                FileMetadata file = (FileMetadata) metadata;
-                fileInfo.put("size", file.getSize());
-                fileInfo.put("mimeType", "application/octet-stream");
-                fileInfo.put("isFolder", false);
-                fileInfo.put("modifiedAt", file.getClientModified());
-            } else if (metadata instanceof FolderMetadata) {
-                fileInfo.put("size", 0L);
-                fileInfo.put("mimeType", "folder");
-                fileInfo.put("isFolder", true);
+        ListFolderResult result;
+        if (cursor == null || cursor.isBlank()) {
+            result = client.files().listFolderBuilder("")
+                    .withRecursive(true)
+                    .start();
+        } else {
+            try {
+                result = client.files().listFolderContinue(cursor);
+            } catch (ListFolderContinueErrorException e) {
+                if (!e.errorValue.isReset()) {
+                    throw e;
+                }
+                logger.warn("Dropbox reset the list_folder cursor, full resync required");
+                return SyncDelta.<CloudItem>builder().resyncRequired(true).build();
             }
+        }
 
-            String pathLower = metadata.getPathLower();
-            if (pathLower != null) {
-                int lastSlash = pathLower.lastIndexOf('/');
-                if (lastSlash > 0) {
-                    fileInfo.put("parentId", pathLower.substring(0, lastSlash));
-                } else {
-                    fileInfo.put("parentId", null);
-                }
+        List<CloudItem> changed = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (Metadata metadata : result.getEntries()) {
+            if (metadata instanceof DeletedMetadata) {
+                removed.add(metadata.getPathLower());
+            } else {
+                changed.add(toCloudItem(metadata));
             }
-            
-            files.add(fileInfo);
         }
 
-        return files;
+        return SyncDelta.<CloudItem>builder()
+                .changedItems(changed)
+                .removedIds(removed)
+                .cursor(result.getCursor())
+                .hasMore(result.getHasMore())
+                .build();
+    }
+
+    /**
+     * Blocks until something under the cursor changes or the timeout (30-480 seconds) passes.
+     * The longpoll endpoint needs no authentication and does not count against API quota.
+     */
+    public ListFolderLongpollResult waitForChanges(String accessToken, String cursor, long timeoutSeconds)
+            throws DbxException {
+        // Dropbox adds up to 90 seconds of jitter, so the read timeout has to outlast both.
+        // The derived client shares the connection pool of the main one.
+        OkHttpClient longpollClient = httpClient.newBuilder()
+                .readTimeout(timeoutSeconds + LONGPOLL_JITTER_SECONDS, TimeUnit.SECONDS)
+                .build();
+        DbxRequestConfig config = DbxRequestConfig.newBuilder(HttpClientConfig.DROPBOX_CLIENT_IDENTIFIER)
+                .withHttpRequestor(new OkHttp3Requestor(longpollClient))
+                .build();
+        return new DbxClientV2(config, accessToken).files().listFolderLongpoll(cursor, timeoutSeconds);
     }
 
-    public Map<String, Object> uploadFile(String accessToken, MultipartFile file) 
+    @Override
+    public CloudItem uploadFile(String accessToken, MultipartFile file, String folderPath)
             throws DbxException, IOException {
         DbxClientV2 client = getClient(accessToken);
         
         String dropboxPath = "/" + file.getOriginalFilename();
-        
+        long size = file.getSize();
+
+        if (size >= 0 && size <= effectiveChunkSize()) {
+            try (InputStream in = file.getInputStream()) {
+                FileMetadata metadata = client.files().uploadBuilder(dropboxPath)
+                        .uploadAndFinish(in);
+                return toCloudItem(metadata);
+            }
+        }
+
+        UploadSessionCursor cursor = uploadConcurrentSession(client, file);
+        FileMetadata metadata = client.files().uploadSessionFinish(cursor, new CommitInfo(dropboxPath))
+                .uploadAndFinish(new ByteArrayInputStream(new byte[0]));
+        return toCloudItem(metadata);
+    }
+
+    /**
+     * Uploads several files and commits them with a single {@code finish_batch} call, which
+     * avoids the per-file namespace lock contention of individual commits. The returned list
+     * is aligned with the input; entries whose upload or commit failed carry the error. Only
+     * an expired token seen before anything was committed fails the whole call, so the caller
+     * can refresh and start over without duplicating files.
+     */
+    @Override
+    public List<UploadResult> uploadFiles(String accessToken, List<MultipartFile> files)
+            throws DbxException, IOException {
+        DbxClientV2 client = getClient(accessToken);
+        List<UploadResult> results = new ArrayList<>(files.size());
+
+        for (int from = 0; from < files.size(); from += FINISH_BATCH_MAX_ENTRIES) {
+            List<MultipartFile> batch = files.subList(from, Math.min(files.size(), from + FINISH_BATCH_MAX_ENTRIES));
+            UploadResult[] batchResults = new UploadResult[batch.size()];
+            List<UploadSessionFinishArg> entries = new ArrayList<>(batch.size());
+            List<Integer> entryIndexes = new ArrayList<>(batch.size());
+
+            for (int i = 0; i < batch.size(); i++) {
+                MultipartFile file = batch.get(i);
+                try {
+                    UploadSessionCursor cursor = (file.getSize() >= 0 && file.getSize() <= effectiveChunkSize())
+                            ? uploadSingleChunkSession(client, file)
+                            : uploadConcurrentSession(client, file);
+                    entries.add(new UploadSessionFinishArg(cursor, new CommitInfo("/" + file.getOriginalFilename())));
+                    entryIndexes.add(i);
+                } catch (DbxException | IOException e) {
+                    if (results.isEmpty() && ProviderErrorClassifier.classify(e) == ProviderErrorCategory.AUTH_EXPIRED) {
+                        throw e;
+                    }
+                    logger.warn("Dropbox upload session failed for {}: {}", file.getOriginalFilename(), e.getMessage());
+                    batchResults[i] = UploadResult.failed(e.getMessage());
+                }
+            }
+
+            if (!entries.isEmpty()) {
+                List<UploadSessionFinishBatchResultEntry> finished =
+                        client.files().uploadSessionFinishBatchV2(entries).getEntries();
+
+                for (int n = 0; n < finished.size(); n++) {
+                    int i = entryIndexes.get(n);
+                    UploadSessionFinishBatchResultEntry entry = finished.get(n);
+                    if (entry.isSuccess()) {
+                        batchResults[i] = UploadResult.uploaded(toCloudItem(entry.getSuccessValue()));
+                    } else {
+                        logger.warn("Dropbox batch commit failed for {}: {}",
+                                batch.get(i).getOriginalFilename(), entry.getFailureValue());
+                        batchResults[i] = UploadResult.failed(String.valueOf(entry.getFailureValue()));
+                    }
+                }
+            }
+
+            for (UploadResult result : batchResults) {
+                results.add(result != null ? result : UploadResult.failed("No result returned"));
+            }
+        }
+
+        return results;
+    }
+
+    private UploadSessionCursor uploadSingleChunkSession(DbxClientV2 client, MultipartFile file)
+            throws DbxException, IOException {
         try (InputStream in = file.getInputStream()) {
-            FileMetadata metadata = client.files().uploadBuilder(dropboxPath)
-                    .uploadAndFinish(in);
-            
-            Map<String, Object> fileInfo = new HashMap<>();
-            fileInfo.put("id", metadata.getPathLower());
-            fileInfo.put("name", metadata.getName());
-            fileInfo.put("size", metadata.getSize());
-            return fileInfo;
+            String sessionId = client.files().uploadSessionStartBuilder()
+                    .withClose(true)
+                    .start()
+                    .uploadAndFinish(in)
+                    .getSessionId();
+            return new UploadSessionCursor(sessionId, file.getSize());
         }
     }
 
-    public ByteArrayOutputStream downloadFile(String accessToken, String fileId) 
+    /**
+     * Streams the file into a concurrent upload session. Chunks are read sequentially from the
+     * multipart stream but appended in parallel; at most {@code dropbox.upload.parallelism}
+     * chunks are in flight, which also bounds the memory held per upload.
+     *
+     * @return a cursor positioned at the end of the closed session, ready to be committed
+     */
+    private UploadSessionCursor uploadConcurrentSession(DbxClientV2 client, MultipartFile file)
             throws DbxException, IOException {
+        String sessionId = client.files().uploadSessionStartBuilder()
+                .withSessionType(UploadSessionType.CONCURRENT)
+                .start()
+                .uploadAndFinish(new ByteArrayInputStream(new byte[0]))
+                .getSessionId();
+
+        int chunkSize = effectiveChunkSize();
+        Semaphore permits = new Semaphore(Math.max(1, uploadParallelism));
+        List<CompletableFuture<Void>> appends = new ArrayList<>();
+        long offset = 0;
+
+        try (InputStream in = file.getInputStream()) {
+            UploadChunk current = readChunk(in, chunkSize);
+            while (true) {
+                // A short chunk means the stream is exhausted; otherwise read ahead to find out
+                // whether this is the chunk that has to close the session.
+                UploadChunk next = current.length() == chunkSize ? readChunk(in, chunkSize) : UploadChunk.EMPTY;
+                boolean last = next.length() == 0;
+
+                permits.acquire();
+                long chunkOffset = offset;
+                UploadChunk chunk = current;
+                try {
+                    appends.add(CompletableFuture
+                            .runAsync(() -> appendChunk(client, sessionId, chunkOffset, chunk, last), providerUploadExecutor)
+                            .whenComplete((ignored, error) -> permits.release()));
+                } catch (RejectedExecutionException e) {
+                    // Only when the pool is shutting down; the caller-runs policy handles saturation
+                    permits.release();
+                    awaitQuietly(appends);
+                    throw new IOException("Upload executor rejected a chunk append", e);
+                }
+
+                offset += current.length();
+                if (last || appends.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    break;
+                }
+                current = next;
+            }
+
+            CompletableFuture.allOf(appends.toArray(new CompletableFuture[0])).join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            awaitQuietly(appends);
+            throw new IOException("Upload interrupted", e);
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DbxException dbxException) {
+                throw dbxException;
+            }
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw e;
+        } catch (IOException e) {
+            // Reading the multipart stream failed; appends already sent must not outlive the call
+            awaitQuietly(appends);
+            throw e;
+        }
+
+        return new UploadSessionCursor(sessionId, offset);
+    }
+
+    /**
+     * Lets appends already in flight finish before an upload is abandoned, so none of them
+     * outlives the request or keeps writing into the session. Dropbox has no call to cancel
+     * an upload session; an unfinished one expires on its own.
+     */
+    private static void awaitQuietly(List<CompletableFuture<Void>> appends) {
+        CompletableFuture.allOf(appends.toArray(new CompletableFuture[0]))
+                .handle((ignored, error) -> null)
+                .join();
+    }
+
+    private void appendChunk(DbxClientV2 client, String sessionId, long offset, UploadChunk chunk, boolean close) {
+        try {
+            client.files().uploadSessionAppendV2Builder(new UploadSessionCursor(sessionId, offset))
+                    .withClose(close)
+                    .start()
+                    .uploadAndFinish(new ByteArrayInputStream(chunk.data(), 0, chunk.length()));
+        } catch (DbxException | IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private UploadChunk readChunk(InputStream in, int chunkSize) throws IOException {
+        byte[] data = new byte[chunkSize];
+        int length = in.readNBytes(data, 0, chunkSize);
+        return new UploadChunk(data, length);
+    }
+
+    /**
+     * Concurrent sessions require every chunk but the last to be a multiple of 4 MiB.
+     */
+    private int effectiveChunkSize() {
+        long units = Math.max(1, uploadChunkSize / CHUNK_UNIT);
+        return (int) Math.min(units * CHUNK_UNIT, MAX_CHUNK_SIZE);
+    }
+
+    private CloudItem toCloudItem(Metadata metadata) {
+        String pathLower = metadata.getPathLower();
+        int lastSlash = pathLower != null ? pathLower.lastIndexOf('/') : -1;
+        String parentId = lastSlash > 0 ? pathLower.substring(0, lastSlash) : null;
+
+        if (metadata instanceof FileMetadata file) {
+            return new CloudItem(pathLower, file.getName(), "application/octet-stream", file.getSize(), false,
+                    parentId, null, null, LocalDateTime.ofInstant(file.getClientModified().toInstant(), ZoneId.systemDefault()));
+        }
+        return new CloudItem(pathLower, metadata.getName(), CloudItem.FOLDER_MIME_TYPE, 0L, true,
+                parentId, null, null, null);
+    }
+
+    private record UploadChunk(byte[] data, int length) {
+        private static final UploadChunk EMPTY = new UploadChunk(new byte[0], 0);
+    }
+
+    /**
+     * Opens the content stream of a file. The caller owns the returned stream and must close it.
+     */
+    @Override
+    public InputStream openDownloadStream(String accessToken, String fileId) throws DbxException {
         DbxClientV2 client = getClient(accessToken);
-        
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        client.files().downloadBuilder(fileId).download(outputStream);
-        
-        return outputStream;
+
+        DbxDownloader<FileMetadata> downloader = client.files().download(fileId);
+        return downloader.getInputStream();
     }
 
+    @Override
     public void deleteFile(String accessToken, String fileId) throws DbxException {
         DbxClientV2 client = getClient(accessToken);
         client.files().deleteV2(fileId);
     }
 
-    public Map<String, Object> renameFile(String accessToken, String fileId, String newName) 
+    /**
+     * Deletes paths with {@code delete_batch}, which Dropbox runs as one job under a single
+     * namespace lock instead of one lock per file. Returns the failures keyed by path; paths
+     * that no longer exist count as deleted.
+     */
+    @Override
+    public Map<String, ProviderApiException> deleteFiles(String accessToken, List<String> fileIds)
+            throws DbxException, IOException {
+        DbxClientV2 client = getClient(accessToken);
+        Map<String, ProviderApiException> failures = new HashMap<>();
+
+        for (int from = 0; from < fileIds.size(); from += DELETE_BATCH_MAX_ENTRIES) {
+            List<String> batch = fileIds.subList(from, Math.min(fileIds.size(), from + DELETE_BATCH_MAX_ENTRIES));
+            List<DeleteArg> entries = new ArrayList<>(batch.size());
+            for (String path : batch) {
+                entries.add(new DeleteArg(path));
+            }
+
+            List<DeleteBatchResultEntry> results = awaitDeleteBatch(client, client.files().deleteBatch(entries));
+            for (int i = 0; i < results.size(); i++) {
+                DeleteBatchResultEntry entry = results.get(i);
+                if (!entry.isFailure()) {
+                    continue;
+                }
+                DeleteError error = entry.getFailureValue();
+                if (error.isPathLookup() && error.getPathLookupValue().isNotFound()) {
+                    continue;
+                }
+                int status = error.isTooManyWriteOperations() ? 429 : 409;
+                failures.put(batch.get(i), new ProviderApiException(CloudProvider.DROPBOX, status,
+                        "Failed to delete file: " + error, null));
+            }
+        }
+
+        return failures;
+    }
+
+    private List<DeleteBatchResultEntry> awaitDeleteBatch(DbxClientV2 client, DeleteBatchLaunch launch)
+            throws DbxException, IOException {
+        if (launch.isComplete()) {
+            return launch.getCompleteValue().getEntries();
+        }
+
+        String jobId = launch.getAsyncJobIdValue();
+        long pollMillis = 250;
+        while (true) {
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for delete batch " + jobId, e);
+            }
+            pollMillis = Math.min(pollMillis * 2, DELETE_BATCH_POLL_MAX_MS);
+
+            DeleteBatchJobStatus status = client.files().deleteBatchCheck(jobId);
+            if (status.isComplete()) {
+                return status.getCompleteValue().getEntries();
+            }
+            if (status.isFailed()) {
+                DeleteBatchError error = status.getFailedValue();
+                int statusCode = error == DeleteBatchError.TOO_MANY_WRITE_OPERATIONS ? 429 : 409;
+                throw new ProviderApiException(CloudProvider.DROPBOX, statusCode, "Delete batch failed: " + error, null);
+            }
+        }
+    }
+
+    @Override
+    public CloudItem renameFile(String accessToken, String fileId, String newName)
             throws DbxException {
         DbxClientV2 client = getClient(accessToken);
         
@@ -195,73 +558,70 @@ public class DropboxService {
         String newPath = parentPath + "/" + newName;
         
         Metadata metadata = client.files().moveV2(fileId, newPath).getMetadata();
-        
-        Map<String, Object> fileInfo = new HashMap<>();
-        fileInfo.put("id", metadata.getPathLower());
-        fileInfo.put("name", metadata.getName());
-        return fileInfo;
+        return toCloudItem(metadata);
     }
 
-    public Map<String, Object> createFolder(String accessToken, String folderName, String parentPath) 
+    @Override
+    public CloudItem createFolder(String accessToken, String folderName, String parentPath)
             throws DbxException {
         DbxClientV2 client = getClient(accessToken);
-        
-        String basePath = parentPath != null ? parentPath.trim() : "";
-        if (basePath.isEmpty() || basePath.equals("/")) {
-            basePath = "";
-        } else {
-            if (!basePath.startsWith("/")) {
-                basePath = "/" + basePath;
-            }
-            if (!basePath.endsWith("/")) {
-                basePath = basePath + "/";
-            }
-        }
 
-        String folderPath = basePath + folderName;
-        FolderMetadata folder = client.files().createFolderV2(folderPath).getMetadata();
-        
-        Map<String, Object> folderInfo = new HashMap<>();
-        folderInfo.put("id", folder.getPathLower());
-        folderInfo.put("name", folder.getName());
-        folderInfo.put("isFolder", true);
-
-        String pathLower = folder.getPathLower();
-        if (pathLower != null) {
-            int lastSlash = pathLower.lastIndexOf('/');
-            if (lastSlash > 0) {
-                folderInfo.put("parentId", pathLower.substring(0, lastSlash));
-            } else {
-                folderInfo.put("parentId", null);
-            }
-        }
-        return folderInfo;
+        FolderMetadata folder = client.files().createFolderV2(folderPrefix(parentPath) + folderName).getMetadata();
+        return toCloudItem(folder);
     }
 
-    public Map<String, Object> moveFile(String accessToken, String fileId, String newPath) 
+    @Override
+    public CloudItem moveFile(String accessToken, String fileId, String newPath)
             throws DbxException {
         DbxClientV2 client = getClient(accessToken);
-        
+
         Metadata metadata = client.files().moveV2(fileId, newPath).getMetadata();
-        
-        Map<String, Object> fileInfo = new HashMap<>();
-        fileInfo.put("id", metadata.getPathLower());
-        fileInfo.put("name", metadata.getName());
-        return fileInfo;
+        return toCloudItem(metadata);
     }
 
-    public Map<String, Object> getStorageQuota(String accessToken) throws DbxException {
+    /**
+     * Copies with {@code copy_v2}, which duplicates the content inside Dropbox. A name that is
+     * already taken gets a numbered suffix instead of failing the copy.
+     */
+    @Override
+    public CloudItem copyFile(String accessToken, String fileId, String targetFolderId, String fileName)
+            throws DbxException {
+        DbxClientV2 client = getClient(accessToken);
+
+        Metadata metadata = client.files().copyV2Builder(fileId, folderPrefix(targetFolderId) + fileName)
+                .withAutorename(true)
+                .start()
+                .getMetadata();
+        return toCloudItem(metadata);
+    }
+
+    /**
+     * Normalises a folder path to the prefix of its children, with a leading and trailing
+     * slash; the root is just {@code /}.
+     */
+    private String folderPrefix(String folderPath) {
+        String basePath = folderPath != null ? folderPath.trim() : "";
+        if (basePath.isEmpty() || basePath.equals("/")) {
+            return "/";
+        }
+        if (!basePath.startsWith("/")) {
+            basePath = "/" + basePath;
+        }
+        if (!basePath.endsWith("/")) {
+            basePath = basePath + "/";
+        }
+        return basePath;
+    }
+
+    @Override
+    public StorageQuota getStorageQuota(String accessToken) throws DbxException {
         DbxClientV2 client = getClient(accessToken);
         
         SpaceUsage spaceUsage = client.users().getSpaceUsage();
-        
-        Map<String, Object> quota = new HashMap<>();
-        quota.put("used", spaceUsage.getUsed());
-        quota.put("allocated", spaceUsage.getAllocation().getIndividualValue().getAllocated());
-        
-        return quota;
+        return new StorageQuota(spaceUsage.getAllocation().getIndividualValue().getAllocated(), spaceUsage.getUsed());
     }
 
+    @Override
     public String getTemporaryLink(String accessToken, String fileId) throws DbxException {
         DbxClientV2 client = getClient(accessToken);
         GetTemporaryLinkResult result = client.files().getTemporaryLink(fileId);
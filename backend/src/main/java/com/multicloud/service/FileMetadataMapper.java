@@ -0,0 +1,54 @@
+package com.multicloud.service;
+
+import com.multicloud.dto.FileDTO;
+import com.multicloud.model.CloudAccount;
+import com.multicloud.model.FileMetadata;
+import com.multicloud.provider.CloudItem;
+
+/**
+ * Maps provider items onto file metadata entities and entities onto the DTOs the API
+ * returns. Both run once per item of a sync or a file listing.
+ */
+final class FileMetadataMapper {
+
+    private FileMetadataMapper() {
+    }
+
+    static FileMetadata toFileMetadata(CloudAccount account, CloudItem item) {
+        return FileMetadata.builder()
+                .user(account.getUser())
+                .cloudAccount(account)
+                .cloudFileId(item.id())
+                .fileName(item.name())
+                .mimeType(item.mimeType())
+                .fileSize(item.size())
+                .isFolder(item.folder())
+                .parentFolderId(item.parentId())
+                .webViewLink(item.webViewLink())
+                .thumbnailUrl(item.thumbnailUrl())
+                .modifiedAt(item.modifiedAt())
+                .isStarred(false)
+                .isTrashed(false)
+                .build();
+    }
+
+    static FileDTO toFileDTO(FileMetadata metadata) {
+        return FileDTO.builder()
+                .id(metadata.getId())
+                .cloudFileId(metadata.getCloudFileId())
+                .fileName(metadata.getFileName())
+                .filePath(metadata.getFilePath())
+                .mimeType(metadata.getMimeType())
+                .fileSize(metadata.getFileSize())
+                .isFolder(metadata.getIsFolder())
+                .thumbnailUrl(metadata.getThumbnailUrl())
+                .webViewLink(metadata.getWebViewLink())
+                .isStarred(metadata.getIsStarred())
+                .isTrashed(metadata.getIsTrashed())
+                .cloudProvider(metadata.getCloudAccount().getProviderName().toString())
+                .parentFolderId(metadata.getParentFolderId())
+                .createdAt(metadata.getCreatedAt())
+                .modifiedAt(metadata.getModifiedAt())
+                .build();
+    }
+}
@@ -0,0 +1,127 @@
+package com.multicloud.service;
+
+import com.multicloud.model.CloudAccount;
+import com.multicloud.model.FileMetadata;
+import com.multicloud.repository.FileMetadataRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes provider listings into file_metadata in bulk: existing rows are loaded with one
+ * query per chunk, compared in memory, and only rows whose synced fields changed are updated.
+ */
+@Service
+public class FileMetadataSyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileMetadataSyncService.class);
+
+    // Keeps the IN list well below driver and database parameter limits
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    /**
+     * Upserts the given rows, matched on cloudFileId. Updates are flushed through Hibernate's
+     * batched dirty checking when the transaction commits; new rows go through a JDBC batch.
+     */
+    @Transactional
+    public void upsertAll(CloudAccount account, List<FileMetadata> listed) {
+        if (listed.isEmpty()) {
+            return;
+        }
+
+        Map<String, FileMetadata> byCloudId = new LinkedHashMap<>();
+        for (FileMetadata file : listed) {
+            byCloudId.put(file.getCloudFileId(), file);
+        }
+
+        List<String> ids = new ArrayList<>(byCloudId.keySet());
+        List<FileMetadata> inserts = new ArrayList<>();
+        int updated = 0;
+
+        for (int start = 0; start < ids.size(); start += LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = ids.subList(start, Math.min(start + LOOKUP_CHUNK_SIZE, ids.size()));
+            Map<String, FileMetadata> existing = new LinkedHashMap<>();
+            for (FileMetadata row : fileMetadataRepository.findByCloudAccountAndCloudFileIdIn(account, chunk)) {
+                existing.put(row.getCloudFileId(), row);
+            }
+
+            for (String id : chunk) {
+                FileMetadata current = existing.get(id);
+                if (current == null) {
+                    inserts.add(byCloudId.get(id));
+                } else if (copySyncedFields(byCloudId.get(id), current)) {
+                    updated++;
+                }
+            }
+        }
+
+        fileMetadataRepository.insertAll(inserts);
+        logger.debug("Upserted metadata for account {}: {} inserted, {} updated, {} unchanged",
+                account.getId(), inserts.size(), updated, ids.size() - inserts.size() - updated);
+    }
+
+    /**
+     * Inserts or updates a single row, for uploads and folder creation.
+     */
+    @Transactional
+    public FileMetadata upsert(CloudAccount account, FileMetadata listed) {
+        return fileMetadataRepository.findByCloudAccountAndCloudFileId(account, listed.getCloudFileId())
+                .map(current -> {
+                    copySyncedFields(listed, current);
+                    return current;
+                })
+                .orElseGet(() -> fileMetadataRepository.save(listed));
+    }
+
+    /**
+     * Copies the provider-owned fields onto a stored row. Local state such as stars, trash
+     * and encryption is left alone. Returns whether anything changed.
+     */
+    private boolean copySyncedFields(FileMetadata source, FileMetadata target) {
+        boolean changed = false;
+        if (!Objects.equals(source.getFileName(), target.getFileName())) {
+            target.setFileName(source.getFileName());
+            changed = true;
+        }
+        if (!Objects.equals(source.getMimeType(), target.getMimeType())) {
+            target.setMimeType(source.getMimeType());
+            changed = true;
+        }
+        if (!Objects.equals(source.getFileSize(), target.getFileSize())) {
+            target.setFileSize(source.getFileSize());
+            changed = true;
+        }
+        if (!Objects.equals(source.getParentFolderId(), target.getParentFolderId())) {
+            target.setParentFolderId(source.getParentFolderId());
+            changed = true;
+        }
+        if (!Objects.equals(source.getIsFolder(), target.getIsFolder())) {
+            target.setIsFolder(source.getIsFolder());
+            changed = true;
+        }
+        if (source.getWebViewLink() != null && !source.getWebViewLink().equals(target.getWebViewLink())) {
+            target.setWebViewLink(source.getWebViewLink());
+            changed = true;
+        }
+        if (source.getThumbnailUrl() != null && !source.getThumbnailUrl().equals(target.getThumbnailUrl())) {
+            target.setThumbnailUrl(source.getThumbnailUrl());
+            changed = true;
+        }
+        if (source.getModifiedAt() != null && !source.getModifiedAt().equals(target.getModifiedAt())) {
+            target.setModifiedAt(source.getModifiedAt());
+            changed = true;
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,57 @@
+package com.multicloud.service;
+
+import com.multicloud.dto.FileSearchRequest;
+import com.multicloud.model.FileMetadata;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Optional filters of a file search, applied in memory to the name matches returned by the
+ * repository. Trashed files are always left out.
+ */
+final class FileSearchFilter {
+
+    private FileSearchFilter() {
+    }
+
+    static List<FileMetadata> apply(List<FileMetadata> results, FileSearchRequest searchRequest) {
+        // Exclude trashed files
+        results = results.stream()
+                .filter(file -> !file.getIsTrashed())
+                .collect(Collectors.toList());
+
+        if (searchRequest.getFileType() != null) {
+            results = results.stream()
+                    .filter(f -> f.getMimeType() != null &&
+                            f.getMimeType().toLowerCase().contains(searchRequest.getFileType().toLowerCase()))
+                    .collect(Collectors.toList());
+        }
+
+        if (searchRequest.getCloudAccountId() != null) {
+            results = results.stream()
+                    .filter(f -> f.getCloudAccount().getId().equals(searchRequest.getCloudAccountId()))
+                    .collect(Collectors.toList());
+        }
+
+        if (searchRequest.getIsStarred() != null) {
+            results = results.stream()
+                    .filter(f -> f.getIsStarred().equals(searchRequest.getIsStarred()))
+                    .collect(Collectors.toList());
+        }
+
+        if (searchRequest.getMinSize() != null) {
+            results = results.stream()
+                    .filter(f -> f.getFileSize() != null && f.getFileSize() >= searchRequest.getMinSize())
+                    .collect(Collectors.toList());
+        }
+
+        if (searchRequest.getMaxSize() != null) {
+            results = results.stream()
+                    .filter(f -> f.getFileSize() != null && f.getFileSize() <= searchRequest.getMaxSize())
+                    .collect(Collectors.toList());
+        }
+
+        return results;
+    }
+}
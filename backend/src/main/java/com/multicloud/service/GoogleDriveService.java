@@ -4,8 +4,18 @@ import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
 import com.google.api.client.googleapis.auth.oauth2.GoogleRefreshTokenRequest;
 import com.google.api.client.googleapis.auth.oauth2.GoogleTokenResponse;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.http.FileContent;
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonErrorContainer;
+import com.google.api.client.googleapis.media.MediaHttpUploader;
+import com.google.api.client.http.HttpBackOffIOExceptionHandler;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpBackOffUnsuccessfulResponseHandler;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.InputStreamContent;
+import com.google.api.client.http.MultipartContent;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.JsonParser;
@@ -15,20 +25,34 @@ import com.google.api.client.http.HttpRequestFactory;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.services.drive.Drive;
 import com.google.api.services.drive.DriveScopes;
+import com.google.api.services.drive.model.Change;
+import com.google.api.services.drive.model.ChangeList;
 import com.google.api.services.drive.model.File;
 import com.google.api.services.drive.model.FileList;
-import com.google.auth.http.HttpCredentialsAdapter;
-import com.google.auth.oauth2.AccessToken;
-import com.google.auth.oauth2.GoogleCredentials;
+import com.google.api.client.util.ExponentialBackOff;
+import com.multicloud.dto.SyncDelta;
+import com.multicloud.exception.ProviderApiException;
+import com.multicloud.exception.ProviderErrorClassifier;
+import com.multicloud.model.CloudProvider;
+import com.multicloud.provider.CloudItem;
+import com.multicloud.provider.CloudStorageProvider;
+import com.multicloud.provider.ProviderCapability;
+import com.multicloud.provider.StorageQuota;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 
 @Service
-public class GoogleDriveService {
+public class GoogleDriveService implements CloudStorageProvider {
 
     @Value("${google.client.id}")
     private String clientId;
@@ -39,16 +63,58 @@ public class GoogleDriveService {
     @Value("${google.redirect.uri}")
     private String redirectUri;
 
+    @Value("${google.api.root-url:https://www.googleapis.com/}")
+    private String rootUrl;
+
+    @Value("${google.token.uri:https://oauth2.googleapis.com/token}")
+    private String tokenUri;
+
+    @Value("${google.upload.chunk-size:8388608}")
+    private int uploadChunkSize;
+
+    @Value("${google.upload.retry-max-elapsed-ms:120000}")
+    private int uploadRetryMaxElapsedMillis;
+
+    @Autowired
+    private NetHttpTransport googleHttpTransport;
+
+    @Autowired
+    private ProviderRateLimiter rateLimiter;
+
+    private static final Logger logger = LoggerFactory.getLogger(GoogleDriveService.class);
+
     private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+    private static final String APPLICATION_NAME = "MultiCloud Storage";
+    private static final String FILE_FIELDS =
+            "id, name, mimeType, size, parents, createdTime, modifiedTime, webViewLink, thumbnailLink";
+    private static final String FOLDER_MIME_TYPE = "application/vnd.google-apps.folder";
+    private static final int LIST_PAGE_SIZE = 1000;
+    // Cursor of an enumeration in progress: prefix, change start token, separator, files page token
+    private static final String LISTING_CURSOR_PREFIX = "files:";
+    private static final char LISTING_CURSOR_SEPARATOR = ' ';
+    private static final int BATCH_MAX_REQUESTS = 100;
     private static final List<String> SCOPES = Arrays.asList(
             DriveScopes.DRIVE,
             "https://www.googleapis.com/auth/userinfo.email",
             "https://www.googleapis.com/auth/userinfo.profile"
     );
+    private static final Set<ProviderCapability> CAPABILITIES = Collections.unmodifiableSet(EnumSet.of(
+            ProviderCapability.DELTA_SYNC,
+            ProviderCapability.BATCH_DELETE,
+            ProviderCapability.SERVER_SIDE_COPY,
+            ProviderCapability.EXPORT));
+
+    @Override
+    public CloudProvider getProvider() {
+        return CloudProvider.GOOGLE_DRIVE;
+    }
 
-        public String getAuthorizationUrl(String state) throws Exception {
-        NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+    @Override
+    public Set<ProviderCapability> getCapabilities() {
+        return CAPABILITIES;
+    }
 
+        public String getAuthorizationUrl(String state) throws Exception {
         GoogleClientSecrets.Details details = new GoogleClientSecrets.Details();
         details.setClientId(clientId);
         details.setClientSecret(clientSecret);
@@ -57,7 +123,7 @@ public class GoogleDriveService {
         clientSecrets.setInstalled(details);
 
         GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow.Builder(
-                httpTransport, JSON_FACTORY, clientSecrets, SCOPES)
+                googleHttpTransport, JSON_FACTORY, clientSecrets, SCOPES)
                 .setAccessType("offline")
                 .setApprovalPrompt("force")
                 .build();
@@ -73,8 +139,6 @@ public class GoogleDriveService {
     }
 
     public GoogleTokenResponse exchangeCode(String code) throws Exception {
-        NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-
         GoogleClientSecrets.Details details = new GoogleClientSecrets.Details();
         details.setClientId(clientId);
         details.setClientSecret(clientSecret);
@@ -83,8 +147,9 @@ public class GoogleDriveService {
         clientSecrets.setInstalled(details);
 
         GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow.Builder(
-                httpTransport, JSON_FACTORY, clientSecrets, SCOPES)
+                googleHttpTransport, JSON_FACTORY, clientSecrets, SCOPES)
                 .setAccessType("offline")
+                .setTokenServerUrl(new GenericUrl(tokenUri))
                 .build();
 
         return flow.newTokenRequest(code)
@@ -93,81 +158,240 @@ public class GoogleDriveService {
     }
 
     public Drive getDriveService(String accessToken) throws Exception {
-        NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+        return new Drive.Builder(googleHttpTransport, JSON_FACTORY, bearerToken(accessToken))
+                .setRootUrl(rootUrl)
+                .setApplicationName(APPLICATION_NAME)
+                .build();
+    }
 
-        GoogleCredentials credentials = GoogleCredentials.create(
-                new AccessToken(accessToken, null)
-        );
+    /**
+     * Drive client for uploads: retries I/O errors and 5xx responses with exponential backoff,
+     * which is what triggers the media uploader to resume from the last committed chunk.
+     */
+    private Drive getUploadDriveService(String accessToken) throws Exception {
+        HttpRequestInitializer credentials = bearerToken(accessToken);
+
+        HttpRequestInitializer initializer = request -> {
+            credentials.initialize(request);
+            request.setIOExceptionHandler(new HttpBackOffIOExceptionHandler(uploadBackOff()));
+            request.setUnsuccessfulResponseHandler(new HttpBackOffUnsuccessfulResponseHandler(uploadBackOff()));
+        };
+
+        return new Drive.Builder(googleHttpTransport, JSON_FACTORY, initializer)
+                .setRootUrl(rootUrl)
+                .setApplicationName(APPLICATION_NAME)
+                .build();
+    }
 
-        return new Drive.Builder(
-                httpTransport,
-                JSON_FACTORY,
-                new HttpCredentialsAdapter(credentials))
-                .setApplicationName("MultiCloud Storage")
+    /**
+     * Attaches an already issued access token. Refreshing is handled by the caller, so the
+     * credential machinery of google-auth is not needed per request.
+     */
+    private HttpRequestInitializer bearerToken(String accessToken) {
+        String authorization = "Bearer " + accessToken;
+        return request -> {
+            request.getHeaders().setAuthorization(authorization);
+            request.setInterceptor(this::admit);
+        };
+    }
+
+    /**
+     * Takes a rate limit slot for every request the Drive client sends, including each chunk
+     * of a resumable upload. A batch envelope takes one account slot and a provider slot per
+     * part, since Drive counts every part against the project quota; the parts themselves are
+     * queued without this interceptor (see {@link #deleteFiles}) so they are not charged again.
+     */
+    private void admit(HttpRequest request) throws IOException {
+        int calls = request.getContent() instanceof MultipartContent batch
+                && "mixed".equals(batch.getMediaType().getSubType()) ? batch.getParts().size() : 1;
+        try {
+            rateLimiter.admitRequest(calls);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a rate limit slot");
+        }
+    }
+
+    private ExponentialBackOff uploadBackOff() {
+        return new ExponentialBackOff.Builder()
+                .setMaxElapsedTimeMillis(uploadRetryMaxElapsedMillis)
                 .build();
     }
 
-    public File uploadFile(String accessToken, MultipartFile multipartFile, String folderPath) throws Exception {
-        Drive driveService = getDriveService(accessToken);
+    /**
+     * Uploads with the resumable protocol, streaming straight from the multipart input. Each
+     * chunk is committed separately; on I/O or 5xx failures the uploader asks Drive for the
+     * committed range and resumes from there instead of restarting the file.
+     */
+    @Override
+    public CloudItem uploadFile(String accessToken, MultipartFile multipartFile, String folderPath) throws Exception {
+        Drive driveService = getUploadDriveService(accessToken);
 
         File fileMetadata = new File();
         fileMetadata.setName(multipartFile.getOriginalFilename());
 
-        java.io.File tempFile = java.io.File.createTempFile("upload", null);
-        multipartFile.transferTo(tempFile);
+        int chunkSize = effectiveChunkSize();
+
+        // mark/reset support lets the uploader rewind to the last committed byte of a chunk
+        try (InputStream in = new BufferedInputStream(multipartFile.getInputStream(), chunkSize)) {
+            InputStreamContent mediaContent = new InputStreamContent(multipartFile.getContentType(), in);
+            if (multipartFile.getSize() >= 0) {
+                mediaContent.setLength(multipartFile.getSize());
+            }
+
+            Drive.Files.Create create = driveService.files().create(fileMetadata, mediaContent)
+                    .setFields("id, name, mimeType, size, createdTime, modifiedTime, webViewLink, thumbnailLink");
+
+            MediaHttpUploader uploader = create.getMediaHttpUploader();
+            uploader.setDirectUploadEnabled(false);
+            uploader.setChunkSize(chunkSize);
+            uploader.setProgressListener(progress -> {
+                if (progress.getUploadState() == MediaHttpUploader.UploadState.MEDIA_IN_PROGRESS) {
+                    logger.debug("Uploaded {} bytes of '{}' to Google Drive",
+                            progress.getNumBytesUploaded(), multipartFile.getOriginalFilename());
+                } else if (progress.getUploadState() == MediaHttpUploader.UploadState.MEDIA_COMPLETE) {
+                    logger.info("Completed resumable upload of '{}' ({} bytes)",
+                            multipartFile.getOriginalFilename(), progress.getNumBytesUploaded());
+                }
+            });
 
-        FileContent mediaContent = new FileContent(
-                multipartFile.getContentType(),
-                tempFile
-        );
+            return toCloudItem(create.execute());
+        }
+    }
 
-        File file = driveService.files().create(fileMetadata, mediaContent)
-                .setFields("id, name, mimeType, size, createdTime, modifiedTime, webViewLink, thumbnailLink")
-                .execute();
+    /**
+     * Resumable uploads need chunk sizes that are a multiple of 256 KiB.
+     */
+    private int effectiveChunkSize() {
+        int units = Math.max(1, uploadChunkSize / MediaHttpUploader.MINIMUM_CHUNK_SIZE);
+        return units * MediaHttpUploader.MINIMUM_CHUNK_SIZE;
+    }
 
-        tempFile.delete();
+    /**
+     * Reads one page of the non-trashed file listing. While pages remain, the cursor carries
+     * both the change start token taken before the listing and the next files page token;
+     * after the last page it is the bare start token, so the change feed takes over from there
+     * and replays anything changed during the crawl.
+     */
+    private SyncDelta<CloudItem> listFilesPage(Drive driveService, String startPageToken, String pageToken)
+            throws IOException {
+        FileList result;
+        try {
+            result = driveService.files().list()
+                    .setPageSize(LIST_PAGE_SIZE)
+                    .setFields("nextPageToken, files(" + FILE_FIELDS + ")")
+                    .setQ("trashed = false")
+                    .setPageToken(pageToken)
+                    .execute();
+        } catch (HttpResponseException e) {
+            if (pageToken == null || e.getStatusCode() != 400) {
+                throw e;
+            }
+            logger.warn("Drive rejected files page token, full resync required");
+            return SyncDelta.<CloudItem>builder().resyncRequired(true).build();
+        }
 
-        return file;
+        List<CloudItem> files = new ArrayList<>();
+        if (result.getFiles() != null) {
+            for (File file : result.getFiles()) {
+                files.add(toCloudItem(file));
+            }
+        }
+
+        String nextPageToken = result.getNextPageToken();
+        boolean hasMore = nextPageToken != null;
+        return SyncDelta.<CloudItem>builder()
+                .changedItems(files)
+                .cursor(hasMore ? LISTING_CURSOR_PREFIX + startPageToken + LISTING_CURSOR_SEPARATOR + nextPageToken
+                        : startPageToken)
+                .hasMore(hasMore)
+                .build();
     }
 
-        public List<File> listFiles(String accessToken) throws Exception {
+    /**
+     * Reads one page of changes. Without a cursor the drive is enumerated page by page through
+     * {@code files.list} (see {@link #listFilesPage}); afterwards the cursor is a change page
+     * token. Removed and trashed files are reported as removals; a rejected page token is
+     * reported as {@code resyncRequired}.
+     */
+    @Override
+    public SyncDelta<CloudItem> listChanges(String accessToken, String pageToken) throws Exception {
         Drive driveService = getDriveService(accessToken);
 
-        FileList result = driveService.files().list()
-                .setPageSize(100)
-                                .setFields("files(id, name, mimeType, size, parents, createdTime, modifiedTime, webViewLink, thumbnailLink)")
-                                .setQ("trashed = false")
-                .execute();
+        if (pageToken == null || pageToken.isBlank()) {
+            String startPageToken = driveService.changes().getStartPageToken().execute().getStartPageToken();
+            return listFilesPage(driveService, startPageToken, null);
+        }
+        if (pageToken.startsWith(LISTING_CURSOR_PREFIX)) {
+            String listing = pageToken.substring(LISTING_CURSOR_PREFIX.length());
+            int separator = listing.indexOf(LISTING_CURSOR_SEPARATOR);
+            return listFilesPage(driveService, listing.substring(0, separator), listing.substring(separator + 1));
+        }
+
+        ChangeList result;
+        try {
+            result = driveService.changes().list(pageToken)
+                    .setPageSize(LIST_PAGE_SIZE)
+                    .setIncludeRemoved(true)
+                    .setFields("nextPageToken, newStartPageToken, changes(fileId, removed, file(" + FILE_FIELDS + ", trashed))")
+                    .execute();
+        } catch (HttpResponseException e) {
+            if (e.getStatusCode() != 400 && e.getStatusCode() != 404 && e.getStatusCode() != 410) {
+                throw e;
+            }
+            logger.warn("Drive rejected change page token ({}), full resync required", e.getStatusCode());
+            return SyncDelta.<CloudItem>builder().resyncRequired(true).build();
+        }
+
+        List<CloudItem> changed = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        if (result.getChanges() != null) {
+            for (Change change : result.getChanges()) {
+                File file = change.getFile();
+                if (Boolean.TRUE.equals(change.getRemoved()) || file == null || Boolean.TRUE.equals(file.getTrashed())) {
+                    removed.add(change.getFileId());
+                } else {
+                    changed.add(toCloudItem(file));
+                }
+            }
+        }
 
-        return result.getFiles();
+        boolean hasMore = result.getNextPageToken() != null;
+        return SyncDelta.<CloudItem>builder()
+                .changedItems(changed)
+                .removedIds(removed)
+                .cursor(hasMore ? result.getNextPageToken() : result.getNewStartPageToken())
+                .hasMore(hasMore)
+                .build();
     }
 
-        public File createFolder(String accessToken, String folderName, String parentFolderId) throws Exception {
+        @Override
+        public CloudItem createFolder(String accessToken, String folderName, String parentFolderId) throws Exception {
                 Drive driveService = getDriveService(accessToken);
 
                 File fileMetadata = new File();
                 fileMetadata.setName(folderName);
-                fileMetadata.setMimeType("application/vnd.google-apps.folder");
+                fileMetadata.setMimeType(FOLDER_MIME_TYPE);
 
                 if (parentFolderId != null && !parentFolderId.trim().isEmpty()) {
                         fileMetadata.setParents(Collections.singletonList(parentFolderId));
                 }
 
-                return driveService.files().create(fileMetadata)
+                return toCloudItem(driveService.files().create(fileMetadata)
                                 .setFields("id, name, mimeType, parents, createdTime, modifiedTime, webViewLink, thumbnailLink")
-                                .execute();
+                                .execute());
         }
 
+        @Override
         public Map<String, String> refreshAccessToken(String refreshToken) throws Exception {
-                NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-
                 GoogleTokenResponse response = new GoogleRefreshTokenRequest(
-                                httpTransport,
+                                googleHttpTransport,
                                 JSON_FACTORY,
                                 refreshToken,
                                 clientId,
                                 clientSecret)
                                 .setGrantType("refresh_token")
+                                .setTokenServerUrl(new GenericUrl(tokenUri))
                                 .execute();
 
                 Map<String, String> tokens = new HashMap<>();
@@ -184,44 +408,103 @@ public class GoogleDriveService {
                 return tokens;
         }
 
-        public File renameFile(String accessToken, String fileId, String newName) throws Exception {
+        @Override
+        public CloudItem renameFile(String accessToken, String fileId, String newName) throws Exception {
                 Drive driveService = getDriveService(accessToken);
 
                 File fileMetadata = new File();
                 fileMetadata.setName(newName);
 
-                return driveService.files()
+                return toCloudItem(driveService.files()
                                 .update(fileId, fileMetadata)
                                 .setFields("id, name, mimeType, size, parents, createdTime, modifiedTime, webViewLink, thumbnailLink")
-                                .execute();
+                                .execute());
         }
 
-    public ByteArrayOutputStream downloadFile(String accessToken, String fileId) throws Exception {
+    /**
+     * Opens the raw media stream of a file. The caller owns the returned stream and must close it.
+     */
+    @Override
+    public InputStream openDownloadStream(String accessToken, String fileId) throws Exception {
         Drive driveService = getDriveService(accessToken);
+        return driveService.files().get(fileId).executeMediaAsInputStream();
+    }
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        driveService.files().get(fileId)
-                .executeMediaAndDownloadTo(outputStream);
+    /**
+     * Opens an export stream for a Google Workspace document. The caller owns the returned stream.
+     */
+    @Override
+    public InputStream openExportStream(String accessToken, String fileId, String exportMimeType) throws Exception {
+        Drive driveService = getDriveService(accessToken);
+        return driveService.files().export(fileId, exportMimeType).executeMediaAsInputStream();
+    }
 
-        return outputStream;
+    @Override
+    public void deleteFile(String accessToken, String fileId) throws Exception {
+        Drive driveService = getDriveService(accessToken);
+        driveService.files().delete(fileId).execute();
     }
- 
-    public ByteArrayOutputStream exportFile(String accessToken, String fileId, String exportMimeType) throws Exception {
+
+    /**
+     * Deletes files with batch requests of up to 100 calls each. Returns the failures keyed by
+     * file id; files that no longer exist count as deleted.
+     */
+    @Override
+    public Map<String, ProviderApiException> deleteFiles(String accessToken, List<String> fileIds) throws Exception {
         Drive driveService = getDriveService(accessToken);
+        Map<String, ProviderApiException> failures = new HashMap<>();
+
+        for (int start = 0; start < fileIds.size(); start += BATCH_MAX_REQUESTS) {
+            BatchRequest batch = driveService.batch();
+            for (String fileId : fileIds.subList(start, Math.min(start + BATCH_MAX_REQUESTS, fileIds.size()))) {
+                // Charged with the envelope, see admit()
+                HttpRequest delete = driveService.files().delete(fileId).buildHttpRequest();
+                delete.setInterceptor(null);
+                batch.queue(delete, Void.class, GoogleJsonErrorContainer.class, new JsonBatchCallback<Void>() {
+                    @Override
+                    public void onSuccess(Void result, HttpHeaders responseHeaders) {
+                    }
+
+                    @Override
+                    public void onFailure(GoogleJsonError error, HttpHeaders responseHeaders) {
+                        if (error.getCode() == 404) {
+                            return;
+                        }
+                        int status = error.getCode() == 403 && ProviderErrorClassifier.hasRateLimitReason(error)
+                                ? 429 : error.getCode();
+                        failures.put(fileId, new ProviderApiException(CloudProvider.GOOGLE_DRIVE, status,
+                                "Failed to delete file: " + error.getMessage(),
+                                ProviderErrorClassifier.parseRetryAfter(
+                                        responseHeaders.getFirstHeaderStringValue("Retry-After"))));
+                    }
+                });
+            }
+            batch.execute();
+        }
+
+        return failures;
+    }
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        driveService.files().export(fileId, exportMimeType)
-                .executeMediaAndDownloadTo(outputStream);
+    /**
+     * Copies a file with {@code files.copy}; Drive duplicates the content server-side.
+     */
+    @Override
+    public CloudItem copyFile(String accessToken, String fileId, String targetFolderId, String fileName) throws Exception {
+        Drive driveService = getDriveService(accessToken);
 
-                return outputStream;
+        File copy = new File();
+        copy.setName(fileName);
+        if (targetFolderId != null && !targetFolderId.isBlank()) {
+            copy.setParents(Collections.singletonList(targetFolderId));
         }
 
-    public void deleteFile(String accessToken, String fileId) throws Exception {
-        Drive driveService = getDriveService(accessToken);
-        driveService.files().delete(fileId).execute();
+        return toCloudItem(driveService.files().copy(fileId, copy)
+                .setFields(FILE_FIELDS)
+                .execute());
     }
 
-    public Map<String, Object> getStorageQuota(String accessToken) throws Exception {
+    @Override
+    public StorageQuota getStorageQuota(String accessToken) throws Exception {
         Drive driveService = getDriveService(accessToken);
         
         com.google.api.services.drive.model.About about = driveService.about()
@@ -229,22 +512,36 @@ public class GoogleDriveService {
                 .setFields("storageQuota")
                 .execute();
 
-        Map<String, Object> quota = new HashMap<>();
-        if (about.getStorageQuota() != null) {
-            quota.put("limit", about.getStorageQuota().getLimit());
-            quota.put("usage", about.getStorageQuota().getUsage());
-            quota.put("usageInDrive", about.getStorageQuota().getUsageInDrive());
+        if (about.getStorageQuota() == null) {
+            return new StorageQuota(null, null);
         }
+        return new StorageQuota(about.getStorageQuota().getLimit(), about.getStorageQuota().getUsage());
+    }
 
-        return quota;
+    @Override
+    public String getPreviewUrl(String fileId) {
+        return fileId != null && !fileId.isBlank() ? "https://drive.google.com/file/d/" + fileId + "/preview" : null;
     }
 
-        public String getUserEmail(String accessToken) throws Exception {
-                NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+    private CloudItem toCloudItem(File file) {
+        return new CloudItem(
+                file.getId(),
+                file.getName(),
+                file.getMimeType(),
+                file.getSize(),
+                FOLDER_MIME_TYPE.equals(file.getMimeType()),
+                file.getParents() != null && !file.getParents().isEmpty() ? file.getParents().get(0) : null,
+                file.getWebViewLink(),
+                file.getThumbnailLink(),
+                file.getModifiedTime() != null
+                        ? LocalDateTime.ofInstant(Instant.ofEpochMilli(file.getModifiedTime().getValue()), ZoneId.systemDefault())
+                        : null);
+    }
 
-                GenericUrl url = new GenericUrl("https://www.googleapis.com/oauth2/v1/userinfo?alt=json");
+        public String getUserEmail(String accessToken) throws Exception {
+                GenericUrl url = new GenericUrl(rootUrl + "oauth2/v1/userinfo?alt=json");
 
-                HttpRequestFactory requestFactory = httpTransport.createRequestFactory();
+                HttpRequestFactory requestFactory = googleHttpTransport.createRequestFactory();
                 HttpRequest request = requestFactory.buildGetRequest(url);
                 request.getHeaders().setAuthorization("Bearer " + accessToken);
 
@@ -1,23 +1,40 @@
 package com.multicloud.service;
 
+import com.multicloud.dto.SyncDelta;
+import com.multicloud.exception.ProviderApiException;
+import com.multicloud.exception.ProviderErrorClassifier;
+import com.multicloud.model.CloudProvider;
+import com.multicloud.provider.CloudItem;
+import com.multicloud.provider.CloudStorageProvider;
+import com.multicloud.provider.ProviderCapability;
+import com.multicloud.provider.StorageQuota;
 import okhttp3.*;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
-public class OneDriveService {
+public class OneDriveService implements CloudStorageProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(OneDriveService.class);
 
@@ -39,8 +56,37 @@ public class OneDriveService {
     @Value("${onedrive.scope}")
     private String scope;
 
-    private final OkHttpClient httpClient = new OkHttpClient();
-    private static final String GRAPH_API_ENDPOINT = "https://graph.microsoft.com/v1.0";
+    @Value("${onedrive.graph.base-url:https://graph.microsoft.com/v1.0}")
+    private String graphBaseUrl;
+
+    @Value("${onedrive.upload.fragment-size:10485760}")
+    private int uploadFragmentSize;
+
+    @Value("${onedrive.upload.max-fragment-retries:3}")
+    private int maxFragmentRetries;
+
+    @Autowired
+    private OkHttpClient httpClient;
+
+    private static final int GRAPH_BATCH_MAX_REQUESTS = 20;
+    private static final long SIMPLE_UPLOAD_MAX_BYTES = 4L * 1024 * 1024;
+    private static final int UPLOAD_FRAGMENT_UNIT = 320 * 1024;
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+    private static final String DELTA_SELECT =
+            "id,name,size,file,folder,root,deleted,webUrl,createdDateTime,lastModifiedDateTime,parentReference";
+    private static final Set<ProviderCapability> CAPABILITIES = Collections.unmodifiableSet(EnumSet.of(
+            ProviderCapability.DELTA_SYNC,
+            ProviderCapability.BATCH_DELETE));
+
+    @Override
+    public CloudProvider getProvider() {
+        return CloudProvider.ONEDRIVE;
+    }
+
+    @Override
+    public Set<ProviderCapability> getCapabilities() {
+        return CAPABILITIES;
+    }
 
     public String getAuthorizationUrl() {
         String url = authUri +
@@ -76,7 +122,8 @@ public class OneDriveService {
             
             if (!response.isSuccessful()) {
                 logger.error("Failed to exchange code: {}", responseBody);
-                throw new IOException("Failed to exchange code: " + responseBody);
+                throw new ProviderApiException(CloudProvider.ONEDRIVE, response.code(),
+                        "Failed to exchange code: " + responseBody, null);
             }
 
             JSONObject json = new JSONObject(responseBody);
@@ -89,10 +136,11 @@ public class OneDriveService {
             return tokens;
         } catch (Exception e) {
             logger.error("Error exchanging code", e);
-            throw new IOException("Error exchanging code: " + e.getMessage());
+            throw new IOException("Error exchanging code: " + e.getMessage(), e);
         }
     }
 
+    @Override
     public Map<String, String> refreshAccessToken(String refreshToken) throws IOException {
         logger.info("Refreshing OneDrive access token");
 
@@ -115,7 +163,8 @@ public class OneDriveService {
 
             if (!response.isSuccessful()) {
                 logger.error("Failed to refresh token: {}", responseBody);
-                throw new IOException("Failed to refresh token: " + responseBody);
+                throw new ProviderApiException(CloudProvider.ONEDRIVE, response.code(),
+                        "Failed to refresh token: " + responseBody, null);
             }
 
             JSONObject json = new JSONObject(responseBody);
@@ -133,64 +182,65 @@ public class OneDriveService {
         }
     }
 
-    public List<Map<String, Object>> listFiles(String accessToken) throws IOException {
-        logger.info("Listing OneDrive files");
-        
+    /**
+     * Reads one page of the drive delta feed. A null link starts a full enumeration from the
+     * root; otherwise the stored nextLink or deltaLink is followed. The returned cursor is the
+     * link to resume from, and an expired delta link (410) is reported as {@code resyncRequired}.
+     */
+    @Override
+    public SyncDelta<CloudItem> listChanges(String accessToken, String deltaLink) throws IOException {
+        String url = (deltaLink != null && !deltaLink.isBlank())
+                ? deltaLink
+                : graphBaseUrl + "/me/drive/root/delta?$select=" + DELTA_SELECT;
+
         Request request = new Request.Builder()
-                .url(GRAPH_API_ENDPOINT + "/me/drive/root/children")
+                .url(url)
                 .header("Authorization", "Bearer " + accessToken)
                 .get()
                 .build();
 
         try (Response response = httpClient.newCall(request).execute()) {
+            if (response.code() == 410) {
+                logger.warn("OneDrive delta link expired, full resync required");
+                return SyncDelta.<CloudItem>builder().resyncRequired(true).build();
+            }
             if (!response.isSuccessful()) {
-                logger.error("Failed to list files: {}", response.code());
-                throw new IOException("Failed to list files: " + response.code());
+                throw apiError("read delta", response);
             }
 
-            String responseBody = response.body().string();
-            JSONObject json = new JSONObject(responseBody);
+            JSONObject json = new JSONObject(response.body().string());
             JSONArray items = json.getJSONArray("value");
 
-            List<Map<String, Object>> files = new ArrayList<>();
+            List<CloudItem> changed = new ArrayList<>();
+            List<String> removed = new ArrayList<>();
             for (int i = 0; i < items.length(); i++) {
                 JSONObject item = items.getJSONObject(i);
-                Map<String, Object> fileInfo = new HashMap<>();
-                
-                fileInfo.put("id", item.getString("id"));
-                fileInfo.put("name", item.getString("name"));
-                fileInfo.put("size", item.optLong("size", 0));
-                fileInfo.put("mimeType", item.optJSONObject("file") != null ? 
-                    item.getJSONObject("file").optString("mimeType", "application/octet-stream") : "folder");
-                fileInfo.put("webUrl", item.optString("webUrl", ""));
-                fileInfo.put("createdDateTime", item.optString("createdDateTime", ""));
-                fileInfo.put("lastModifiedDateTime", item.optString("lastModifiedDateTime", ""));
-                fileInfo.put("isFolder", item.has("folder"));
-
-                JSONObject parentRef = item.optJSONObject("parentReference");
-                if (parentRef != null) {
-                    fileInfo.put("parentId", parentRef.optString("id", null));
+                if (item.has("deleted")) {
+                    removed.add(item.getString("id"));
+                } else if (!item.has("root")) {
+                    changed.add(toCloudItem(item));
                 }
-
-                files.add(fileInfo);
             }
-            
-            logger.info("Found {} files", files.size());
-            return files;
-        } catch (Exception e) {
-            logger.error("Error listing files", e);
-            throw new IOException("Error listing files: " + e.getMessage());
+
+            String nextLink = json.optString("@odata.nextLink", null);
+            return SyncDelta.<CloudItem>builder()
+                    .changedItems(changed)
+                    .removedIds(removed)
+                    .cursor(nextLink != null ? nextLink : json.getString("@odata.deltaLink"))
+                    .hasMore(nextLink != null)
+                    .build();
         }
     }
 
-    public Map<String, Object> createFolder(String accessToken, String folderName, String parentFolderId) throws IOException {
+    @Override
+    public CloudItem createFolder(String accessToken, String folderName, String parentFolderId) throws IOException {
         logger.info("Creating OneDrive folder: {}", folderName);
 
         String url;
         if (parentFolderId != null && !parentFolderId.trim().isEmpty()) {
-            url = GRAPH_API_ENDPOINT + "/me/drive/items/" + parentFolderId + "/children";
+            url = graphBaseUrl + "/me/drive/items/" + parentFolderId + "/children";
         } else {
-            url = GRAPH_API_ENDPOINT + "/me/drive/root/children";
+            url = graphBaseUrl + "/me/drive/root/children";
         }
 
         JSONObject body = new JSONObject();
@@ -211,43 +261,32 @@ public class OneDriveService {
 
         try (Response response = httpClient.newCall(request).execute()) {
             if (!response.isSuccessful()) {
-                throw new IOException("Failed to create folder: " + response.code());
+                throw apiError("create folder", response);
             }
 
-            String responseBody = response.body().string();
-            JSONObject json = new JSONObject(responseBody);
-
-            Map<String, Object> folderInfo = new HashMap<>();
-            folderInfo.put("id", json.getString("id"));
-            folderInfo.put("name", json.getString("name"));
-            folderInfo.put("mimeType", "folder");
-            folderInfo.put("isFolder", true);
-            folderInfo.put("parentId", parentFolderId != null && !parentFolderId.trim().isEmpty()
-                    ? parentFolderId
-                    : json.optJSONObject("parentReference") != null
-                        ? json.getJSONObject("parentReference").optString("id", null)
-                        : null);
-
-            return folderInfo;
+            return toCloudItem(new JSONObject(response.body().string()));
         }
     }
 
-    public Map<String, Object> uploadFile(String accessToken, MultipartFile file) throws IOException {
+    @Override
+    public CloudItem uploadFile(String accessToken, MultipartFile file, String folderPath) throws IOException {
         logger.info("Uploading file to OneDrive: {}", file.getOriginalFilename());
         
-        if (file.getSize() < 4 * 1024 * 1024) {
+        long size = file.getSize();
+        if (size >= 0 && size < SIMPLE_UPLOAD_MAX_BYTES) {
             return uploadSmallFile(accessToken, file);
-        } else {
-            throw new IOException("Large file upload not yet implemented");
         }
+        if (size < 0) {
+            throw new IllegalArgumentException("OneDrive upload sessions require a known content length");
+        }
+        return uploadLargeFile(accessToken, file);
     }
 
-    private Map<String, Object> uploadSmallFile(String accessToken, MultipartFile file) throws IOException {
-        String uploadUrl = GRAPH_API_ENDPOINT + "/me/drive/root:/" + 
+    private CloudItem uploadSmallFile(String accessToken, MultipartFile file) throws IOException {
+        String uploadUrl = graphBaseUrl + "/me/drive/root:/" + 
                           file.getOriginalFilename() + ":/content";
 
-        RequestBody requestBody = RequestBody.create(
-            file.getBytes(),
+        RequestBody requestBody = streamingBody(file,
             MediaType.parse(file.getContentType() != null ? file.getContentType() : "application/octet-stream")
         );
 
@@ -259,72 +298,386 @@ public class OneDriveService {
 
         try (Response response = httpClient.newCall(request).execute()) {
             if (!response.isSuccessful()) {
-                throw new IOException("Failed to upload file: " + response.code());
+                throw apiError("upload file", response);
             }
 
             String responseBody = response.body().string();
             JSONObject json = new JSONObject(responseBody);
             
-            Map<String, Object> fileInfo = new HashMap<>();
-            fileInfo.put("id", json.getString("id"));
-            fileInfo.put("name", json.getString("name"));
-            fileInfo.put("size", json.optLong("size", 0));
-            fileInfo.put("webUrl", json.optString("webUrl", ""));
-            
             logger.info("File uploaded successfully");
-            return fileInfo;
+            return toCloudItem(json);
         } catch (Exception e) {
             logger.error("Error uploading file", e);
-            throw new IOException("Error uploading file: " + e.getMessage());
+            throw new IOException("Error uploading file: " + e.getMessage(), e);
         }
     }
 
-    public ByteArrayOutputStream downloadFile(String accessToken, String fileId) throws IOException {
-        logger.info("Downloading file from OneDrive: {}", fileId);
-        
+    /**
+     * Uploads through a Graph upload session. The multipart stream is read one fragment at a
+     * time into a single reusable buffer, so heap use is bounded by the fragment size.
+     */
+    private CloudItem uploadLargeFile(String accessToken, MultipartFile file) throws IOException {
+        String uploadUrl = createUploadSession(accessToken, file.getOriginalFilename());
+        long totalSize = file.getSize();
+        byte[] buffer = new byte[(int) Math.min(effectiveFragmentSize(), totalSize)];
+        long offset = 0;
+
+        logger.info("Uploading {} bytes to OneDrive in fragments of {} bytes", totalSize, buffer.length);
+
+        try (InputStream in = file.getInputStream()) {
+            while (offset < totalSize) {
+                int length = in.readNBytes(buffer, 0, (int) Math.min(buffer.length, totalSize - offset));
+                if (length <= 0) {
+                    throw new IOException("Upload stream ended at byte " + offset + " of " + totalSize);
+                }
+
+                JSONObject item = uploadFragment(uploadUrl, buffer, offset, length, totalSize);
+                offset += length;
+
+                if (item != null) {
+                    logger.info("File uploaded successfully through upload session");
+                    return toCloudItem(item);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Upload session failed at byte {} of {}", offset, totalSize, e);
+            cancelUploadSession(uploadUrl);
+            throw e;
+        }
+
+        // The final fragment arrived but its response was lost; the session has committed the item
+        logger.info("Upload session completed without a response, fetching the created item");
+        return toCloudItem(getJson(accessToken, graphBaseUrl + "/me/drive/root:/" + file.getOriginalFilename(),
+                "fetch uploaded item"));
+    }
+
+    private String createUploadSession(String accessToken, String fileName) throws IOException {
+        JSONObject item = new JSONObject();
+        item.put("@microsoft.graph.conflictBehavior", "replace");
+        JSONObject body = new JSONObject();
+        body.put("item", item);
+
         Request request = new Request.Builder()
-                .url(GRAPH_API_ENDPOINT + "/me/drive/items/" + fileId + "/content")
+                .url(graphBaseUrl + "/me/drive/root:/" + fileName + ":/createUploadSession")
                 .header("Authorization", "Bearer " + accessToken)
+                .post(RequestBody.create(body.toString(), MediaType.parse("application/json")))
+                .build();
+
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw apiError("create upload session", response);
+            }
+            return new JSONObject(response.body().string()).getString("uploadUrl");
+        }
+    }
+
+    /**
+     * Sends {@code buffer[0, length)} as the byte range starting at {@code offset}. When a
+     * fragment fails, the session is asked which bytes it still expects and only the
+     * unacknowledged tail of the fragment is resent; if the server already holds all of it,
+     * the fragment counts as accepted.
+     *
+     * @return the created drive item once the final fragment is accepted, otherwise null
+     */
+    private JSONObject uploadFragment(String uploadUrl, byte[] buffer, long offset, int length, long totalSize)
+            throws IOException {
+        int acknowledged = 0;
+
+        for (int attempt = 0; ; attempt++) {
+            if (acknowledged == length) {
+                return null;
+            }
+            long rangeStart = offset + acknowledged;
+            long rangeEnd = offset + length - 1;
+
+            // Upload URLs are pre-authenticated; Graph rejects requests that also carry a bearer token.
+            Request request = new Request.Builder()
+                    .url(uploadUrl)
+                    .header("Content-Range", "bytes " + rangeStart + "-" + rangeEnd + "/" + totalSize)
+                    .put(RequestBody.create(buffer, OCTET_STREAM, acknowledged, length - acknowledged))
+                    .build();
+
+            int status;
+            String responseBody;
+            try (Response response = httpClient.newCall(request).execute()) {
+                status = response.code();
+                responseBody = response.body() != null ? response.body().string() : "";
+            } catch (IOException e) {
+                if (attempt >= maxFragmentRetries) {
+                    throw e;
+                }
+                logger.warn("Fragment {}-{} failed ({}), resuming", rangeStart, rangeEnd, e.getMessage());
+                pauseBeforeRetry(attempt);
+                acknowledged = resumeOffset(uploadUrl, offset, length, acknowledged);
+                continue;
+            }
+
+            if (status == 200 || status == 201) {
+                return new JSONObject(responseBody);
+            }
+            if (status == 202) {
+                return null;
+            }
+            if (!isRetryableUploadStatus(status) || attempt >= maxFragmentRetries) {
+                throw new ProviderApiException(CloudProvider.ONEDRIVE, status,
+                        "Failed to upload fragment " + rangeStart + "-" + rangeEnd + ": " + status, null);
+            }
+
+            logger.warn("Fragment {}-{} rejected with status {}, resuming", rangeStart, rangeEnd, status);
+            pauseBeforeRetry(attempt);
+            acknowledged = resumeOffset(uploadUrl, offset, length, acknowledged);
+        }
+    }
+
+    /**
+     * Reads {@code nextExpectedRanges} from the session and converts it into the number of
+     * bytes of the current fragment the server already holds.
+     */
+    private int resumeOffset(String uploadUrl, long fragmentOffset, int fragmentLength, int fallback) {
+        Request request = new Request.Builder()
+                .url(uploadUrl)
                 .get()
                 .build();
 
         try (Response response = httpClient.newCall(request).execute()) {
             if (!response.isSuccessful()) {
-                throw new IOException("Failed to download file: " + response.code());
+                return fallback;
             }
 
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            outputStream.write(response.body().bytes());
-            
-            logger.info("File downloaded successfully");
-            return outputStream;
+            JSONArray ranges = new JSONObject(response.body().string()).optJSONArray("nextExpectedRanges");
+            if (ranges == null) {
+                return fallback;
+            }
+            if (ranges.isEmpty()) {
+                // Nothing left to send: every byte of the session has been received
+                return fragmentLength;
+            }
+
+            String range = ranges.getString(0);
+            long nextExpected = Long.parseLong(range.substring(0, range.indexOf('-')));
+            return (int) Math.max(0, Math.min(fragmentLength, nextExpected - fragmentOffset));
         } catch (Exception e) {
-            logger.error("Error downloading file", e);
-            throw new IOException("Error downloading file: " + e.getMessage());
+            logger.warn("Unable to query upload session status: {}", e.getMessage());
+            return fallback;
         }
     }
 
+    private void cancelUploadSession(String uploadUrl) {
+        Request request = new Request.Builder()
+                .url(uploadUrl)
+                .delete()
+                .build();
+
+        try (Response response = httpClient.newCall(request).execute()) {
+            logger.debug("Upload session cancelled with status {}", response.code());
+        } catch (IOException e) {
+            logger.warn("Failed to cancel upload session: {}", e.getMessage());
+        }
+    }
+
+    private boolean isRetryableUploadStatus(int status) {
+        return status == 408 || status == 429 || status >= 500;
+    }
+
+    private void pauseBeforeRetry(int attempt) throws IOException {
+        try {
+            Thread.sleep(1000L * (attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Upload interrupted", e);
+        }
+    }
+
+    /**
+     * Graph requires fragments to be a multiple of 320 KiB.
+     */
+    private int effectiveFragmentSize() {
+        int units = Math.max(1, uploadFragmentSize / UPLOAD_FRAGMENT_UNIT);
+        return units * UPLOAD_FRAGMENT_UNIT;
+    }
+
+    /**
+     * Request body that copies the multipart stream straight to the socket instead of
+     * materialising it with {@code getBytes()}.
+     */
+    private RequestBody streamingBody(MultipartFile file, MediaType mediaType) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return mediaType;
+            }
+
+            @Override
+            public long contentLength() {
+                return file.getSize();
+            }
+
+            @Override
+            public boolean isOneShot() {
+                return true;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                try (Source source = Okio.source(file.getInputStream())) {
+                    sink.writeAll(source);
+                }
+            }
+        };
+    }
+
+    /**
+     * Typed error for a non-success Graph response, keeping the status and Retry-After hint.
+     */
+    private ProviderApiException apiError(String action, Response response) {
+        logger.error("Failed to {}: {}", action, response.code());
+        return new ProviderApiException(CloudProvider.ONEDRIVE, response.code(),
+                "Failed to " + action + ": " + response.code(),
+                ProviderErrorClassifier.parseRetryAfter(response.header("Retry-After")));
+    }
+
+    private JSONObject getJson(String accessToken, String url, String action) throws IOException {
+        Request request = new Request.Builder()
+                .url(url)
+                .header("Authorization", "Bearer " + accessToken)
+                .get()
+                .build();
+
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw apiError(action, response);
+            }
+            return new JSONObject(response.body().string());
+        }
+    }
+
+    private CloudItem toCloudItem(JSONObject item) {
+        JSONObject file = item.optJSONObject("file");
+        JSONObject parentRef = item.optJSONObject("parentReference");
+        return new CloudItem(
+                item.getString("id"),
+                item.getString("name"),
+                file != null ? file.optString("mimeType", "application/octet-stream") : CloudItem.FOLDER_MIME_TYPE,
+                item.optLong("size", 0),
+                item.has("folder"),
+                parentRef != null ? parentRef.optString("id", null) : null,
+                item.optString("webUrl", null),
+                null,
+                parseDateTime(item.optString("lastModifiedDateTime", null)));
+    }
+
+    private LocalDateTime parseDateTime(String value) {
+        if (value == null || value.length() < 19) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value.substring(0, 19));
+        } catch (DateTimeParseException e) {
+            logger.warn("Failed to parse OneDrive modified date: {}", value);
+            return null;
+        }
+    }
+
+    /**
+     * Opens the content stream of a drive item. Closing the returned stream releases the
+     * underlying HTTP connection, so callers must always close it.
+     */
+    @Override
+    public InputStream openDownloadStream(String accessToken, String fileId) throws IOException {
+        logger.info("Opening download stream from OneDrive: {}", fileId);
+
+        Request request = new Request.Builder()
+                .url(graphBaseUrl + "/me/drive/items/" + fileId + "/content")
+                .header("Authorization", "Bearer " + accessToken)
+                .get()
+                .build();
+
+        Response response = httpClient.newCall(request).execute();
+        if (!response.isSuccessful()) {
+            ProviderApiException error = apiError("download file", response);
+            response.close();
+            throw error;
+        }
+
+        return response.body().byteStream();
+    }
+
+    @Override
     public void deleteFile(String accessToken, String fileId) throws IOException {
         logger.info("Deleting file from OneDrive: {}", fileId);
         
         Request request = new Request.Builder()
-                .url(GRAPH_API_ENDPOINT + "/me/drive/items/" + fileId)
+                .url(graphBaseUrl + "/me/drive/items/" + fileId)
                 .header("Authorization", "Bearer " + accessToken)
                 .delete()
                 .build();
 
         try (Response response = httpClient.newCall(request).execute()) {
             if (!response.isSuccessful()) {
-                throw new IOException("Failed to delete file: " + response.code());
+                throw apiError("delete file", response);
             }
             logger.info("File deleted successfully");
         } catch (Exception e) {
             logger.error("Error deleting file", e);
-            throw new IOException("Error deleting file: " + e.getMessage());
+            throw new IOException("Error deleting file: " + e.getMessage(), e);
         }
     }
 
-    public Map<String, Object> renameFile(String accessToken, String fileId, String newName) throws IOException {
+    /**
+     * Deletes items through JSON {@code $batch} requests of up to 20 calls each. Returns the
+     * failures keyed by item id; items that no longer exist count as deleted.
+     */
+    @Override
+    public Map<String, ProviderApiException> deleteFiles(String accessToken, List<String> fileIds) throws IOException {
+        Map<String, ProviderApiException> failures = new HashMap<>();
+
+        for (int from = 0; from < fileIds.size(); from += GRAPH_BATCH_MAX_REQUESTS) {
+            List<String> batch = fileIds.subList(from, Math.min(fileIds.size(), from + GRAPH_BATCH_MAX_REQUESTS));
+            JSONArray requests = new JSONArray();
+            for (int i = 0; i < batch.size(); i++) {
+                requests.put(new JSONObject()
+                        .put("id", String.valueOf(i))
+                        .put("method", "DELETE")
+                        .put("url", "/me/drive/items/" + batch.get(i)));
+            }
+
+            Request request = new Request.Builder()
+                    .url(graphBaseUrl + "/$batch")
+                    .header("Authorization", "Bearer " + accessToken)
+                    .post(RequestBody.create(new JSONObject().put("requests", requests).toString(),
+                            MediaType.parse("application/json")))
+                    .build();
+
+            JSONArray responses;
+            try (Response response = httpClient.newCall(request).execute()) {
+                if (!response.isSuccessful()) {
+                    throw apiError("delete files", response);
+                }
+                responses = new JSONObject(response.body().string()).getJSONArray("responses");
+            }
+
+            for (int i = 0; i < responses.length(); i++) {
+                JSONObject result = responses.getJSONObject(i);
+                int status = result.getInt("status");
+                if (status < 300 || status == 404) {
+                    continue;
+                }
+                JSONObject headers = result.optJSONObject("headers");
+                String retryAfter = headers != null ? headers.optString("Retry-After", null) : null;
+                JSONObject error = result.optJSONObject("body") != null
+                        ? result.getJSONObject("body").optJSONObject("error") : null;
+                String message = error != null ? error.optString("message", String.valueOf(status)) : String.valueOf(status);
+                failures.put(batch.get(Integer.parseInt(result.getString("id"))),
+                        new ProviderApiException(CloudProvider.ONEDRIVE, status,
+                                "Failed to delete file: " + message, ProviderErrorClassifier.parseRetryAfter(retryAfter)));
+            }
+        }
+
+        return failures;
+    }
+
+    @Override
+    public CloudItem renameFile(String accessToken, String fileId, String newName) throws IOException {
         logger.info("Renaming file in OneDrive: {} to {}", fileId, newName);
         
         JSONObject body = new JSONObject();
@@ -336,59 +689,50 @@ public class OneDriveService {
         );
 
         Request request = new Request.Builder()
-                .url(GRAPH_API_ENDPOINT + "/me/drive/items/" + fileId)
+                .url(graphBaseUrl + "/me/drive/items/" + fileId)
                 .header("Authorization", "Bearer " + accessToken)
                 .patch(requestBody)
                 .build();
 
         try (Response response = httpClient.newCall(request).execute()) {
             if (!response.isSuccessful()) {
-                throw new IOException("Failed to rename file: " + response.code());
+                throw apiError("rename file", response);
             }
 
-            String responseBody = response.body().string();
-            JSONObject json = new JSONObject(responseBody);
-            
-            Map<String, Object> fileInfo = new HashMap<>();
-            fileInfo.put("id", json.getString("id"));
-            fileInfo.put("name", json.getString("name"));
-            
+            CloudItem renamed = toCloudItem(new JSONObject(response.body().string()));
+
             logger.info("File renamed successfully");
-            return fileInfo;
+            return renamed;
         } catch (Exception e) {
             logger.error("Error renaming file", e);
-            throw new IOException("Error renaming file: " + e.getMessage());
+            throw new IOException("Error renaming file: " + e.getMessage(), e);
         }
     }
 
-    public Map<String, Object> getStorageQuota(String accessToken) throws IOException {
+    @Override
+    public StorageQuota getStorageQuota(String accessToken) throws IOException {
         logger.info("Getting OneDrive storage quota");
         
         Request request = new Request.Builder()
-                .url(GRAPH_API_ENDPOINT + "/me/drive")
+                .url(graphBaseUrl + "/me/drive")
                 .header("Authorization", "Bearer " + accessToken)
                 .get()
                 .build();
 
         try (Response response = httpClient.newCall(request).execute()) {
             if (!response.isSuccessful()) {
-                throw new IOException("Failed to get storage quota: " + response.code());
+                throw apiError("get storage quota", response);
             }
 
             String responseBody = response.body().string();
             JSONObject json = new JSONObject(responseBody);
             JSONObject quota = json.getJSONObject("quota");
 
-            Map<String, Object> storageInfo = new HashMap<>();
-            storageInfo.put("total", quota.optLong("total", 0));
-            storageInfo.put("used", quota.optLong("used", 0));
-            storageInfo.put("remaining", quota.optLong("remaining", 0));
-            
             logger.info("Storage quota retrieved successfully");
-            return storageInfo;
+            return new StorageQuota(quota.optLong("total", 0), quota.optLong("used", 0));
         } catch (Exception e) {
             logger.error("Error getting storage quota", e);
-            throw new IOException("Error getting storage quota: " + e.getMessage());
+            throw new IOException("Error getting storage quota: " + e.getMessage(), e);
         }
     }
 
@@ -396,15 +740,14 @@ public class OneDriveService {
         logger.info("Retrieving OneDrive user info to obtain email");
 
         Request request = new Request.Builder()
-                .url(GRAPH_API_ENDPOINT + "/me?$select=mail,userPrincipalName")
+                .url(graphBaseUrl + "/me?$select=mail,userPrincipalName")
                 .header("Authorization", "Bearer " + accessToken)
                 .get()
                 .build();
 
         try (Response response = httpClient.newCall(request).execute()) {
             if (!response.isSuccessful()) {
-                logger.error("Failed to get user info: {}", response.code());
-                throw new IOException("Failed to get user info: " + response.code());
+                throw apiError("get user info", response);
             }
 
             String responseBody = response.body().string();
@@ -418,7 +761,7 @@ public class OneDriveService {
             return email;
         } catch (Exception e) {
             logger.error("Error retrieving user email", e);
-            throw new IOException("Error retrieving user email: " + e.getMessage());
+            throw new IOException("Error retrieving user email: " + e.getMessage(), e);
         }
     }
 }
\ No newline at end of file
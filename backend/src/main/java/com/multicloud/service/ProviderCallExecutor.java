@@ -0,0 +1,189 @@
+package com.multicloud.service;
+
+import com.multicloud.exception.ProviderCallRejectedException;
+import com.multicloud.exception.ProviderErrorCategory;
+import com.multicloud.exception.ProviderErrorClassifier;
+import com.multicloud.model.CloudProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs provider calls with retries for throttled and transient failures. The delay honours
+ * the provider's Retry-After hint when there is one and otherwise uses exponential backoff
+ * with full jitter. Each account draws retries from a refilling budget, so a provider outage
+ * cannot multiply our own traffic against it. Every attempt waits for a
+ * {@link ProviderRateLimiter} slot and then needs a {@link ProviderCircuitBreaker} permission,
+ * so retries stop as soon as the provider's circuit opens; the limiter then admits each further
+ * request the attempt sends. Calls that are not idempotent (uploads, renames, copies,
+ * folder creation) are only retried when the failure shows the provider never acted on them;
+ * a timeout after the provider committed the change would otherwise create a duplicate.
+ */
+@Component
+public class ProviderCallExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderCallExecutor.class);
+
+    @Value("${provider.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${provider.retry.base-delay-ms:500}")
+    private long baseDelayMillis;
+
+    @Value("${provider.retry.max-delay-ms:30000}")
+    private long maxDelayMillis;
+
+    @Value("${provider.retry.budget.capacity:30}")
+    private double budgetCapacity;
+
+    @Value("${provider.retry.budget.refill-per-second:0.5}")
+    private double budgetRefillPerSecond;
+
+    @Autowired
+    private ProviderRateLimiter rateLimiter;
+
+    @Autowired
+    private ProviderCircuitBreaker circuitBreaker;
+
+    private final Map<Long, RetryBudget> budgets = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface ProviderCall<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * Runs {@code call} with retries. {@code idempotent} tells whether repeating a call that
+     * may already have taken effect is harmless, as for reads and deletes.
+     */
+    public <T> T execute(Long accountId, CloudProvider provider, boolean idempotent, ProviderCall<T> call) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            rateLimiter.enter(accountId, provider);
+            try {
+                circuitBreaker.acquirePermission(provider);
+            } catch (RuntimeException e) {
+                rateLimiter.exit();
+                throw e;
+            }
+
+            try {
+                T result;
+                try {
+                    result = call.call();
+                } finally {
+                    rateLimiter.exit();
+                }
+                circuitBreaker.onSuccess(provider);
+                return result;
+            } catch (Exception e) {
+                ProviderCallRejectedException rejection = ProviderErrorClassifier.findRejection(e);
+                if (rejection != null) {
+                    // A later request of this attempt was refused locally and never sent
+                    circuitBreaker.releasePermission(provider);
+                    throw rejection;
+                }
+                ProviderErrorCategory category = ProviderErrorClassifier.classify(e);
+                if (ProviderErrorClassifier.isCopySourceFailure(e)) {
+                    // The source account failed, not this provider; keep it out of its circuit
+                    circuitBreaker.releasePermission(provider);
+                } else if (category == ProviderErrorCategory.TRANSIENT) {
+                    circuitBreaker.onFailure(provider);
+                } else {
+                    circuitBreaker.onSuccess(provider);
+                }
+                if (category != ProviderErrorCategory.THROTTLED && category != ProviderErrorCategory.TRANSIENT) {
+                    throw e;
+                }
+                if (!idempotent && !ProviderErrorClassifier.isRejectedBeforeProcessing(e)) {
+                    logger.warn("Not retrying non-idempotent call on account {} after {} failure: {}",
+                            accountId, category, e.getMessage());
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    logger.warn("Giving up on account {} after {} attempts: {}", accountId, attempt, e.getMessage());
+                    throw e;
+                }
+
+                Duration retryAfter = ProviderErrorClassifier.retryAfter(e);
+                long delay = retryAfter != null ? retryAfter.toMillis() + jitter(baseDelayMillis) : backoff(attempt);
+                if (delay > maxDelayMillis) {
+                    logger.warn("Provider asked account {} to wait {} ms, more than the {} ms limit",
+                            accountId, delay, maxDelayMillis);
+                    throw e;
+                }
+                if (!budgetFor(accountId).tryWithdraw()) {
+                    logger.warn("Retry budget exhausted for account {}, failing: {}", accountId, e.getMessage());
+                    throw e;
+                }
+
+                logger.info("{} failure on account {} (attempt {}/{}), retrying in {} ms: {}",
+                        category, accountId, attempt, maxAttempts, delay, e.getMessage());
+                sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * Full jitter: a uniformly random delay up to the exponential ceiling for this attempt.
+     */
+    long backoff(int attempt) {
+        long ceiling = baseDelayMillis << Math.min(attempt - 1, 20);
+        return jitter(Math.min(ceiling, maxDelayMillis));
+    }
+
+    private long jitter(long bound) {
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    private RetryBudget budgetFor(Long accountId) {
+        return budgets.computeIfAbsent(accountId, id -> new RetryBudget(budgetCapacity, budgetRefillPerSecond));
+    }
+
+    private void sleep(long millis) throws InterruptedException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    static final class RetryBudget {
+        private final double capacity;
+        private final double refillPerNano;
+        private final LongSupplier nanoClock;
+        private double available;
+        private long lastRefill;
+
+        RetryBudget(double capacity, double refillPerSecond) {
+            this(capacity, refillPerSecond, System::nanoTime);
+        }
+
+        RetryBudget(double capacity, double refillPerSecond, LongSupplier nanoClock) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerSecond / 1_000_000_000d;
+            this.nanoClock = nanoClock;
+            this.available = capacity;
+            this.lastRefill = nanoClock.getAsLong();
+        }
+
+        synchronized boolean tryWithdraw() {
+            long now = nanoClock.getAsLong();
+            available = Math.min(capacity, available + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+            if (available < 1) {
+                return false;
+            }
+            available -= 1;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.multicloud.service;
+
+import com.multicloud.exception.ProviderUnavailableException;
+import com.multicloud.model.CloudProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker per provider. Outcomes of the most recent calls are kept in a sliding
+ * window; once enough of them are outages (timeouts, connection failures, 5xx) the circuit
+ * opens and calls fail immediately instead of each waiting out the client timeouts. After
+ * the open period a few probe calls are let through: if they all succeed the circuit closes,
+ * otherwise it opens again. Each circuit's state is published as the
+ * {@code provider.circuit.state} gauge (0 closed, 1 open, 2 half-open).
+ */
+@Component
+public class ProviderCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    @Value("${provider.circuit-breaker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${provider.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    @Value("${provider.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${provider.circuit-breaker.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${provider.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMillis;
+
+    @Value("${provider.circuit-breaker.half-open-probes:3}")
+    private int halfOpenProbes;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<CloudProvider, Circuit> circuits = new EnumMap<>(CloudProvider.class);
+
+    LongSupplier nanoClock = System::nanoTime;
+
+    @PostConstruct
+    void createCircuits() {
+        for (CloudProvider provider : CloudProvider.values()) {
+            Circuit circuit = new Circuit(provider);
+            circuits.put(provider, circuit);
+            Gauge.builder("provider.circuit.state", circuit, c -> c.state().ordinal())
+                    .description("Circuit breaker state per provider: 0 closed, 1 open, 2 half-open")
+                    .tag("provider", provider.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Claims permission to call the provider. Every permission granted must be followed by
+     * {@link #onSuccess}, {@link #onFailure} or {@link #releasePermission}.
+     *
+     * @throws ProviderUnavailableException if the circuit is open
+     */
+    public void acquirePermission(CloudProvider provider) {
+        if (enabled && !circuits.get(provider).tryAcquire()) {
+            throw new ProviderUnavailableException(provider,
+                    provider + " is currently unavailable, try again shortly");
+        }
+    }
+
+    /**
+     * Returns a permission that ended up not being used for a provider call.
+     */
+    public void releasePermission(CloudProvider provider) {
+        if (enabled) {
+            circuits.get(provider).release();
+        }
+    }
+
+    /**
+     * Records that the provider answered. Errors such as 404 or 403 count as answers: only
+     * outages should open the circuit.
+     */
+    public void onSuccess(CloudProvider provider) {
+        if (enabled) {
+            circuits.get(provider).onResult(false);
+        }
+    }
+
+    public void onFailure(CloudProvider provider) {
+        if (enabled) {
+            circuits.get(provider).onResult(true);
+        }
+    }
+
+    /**
+     * Whether calls to the provider are currently being rejected. Does not claim a probe.
+     */
+    public boolean isOpen(CloudProvider provider) {
+        return enabled && circuits.get(provider).isRejecting();
+    }
+
+    public Map<CloudProvider, State> getStates() {
+        Map<CloudProvider, State> states = new EnumMap<>(CloudProvider.class);
+        circuits.forEach((provider, circuit) -> states.put(provider, circuit.state()));
+        return states;
+    }
+
+    private final class Circuit {
+        private final CloudProvider provider;
+        private final boolean[] outcomes = new boolean[Math.max(1, windowSize)];
+        private int next;
+        private int recorded;
+        private int failures;
+        private State state = State.CLOSED;
+        private long openedAt;
+        private int probesInFlight;
+        private int probeSuccesses;
+
+        private Circuit(CloudProvider provider) {
+            this.provider = provider;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (state == State.OPEN) {
+                if (!openPeriodElapsed()) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probesInFlight = 0;
+                probeSuccesses = 0;
+                logger.info("Circuit for {} half-open, probing with up to {} calls", provider, halfOpenProbes);
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesInFlight >= halfOpenProbes) {
+                    return false;
+                }
+                probesInFlight++;
+            }
+            return true;
+        }
+
+        synchronized void release() {
+            if (state == State.HALF_OPEN && probesInFlight > 0) {
+                probesInFlight--;
+            }
+        }
+
+        synchronized void onResult(boolean failed) {
+            if (state == State.HALF_OPEN) {
+                probesInFlight = Math.max(0, probesInFlight - 1);
+                if (failed) {
+                    open();
+                } else if (++probeSuccesses >= halfOpenProbes) {
+                    close();
+                }
+                return;
+            }
+            if (state == State.OPEN) {
+                // Result of a call admitted before the circuit opened
+                return;
+            }
+
+            if (recorded == outcomes.length) {
+                failures -= outcomes[next] ? 1 : 0;
+            } else {
+                recorded++;
+            }
+            outcomes[next] = failed;
+            failures += failed ? 1 : 0;
+            next = (next + 1) % outcomes.length;
+
+            if (recorded >= Math.min(minimumCalls, outcomes.length)
+                    && failures * 100 >= failureRateThreshold * recorded) {
+                logger.warn("Opening circuit for {}: {} of the last {} calls failed", provider, failures, recorded);
+                open();
+            }
+        }
+
+        synchronized boolean isRejecting() {
+            return state == State.OPEN && !openPeriodElapsed();
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        private boolean openPeriodElapsed() {
+            return nanoClock.getAsLong() - openedAt >= TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+        }
+
+        private void open() {
+            state = State.OPEN;
+            openedAt = nanoClock.getAsLong();
+        }
+
+        private void close() {
+            logger.info("Circuit for {} closed after {} successful probes", provider, probeSuccesses);
+            state = State.CLOSED;
+            next = 0;
+            recorded = 0;
+            failures = 0;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.multicloud.service;
+
+import com.multicloud.exception.ProviderRateLimitExceededException;
+import com.multicloud.model.CloudProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket admission for provider requests, with one bucket per provider (our whole
+ * application's share of its quota) and one per cloud account. Every HTTP request sent for a
+ * provider call takes a token from both: each page of a listing, each upload chunk and each
+ * batch envelope. A batch request is charged to the account once, like any other request,
+ * but to the provider once per sub-request where the provider's quota counts them that way
+ * (Drive's batch endpoint), see {@link #admitRequest(int)}. The shared transports call {@link #admitRequest()} for the account that
+ * {@link ProviderCallExecutor} bound to the current thread with {@link #enter}; requests
+ * made outside a provider call (OAuth code exchange, Dropbox longpolls) are not counted.
+ * Callers that find a bucket empty reserve the next free slot and wait for it, so bursts
+ * are queued and smoothed instead of being sent and answered with 429s. A request that would
+ * have to wait longer than the configured maximum is rejected without reaching the provider.
+ * Admissions, rejections and queueing time are published per provider as
+ * {@code provider.rate_limit.*} meters.
+ */
+@Component
+public class ProviderRateLimiter {
+
+    @Value("${provider.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${provider.rate-limit.account.qps:10}")
+    private double accountQps;
+
+    @Value("${provider.rate-limit.account.burst:20}")
+    private double accountBurst;
+
+    @Value("${provider.rate-limit.max-wait-ms:2000}")
+    private long maxWaitMillis;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private static final ThreadLocal<Admission> CURRENT = new ThreadLocal<>();
+
+    private final Map<CloudProvider, TokenBucket> providerBuckets = new EnumMap<>(CloudProvider.class);
+    private final Map<Long, TokenBucket> accountBuckets = new ConcurrentHashMap<>();
+    private final Map<CloudProvider, Stats> stats = new EnumMap<>(CloudProvider.class);
+
+    @PostConstruct
+    void createProviderBuckets() {
+        for (CloudProvider provider : CloudProvider.values()) {
+            String prefix = "provider.rate-limit." + provider.name().toLowerCase(Locale.ROOT).replace('_', '-');
+            double qps = environment.getProperty(prefix + ".qps", Double.class, 10d);
+            double burst = environment.getProperty(prefix + ".burst", Double.class, 20d);
+            providerBuckets.put(provider, new TokenBucket(qps, burst));
+            stats.put(provider, new Stats(provider, meterRegistry));
+        }
+    }
+
+    /**
+     * Drops the per-account bucket of a disconnected account.
+     */
+    public void evict(Long accountId) {
+        accountBuckets.remove(accountId);
+    }
+
+    /**
+     * Binds the account to the current thread for the requests of one provider call
+     * attempt, after waiting for the token of its first request. That wait therefore happens
+     * before the caller takes a circuit-breaker permission, so a queued call never holds a
+     * half-open probe slot. Each call must be paired with {@link #exit()}; bindings nest, as
+     * when a copy opens its source account while the target's call is running.
+     *
+     * @throws ProviderRateLimitExceededException if admission would take longer than the maximum wait
+     */
+    public void enter(Long accountId, CloudProvider provider) throws InterruptedException {
+        acquire(accountId, provider);
+        CURRENT.set(new Admission(accountId, provider, CURRENT.get()));
+    }
+
+    /**
+     * Restores the binding that was current before the matching {@link #enter}.
+     */
+    public void exit() {
+        Admission admission = CURRENT.get();
+        if (admission == null) {
+            return;
+        }
+        if (admission.previous != null) {
+            CURRENT.set(admission.previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Admits one HTTP request for the account bound to the current thread, blocking until
+     * both buckets have a token. The first request after {@link #enter} uses the token taken
+     * there. Does nothing when no account is bound.
+     *
+     * @throws ProviderRateLimitExceededException if admission would take longer than the maximum wait
+     */
+    public void admitRequest() throws InterruptedException {
+        admitRequest(CURRENT.get(), 1);
+    }
+
+    /**
+     * Admits one HTTP request that carries {@code providerCalls} calls, as a batch does, for
+     * the account bound to the current thread. The account bucket is charged once for the
+     * request and the provider bucket once per call, since that is how the provider meters
+     * batch sub-requests against the application's quota.
+     *
+     * @throws ProviderRateLimitExceededException if admission would take longer than the maximum wait
+     */
+    public void admitRequest(int providerCalls) throws InterruptedException {
+        admitRequest(CURRENT.get(), providerCalls);
+    }
+
+    /**
+     * Admits one HTTP request for a binding captured with {@link #current()}, for clients
+     * that send the request from a thread of their own.
+     */
+    public void admitRequest(Admission admission) throws InterruptedException {
+        admitRequest(admission, 1);
+    }
+
+    private void admitRequest(Admission admission, int providerCalls) throws InterruptedException {
+        if (admission == null) {
+            return;
+        }
+        // The token taken by enter() pays for one call of this request
+        boolean prepaid = admission.prepaid.compareAndSet(true, false);
+        int accountUnits = prepaid ? 0 : 1;
+        int providerUnits = prepaid ? providerCalls - 1 : providerCalls;
+        if (accountUnits > 0 || providerUnits > 0) {
+            acquire(admission.accountId, admission.provider, accountUnits, Math.max(0, providerUnits));
+        }
+    }
+
+    /**
+     * The binding of the current thread, or null outside a provider call.
+     */
+    public static Admission current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Wraps a task handed to another thread so that its requests are charged to the account
+     * bound to the submitting thread. Used as the task decorator of the provider I/O pools.
+     */
+    public static Runnable propagate(Runnable task) {
+        Admission admission = CURRENT.get();
+        if (admission == null) {
+            return task;
+        }
+        return () -> {
+            Admission previous = CURRENT.get();
+            CURRENT.set(admission);
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    /**
+     * Blocks until both the provider and the account bucket admit one request.
+     *
+     * @throws ProviderRateLimitExceededException if admission would take longer than the maximum wait
+     */
+    void acquire(Long accountId, CloudProvider provider) throws InterruptedException {
+        acquire(accountId, provider, 1, 1);
+    }
+
+    private void acquire(Long accountId, CloudProvider provider, int accountUnits, int providerUnits)
+            throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+
+        TokenBucket providerBucket = providerBuckets.get(provider);
+        TokenBucket accountBucket = accountBuckets.computeIfAbsent(accountId,
+                id -> new TokenBucket(accountQps, accountBurst));
+        Stats providerStats = stats.get(provider);
+
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        long providerWait = providerUnits > 0 ? providerBucket.reserve(providerUnits, maxWaitNanos) : 0;
+        if (providerWait > maxWaitNanos) {
+            providerStats.rejected.increment();
+            throw new ProviderRateLimitExceededException(provider,
+                    "Too many concurrent requests to " + provider + ", try again shortly",
+                    Duration.ofNanos(providerWait));
+        }
+        long accountWait = accountUnits > 0 ? accountBucket.reserve(accountUnits, maxWaitNanos) : 0;
+        if (accountWait > maxWaitNanos) {
+            providerBucket.cancelReservation(providerUnits);
+            providerStats.rejected.increment();
+            throw new ProviderRateLimitExceededException(provider,
+                    "Too many requests for cloud account " + accountId + ", try again shortly",
+                    Duration.ofNanos(accountWait));
+        }
+
+        long waitNanos = Math.max(providerWait, accountWait);
+        providerStats.admitted.increment();
+        providerStats.wait.record(waitNanos, TimeUnit.NANOSECONDS);
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * An account bound to a thread, with whether the token taken by {@link #enter} is still
+     * unused. Shared with the worker threads a call fans out to.
+     */
+    public static final class Admission {
+        private final Long accountId;
+        private final CloudProvider provider;
+        private final Admission previous;
+        private final AtomicBoolean prepaid = new AtomicBoolean(true);
+
+        private Admission(Long accountId, CloudProvider provider, Admission previous) {
+            this.accountId = accountId;
+            this.provider = provider;
+            this.previous = previous;
+        }
+    }
+
+    private static final class Stats {
+        private final Counter admitted;
+        private final Counter rejected;
+        private final Timer wait;
+
+        private Stats(CloudProvider provider, MeterRegistry meterRegistry) {
+            String providerTag = provider.name().toLowerCase(Locale.ROOT);
+            this.admitted = Counter.builder("provider.rate_limit.calls")
+                    .description("Provider calls passed through the local rate limiter")
+                    .tags("provider", providerTag, "outcome", "admitted")
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("provider.rate_limit.calls")
+                    .description("Provider calls passed through the local rate limiter")
+                    .tags("provider", providerTag, "outcome", "rejected")
+                    .register(meterRegistry);
+            this.wait = Timer.builder("provider.rate_limit.wait")
+                    .description("Time admitted provider calls spent queued for a rate limit slot")
+                    .tags("provider", providerTag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Bucket whose balance may go negative: each negative unit is a reservation queued
+     * behind earlier ones, and the deficit divided by the rate is the caller's wait.
+     */
+    static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private final LongSupplier nanoClock;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(double qps, double burst) {
+            this(qps, burst, System::nanoTime);
+        }
+
+        TokenBucket(double qps, double burst, LongSupplier nanoClock) {
+            this.capacity = Math.max(1, burst);
+            this.tokensPerNano = Math.max(qps, 0.001) / 1_000_000_000d;
+            this.nanoClock = nanoClock;
+            this.tokens = capacity;
+            this.lastRefill = nanoClock.getAsLong();
+        }
+
+        /**
+         * Returns how long the caller has to wait for the next token, and takes it unless that
+         * wait exceeds {@code maxWaitNanos}.
+         */
+        long reserve(long maxWaitNanos) {
+            return reserve(1, maxWaitNanos);
+        }
+
+        /**
+         * Like {@link #reserve(long)} for {@code units} tokens taken together.
+         */
+        synchronized long reserve(int units, long maxWaitNanos) {
+            long now = nanoClock.getAsLong();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+
+            double after = tokens - units;
+            long waitNanos = after >= 0 ? 0 : (long) (-after / tokensPerNano);
+            if (waitNanos > maxWaitNanos) {
+                return waitNanos;
+            }
+            tokens = after;
+            return waitNanos;
+        }
+
+        synchronized void cancelReservation(int units) {
+            tokens = Math.min(capacity, tokens + units);
+        }
+    }
+}
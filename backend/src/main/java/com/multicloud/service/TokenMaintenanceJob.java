@@ -0,0 +1,146 @@
+package com.multicloud.service;
+
+import com.multicloud.model.CloudAccount;
+import com.multicloud.repository.CloudAccountRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Refreshes access tokens shortly before they expire so user requests never wait on a
+ * refresh round trip. Accounts are refreshed in batches of bounded size; an account whose
+ * refresh fails is retried with growing delays instead of on every run. A run waits on its
+ * batches on a thread of its own, so the shared scheduler thread is never held up.
+ */
+@Component
+public class TokenMaintenanceJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenMaintenanceJob.class);
+
+    private static final Duration MAX_RETRY_DELAY = Duration.ofHours(1);
+
+    @Value("${tokens.maintenance.enabled:true}")
+    private boolean enabled;
+
+    @Value("${tokens.maintenance.lead-time-seconds:600}")
+    private long leadTimeSeconds;
+
+    @Value("${tokens.maintenance.concurrency:4}")
+    private int concurrency;
+
+    @Autowired
+    private CloudAccountRepository cloudAccountRepository;
+
+    @Autowired
+    private TokenManager tokenManager;
+
+    @Autowired
+    @Qualifier("providerIoExecutor")
+    private Executor providerIoExecutor;
+
+    private final Map<Long, RetryState> failedAccounts = new ConcurrentHashMap<>();
+    private final ExecutorService runner = createRunner();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(fixedDelayString = "${tokens.maintenance.interval-ms:60000}", initialDelay = 10000)
+    public void refreshExpiringTokens() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        runner.execute(() -> {
+            try {
+                refreshDueAccounts();
+            } catch (RuntimeException e) {
+                logger.warn("Token maintenance run failed: {}", e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private void refreshDueAccounts() {
+        LocalDateTime threshold = LocalDateTime.now().plusSeconds(leadTimeSeconds);
+        Instant now = Instant.now();
+        List<CloudAccount> due = new ArrayList<>();
+        for (CloudAccount account : cloudAccountRepository.findRefreshableAccountsWithTokensExpiringBefore(threshold)) {
+            RetryState retry = failedAccounts.get(account.getId());
+            if (retry == null || !retry.nextAttemptAt.isAfter(now)) {
+                due.add(account);
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        AtomicInteger refreshed = new AtomicInteger();
+        int batchSize = Math.max(1, concurrency);
+        for (int start = 0; start < due.size(); start += batchSize) {
+            List<CompletableFuture<Void>> batch = new ArrayList<>();
+            for (CloudAccount account : due.subList(start, Math.min(start + batchSize, due.size()))) {
+                batch.add(CompletableFuture.runAsync(() -> {
+                    if (refresh(account, threshold)) {
+                        refreshed.incrementAndGet();
+                    }
+                }, providerIoExecutor));
+            }
+            CompletableFuture.allOf(batch.toArray(new CompletableFuture[0])).join();
+        }
+
+        logger.info("Token maintenance refreshed {} of {} expiring tokens", refreshed.get(), due.size());
+    }
+
+    private boolean refresh(CloudAccount account, LocalDateTime threshold) {
+        try {
+            boolean refreshed = tokenManager.refreshIfExpiringBefore(account.getId(), threshold);
+            failedAccounts.remove(account.getId());
+            return refreshed;
+        } catch (Exception e) {
+            RetryState retry = failedAccounts.compute(account.getId(),
+                    (id, previous) -> RetryState.after(previous));
+            logger.warn("Background token refresh failed for account {}, next attempt in {}s: {}",
+                    account.getId(), retry.delay.getSeconds(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static ExecutorService createRunner() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("token-maintenance-");
+        threadFactory.setDaemon(true);
+        return Executors.newSingleThreadExecutor(threadFactory);
+    }
+
+    private record RetryState(Duration delay, Instant nextAttemptAt) {
+        static RetryState after(RetryState previous) {
+            Duration delay = previous == null ? Duration.ofMinutes(1) : previous.delay.multipliedBy(2);
+            if (delay.compareTo(MAX_RETRY_DELAY) > 0) {
+                delay = MAX_RETRY_DELAY;
+            }
+            return new RetryState(delay, Instant.now().plus(delay));
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.multicloud.service;
+
+import com.multicloud.exception.ProviderErrorCategory;
+import com.multicloud.exception.ProviderErrorClassifier;
+import com.multicloud.exception.TokenRefreshRejectedException;
+import com.multicloud.model.CloudProvider;
+import com.multicloud.provider.CloudStorageProviderRegistry;
+import com.multicloud.repository.CloudAccountRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Owns access tokens for cloud accounts. Tokens are served by account id from a bounded
+ * in-memory cache, so file operations need no database read for them; refreshed tokens are
+ * written through to the store and the cache together, and an entry is only served while its
+ * access token is valid. At most one refresh per account is in flight at a time; concurrent
+ * callers wait for it and share its result instead of racing the provider with the same
+ * (possibly rotating) refresh token. Before refreshing, the stored tokens are re-read, so a
+ * refresh done meanwhile by another thread or instance is picked up rather than repeated.
+ * <p>
+ * Stored tokens are read and written in a transaction of their own. Callers are often inside
+ * a business transaction: its snapshot would hide a refresh committed by another instance, and
+ * rolling it back after a failed file operation must not undo a refresh the provider has
+ * already acted on by invalidating the old refresh token.
+ */
+@Service
+public class TokenManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenManager.class);
+
+    @Autowired
+    private CloudAccountRepository cloudAccountRepository;
+
+    @Autowired
+    private CloudStorageProviderRegistry providerRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${tokens.cache.max-entries:10000}")
+    private int maxCachedTokens;
+
+    private final Map<Long, CompletableFuture<IssuedToken>> inFlightRefreshes = new ConcurrentHashMap<>();
+
+    // Current tokens per account, least recently used evicted first
+    private final Map<Long, IssuedToken> tokenCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, IssuedToken> eldest) {
+                    return size() > maxCachedTokens;
+                }
+            });
+
+    private TransactionTemplate ownTransaction;
+
+    @PostConstruct
+    void createTransactionTemplate() {
+        ownTransaction = new TransactionTemplate(transactionManager);
+        ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Returns an access token for the account, refreshing it first when it is expired or
+     * about to expire.
+     */
+    public String getAccessToken(Long accountId) throws Exception {
+        IssuedToken current = currentToken(accountId);
+        if (isExpiringSoon(current.expiry()) && current.canRefresh()) {
+            logger.debug("Access token expired or near expiry for account {}. Refreshing before operation.", accountId);
+            return refresh(accountId, current.accessToken());
+        }
+        return current.accessToken();
+    }
+
+    /**
+     * The provider the account is connected to, from the same cache entry as its tokens.
+     */
+    public CloudProvider getProvider(Long accountId) {
+        return currentToken(accountId).provider();
+    }
+
+    /**
+     * Refreshes the account's token unless it stays valid past {@code threshold}. Returns
+     * whether a refresh was needed.
+     */
+    public boolean refreshIfExpiringBefore(Long accountId, LocalDateTime threshold) throws Exception {
+        IssuedToken current = currentToken(accountId);
+        if (current.expiry() != null && current.expiry().isAfter(threshold)) {
+            return false;
+        }
+        refresh(accountId, current.accessToken());
+        return true;
+    }
+
+    /**
+     * Replaces a token the caller found to be rejected. If another thread or instance already
+     * refreshed past {@code rejectedToken}, the stored result is reused rather than refreshing
+     * again with a refresh token that may have been rotated out.
+     */
+    public String refresh(Long accountId, String rejectedToken) throws Exception {
+        CompletableFuture<IssuedToken> refresh = new CompletableFuture<>();
+        CompletableFuture<IssuedToken> running = inFlightRefreshes.putIfAbsent(accountId, refresh);
+
+        if (running != null) {
+            return await(running).accessToken();
+        }
+
+        try {
+            IssuedToken issued = storedToken(accountId);
+            if (Objects.equals(issued.accessToken(), rejectedToken) || isExpiringSoon(issued.expiry())) {
+                issued = refreshWithProvider(accountId, issued);
+            }
+            tokenCache.put(accountId, issued);
+            refresh.complete(issued);
+            return issued.accessToken();
+        } catch (Exception e) {
+            refresh.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightRefreshes.remove(accountId, refresh);
+        }
+    }
+
+    public boolean canRefresh(Long accountId) {
+        return currentToken(accountId).canRefresh();
+    }
+
+    /**
+     * Drops the cached tokens of an account, e.g. after it was reconnected with freshly
+     * issued ones or disconnected. Inside a transaction the entry is dropped again once it
+     * completes, so a read between now and the commit cannot cache the old tokens.
+     */
+    public void evict(Long accountId) {
+        tokenCache.remove(accountId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    tokenCache.remove(accountId);
+                }
+            });
+        }
+    }
+
+    private IssuedToken refreshWithProvider(Long accountId, IssuedToken stored) throws Exception {
+        if (!stored.canRefresh()) {
+            throw new IllegalStateException("No refresh token available for account " + accountId);
+        }
+
+        String refreshToken = stored.refreshToken();
+        Map<String, ?> tokenResponse;
+        try {
+            tokenResponse = providerRegistry.get(stored.provider()).refreshAccessToken(refreshToken);
+        } catch (Exception e) {
+            // A 401 from the token endpoint means the refresh token is dead, not the access token
+            if (ProviderErrorClassifier.classify(e) == ProviderErrorCategory.AUTH_EXPIRED) {
+                throw new TokenRefreshRejectedException(accountId, e);
+            }
+            throw e;
+        }
+
+        if (tokenResponse == null || tokenResponse.get("access_token") == null) {
+            throw new IllegalStateException("Token refresh failed: missing access token for account " + accountId);
+        }
+
+        String newAccessToken = tokenResponse.get("access_token").toString();
+
+        Object newRefreshToken = tokenResponse.get("refresh_token");
+        if (newRefreshToken != null && !newRefreshToken.toString().isBlank()) {
+            refreshToken = newRefreshToken.toString();
+        }
+
+        LocalDateTime expiry;
+        Object expiresIn = tokenResponse.get("expires_in");
+        if (expiresIn != null) {
+            try {
+                long expiresInSeconds = Long.parseLong(expiresIn.toString());
+                long adjustedSeconds = Math.max(0, expiresInSeconds - 60); // buffer refresh by 1 minute
+                expiry = LocalDateTime.now().plusSeconds(adjustedSeconds);
+            } catch (NumberFormatException ex) {
+                logger.warn("Unable to parse expires_in value '{}', defaulting to 1 hour", expiresIn);
+                expiry = LocalDateTime.now().plusHours(1);
+            }
+        } else {
+            expiry = LocalDateTime.now().plusHours(1);
+        }
+
+        IssuedToken issued = new IssuedToken(stored.provider(), newAccessToken, refreshToken, expiry);
+        // Committed before anyone is handed the new token, whatever happens to the caller's transaction
+        ownTransaction.executeWithoutResult(status ->
+                cloudAccountRepository.updateTokens(accountId, issued.accessToken(), issued.refreshToken(), issued.expiry()));
+
+        logger.info("Successfully refreshed access token for account {}", accountId);
+        return issued;
+    }
+
+    /**
+     * The cached tokens of an account, loaded from the store on first use.
+     */
+    private IssuedToken currentToken(Long accountId) {
+        IssuedToken cached = tokenCache.get(accountId);
+        if (cached != null) {
+            return cached;
+        }
+        IssuedToken stored = storedToken(accountId);
+        tokenCache.putIfAbsent(accountId, stored);
+        return stored;
+    }
+
+    /**
+     * Reads the tokens currently stored for the account. A scalar query always goes to the
+     * database, unlike findById, which may return the caller's own stale managed entity, and
+     * the fresh transaction sees what other instances have committed since the caller's began.
+     */
+    private IssuedToken storedToken(Long accountId) {
+        return ownTransaction.execute(status -> cloudAccountRepository.findTokensById(accountId)
+                .map(stored -> new IssuedToken(stored.getProviderName(), stored.getAccessToken(),
+                        stored.getRefreshToken(), stored.getTokenExpiry()))
+                .orElseThrow(() -> new RuntimeException("Cloud account not found with ID: " + accountId)));
+    }
+
+    private boolean isExpiringSoon(LocalDateTime expiry) {
+        return expiry == null || expiry.isBefore(LocalDateTime.now().plusMinutes(1));
+    }
+
+    private IssuedToken await(CompletableFuture<IssuedToken> refresh) throws Exception {
+        try {
+            return refresh.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private record IssuedToken(CloudProvider provider, String accessToken, String refreshToken, LocalDateTime expiry) {
+        boolean canRefresh() {
+            return refreshToken != null && !refreshToken.isBlank();
+        }
+    }
+}
@@ -1,69 +0,0 @@
-package com.multicloud.util;
-
-import java.io.ByteArrayInputStream;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-
-import org.springframework.web.multipart.MultipartFile;
-
-/**
- * Simple in-memory MultipartFile implementation to support programmatic uploads.
- */
-public class InMemoryMultipartFile implements MultipartFile {
-
-    private final String name;
-    private final String originalFilename;
-    private final String contentType;
-    private final byte[] content;
-
-    public InMemoryMultipartFile(String name, String originalFilename, String contentType, byte[] content) {
-        this.name = (name != null && !name.isBlank()) ? name : "file";
-        this.originalFilename = (originalFilename != null && !originalFilename.isBlank()) ? originalFilename : this.name;
-        this.contentType = contentType;
-        this.content = content != null ? content.clone() : new byte[0];
-    }
-
-    @Override
-    public String getName() {
-        return name;
-    }
-
-    @Override
-    public String getOriginalFilename() {
-        return originalFilename;
-    }
-
-    @Override
-    public String getContentType() {
-        return contentType;
-    }
-
-    @Override
-    public boolean isEmpty() {
-        return content.length == 0;
-    }
-
-    @Override
-    public long getSize() {
-        return content.length;
-    }
-
-    @Override
-    public byte[] getBytes() {
-        return content.clone();
-    }
-
-    @Override
-    public InputStream getInputStream() {
-        return new ByteArrayInputStream(content);
-    }
-
-    @Override
-    public void transferTo(File dest) throws IOException {
-        try (FileOutputStream fos = new FileOutputStream(dest)) {
-            fos.write(content);
-        }
-    }
-}
@@ -0,0 +1,84 @@
+package com.multicloud.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * MultipartFile backed by an already open stream, used to pipe one provider's download
+ * straight into another provider's upload. The content can be consumed exactly once and is
+ * never held in memory as a whole.
+ */
+public class StreamingMultipartFile implements MultipartFile {
+
+    private final String name;
+    private final String originalFilename;
+    private final String contentType;
+    private final long size;
+    private InputStream content;
+
+    public StreamingMultipartFile(String name, String originalFilename, String contentType,
+                                  long size, InputStream content) {
+        this.name = (name != null && !name.isBlank()) ? name : "file";
+        this.originalFilename = (originalFilename != null && !originalFilename.isBlank()) ? originalFilename : this.name;
+        this.contentType = contentType;
+        this.size = size;
+        this.content = content;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Declared content length, or -1 when the source did not report one.
+     */
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        try (InputStream in = getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Override
+    public synchronized InputStream getInputStream() {
+        if (content == null) {
+            throw new IllegalStateException("Stream for '" + originalFilename + "' has already been consumed");
+        }
+        InputStream stream = content;
+        content = null;
+        return stream;
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        try (InputStream in = getInputStream()) {
+            Files.copy(in, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
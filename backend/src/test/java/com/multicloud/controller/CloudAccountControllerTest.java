@@ -0,0 +1,116 @@
+package com.multicloud.controller;
+
+import com.multicloud.dto.BatchUploadResponse;
+import com.multicloud.dto.FileDTO;
+import com.multicloud.dto.FileUploadResult;
+import com.multicloud.exception.GlobalExceptionHandler;
+import com.multicloud.exception.ProviderRateLimitExceededException;
+import com.multicloud.exception.ProviderUnavailableException;
+import com.multicloud.model.CloudProvider;
+import com.multicloud.service.AccountSyncScheduler;
+import com.multicloud.service.CloudAccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CloudAccountControllerTest {
+
+    private MockMvc mockMvc;
+    private CloudAccountService cloudAccountService;
+    private AccountSyncScheduler accountSyncScheduler;
+
+    @BeforeEach
+    void setUp() {
+        CloudAccountController controller = new CloudAccountController();
+        cloudAccountService = mock(CloudAccountService.class);
+        accountSyncScheduler = mock(AccountSyncScheduler.class);
+        ReflectionTestUtils.setField(controller, "cloudAccountService", cloudAccountService);
+        ReflectionTestUtils.setField(controller, "accountSyncScheduler", accountSyncScheduler);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void neverSyncedAccountStartsBackgroundSyncAndReturns202() throws Exception {
+        when(cloudAccountService.getFilesSyncedAt(4L)).thenReturn(null);
+        when(accountSyncScheduler.requestSync(4L)).thenReturn(true);
+
+        mockMvc.perform(get("/api/cloud-accounts/4/files"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(CloudAccountController.FILES_SYNCING_HEADER, "true"))
+                .andExpect(jsonPath("$").isEmpty());
+        verify(accountSyncScheduler, never()).syncNow(any());
+    }
+
+    @Test
+    void uploadRejectedByRateLimiterReturns429() throws Exception {
+        ProviderRateLimitExceededException rejection = new ProviderRateLimitExceededException(
+                CloudProvider.DROPBOX, "Too many requests for cloud account 7, try again shortly",
+                Duration.ofMillis(2500));
+        when(cloudAccountService.uploadFile(eq(7L), any(), any())).thenThrow(rejection);
+
+        mockMvc.perform(multipart("/api/cloud-accounts/7/upload")
+                        .file(new MockMultipartFile("file", "a.txt", "text/plain", "hello".getBytes())))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"))
+                .andExpect(jsonPath("$.message").value(rejection.getMessage()));
+    }
+
+    @Test
+    void downloadFromOpenCircuitReturns503() throws Exception {
+        ProviderUnavailableException unavailable = new ProviderUnavailableException(
+                CloudProvider.ONEDRIVE, "ONEDRIVE is currently unavailable, try again shortly");
+        when(cloudAccountService.downloadFile(5L)).thenThrow(unavailable);
+
+        mockMvc.perform(get("/api/cloud-accounts/files/5/download"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
+    }
+
+    @Test
+    void batchUploadReportsFilesTheProviderRefused() throws Exception {
+        FileDTO uploaded = FileDTO.builder().id(11L).fileName("a.txt").build();
+        when(cloudAccountService.uploadFiles(eq(7L), any())).thenReturn(new BatchUploadResponse(1, 1, List.of(
+                new FileUploadResult("a.txt", true, uploaded, null),
+                new FileUploadResult("b.txt", false, null, "path/conflict/file"))));
+
+        mockMvc.perform(multipart("/api/cloud-accounts/7/upload/batch")
+                        .file(new MockMultipartFile("files", "a.txt", "text/plain", "hello".getBytes()))
+                        .file(new MockMultipartFile("files", "b.txt", "text/plain", "world".getBytes())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[1].fileName").value("b.txt"))
+                .andExpect(jsonPath("$.results[1].error").value("path/conflict/file"));
+    }
+
+    @Test
+    void otherUploadFailuresStillReturn500() throws Exception {
+        when(cloudAccountService.uploadFile(eq(7L), any(), any()))
+                .thenThrow(new Exception("Failed to upload file: disk full"));
+
+        mockMvc.perform(multipart("/api/cloud-accounts/7/upload")
+                        .file(new MockMultipartFile("file", "a.txt", "text/plain", "hello".getBytes())))
+                .andExpect(status().isInternalServerError());
+    }
+}
@@ -0,0 +1,444 @@
+package com.multicloud.emulator;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dropbox API v2 routes used by {@code DropboxService} and the Dropbox SDK: recursive listing
+ * with cursors and longpoll, simple and session uploads (including {@code finish_batch_v2}),
+ * downloads, deletes, relocation, temporary links and space usage. The RPC, content and notify
+ * hosts are all served under {@code /dropbox/}. Items are keyed by lower-cased path, which is
+ * also the id the application stores.
+ */
+class DropboxApi extends EmulatedApi {
+
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'").withZone(ZoneOffset.UTC);
+    private static final int LIST_PAGE_SIZE = 1000;
+
+    private final Map<String, UploadBuffer> uploads = new ConcurrentHashMap<>();
+    private final Map<String, String> temporaryLinks = new ConcurrentHashMap<>();
+
+    DropboxApi(EmulatorSettings settings) {
+        super("/dropbox/", settings);
+    }
+
+    @Override
+    void seed(int files, byte[] content) {
+        Instant now = Instant.now();
+        for (int i = 0; i < files; i++) {
+            String name = "seed-" + i + ".bin";
+            store.put(new EmulatedStore.Item("/" + name, name, "", false, "application/octet-stream",
+                    content, now, now));
+        }
+    }
+
+    @Override
+    protected Response route(Request request) throws Exception {
+        String path = request.path();
+        if (path.equals("oauth2/token")) {
+            return tokenResponse();
+        }
+        if (path.startsWith("links/")) {
+            String target = temporaryLinks.get(path.substring("links/".length()));
+            EmulatedStore.Item item = target != null ? store.get(target) : null;
+            return item != null
+                    ? Response.bytes(200, "application/octet-stream", item.content())
+                    : Response.empty(404);
+        }
+
+        JSONObject arg = argument(request);
+        return switch (path) {
+            case "2/files/list_folder" -> fullListing(0, store.sequence());
+            case "2/files/list_folder/continue" -> continueListing(arg.optString("cursor"));
+            case "2/files/list_folder/longpoll" -> longpoll(arg);
+            case "2/files/upload" -> Response.json(200,
+                    metadataJson(commit(arg.getString("path"), request.body()), false));
+            case "2/files/upload_session/start" -> startSession(request);
+            case "2/files/upload_session/append_v2" -> appendSession(arg.getJSONObject("cursor"), request.body());
+            case "2/files/upload_session/finish" -> finishSession(arg, request.body());
+            case "2/files/upload_session/finish_batch_v2" -> finishBatch(arg);
+            case "2/files/download" -> download(arg.getString("path"));
+            case "2/files/get_metadata" -> {
+                EmulatedStore.Item item = lookup(arg.getString("path"));
+                yield item != null ? Response.json(200, metadataJson(item, true)) : notFound("path");
+            }
+            case "2/files/delete_v2" -> {
+                EmulatedStore.Item deleted = delete(arg.getString("path"));
+                yield deleted != null
+                        ? Response.json(200, new JSONObject().put("metadata", metadataJson(deleted, true)))
+                        : notFound("path_lookup");
+            }
+            case "2/files/delete_batch" -> deleteBatch(arg);
+            case "2/files/delete_batch/check" -> error("invalid_async_job_id/", new JSONObject().put(".tag", "invalid_async_job_id"));
+            case "2/files/move_v2" -> relocate(arg, false);
+            case "2/files/copy_v2" -> relocate(arg, true);
+            case "2/files/create_folder_v2" -> createFolder(arg);
+            case "2/files/get_temporary_link" -> temporaryLink(request, arg.getString("path"));
+            case "2/users/get_space_usage" -> Response.json(200, new JSONObject()
+                    .put("used", store.usedBytes())
+                    .put("allocation", new JSONObject().put(".tag", "individual").put("allocated", QUOTA_BYTES)));
+            case "2/users/get_current_account" -> Response.json(200, currentAccount());
+            default -> Response.bytes(400, "text/plain",
+                    ("Unknown API function: " + path).getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    @Override
+    protected Response faultResponse(EmulatorSettings.Fault fault) {
+        String retryAfter = String.valueOf(settings.getRetryAfterSeconds());
+        if (fault == EmulatorSettings.Fault.THROTTLED) {
+            return Response.json(429, new JSONObject()
+                    .put("error_summary", "too_many_requests/")
+                    .put("error", new JSONObject()
+                            .put("reason", new JSONObject().put(".tag", "too_many_requests"))
+                            .put("retry_after", settings.getRetryAfterSeconds())))
+                    .withHeader("Retry-After", retryAfter);
+        }
+        return Response.bytes(503, "text/plain", "Service unavailable".getBytes(StandardCharsets.UTF_8))
+                .withHeader("Retry-After", retryAfter);
+    }
+
+    /**
+     * Content endpoints pass the argument in {@code Dropbox-API-Arg}; RPC endpoints in the body.
+     */
+    private static JSONObject argument(Request request) {
+        String header = request.header("Dropbox-API-Arg");
+        return header != null ? new JSONObject(header) : request.json();
+    }
+
+    /**
+     * Listings always cover the whole namespace. Cursors are {@code full:<offset>:<snapshot>}
+     * while the initial enumeration is paged and {@code delta:<sequence>} afterwards; anything
+     * else is answered with a {@code reset} error.
+     */
+    private Response fullListing(int offset, long snapshot) {
+        List<EmulatedStore.Item> items = store.page(offset, LIST_PAGE_SIZE);
+        JSONArray entries = new JSONArray();
+        for (EmulatedStore.Item item : items) {
+            entries.put(metadataJson(item, true));
+        }
+        int next = offset + items.size();
+        boolean hasMore = next < store.size();
+        return Response.json(200, new JSONObject()
+                .put("entries", entries)
+                .put("cursor", hasMore ? "full:" + next + ":" + snapshot : "delta:" + snapshot)
+                .put("has_more", hasMore));
+    }
+
+    private Response continueListing(String cursor) {
+        String[] parts = cursor.split(":");
+        try {
+            if (parts.length == 3 && parts[0].equals("full")) {
+                return fullListing(Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+            }
+            if (parts.length == 2 && parts[0].equals("delta") && store.isValidCursor(Long.parseLong(parts[1]))) {
+                return deltaListing(Long.parseLong(parts[1]));
+            }
+        } catch (NumberFormatException e) {
+            // answered as a reset below
+        }
+        return error("reset/", new JSONObject().put(".tag", "reset"));
+    }
+
+    private Response deltaListing(long sequence) {
+        EmulatedStore.ChangePage page = store.changesAfter(sequence, LIST_PAGE_SIZE);
+        Map<String, EmulatedStore.Change> latest = new LinkedHashMap<>();
+        for (EmulatedStore.Change change : page.changes()) {
+            latest.remove(change.id());
+            latest.put(change.id(), change);
+        }
+
+        JSONArray entries = new JSONArray();
+        for (EmulatedStore.Change change : latest.values()) {
+            EmulatedStore.Item item = change.removed() ? null : store.get(change.id());
+            entries.put(item != null
+                    ? metadataJson(item, true)
+                    : new JSONObject()
+                            .put(".tag", "deleted")
+                            .put("name", change.id().substring(change.id().lastIndexOf('/') + 1))
+                            .put("path_lower", change.id())
+                            .put("path_display", change.id()));
+        }
+        return Response.json(200, new JSONObject()
+                .put("entries", entries)
+                .put("cursor", "delta:" + page.lastSequence())
+                .put("has_more", page.hasMore()));
+    }
+
+    private Response longpoll(JSONObject arg) throws InterruptedException {
+        String[] parts = arg.optString("cursor").split(":");
+        long sequence;
+        try {
+            sequence = Long.parseLong(parts[parts.length - 1]);
+        } catch (NumberFormatException e) {
+            return error("reset/", new JSONObject().put(".tag", "reset"));
+        }
+        boolean changes = store.awaitChange(sequence, arg.optLong("timeout", 30) * 1000);
+        return Response.json(200, new JSONObject().put("changes", changes));
+    }
+
+    private Response startSession(Request request) {
+        String sessionId = UUID.randomUUID().toString();
+        UploadBuffer buffer = new UploadBuffer();
+        buffer.write(0, request.body());
+        uploads.put(sessionId, buffer);
+        return Response.json(200, new JSONObject().put("session_id", sessionId));
+    }
+
+    private Response appendSession(JSONObject cursor, byte[] body) {
+        UploadBuffer buffer = uploads.get(cursor.getString("session_id"));
+        if (buffer == null) {
+            return error("not_found/", new JSONObject().put(".tag", "not_found"));
+        }
+        buffer.write(cursor.getLong("offset"), body);
+        return Response.json(200, JSONObject.NULL);
+    }
+
+    private Response finishSession(JSONObject arg, byte[] body) {
+        JSONObject cursor = arg.getJSONObject("cursor");
+        UploadBuffer buffer = uploads.remove(cursor.getString("session_id"));
+        if (buffer == null) {
+            return error("lookup_failed/not_found/", new JSONObject()
+                    .put(".tag", "lookup_failed")
+                    .put("lookup_failed", new JSONObject().put(".tag", "not_found")));
+        }
+        if (body.length > 0) {
+            buffer.write(cursor.getLong("offset"), body);
+        }
+        EmulatedStore.Item item = commit(arg.getJSONObject("commit").getString("path"), buffer.toByteArray());
+        return Response.json(200, metadataJson(item, false));
+    }
+
+    private Response finishBatch(JSONObject arg) {
+        JSONArray entries = arg.getJSONArray("entries");
+        JSONArray results = new JSONArray();
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.getJSONObject(i);
+            UploadBuffer buffer = uploads.remove(entry.getJSONObject("cursor").getString("session_id"));
+            if (buffer == null) {
+                results.put(new JSONObject()
+                        .put(".tag", "failure")
+                        .put("failure", new JSONObject()
+                                .put(".tag", "lookup_failed")
+                                .put("lookup_failed", new JSONObject().put(".tag", "not_found"))));
+                continue;
+            }
+            EmulatedStore.Item item = commit(entry.getJSONObject("commit").getString("path"), buffer.toByteArray());
+            results.put(metadataJson(item, false).put(".tag", "success"));
+        }
+        return Response.json(200, new JSONObject().put("entries", results));
+    }
+
+    private Response download(String path) {
+        EmulatedStore.Item item = lookup(path);
+        if (item == null || item.folder()) {
+            return notFound("path");
+        }
+        return Response.bytes(200, "application/octet-stream", item.content())
+                .withHeader("Dropbox-API-Result", asciiJson(metadataJson(item, false)));
+    }
+
+    private Response deleteBatch(JSONObject arg) {
+        JSONArray entries = arg.getJSONArray("entries");
+        JSONArray results = new JSONArray();
+        for (int i = 0; i < entries.length(); i++) {
+            EmulatedStore.Item deleted = delete(entries.getJSONObject(i).getString("path"));
+            results.put(deleted != null
+                    ? new JSONObject().put(".tag", "success").put("metadata", metadataJson(deleted, true))
+                    : new JSONObject()
+                            .put(".tag", "failure")
+                            .put("failure", new JSONObject()
+                                    .put(".tag", "path_lookup")
+                                    .put("path_lookup", new JSONObject().put(".tag", "not_found"))));
+        }
+        return Response.json(200, new JSONObject().put(".tag", "complete").put("entries", results));
+    }
+
+    /**
+     * Moves or copies an item and, for folders, everything below it.
+     */
+    private Response relocate(JSONObject arg, boolean keepSource) {
+        EmulatedStore.Item source = lookup(arg.getString("from_path"));
+        if (source == null) {
+            return notFound("from_lookup");
+        }
+
+        String toPath = arg.getString("to_path");
+        if (store.get(toPath.toLowerCase()) != null) {
+            if (!arg.optBoolean("autorename")) {
+                return error("to/conflict/file/", new JSONObject()
+                        .put(".tag", "to")
+                        .put("to", new JSONObject().put(".tag", "conflict")
+                                .put("conflict", new JSONObject().put(".tag", "file"))));
+            }
+            toPath = freePath(toPath);
+        }
+
+        String toLower = toPath.toLowerCase();
+        List<EmulatedStore.Item> descendants = source.folder() ? store.withIdPrefix(source.id() + "/") : List.of();
+        EmulatedStore.Item target = source.relocated(toLower, nameOf(toPath), parentOf(toLower));
+        if (!keepSource) {
+            store.remove(source.id());
+        }
+        store.put(target);
+        for (EmulatedStore.Item descendant : descendants) {
+            String id = toLower + descendant.id().substring(source.id().length());
+            if (!keepSource) {
+                store.remove(descendant.id());
+            }
+            store.put(descendant.relocated(id, descendant.name(), parentOf(id)));
+        }
+        return Response.json(200, new JSONObject().put("metadata", metadataJson(target, true)));
+    }
+
+    private Response createFolder(JSONObject arg) {
+        String path = arg.getString("path");
+        if (store.get(path.toLowerCase()) != null) {
+            if (!arg.optBoolean("autorename")) {
+                return error("path/conflict/folder/", new JSONObject()
+                        .put(".tag", "path")
+                        .put("path", new JSONObject().put(".tag", "conflict")
+                                .put("conflict", new JSONObject().put(".tag", "folder"))));
+            }
+            path = freePath(path);
+        }
+        Instant now = Instant.now();
+        EmulatedStore.Item folder = new EmulatedStore.Item(path.toLowerCase(), nameOf(path),
+                parentOf(path.toLowerCase()), true, null, null, now, now);
+        store.put(folder);
+        return Response.json(200, new JSONObject().put("metadata", metadataJson(folder, false)));
+    }
+
+    private Response temporaryLink(Request request, String path) {
+        EmulatedStore.Item item = lookup(path);
+        if (item == null || item.folder()) {
+            return notFound("path");
+        }
+        String token = UUID.randomUUID().toString();
+        temporaryLinks.put(token, item.id());
+        return Response.json(200, new JSONObject()
+                .put("metadata", metadataJson(item, false))
+                .put("link", request.baseUrl() + getContextPath() + "links/" + token));
+    }
+
+    private EmulatedStore.Item commit(String path, byte[] content) {
+        String id = path.toLowerCase();
+        EmulatedStore.Item existing = store.get(id);
+        Instant now = Instant.now();
+        EmulatedStore.Item item = new EmulatedStore.Item(id, nameOf(path), parentOf(id), false,
+                "application/octet-stream", content, existing != null ? existing.createdAt() : now, now);
+        store.put(item);
+        return item;
+    }
+
+    private EmulatedStore.Item delete(String path) {
+        EmulatedStore.Item item = store.remove(path.toLowerCase());
+        if (item != null && item.folder()) {
+            for (EmulatedStore.Item descendant : store.withIdPrefix(item.id() + "/")) {
+                store.remove(descendant.id());
+            }
+        }
+        return item;
+    }
+
+    private EmulatedStore.Item lookup(String path) {
+        return store.get(path.toLowerCase());
+    }
+
+    private String freePath(String path) {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        String base = dot > slash + 1 ? path.substring(0, dot) : path;
+        String extension = dot > slash + 1 ? path.substring(dot) : "";
+        int suffix = 1;
+        while (store.get((base + " (" + suffix + ")" + extension).toLowerCase()) != null) {
+            suffix++;
+        }
+        return base + " (" + suffix + ")" + extension;
+    }
+
+    private JSONObject metadataJson(EmulatedStore.Item item, boolean tagged) {
+        String pathDisplay = item.parentId() + "/" + item.name();
+        JSONObject json = new JSONObject()
+                .put("name", item.name())
+                .put("id", "id:" + Integer.toHexString(item.id().hashCode()) + Long.toHexString(item.createdAt().toEpochMilli()))
+                .put("path_lower", item.id())
+                .put("path_display", pathDisplay);
+        if (item.folder()) {
+            return tagged ? json.put(".tag", "folder") : json;
+        }
+        json.put("client_modified", TIMESTAMP.format(item.modifiedAt()))
+                .put("server_modified", TIMESTAMP.format(item.modifiedAt()))
+                .put("rev", String.format("%015x", item.modifiedAt().toEpochMilli()))
+                .put("size", item.size())
+                .put("is_downloadable", true);
+        return tagged ? json.put(".tag", "file") : json;
+    }
+
+    private static JSONObject currentAccount() {
+        return new JSONObject()
+                .put("account_id", "dbid:AAemulated0000000000000000000000000000")
+                .put("name", new JSONObject()
+                        .put("given_name", "Emulated")
+                        .put("surname", "User")
+                        .put("familiar_name", "Emulated")
+                        .put("display_name", "Emulated User")
+                        .put("abbreviated_name", "EU"))
+                .put("email", "emulated@dropbox.local")
+                .put("email_verified", true)
+                .put("disabled", false)
+                .put("locale", "en")
+                .put("referral_link", "https://db.tt/emulated")
+                .put("is_paired", false)
+                .put("account_type", new JSONObject().put(".tag", "basic"))
+                .put("root_info", new JSONObject()
+                        .put(".tag", "user")
+                        .put("root_namespace_id", "1")
+                        .put("home_namespace_id", "1"));
+    }
+
+    private static Response notFound(String field) {
+        return error(field + "/not_found/", new JSONObject()
+                .put(".tag", field)
+                .put(field, new JSONObject().put(".tag", "not_found")));
+    }
+
+    private static Response error(String summary, JSONObject error) {
+        return Response.json(409, new JSONObject().put("error_summary", summary).put("error", error));
+    }
+
+    /**
+     * HTTP headers are ASCII, so the SDK expects non-ASCII characters escaped as {@code \\uXXXX}.
+     */
+    private static String asciiJson(JSONObject json) {
+        String text = writeJson(json);
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            if (c < 0x80) {
+                escaped.append(c);
+            } else {
+                escaped.append(String.format("\\u%04x", (int) c));
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String nameOf(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static String parentOf(String pathLower) {
+        return pathLower.substring(0, Math.max(0, pathLower.lastIndexOf('/')));
+    }
+}
@@ -0,0 +1,235 @@
+package com.multicloud.emulator;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Base of the emulated provider APIs: parses the exchange, applies latency and injected faults,
+ * and hands everything else to {@link #route(Request)}. Routing works on plain request and
+ * response values so batch endpoints can dispatch their parts through the same code.
+ */
+abstract class EmulatedApi implements HttpHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmulatedApi.class);
+
+    record Request(String method, String path, Map<String, String> query, Headers headers, byte[] body,
+                   String baseUrl) {
+
+        String header(String name) {
+            return headers.getFirst(name);
+        }
+
+        String param(String name) {
+            return query.get(name);
+        }
+
+        JSONObject json() {
+            String text = new String(body, StandardCharsets.UTF_8).trim();
+            return text.isEmpty() || text.equals("null") ? new JSONObject() : new JSONObject(text);
+        }
+
+        Request withTarget(String method, String pathAndQuery, byte[] targetBody) {
+            int question = pathAndQuery.indexOf('?');
+            String targetPath = question >= 0 ? pathAndQuery.substring(0, question) : pathAndQuery;
+            Map<String, String> targetQuery = question >= 0 ? parseQuery(pathAndQuery.substring(question + 1)) : Map.of();
+            return new Request(method, targetPath, targetQuery, headers, targetBody, baseUrl);
+        }
+    }
+
+    record Response(int status, Map<String, String> headers, byte[] body) {
+
+        static Response json(int status, Object json) {
+            return new Response(status, Map.of("Content-Type", "application/json"),
+                    writeJson(json).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Response bytes(int status, String contentType, byte[] body) {
+            return new Response(status, Map.of("Content-Type", contentType), body);
+        }
+
+        static Response empty(int status) {
+            return new Response(status, Map.of(), new byte[0]);
+        }
+
+        Response withHeader(String name, String value) {
+            Map<String, String> merged = new LinkedHashMap<>(headers);
+            merged.put(name, value);
+            return new Response(status, merged, body);
+        }
+
+        JSONObject bodyJson() {
+            return body.length == 0 ? null : new JSONObject(new String(body, StandardCharsets.UTF_8));
+        }
+    }
+
+    static final long QUOTA_BYTES = 1L << 40;
+
+    private final String contextPath;
+    protected final EmulatorSettings settings;
+    protected final EmulatedStore store = new EmulatedStore();
+
+    EmulatedApi(String contextPath, EmulatorSettings settings) {
+        this.contextPath = contextPath;
+        this.settings = settings;
+    }
+
+    String getContextPath() {
+        return contextPath;
+    }
+
+    EmulatedStore getStore() {
+        return store;
+    }
+
+    /**
+     * Adds {@code files} files sharing {@code content} to the root of the store.
+     */
+    abstract void seed(int files, byte[] content);
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            Request request = read(exchange);
+            settings.applyLatency();
+            EmulatorSettings.Fault fault = settings.nextFault();
+            write(exchange, fault != null ? faultResponse(fault) : route(request));
+        } catch (Exception e) {
+            logger.warn("Emulated {} {} failed: {}", exchange.getRequestMethod(), exchange.getRequestURI(), e.toString());
+            write(exchange, Response.json(500, new JSONObject().put("error", String.valueOf(e.getMessage()))));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    protected abstract Response route(Request request) throws Exception;
+
+    /**
+     * The provider's own shape of a throttling or unavailable response.
+     */
+    protected abstract Response faultResponse(EmulatorSettings.Fault fault);
+
+    /**
+     * Response of the OAuth token endpoints; any code or refresh token is accepted.
+     */
+    protected Response tokenResponse() {
+        return Response.json(200, new JSONObject()
+                .put("access_token", "emulated-" + UUID.randomUUID())
+                .put("refresh_token", "emulated-refresh-token")
+                .put("token_type", "Bearer")
+                .put("expires_in", 3600));
+    }
+
+    /**
+     * Draws a fault for one part of a batch request.
+     */
+    protected Response batchPartFault() {
+        EmulatorSettings.Fault fault = settings.nextFault();
+        return fault != null ? faultResponse(fault) : null;
+    }
+
+    private Request read(HttpExchange exchange) throws IOException {
+        String requestPath = exchange.getRequestURI().getPath();
+        // An API can also be mounted outside its prefix, see ProviderEmulator
+        String path = requestPath.startsWith(contextPath)
+                ? requestPath.substring(contextPath.length())
+                : requestPath.substring(1);
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        byte[] body;
+        // Google's client gzips request bodies, e.g. the metadata that starts a resumable upload
+        boolean gzipped = "gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+        try (InputStream in = gzipped ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if (host == null) {
+            host = "localhost:" + exchange.getLocalAddress().getPort();
+        }
+        String override = exchange.getRequestHeaders().getFirst("X-HTTP-Method-Override");
+        return new Request(override != null ? override.toUpperCase() : exchange.getRequestMethod(), path,
+                rawQuery != null ? parseQuery(rawQuery) : Map.of(), exchange.getRequestHeaders(), body,
+                "http://" + host);
+    }
+
+    private void write(HttpExchange exchange, Response response) throws IOException {
+        response.headers().forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+        boolean noBody = response.body().length == 0 || response.status() == 204 || response.status() == 304;
+        exchange.sendResponseHeaders(response.status(), noBody ? -1 : response.body().length);
+        if (!noBody) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response.body());
+            }
+        }
+    }
+
+    /**
+     * Serializes like {@link JSONObject#toString()}, but with any {@code .tag} key first. The
+     * Dropbox SDK only reads a union or subtype tag that leads its object, as the real API
+     * sends it, and {@link JSONObject} does not keep insertion order.
+     */
+    static String writeJson(Object json) {
+        StringBuilder out = new StringBuilder();
+        appendJson(out, json);
+        return out.toString();
+    }
+
+    private static void appendJson(StringBuilder out, Object value) {
+        if (value instanceof JSONObject object) {
+            List<String> keys = new ArrayList<>(object.keySet());
+            if (keys.remove(".tag")) {
+                keys.add(0, ".tag");
+            }
+            out.append('{');
+            for (int i = 0; i < keys.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(JSONObject.quote(keys.get(i))).append(':');
+                appendJson(out, object.get(keys.get(i)));
+            }
+            out.append('}');
+        } else if (value instanceof JSONArray array) {
+            out.append('[');
+            for (int i = 0; i < array.length(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                appendJson(out, array.get(i));
+            }
+            out.append(']');
+        } else {
+            out.append(JSONObject.valueToString(value));
+        }
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = equals >= 0 ? pair.substring(0, equals) : pair;
+            String value = equals >= 0 ? pair.substring(equals + 1) : "";
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+}
@@ -0,0 +1,138 @@
+package com.multicloud.emulator;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-memory files of one emulated provider, with a change log that backs the delta and
+ * change-listing endpoints. Sequence numbers start at 1 and have no gaps, so a cursor is just
+ * the last sequence a client has seen.
+ */
+public class EmulatedStore {
+
+    public record Item(String id, String name, String parentId, boolean folder, String mimeType,
+                       byte[] content, Instant createdAt, Instant modifiedAt) {
+
+        public long size() {
+            return content != null ? content.length : 0;
+        }
+
+        Item relocated(String newId, String newName, String newParentId) {
+            return new Item(newId, newName, newParentId, folder, mimeType, content, createdAt, Instant.now());
+        }
+    }
+
+    public record Change(long sequence, String id, boolean removed) {
+    }
+
+    public record ChangePage(List<Change> changes, long lastSequence, boolean hasMore) {
+    }
+
+    private final Map<String, Item> items = new LinkedHashMap<>();
+    private final List<Change> changes = new ArrayList<>();
+
+    public synchronized void put(Item item) {
+        items.put(item.id(), item);
+        record(item.id(), false);
+    }
+
+    public synchronized Item get(String id) {
+        return items.get(id);
+    }
+
+    public synchronized Item remove(String id) {
+        Item removed = items.remove(id);
+        if (removed != null) {
+            record(id, true);
+        }
+        return removed;
+    }
+
+    public synchronized int size() {
+        return items.size();
+    }
+
+    public synchronized List<Item> page(int offset, int limit) {
+        List<Item> page = new ArrayList<>(Math.min(limit, Math.max(0, items.size() - offset)));
+        int index = 0;
+        for (Item item : items.values()) {
+            if (index++ < offset) {
+                continue;
+            }
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(item);
+        }
+        return page;
+    }
+
+    public synchronized Item findChild(String parentId, String name) {
+        for (Item item : items.values()) {
+            if (name.equals(item.name()) && Objects.equals(parentId, item.parentId())) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Items whose id starts with {@code prefix}, for providers that use paths as ids.
+     */
+    public synchronized List<Item> withIdPrefix(String prefix) {
+        List<Item> matches = new ArrayList<>();
+        for (Item item : items.values()) {
+            if (item.id().startsWith(prefix)) {
+                matches.add(item);
+            }
+        }
+        return matches;
+    }
+
+    public synchronized long usedBytes() {
+        long used = 0;
+        for (Item item : items.values()) {
+            used += item.size();
+        }
+        return used;
+    }
+
+    public synchronized long sequence() {
+        return changes.size();
+    }
+
+    public synchronized boolean isValidCursor(long sequence) {
+        return sequence >= 0 && sequence <= changes.size();
+    }
+
+    public synchronized ChangePage changesAfter(long sequence, int limit) {
+        int from = (int) Math.min(sequence, changes.size());
+        int to = Math.min(changes.size(), from + limit);
+        List<Change> page = new ArrayList<>(changes.subList(from, to));
+        return new ChangePage(page, to, to < changes.size());
+    }
+
+    /**
+     * Blocks until a change after {@code sequence} is recorded or the timeout passes.
+     */
+    public synchronized boolean awaitChange(long sequence, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (changes.size() <= sequence) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    private void record(String id, boolean removed) {
+        changes.add(new Change(changes.size() + 1L, id, removed));
+        notifyAll();
+    }
+}
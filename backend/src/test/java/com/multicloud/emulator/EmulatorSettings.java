@@ -0,0 +1,119 @@
+package com.multicloud.emulator;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latency and fault injection applied to every emulated provider call. Values can be changed
+ * while the emulator runs, e.g. to start throttling halfway through a load test.
+ */
+public class EmulatorSettings {
+
+    public enum Fault {
+        THROTTLED,
+        UNAVAILABLE
+    }
+
+    private volatile long latencyMillis;
+    private volatile long latencyJitterMillis;
+    private volatile double throttleRate;
+    private volatile double errorRate;
+    private volatile int retryAfterSeconds = 1;
+    private final AtomicInteger throttledCallsLeft = new AtomicInteger();
+
+    /**
+     * Reads {@code emulator.latency-ms}, {@code emulator.latency-jitter-ms},
+     * {@code emulator.throttle-rate}, {@code emulator.error-rate} and
+     * {@code emulator.retry-after-seconds} from the system properties.
+     */
+    public static EmulatorSettings fromSystemProperties() {
+        EmulatorSettings settings = new EmulatorSettings();
+        settings.setLatencyMillis(Long.getLong("emulator.latency-ms", 0));
+        settings.setLatencyJitterMillis(Long.getLong("emulator.latency-jitter-ms", 0));
+        settings.setThrottleRate(Double.parseDouble(System.getProperty("emulator.throttle-rate", "0")));
+        settings.setErrorRate(Double.parseDouble(System.getProperty("emulator.error-rate", "0")));
+        settings.setRetryAfterSeconds(Integer.getInteger("emulator.retry-after-seconds", 1));
+        return settings;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public long getLatencyJitterMillis() {
+        return latencyJitterMillis;
+    }
+
+    public void setLatencyJitterMillis(long latencyJitterMillis) {
+        this.latencyJitterMillis = latencyJitterMillis;
+    }
+
+    public double getThrottleRate() {
+        return throttleRate;
+    }
+
+    /**
+     * Share of calls answered with the provider's throttling response (429 with Retry-After).
+     */
+    public void setThrottleRate(double throttleRate) {
+        this.throttleRate = throttleRate;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * Share of calls answered with 503.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Answers the next {@code calls} calls with the throttling response regardless of the
+     * rates, so tests can throttle a known request. Batch parts count as calls.
+     */
+    public void throttleNextCalls(int calls) {
+        throttledCallsLeft.set(calls);
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    void applyLatency() throws InterruptedException {
+        long delay = latencyMillis;
+        if (latencyJitterMillis > 0) {
+            delay += ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1);
+        }
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+    }
+
+    /**
+     * Draws the fault for one call, or null when it should succeed.
+     */
+    Fault nextFault() {
+        if (throttledCallsLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            return Fault.THROTTLED;
+        }
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < throttleRate) {
+            return Fault.THROTTLED;
+        }
+        if (roll < throttleRate + errorRate) {
+            return Fault.UNAVAILABLE;
+        }
+        return null;
+    }
+}
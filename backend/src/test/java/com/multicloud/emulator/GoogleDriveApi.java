@@ -0,0 +1,376 @@
+package com.multicloud.emulator;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Drive v3 endpoints used by {@code GoogleDriveService}: file CRUD, change tokens, resumable
+ * uploads, multipart batch requests and the OAuth token endpoint. Served under {@code /google/},
+ * which stands in for {@code https://www.googleapis.com/}.
+ */
+class GoogleDriveApi extends EmulatedApi {
+
+    private static final String FOLDER_MIME_TYPE = "application/vnd.google-apps.folder";
+    private static final String FILES_PATH = "drive/v3/files";
+    private static final String BATCH_BOUNDARY = "batch_emulator";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private record UploadSession(String name, String parentId, String mimeType, UploadBuffer buffer) {
+    }
+
+    private final Map<String, UploadSession> uploads = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    GoogleDriveApi(EmulatorSettings settings) {
+        super("/google/", settings);
+    }
+
+    @Override
+    void seed(int files, byte[] content) {
+        Instant now = Instant.now();
+        for (int i = 0; i < files; i++) {
+            store.put(new EmulatedStore.Item(nextId(), "seed-" + i + ".bin", null, false,
+                    "application/octet-stream", content, now, now));
+        }
+    }
+
+    @Override
+    protected Response route(Request request) throws Exception {
+        String path = request.path();
+        String method = request.method();
+
+        if (path.equals("token")) {
+            return tokenResponse();
+        }
+        if (path.equals("oauth2/v1/userinfo")) {
+            return Response.json(200, new JSONObject().put("email", "emulated@drive.local"));
+        }
+        if (path.equals("batch/drive/v3")) {
+            return batch(request);
+        }
+        if (path.equals("upload/" + FILES_PATH)) {
+            return method.equals("POST") ? startUpload(request) : continueUpload(request);
+        }
+        if (path.equals("drive/v3/about")) {
+            return Response.json(200, new JSONObject().put("storageQuota", new JSONObject()
+                    .put("limit", String.valueOf(QUOTA_BYTES))
+                    .put("usage", String.valueOf(store.usedBytes()))));
+        }
+        if (path.equals("drive/v3/changes/startPageToken")) {
+            return Response.json(200, new JSONObject().put("startPageToken", String.valueOf(store.sequence())));
+        }
+        if (path.equals("drive/v3/changes")) {
+            return changes(request);
+        }
+        if (path.equals(FILES_PATH)) {
+            return method.equals("POST") ? create(request) : list(request);
+        }
+        if (path.startsWith(FILES_PATH + "/")) {
+            String[] segments = path.substring(FILES_PATH.length() + 1).split("/");
+            EmulatedStore.Item item = store.get(segments[0]);
+            if (item == null) {
+                return error(404, "notFound", "File not found: " + segments[0] + ".");
+            }
+            if (segments.length > 1) {
+                return segments[1].equals("copy") ? copy(request, item) : media(item, request.param("mimeType"));
+            }
+            return switch (method) {
+                case "DELETE" -> {
+                    store.remove(item.id());
+                    yield Response.empty(204);
+                }
+                case "PATCH" -> {
+                    EmulatedStore.Item renamed = item.relocated(item.id(),
+                            request.json().optString("name", item.name()), item.parentId());
+                    store.put(renamed);
+                    yield Response.json(200, fileJson(request, renamed));
+                }
+                default -> "media".equals(request.param("alt"))
+                        ? media(item, item.mimeType())
+                        : Response.json(200, fileJson(request, item));
+            };
+        }
+        return error(404, "notFound", "Unknown endpoint: " + path);
+    }
+
+    @Override
+    protected Response faultResponse(EmulatorSettings.Fault fault) {
+        if (fault == EmulatorSettings.Fault.THROTTLED) {
+            return error(429, "rateLimitExceeded", "Rate Limit Exceeded")
+                    .withHeader("Retry-After", String.valueOf(settings.getRetryAfterSeconds()));
+        }
+        return error(503, "backendError", "Backend Error");
+    }
+
+    private Response list(Request request) {
+        int offset = parseOffset(request.param("pageToken"));
+        if (offset < 0) {
+            return error(400, "invalid", "Invalid page token.");
+        }
+        int pageSize = pageSize(request);
+        JSONArray files = new JSONArray();
+        for (EmulatedStore.Item item : store.page(offset, pageSize)) {
+            files.put(fileJson(request, item));
+        }
+        JSONObject result = new JSONObject().put("kind", "drive#fileList").put("files", files);
+        if (offset + files.length() < store.size()) {
+            result.put("nextPageToken", String.valueOf(offset + files.length()));
+        }
+        return Response.json(200, result);
+    }
+
+    private Response changes(Request request) {
+        long sequence = parseOffset(request.param("pageToken"));
+        if (sequence < 0 || !store.isValidCursor(sequence)) {
+            return error(400, "invalid", "Invalid page token.");
+        }
+
+        EmulatedStore.ChangePage page = store.changesAfter(sequence, pageSize(request));
+        Map<String, EmulatedStore.Change> latest = new LinkedHashMap<>();
+        for (EmulatedStore.Change change : page.changes()) {
+            latest.remove(change.id());
+            latest.put(change.id(), change);
+        }
+
+        JSONArray changes = new JSONArray();
+        for (EmulatedStore.Change change : latest.values()) {
+            EmulatedStore.Item item = change.removed() ? null : store.get(change.id());
+            JSONObject json = new JSONObject()
+                    .put("kind", "drive#change")
+                    .put("changeType", "file")
+                    .put("fileId", change.id())
+                    .put("removed", item == null);
+            if (item != null) {
+                json.put("file", fileJson(request, item));
+            }
+            changes.put(json);
+        }
+
+        JSONObject result = new JSONObject().put("kind", "drive#changeList").put("changes", changes);
+        result.put(page.hasMore() ? "nextPageToken" : "newStartPageToken", String.valueOf(page.lastSequence()));
+        return Response.json(200, result);
+    }
+
+    private Response create(Request request) {
+        JSONObject metadata = request.json();
+        Instant now = Instant.now();
+        EmulatedStore.Item item = new EmulatedStore.Item(nextId(), metadata.optString("name", "Untitled"),
+                firstParent(metadata), FOLDER_MIME_TYPE.equals(metadata.optString("mimeType")),
+                metadata.optString("mimeType", "application/octet-stream"), new byte[0], now, now);
+        store.put(item);
+        return Response.json(200, fileJson(request, item));
+    }
+
+    private Response copy(Request request, EmulatedStore.Item source) {
+        JSONObject metadata = request.json();
+        Instant now = Instant.now();
+        EmulatedStore.Item copy = new EmulatedStore.Item(nextId(), metadata.optString("name", source.name()),
+                metadata.has("parents") ? firstParent(metadata) : source.parentId(), source.folder(),
+                source.mimeType(), source.content(), now, now);
+        store.put(copy);
+        return Response.json(200, fileJson(request, copy));
+    }
+
+    private Response media(EmulatedStore.Item item, String mimeType) {
+        if (item.folder()) {
+            return error(403, "fileNotDownloadable", "Only files with binary content can be downloaded.");
+        }
+        return Response.bytes(200, mimeType != null ? mimeType : "application/octet-stream", item.content());
+    }
+
+    private Response startUpload(Request request) {
+        if (!"resumable".equals(request.param("uploadType"))) {
+            return error(400, "badRequest", "Only resumable uploads are emulated.");
+        }
+        JSONObject metadata = request.json();
+        String mimeType = metadata.optString("mimeType", null);
+        if (mimeType == null) {
+            mimeType = request.header("X-Upload-Content-Type");
+        }
+        String uploadId = "upload-" + nextId();
+        uploads.put(uploadId, new UploadSession(metadata.optString("name", "Untitled"), firstParent(metadata),
+                mimeType != null ? mimeType : "application/octet-stream", new UploadBuffer()));
+        return Response.empty(200).withHeader("Location",
+                request.baseUrl() + getContextPath() + "upload/" + FILES_PATH + "?uploadType=resumable&upload_id=" + uploadId);
+    }
+
+    /**
+     * Accepts one chunk, or a status query with {@code Content-Range: bytes *}{@code /total}.
+     * Incomplete uploads answer 308 with the committed range, as Drive does.
+     */
+    private Response continueUpload(Request request) {
+        String uploadId = request.param("upload_id");
+        UploadSession session = uploadId != null ? uploads.get(uploadId) : null;
+        if (session == null) {
+            return error(404, "notFound", "Upload session not found.");
+        }
+
+        String range = request.header("Content-Range");
+        long total = request.body().length;
+        if (range != null && range.startsWith("bytes ")) {
+            String spec = range.substring("bytes ".length());
+            int slash = spec.indexOf('/');
+            String bytes = spec.substring(0, slash);
+            String length = spec.substring(slash + 1);
+            total = length.equals("*") ? -1 : Long.parseLong(length);
+            if (!bytes.equals("*")) {
+                session.buffer().write(Long.parseLong(bytes.substring(0, bytes.indexOf('-'))), request.body());
+            }
+        } else {
+            session.buffer().write(0, request.body());
+        }
+
+        int committed = session.buffer().size();
+        if (total < 0 || committed < total) {
+            Response incomplete = Response.empty(308);
+            return committed > 0 ? incomplete.withHeader("Range", "bytes=0-" + (committed - 1)) : incomplete;
+        }
+
+        uploads.remove(uploadId);
+        Instant now = Instant.now();
+        EmulatedStore.Item item = new EmulatedStore.Item(nextId(), session.name(), session.parentId(), false,
+                session.mimeType(), session.buffer().toByteArray(), now, now);
+        store.put(item);
+        return Response.json(200, fileJson(request, item));
+    }
+
+    /**
+     * Handles a {@code multipart/mixed} batch: every part carries a complete HTTP request whose
+     * URL points back at this API. Faults are drawn per part, so one batch can mix successes
+     * and throttled calls like the real endpoint.
+     */
+    private Response batch(Request request) throws Exception {
+        String contentType = request.header("Content-Type");
+        int boundaryAt = contentType != null ? contentType.indexOf("boundary=") : -1;
+        if (boundaryAt < 0) {
+            return error(400, "badRequest", "Missing multipart boundary.");
+        }
+        String boundary = contentType.substring(boundaryAt + "boundary=".length()).replace("\"", "").trim();
+        String body = new String(request.body(), StandardCharsets.ISO_8859_1).replace("\r\n", "\n");
+
+        StringBuilder out = new StringBuilder();
+        int partNumber = 0;
+        for (String part : body.split("--" + Pattern.quote(boundary))) {
+            String trimmed = part.strip();
+            if (trimmed.isEmpty() || trimmed.equals("--")) {
+                continue;
+            }
+            partNumber++;
+
+            String[] sections = part.split("\n\n", 3);
+            if (sections.length < 2) {
+                continue;
+            }
+            String contentId = headerValue(sections[0], "Content-ID");
+            String[] requestLine = sections[1].strip().split("\n")[0].split(" ");
+            byte[] partBody = sections.length > 2 ? sections[2].strip().getBytes(StandardCharsets.ISO_8859_1) : new byte[0];
+
+            Response response = batchPartFault();
+            if (response == null) {
+                String url = requestLine[1];
+                int context = url.indexOf(getContextPath());
+                try {
+                    response = route(request.withTarget(requestLine[0],
+                            context >= 0 ? url.substring(context + getContextPath().length()) : url, partBody));
+                } catch (Exception e) {
+                    response = error(500, "backendError", String.valueOf(e.getMessage()));
+                }
+            }
+
+            out.append("--").append(BATCH_BOUNDARY).append("\r\n")
+                    .append("Content-Type: application/http\r\n")
+                    .append("Content-ID: <response-")
+                    .append(contentId != null ? contentId.replaceAll("[<>]", "") : String.valueOf(partNumber))
+                    .append(">\r\n\r\n")
+                    .append("HTTP/1.1 ").append(response.status()).append(" Emulated\r\n");
+            for (Map.Entry<String, String> header : response.headers().entrySet()) {
+                out.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+            }
+            out.append("Content-Length: ").append(response.body().length).append("\r\n\r\n")
+                    .append(new String(response.body(), StandardCharsets.ISO_8859_1)).append("\r\n");
+        }
+        out.append("--").append(BATCH_BOUNDARY).append("--\r\n");
+
+        return Response.bytes(200, "multipart/mixed; boundary=" + BATCH_BOUNDARY,
+                out.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private JSONObject fileJson(Request request, EmulatedStore.Item item) {
+        JSONObject json = new JSONObject()
+                .put("kind", "drive#file")
+                .put("id", item.id())
+                .put("name", item.name())
+                .put("mimeType", item.mimeType())
+                .put("createdTime", timestamp(item.createdAt()))
+                .put("modifiedTime", timestamp(item.modifiedAt()))
+                .put("webViewLink", request.baseUrl() + getContextPath() + "file/d/" + item.id() + "/view")
+                .put("trashed", false);
+        if (!item.folder()) {
+            json.put("size", String.valueOf(item.size()));
+        }
+        if (item.parentId() != null) {
+            json.put("parents", new JSONArray().put(item.parentId()));
+        }
+        return json;
+    }
+
+    private static Response error(int status, String reason, String message) {
+        JSONObject error = new JSONObject()
+                .put("code", status)
+                .put("message", message)
+                .put("errors", new JSONArray().put(new JSONObject()
+                        .put("domain", status == 429 ? "usageLimits" : "global")
+                        .put("reason", reason)
+                        .put("message", message)));
+        return Response.json(status, new JSONObject().put("error", error));
+    }
+
+    private static String headerValue(String headers, String name) {
+        for (String line : headers.split("\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase(name)) {
+                return line.substring(colon + 1).trim();
+            }
+        }
+        return null;
+    }
+
+    private static String firstParent(JSONObject metadata) {
+        JSONArray parents = metadata.optJSONArray("parents");
+        return parents != null && !parents.isEmpty() ? parents.getString(0) : null;
+    }
+
+    private static int parseOffset(String token) {
+        if (token == null || token.isBlank()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int pageSize(Request request) {
+        String pageSize = request.param("pageSize");
+        return pageSize != null ? Math.min(MAX_PAGE_SIZE, Integer.parseInt(pageSize)) : DEFAULT_PAGE_SIZE;
+    }
+
+    private static String timestamp(Instant instant) {
+        return instant.truncatedTo(ChronoUnit.MILLIS).toString();
+    }
+
+    private String nextId() {
+        return String.format("1emu%016x", ids.incrementAndGet());
+    }
+}
@@ -0,0 +1,385 @@
+package com.multicloud.emulator;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Microsoft Graph drive endpoints used by {@code OneDriveService}: the delta feed, simple and
+ * session uploads, item CRUD, JSON {@code $batch} and the OAuth token endpoint. Served under
+ * {@code /graph/}, so the Graph base URL becomes {@code <emulator>/graph/v1.0}.
+ */
+class GraphApi extends EmulatedApi {
+
+    private static final String ROOT_ID = "EMULATED!ROOT";
+    private static final String DRIVE_ID = "emulated-drive";
+    private static final String DRIVE_PATH = "v1.0/me/drive/";
+    private static final String ITEMS_PATH = DRIVE_PATH + "items/";
+    private static final String ROOT_PATH_PREFIX = DRIVE_PATH + "root:/";
+    private static final int DELTA_PAGE_SIZE = 200;
+    private static final int BATCH_MAX_REQUESTS = 20;
+
+    private record UploadSession(String name, String parentId, UploadBuffer buffer) {
+    }
+
+    private final Map<String, UploadSession> uploads = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    GraphApi(EmulatorSettings settings) {
+        super("/graph/", settings);
+    }
+
+    @Override
+    void seed(int files, byte[] content) {
+        Instant now = Instant.now();
+        for (int i = 0; i < files; i++) {
+            store.put(new EmulatedStore.Item(nextId(), "seed-" + i + ".bin", ROOT_ID, false,
+                    "application/octet-stream", content, now, now));
+        }
+    }
+
+    @Override
+    protected Response route(Request request) throws Exception {
+        String path = request.path();
+        String method = request.method();
+
+        if (path.equals("token")) {
+            return tokenResponse();
+        }
+        if (path.equals("v1.0/me")) {
+            return Response.json(200, new JSONObject()
+                    .put("mail", "emulated@onedrive.local")
+                    .put("userPrincipalName", "emulated@onedrive.local"));
+        }
+        if (path.equals("v1.0/me/drive")) {
+            long used = store.usedBytes();
+            return Response.json(200, new JSONObject()
+                    .put("id", DRIVE_ID)
+                    .put("driveType", "personal")
+                    .put("quota", new JSONObject()
+                            .put("total", QUOTA_BYTES)
+                            .put("used", used)
+                            .put("remaining", QUOTA_BYTES - used)
+                            .put("state", "normal")));
+        }
+        if (path.equals("v1.0/$batch")) {
+            return batch(request);
+        }
+        if (path.equals(DRIVE_PATH + "root/delta")) {
+            return delta(request);
+        }
+        if (path.equals(DRIVE_PATH + "root/children")) {
+            return createFolder(request, ROOT_ID);
+        }
+        if (path.startsWith("upload/")) {
+            return session(request, path.substring("upload/".length()));
+        }
+        if (path.startsWith(ROOT_PATH_PREFIX) && path.endsWith(":/content")) {
+            String name = path.substring(ROOT_PATH_PREFIX.length(), path.length() - ":/content".length());
+            EmulatedStore.Item existing = store.findChild(ROOT_ID, name);
+            EmulatedStore.Item item = commit(existing, name, ROOT_ID, request.body());
+            return Response.json(existing != null ? 200 : 201, itemJson(request, item));
+        }
+        if (path.startsWith(ROOT_PATH_PREFIX) && path.endsWith(":/createUploadSession")) {
+            String name = path.substring(ROOT_PATH_PREFIX.length(), path.length() - ":/createUploadSession".length());
+            String sessionId = "session-" + nextId();
+            uploads.put(sessionId, new UploadSession(name, ROOT_ID, new UploadBuffer()));
+            return Response.json(200, new JSONObject()
+                    .put("uploadUrl", request.baseUrl() + getContextPath() + "upload/" + sessionId)
+                    .put("expirationDateTime", Instant.now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS).toString())
+                    .put("nextExpectedRanges", new JSONArray().put("0-")));
+        }
+        if (path.startsWith(ITEMS_PATH)) {
+            String[] segments = path.substring(ITEMS_PATH.length()).split("/");
+            EmulatedStore.Item item = store.get(segments[0]);
+            if (item == null) {
+                return error(404, "itemNotFound", "Item does not exist");
+            }
+            if (segments.length > 1 && segments[1].equals("children")) {
+                return createFolder(request, item.id());
+            }
+            if (segments.length > 1 && segments[1].equals("content")) {
+                return item.folder()
+                        ? error(400, "invalidRequest", "Folders have no content")
+                        : Response.bytes(200, item.mimeType(), item.content());
+            }
+            return switch (method) {
+                case "DELETE" -> {
+                    store.remove(item.id());
+                    yield Response.empty(204);
+                }
+                case "PATCH" -> {
+                    JSONObject body = request.json();
+                    JSONObject parent = body.optJSONObject("parentReference");
+                    EmulatedStore.Item updated = item.relocated(item.id(), body.optString("name", item.name()),
+                            parent != null ? parent.optString("id", item.parentId()) : item.parentId());
+                    store.put(updated);
+                    yield Response.json(200, itemJson(request, updated));
+                }
+                default -> Response.json(200, itemJson(request, item));
+            };
+        }
+        return error(400, "invalidRequest", "Unknown endpoint: " + path);
+    }
+
+    @Override
+    protected Response faultResponse(EmulatorSettings.Fault fault) {
+        String retryAfter = String.valueOf(settings.getRetryAfterSeconds());
+        if (fault == EmulatorSettings.Fault.THROTTLED) {
+            return error(429, "TooManyRequests", "Please retry after " + retryAfter + " seconds.")
+                    .withHeader("Retry-After", retryAfter);
+        }
+        return error(503, "serviceNotAvailable", "Service unavailable").withHeader("Retry-After", retryAfter);
+    }
+
+    /**
+     * Without a token the whole drive is enumerated in pages, root item first; the final page
+     * carries a delta link positioned at the change sequence taken when the enumeration
+     * started. Unknown tokens answer 410 like an expired delta link.
+     */
+    private Response delta(Request request) {
+        String skipToken = request.param("$skiptoken");
+        String token = request.param("token");
+        try {
+            if (skipToken != null && skipToken.startsWith("f")) {
+                String[] parts = skipToken.substring(1).split("-");
+                return fullPage(request, Integer.parseInt(parts[0]), Long.parseLong(parts[1]));
+            }
+            if (skipToken != null && skipToken.startsWith("d")) {
+                return deltaPage(request, Long.parseLong(skipToken.substring(1)));
+            }
+            if (token != null) {
+                return deltaPage(request, Long.parseLong(token));
+            }
+        } catch (RuntimeException e) {
+            return resyncRequired();
+        }
+        return fullPage(request, 0, store.sequence());
+    }
+
+    private Response fullPage(Request request, int offset, long snapshot) {
+        JSONArray value = new JSONArray();
+        if (offset == 0) {
+            value.put(rootJson());
+        }
+        List<EmulatedStore.Item> items = store.page(offset, DELTA_PAGE_SIZE);
+        for (EmulatedStore.Item item : items) {
+            value.put(itemJson(request, item));
+        }
+
+        JSONObject result = new JSONObject().put("value", value);
+        int next = offset + items.size();
+        if (next < store.size()) {
+            result.put("@odata.nextLink", deltaUrl(request) + "?$skiptoken=f" + next + "-" + snapshot);
+        } else {
+            result.put("@odata.deltaLink", deltaUrl(request) + "?token=" + snapshot);
+        }
+        return Response.json(200, result);
+    }
+
+    private Response deltaPage(Request request, long sequence) {
+        if (!store.isValidCursor(sequence)) {
+            return resyncRequired();
+        }
+
+        EmulatedStore.ChangePage page = store.changesAfter(sequence, DELTA_PAGE_SIZE);
+        Map<String, EmulatedStore.Change> latest = new LinkedHashMap<>();
+        for (EmulatedStore.Change change : page.changes()) {
+            latest.remove(change.id());
+            latest.put(change.id(), change);
+        }
+
+        JSONArray value = new JSONArray();
+        for (EmulatedStore.Change change : latest.values()) {
+            EmulatedStore.Item item = change.removed() ? null : store.get(change.id());
+            value.put(item != null
+                    ? itemJson(request, item)
+                    : new JSONObject()
+                            .put("id", change.id())
+                            .put("deleted", new JSONObject().put("state", "deleted"))
+                            .put("parentReference", new JSONObject().put("driveId", DRIVE_ID)));
+        }
+
+        JSONObject result = new JSONObject().put("value", value);
+        if (page.hasMore()) {
+            result.put("@odata.nextLink", deltaUrl(request) + "?$skiptoken=d" + page.lastSequence());
+        } else {
+            result.put("@odata.deltaLink", deltaUrl(request) + "?token=" + page.lastSequence());
+        }
+        return Response.json(200, result);
+    }
+
+    private Response createFolder(Request request, String parentId) {
+        JSONObject body = request.json();
+        String name = body.optString("name", "New folder");
+        String conflictBehavior = body.optString("@microsoft.graph.conflictBehavior", "fail");
+
+        EmulatedStore.Item existing = store.findChild(parentId, name);
+        if (existing != null) {
+            if (conflictBehavior.equals("fail")) {
+                return error(409, "nameAlreadyExists", "An item with the same name already exists");
+            }
+            if (conflictBehavior.equals("rename")) {
+                int suffix = 1;
+                while (store.findChild(parentId, name + " " + suffix) != null) {
+                    suffix++;
+                }
+                name = name + " " + suffix;
+                existing = null;
+            }
+        }
+
+        Instant now = Instant.now();
+        EmulatedStore.Item folder = new EmulatedStore.Item(existing != null ? existing.id() : nextId(), name,
+                parentId, true, null, null, existing != null ? existing.createdAt() : now, now);
+        store.put(folder);
+        return Response.json(201, itemJson(request, folder));
+    }
+
+    /**
+     * Upload session URL: PUT appends a byte range, GET reports the next expected range and
+     * DELETE cancels the session.
+     */
+    private Response session(Request request, String sessionId) {
+        UploadSession session = uploads.get(sessionId);
+        if (session == null) {
+            return error(404, "itemNotFound", "Upload session not found");
+        }
+
+        switch (request.method()) {
+            case "DELETE" -> {
+                uploads.remove(sessionId);
+                return Response.empty(204);
+            }
+            case "GET" -> {
+                return Response.json(200, new JSONObject()
+                        .put("nextExpectedRanges", new JSONArray().put(session.buffer().size() + "-")));
+            }
+            default -> {
+            }
+        }
+
+        String range = request.header("Content-Range");
+        if (range == null || !range.startsWith("bytes ") || range.contains("*")) {
+            return error(400, "invalidRange", "Content-Range is required");
+        }
+        String spec = range.substring("bytes ".length());
+        long start = Long.parseLong(spec.substring(0, spec.indexOf('-')));
+        long total = Long.parseLong(spec.substring(spec.indexOf('/') + 1));
+        session.buffer().write(start, request.body());
+
+        if (session.buffer().size() < total) {
+            return Response.json(202, new JSONObject()
+                    .put("expirationDateTime", Instant.now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS).toString())
+                    .put("nextExpectedRanges", new JSONArray().put(session.buffer().size() + "-")));
+        }
+
+        uploads.remove(sessionId);
+        EmulatedStore.Item item = commit(store.findChild(session.parentId(), session.name()), session.name(),
+                session.parentId(), session.buffer().toByteArray());
+        return Response.json(201, itemJson(request, item));
+    }
+
+    /**
+     * Runs up to 20 requests, each relative to {@code /v1.0}, and answers with one entry per
+     * request. Faults are drawn per request, as Graph throttles individual batch members.
+     */
+    private Response batch(Request request) {
+        JSONArray requests = request.json().optJSONArray("requests");
+        if (requests == null || requests.length() > BATCH_MAX_REQUESTS) {
+            return error(400, "invalidRequest", "A batch needs between 1 and " + BATCH_MAX_REQUESTS + " requests");
+        }
+
+        JSONArray responses = new JSONArray();
+        for (int i = 0; i < requests.length(); i++) {
+            JSONObject entry = requests.getJSONObject(i);
+            Response response = batchPartFault();
+            if (response == null) {
+                Object body = entry.opt("body");
+                byte[] bytes = body != null ? body.toString().getBytes(StandardCharsets.UTF_8) : new byte[0];
+                try {
+                    response = route(request.withTarget(entry.optString("method", "GET"),
+                            "v1.0" + entry.getString("url"), bytes));
+                } catch (Exception e) {
+                    response = error(500, "generalException", String.valueOf(e.getMessage()));
+                }
+            }
+
+            JSONObject result = new JSONObject()
+                    .put("id", entry.getString("id"))
+                    .put("status", response.status())
+                    .put("headers", new JSONObject(response.headers()));
+            JSONObject body = response.headers().getOrDefault("Content-Type", "").startsWith("application/json")
+                    ? response.bodyJson() : null;
+            if (body != null) {
+                result.put("body", body);
+            }
+            responses.put(result);
+        }
+        return Response.json(200, new JSONObject().put("responses", responses));
+    }
+
+    private EmulatedStore.Item commit(EmulatedStore.Item existing, String name, String parentId, byte[] content) {
+        Instant now = Instant.now();
+        EmulatedStore.Item item = new EmulatedStore.Item(existing != null ? existing.id() : nextId(), name,
+                parentId, false, "application/octet-stream", content,
+                existing != null ? existing.createdAt() : now, now);
+        store.put(item);
+        return item;
+    }
+
+    private JSONObject itemJson(Request request, EmulatedStore.Item item) {
+        JSONObject json = new JSONObject()
+                .put("id", item.id())
+                .put("name", item.name())
+                .put("size", item.size())
+                .put("createdDateTime", timestamp(item.createdAt()))
+                .put("lastModifiedDateTime", timestamp(item.modifiedAt()))
+                .put("webUrl", request.baseUrl() + getContextPath() + "view/" + item.id())
+                .put("parentReference", new JSONObject().put("driveId", DRIVE_ID).put("id", item.parentId()));
+        if (item.folder()) {
+            json.put("folder", new JSONObject().put("childCount", 0));
+        } else {
+            json.put("file", new JSONObject().put("mimeType", item.mimeType()));
+        }
+        return json;
+    }
+
+    private static JSONObject rootJson() {
+        return new JSONObject()
+                .put("id", ROOT_ID)
+                .put("name", "root")
+                .put("root", new JSONObject())
+                .put("folder", new JSONObject().put("childCount", 0))
+                .put("parentReference", new JSONObject().put("driveId", DRIVE_ID));
+    }
+
+    private String deltaUrl(Request request) {
+        return request.baseUrl() + getContextPath() + DRIVE_PATH + "root/delta";
+    }
+
+    private static Response resyncRequired() {
+        return error(410, "resyncRequired", "Resync required. Replace any local items with the server's version.");
+    }
+
+    private static Response error(int status, String code, String message) {
+        return Response.json(status, new JSONObject()
+                .put("error", new JSONObject().put("code", code).put("message", message)));
+    }
+
+    private static String timestamp(Instant instant) {
+        return instant.truncatedTo(ChronoUnit.SECONDS).toString();
+    }
+
+    private String nextId() {
+        return String.format("EMULATED!%d", ids.incrementAndGet());
+    }
+}
@@ -0,0 +1,110 @@
+package com.multicloud.emulator;
+
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for Google Drive, Microsoft Graph and Dropbox, so the backend can be load and
+ * integration tested without network access or provider quota. Each provider is served under
+ * its own prefix ({@code /google/}, {@code /graph/}, {@code /dropbox/}) and keeps its files in
+ * memory; latency, throttling and 5xx rates come from {@link EmulatorSettings}.
+ * <p>
+ * Point the application at it with the {@code emulator} Spring profile, or run it standalone:
+ * <pre>
+ * mvn exec:java -Dexec.mainClass=com.multicloud.emulator.ProviderEmulator \
+ *     -Dexec.classpathScope=test -Demulator.port=8089 -Demulator.seed-files=1000
+ * </pre>
+ */
+public class ProviderEmulator implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderEmulator.class);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final GoogleDriveApi googleDrive;
+    private final GraphApi graph;
+    private final DropboxApi dropbox;
+
+    private ProviderEmulator(HttpServer server, ExecutorService executor, EmulatorSettings settings) {
+        this.server = server;
+        this.executor = executor;
+        this.googleDrive = new GoogleDriveApi(settings);
+        this.graph = new GraphApi(settings);
+        this.dropbox = new DropboxApi(settings);
+    }
+
+    /**
+     * Starts the emulator on {@code port}; 0 picks a free port, see {@link #baseUrl()}.
+     */
+    public static ProviderEmulator start(int port, EmulatorSettings settings) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        // Longpoll and slow-response scenarios park handler threads, so the pool is unbounded.
+        ExecutorService executor = Executors.newCachedThreadPool();
+        ProviderEmulator emulator = new ProviderEmulator(server, executor, settings);
+        for (EmulatedApi api : emulator.apis()) {
+            server.createContext(api.getContextPath(), api);
+        }
+        // Drive's media upload path starts with a slash, so the client resolves it against the
+        // host rather than the /google/ root URL
+        server.createContext("/upload/drive/", emulator.googleDrive);
+        server.setExecutor(executor);
+        server.start();
+        logger.info("Provider emulator listening on {}", emulator.baseUrl());
+        return emulator;
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public EmulatedStore googleDriveStore() {
+        return googleDrive.getStore();
+    }
+
+    public EmulatedStore oneDriveStore() {
+        return graph.getStore();
+    }
+
+    public EmulatedStore dropboxStore() {
+        return dropbox.getStore();
+    }
+
+    /**
+     * Adds {@code filesPerProvider} files of {@code fileSize} bytes to every provider. All seeded
+     * files share one content array, so large listings cost little heap.
+     */
+    public void seed(int filesPerProvider, int fileSize) {
+        byte[] content = new byte[fileSize];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        for (EmulatedApi api : apis()) {
+            api.seed(filesPerProvider, content);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private List<EmulatedApi> apis() {
+        return List.of(googleDrive, graph, dropbox);
+    }
+
+    public static void main(String[] args) throws Exception {
+        ProviderEmulator emulator = start(Integer.getInteger("emulator.port", 8089),
+                EmulatorSettings.fromSystemProperties());
+        emulator.seed(Integer.getInteger("emulator.seed-files", 0), Integer.getInteger("emulator.seed-file-size", 1024));
+        Runtime.getRuntime().addShutdownHook(new Thread(emulator::close));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,30 @@
+package com.multicloud.emulator;
+
+import java.util.Arrays;
+
+/**
+ * Content of an upload session. Writes may arrive at any offset and in any order, as with
+ * Dropbox concurrent sessions or a resumed Drive chunk.
+ */
+class UploadBuffer {
+
+    private byte[] data = new byte[0];
+    private int size;
+
+    synchronized void write(long offset, byte[] bytes) {
+        int end = Math.toIntExact(offset + bytes.length);
+        if (end > data.length) {
+            data = Arrays.copyOf(data, Math.max(end, data.length * 2));
+        }
+        System.arraycopy(bytes, 0, data, (int) offset, bytes.length);
+        size = Math.max(size, end);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized byte[] toByteArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
@@ -0,0 +1,111 @@
+package com.multicloud.exception;
+
+import com.multicloud.model.CloudProvider;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProviderErrorClassifierTest {
+
+    @Test
+    void mapsStatusCodes() {
+        assertThat(ProviderErrorClassifier.classifyStatus(401)).isEqualTo(ProviderErrorCategory.AUTH_EXPIRED);
+        assertThat(ProviderErrorClassifier.classifyStatus(429)).isEqualTo(ProviderErrorCategory.THROTTLED);
+        assertThat(ProviderErrorClassifier.classifyStatus(408)).isEqualTo(ProviderErrorCategory.TRANSIENT);
+        assertThat(ProviderErrorClassifier.classifyStatus(503)).isEqualTo(ProviderErrorCategory.TRANSIENT);
+        assertThat(ProviderErrorClassifier.classifyStatus(404)).isEqualTo(ProviderErrorCategory.PERMANENT);
+        assertThat(ProviderErrorClassifier.classifyStatus(409)).isEqualTo(ProviderErrorCategory.PERMANENT);
+    }
+
+    @Test
+    void providerExceptionInCauseChainDecides() {
+        Exception wrapped = new Exception("Failed to list files",
+                new RuntimeException(new ProviderApiException(CloudProvider.ONEDRIVE, 429, "throttled", null)));
+
+        assertThat(ProviderErrorClassifier.classify(wrapped)).isEqualTo(ProviderErrorCategory.THROTTLED);
+    }
+
+    @Test
+    void networkFailuresAreTransient() {
+        assertThat(ProviderErrorClassifier.classify(new SocketTimeoutException("read timed out")))
+                .isEqualTo(ProviderErrorCategory.TRANSIENT);
+        assertThat(ProviderErrorClassifier.classify(new IOException("upload failed", new ConnectException("refused"))))
+                .isEqualTo(ProviderErrorCategory.TRANSIENT);
+    }
+
+    @Test
+    void localIoAndParseErrorsArePermanent() {
+        assertThat(ProviderErrorClassifier.classify(new IOException("bad response", new JSONException("not json"))))
+                .isEqualTo(ProviderErrorCategory.PERMANENT);
+        assertThat(ProviderErrorClassifier.classify(new FileNotFoundException("/tmp/missing")))
+                .isEqualTo(ProviderErrorCategory.PERMANENT);
+        assertThat(ProviderErrorClassifier.classify(new IllegalStateException("no token")))
+                .isEqualTo(ProviderErrorCategory.PERMANENT);
+    }
+
+    @Test
+    void rejectedRefreshTokenIsPermanent() {
+        ProviderApiException unauthorized = new ProviderApiException(CloudProvider.DROPBOX, 401, "invalid_grant", null);
+
+        assertThat(ProviderErrorClassifier.classify(new TokenRefreshRejectedException(7L, unauthorized)))
+                .isEqualTo(ProviderErrorCategory.PERMANENT);
+    }
+
+    @Test
+    void copySourceAuthFailureDoesNotLookLikeAnExpiredTargetToken() {
+        ProviderApiException unauthorized = new ProviderApiException(CloudProvider.ONEDRIVE, 401, "unauthorized", null);
+        ProviderApiException unavailable = new ProviderApiException(CloudProvider.ONEDRIVE, 503, "unavailable", null);
+
+        assertThat(ProviderErrorClassifier.classify(new CopySourceException(unauthorized)))
+                .isEqualTo(ProviderErrorCategory.PERMANENT);
+        assertThat(ProviderErrorClassifier.classify(new CopySourceException(unavailable)))
+                .isEqualTo(ProviderErrorCategory.TRANSIENT);
+    }
+
+    @Test
+    void onlyUnsentOrThrottledCallsAreRejectedBeforeProcessing() {
+        assertThat(ProviderErrorClassifier.isRejectedBeforeProcessing(
+                new IOException("upload failed", new ConnectException("refused")))).isTrue();
+        assertThat(ProviderErrorClassifier.isRejectedBeforeProcessing(
+                new ProviderApiException(CloudProvider.ONEDRIVE, 429, "throttled", null))).isTrue();
+        assertThat(ProviderErrorClassifier.isRejectedBeforeProcessing(
+                new SocketTimeoutException("read timed out"))).isFalse();
+        assertThat(ProviderErrorClassifier.isRejectedBeforeProcessing(
+                new ProviderApiException(CloudProvider.ONEDRIVE, 503, "unavailable", null))).isFalse();
+        assertThat(ProviderErrorClassifier.isRejectedBeforeProcessing(
+                new CopySourceException(new ConnectException("refused")))).isFalse();
+    }
+
+    @Test
+    void retryAfterComesFromTheProviderException() {
+        Exception wrapped = new RuntimeException(
+                new ProviderApiException(CloudProvider.ONEDRIVE, 429, "throttled", Duration.ofSeconds(12)));
+
+        assertThat(ProviderErrorClassifier.retryAfter(wrapped)).isEqualTo(Duration.ofSeconds(12));
+        assertThat(ProviderErrorClassifier.retryAfter(new IOException("reset"))).isNull();
+    }
+
+    @Test
+    void parsesRetryAfterSecondsAndDates() {
+        assertThat(ProviderErrorClassifier.parseRetryAfter("30")).isEqualTo(Duration.ofSeconds(30));
+        assertThat(ProviderErrorClassifier.parseRetryAfter("-5")).isEqualTo(Duration.ZERO);
+        assertThat(ProviderErrorClassifier.parseRetryAfter(" ")).isNull();
+        assertThat(ProviderErrorClassifier.parseRetryAfter("soon")).isNull();
+
+        String inOneMinute = ZonedDateTime.now(ZoneOffset.UTC).plusMinutes(1).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        assertThat(ProviderErrorClassifier.parseRetryAfter(inOneMinute))
+                .isBetween(Duration.ofSeconds(50), Duration.ofSeconds(60));
+        String past = ZonedDateTime.now(ZoneOffset.UTC).minusMinutes(1).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        assertThat(ProviderErrorClassifier.parseRetryAfter(past)).isEqualTo(Duration.ZERO);
+    }
+}
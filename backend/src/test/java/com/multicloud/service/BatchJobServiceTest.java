@@ -0,0 +1,126 @@
+package com.multicloud.service;
+
+import com.multicloud.dto.BatchDeleteResponse;
+import com.multicloud.dto.BatchOperationRequest;
+import com.multicloud.dto.FileOperationResult;
+import com.multicloud.model.BatchJob;
+import com.multicloud.model.BatchJobItem;
+import com.multicloud.model.CloudAccount;
+import com.multicloud.model.FileMetadata;
+import com.multicloud.model.User;
+import com.multicloud.repository.BatchJobItemRepository;
+import com.multicloud.repository.BatchJobRepository;
+import com.multicloud.repository.FileMetadataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchJobServiceTest {
+
+    private static final Long JOB_ID = 5L;
+
+    private BatchJobService batchJobService;
+    private CloudAccountService cloudAccountService;
+    private final List<Runnable> submittedLanes = new ArrayList<>();
+    private User user;
+    private CloudAccount account;
+
+    @BeforeEach
+    void setUp() {
+        user = User.builder().id(1L).username("batch").build();
+        account = CloudAccount.builder().id(2L).user(user).build();
+
+        BatchJobRepository batchJobRepository = mock(BatchJobRepository.class);
+        BatchJob job = BatchJob.builder().id(JOB_ID).user(user).totalItems(0).build();
+        when(batchJobRepository.save(any())).thenReturn(job);
+        when(batchJobRepository.findByIdAndUser(JOB_ID, user)).thenReturn(Optional.of(job));
+
+        FileMetadataRepository fileMetadataRepository = mock(FileMetadataRepository.class);
+        when(fileMetadataRepository.findAllWithCloudAccountByIdIn(any())).thenAnswer(invocation -> {
+            List<FileMetadata> files = new ArrayList<>();
+            for (Object id : invocation.<Iterable<?>>getArgument(0)) {
+                files.add(FileMetadata.builder().id((Long) id).user(user).cloudAccount(account).build());
+            }
+            return files;
+        });
+
+        cloudAccountService = mock(CloudAccountService.class);
+        when(cloudAccountService.batchDeleteFiles(anyList())).thenAnswer(invocation -> {
+            List<FileOperationResult> results = invocation.<List<Long>>getArgument(0).stream()
+                    .map(id -> new FileOperationResult(id, true, null))
+                    .collect(Collectors.toList());
+            return new BatchDeleteResponse(results.size(), 0, results);
+        });
+
+        batchJobService = new BatchJobService();
+        ReflectionTestUtils.setField(batchJobService, "maxItems", 1000);
+        ReflectionTestUtils.setField(batchJobService, "perAccountParallelism", 2);
+        ReflectionTestUtils.setField(batchJobService, "batchJobRepository", batchJobRepository);
+        ReflectionTestUtils.setField(batchJobService, "batchJobItemRepository", mock(BatchJobItemRepository.class));
+        ReflectionTestUtils.setField(batchJobService, "fileMetadataRepository", fileMetadataRepository);
+        ReflectionTestUtils.setField(batchJobService, "cloudAccountService", cloudAccountService);
+        ReflectionTestUtils.setField(batchJobService, "batchJobExecutor", (Executor) submittedLanes::add);
+    }
+
+    @Test
+    void operationsOnOneFileStayInOrderAheadOfItsDelete() throws Exception {
+        batchJobService.submit(user, List.of(
+                operation(BatchJobItem.Operation.RENAME, 10L),
+                operation(BatchJobItem.Operation.DELETE, 10L),
+                operation(BatchJobItem.Operation.MOVE, 10L),
+                operation(BatchJobItem.Operation.DELETE, 20L),
+                operation(BatchJobItem.Operation.STAR, 30L)));
+
+        // The delete lane counts against the account's parallelism of two
+        assertThat(submittedLanes).hasSize(2);
+
+        // Run the lanes in reverse order: file 10's delete must still wait for its rename and move
+        List<Runnable> lanes = new ArrayList<>(submittedLanes);
+        Collections.reverse(lanes);
+        lanes.forEach(Runnable::run);
+
+        InOrder order = inOrder(cloudAccountService);
+        order.verify(cloudAccountService).renameFile(10L, "renamed");
+        order.verify(cloudAccountService).moveFile(10L, "/moved");
+        order.verify(cloudAccountService).batchDeleteFiles(List.of(10L));
+        verify(cloudAccountService).batchDeleteFiles(List.of(20L));
+        verify(cloudAccountService).setStarred(30L, true);
+    }
+
+    @Test
+    void singleLanePerAccountRunsDeletesLast() throws Exception {
+        ReflectionTestUtils.setField(batchJobService, "perAccountParallelism", 1);
+
+        batchJobService.submit(user, List.of(
+                operation(BatchJobItem.Operation.DELETE, 20L),
+                operation(BatchJobItem.Operation.RENAME, 10L),
+                operation(BatchJobItem.Operation.DELETE, 10L)));
+
+        assertThat(submittedLanes).hasSize(1);
+        submittedLanes.get(0).run();
+
+        InOrder order = inOrder(cloudAccountService);
+        order.verify(cloudAccountService).renameFile(10L, "renamed");
+        order.verify(cloudAccountService).batchDeleteFiles(List.of(20L, 10L));
+    }
+
+    private static BatchOperationRequest operation(BatchJobItem.Operation operation, Long fileId) {
+        return new BatchOperationRequest(operation, fileId, "renamed", "/moved", null, null);
+    }
+}
@@ -0,0 +1,169 @@
+package com.multicloud.service;
+
+import com.multicloud.dto.BatchDeleteResponse;
+import com.multicloud.dto.FileDTO;
+import com.multicloud.emulator.EmulatedStore;
+import com.multicloud.emulator.EmulatorSettings;
+import com.multicloud.emulator.ProviderEmulator;
+import com.multicloud.model.CloudAccount;
+import com.multicloud.model.CloudProvider;
+import com.multicloud.model.FileMetadata;
+import com.multicloud.model.User;
+import com.multicloud.repository.CloudAccountRepository;
+import com.multicloud.repository.FileMetadataRepository;
+import com.multicloud.repository.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the application against a {@link ProviderEmulator} standing in for Dropbox, with the
+ * production rate limits, so provider calls go through the real SDK, limiter and retry code
+ * paths. The upload chunk is the 4 MiB minimum, so a file of a few chunks takes an upload
+ * session.
+ */
+@SpringBootTest(properties = {
+        "sync.scheduler.enabled=false",
+        "tokens.maintenance.enabled=false",
+        "dropbox.longpoll.enabled=false",
+        "dropbox.upload.chunk-size=4194304"})
+@ActiveProfiles({"test", "emulator"})
+class DropboxEmulatorTest {
+
+    private static final EmulatorSettings settings = new EmulatorSettings();
+    private static final ProviderEmulator emulator = startEmulator();
+
+    @Autowired
+    private CloudAccountService cloudAccountService;
+
+    @Autowired
+    private CloudAccountRepository cloudAccountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    private CloudAccount account;
+    private Long accountId;
+
+    @DynamicPropertySource
+    static void emulatorUrl(DynamicPropertyRegistry registry) {
+        registry.add("provider.emulator.url", emulator::baseUrl);
+    }
+
+    @AfterAll
+    static void stopEmulator() {
+        emulator.close();
+    }
+
+    @BeforeEach
+    void connectAccount() {
+        User user = userRepository.findByUsername("dropbox-emulator").orElseGet(() -> userRepository.save(User.builder()
+                .username("dropbox-emulator")
+                .email("onedropbox-emulator@example.com")
+                .passwordHash("hash")
+                .build()));
+        account = cloudAccountRepository.save(CloudAccount.builder()
+                .user(user)
+                .providerName(CloudProvider.DROPBOX)
+                .accountEmail("onedropbox-emulator@example.com")
+                .accessToken("emulator-access-token")
+                .refreshToken("emulator-refresh-token")
+                .tokenExpiry(LocalDateTime.now().plusDays(1))
+                .isActive(true)
+                .build());
+        accountId = account.getId();
+    }
+
+    @Test
+    void syncEnumeratesOnceAndThenReadsOnlyTheChanges() throws Exception {
+        emulator.seed(5, 16);
+        EmulatedStore store = emulator.dropboxStore();
+        assertThat(cloudAccountService.synchronizeAccount(accountId)).isEqualTo(store.size());
+
+        EmulatedStore.Item removed = store.page(0, 1).get(0);
+        store.remove(removed.id());
+        // Dropbox items are keyed by their lower-cased path
+        store.put(new EmulatedStore.Item("/added.bin", "added.bin", removed.parentId(), false,
+                "application/octet-stream", new byte[16], Instant.now(), Instant.now()));
+
+        assertThat(cloudAccountService.synchronizeAccount(accountId)).isEqualTo(2);
+        assertThat(cloudFileIds()).contains("/added.bin").doesNotContain(removed.id());
+    }
+
+    @Test
+    void uploadLargerThanAChunkGoesThroughAnUploadSession() throws Exception {
+        byte[] content = new byte[9 * 1024 * 1024];
+        new Random(7).nextBytes(content);
+
+        FileDTO uploaded = cloudAccountService.uploadFile(accountId,
+                new MockMultipartFile("file", "session.bin", "application/octet-stream", content), null);
+
+        EmulatedStore.Item stored = emulator.dropboxStore().get(uploaded.getCloudFileId());
+        assertThat(stored.name()).isEqualTo("session.bin");
+        assertThat(stored.content()).isEqualTo(content);
+        assertThat(uploaded.getFileSize()).isEqualTo(content.length);
+    }
+
+    @Test
+    void throttledCallsAreRetriedAfterTheirRetryAfter() throws Exception {
+        emulator.seed(3, 16);
+        settings.throttleNextCalls(2);
+
+        long started = System.nanoTime();
+        int changes = cloudAccountService.synchronizeAccount(accountId);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        assertThat(changes).isEqualTo(emulator.dropboxStore().size());
+        assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofSeconds(2L * settings.getRetryAfterSeconds()));
+    }
+
+    @Test
+    void batchDeleteRemovesEveryFileInOneDeleteBatch() throws Exception {
+        emulator.seed(45, 16);
+        cloudAccountService.synchronizeAccount(accountId);
+        List<Long> fileIds = fileMetadataRepository.findByCloudAccount(account).stream()
+                .filter(metadata -> !Boolean.TRUE.equals(metadata.getIsFolder()))
+                .map(FileMetadata::getId)
+                .collect(Collectors.toList());
+        assertThat(fileIds).hasSizeGreaterThanOrEqualTo(45);
+
+        BatchDeleteResponse response = cloudAccountService.batchDeleteFiles(fileIds);
+
+        assertThat(response.getFailed()).isZero();
+        assertThat(emulator.dropboxStore().size()).isZero();
+    }
+
+    private List<String> cloudFileIds() {
+        return fileMetadataRepository.findByCloudAccount(account).stream()
+                .map(FileMetadata::getCloudFileId)
+                .collect(Collectors.toList());
+    }
+
+    private static ProviderEmulator startEmulator() {
+        try {
+            return ProviderEmulator.start(0, settings);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.multicloud.service;
+
+import com.multicloud.dto.BatchDeleteResponse;
+import com.multicloud.dto.FileDTO;
+import com.multicloud.emulator.EmulatedStore;
+import com.multicloud.emulator.EmulatorSettings;
+import com.multicloud.emulator.ProviderEmulator;
+import com.multicloud.model.CloudAccount;
+import com.multicloud.model.CloudProvider;
+import com.multicloud.model.FileMetadata;
+import com.multicloud.model.User;
+import com.multicloud.repository.CloudAccountRepository;
+import com.multicloud.repository.FileMetadataRepository;
+import com.multicloud.repository.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the application against a {@link ProviderEmulator} standing in for Google Drive, with
+ * the production rate limits, so provider calls go through the real client, limiter and retry
+ * code paths. The upload chunk is the 256 KiB minimum, so small files take several chunks.
+ */
+@SpringBootTest(properties = {
+        "sync.scheduler.enabled=false",
+        "tokens.maintenance.enabled=false",
+        "dropbox.longpoll.enabled=false",
+        "google.upload.chunk-size=262144"})
+@ActiveProfiles({"test", "emulator"})
+class GoogleDriveEmulatorTest {
+
+    private static final EmulatorSettings settings = new EmulatorSettings();
+    private static final ProviderEmulator emulator = startEmulator();
+
+    @Autowired
+    private CloudAccountService cloudAccountService;
+
+    @Autowired
+    private CloudAccountRepository cloudAccountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    private CloudAccount account;
+    private Long accountId;
+
+    @DynamicPropertySource
+    static void emulatorUrl(DynamicPropertyRegistry registry) {
+        registry.add("provider.emulator.url", emulator::baseUrl);
+    }
+
+    @AfterAll
+    static void stopEmulator() {
+        emulator.close();
+    }
+
+    @BeforeEach
+    void connectAccount() {
+        User user = userRepository.findByUsername("drive-emulator").orElseGet(() -> userRepository.save(User.builder()
+                .username("drive-emulator")
+                .email("drive-emulator@example.com")
+                .passwordHash("hash")
+                .build()));
+        account = cloudAccountRepository.save(CloudAccount.builder()
+                .user(user)
+                .providerName(CloudProvider.GOOGLE_DRIVE)
+                .accountEmail("drive-emulator@example.com")
+                .accessToken("emulator-access-token")
+                .refreshToken("emulator-refresh-token")
+                .tokenExpiry(LocalDateTime.now().plusDays(1))
+                .isActive(true)
+                .build());
+        accountId = account.getId();
+    }
+
+    @Test
+    void syncEnumeratesOnceAndThenReadsOnlyTheChanges() throws Exception {
+        emulator.seed(5, 16);
+        EmulatedStore store = emulator.googleDriveStore();
+        assertThat(cloudAccountService.synchronizeAccount(accountId)).isEqualTo(store.size());
+
+        EmulatedStore.Item removed = store.page(0, 1).get(0);
+        store.remove(removed.id());
+        store.put(new EmulatedStore.Item("drive-delta-file", "added.bin", null, false,
+                "application/octet-stream", new byte[16], Instant.now(), Instant.now()));
+
+        assertThat(cloudAccountService.synchronizeAccount(accountId)).isEqualTo(2);
+        assertThat(cloudFileIds()).contains("drive-delta-file").doesNotContain(removed.id());
+    }
+
+    @Test
+    void uploadLargerThanAChunkGoesThroughAResumableSession() throws Exception {
+        byte[] content = new byte[600 * 1024];
+        new Random(7).nextBytes(content);
+
+        FileDTO uploaded = cloudAccountService.uploadFile(accountId,
+                new MockMultipartFile("file", "resumable.bin", "application/octet-stream", content), null);
+
+        EmulatedStore.Item stored = emulator.googleDriveStore().get(uploaded.getCloudFileId());
+        assertThat(stored.name()).isEqualTo("resumable.bin");
+        assertThat(stored.content()).isEqualTo(content);
+        assertThat(uploaded.getFileSize()).isEqualTo(content.length);
+    }
+
+    @Test
+    void throttledCallsAreRetriedAfterTheirRetryAfter() throws Exception {
+        emulator.seed(3, 16);
+        settings.throttleNextCalls(2);
+
+        long started = System.nanoTime();
+        int changes = cloudAccountService.synchronizeAccount(accountId);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        assertThat(changes).isEqualTo(emulator.googleDriveStore().size());
+        assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofSeconds(2L * settings.getRetryAfterSeconds()));
+    }
+
+    @Test
+    void batchDeleteOfAThousandFilesIsChargedPerBatchToTheAccount() throws Exception {
+        emulator.seed(1000, 16);
+        cloudAccountService.synchronizeAccount(accountId);
+        List<Long> fileIds = fileMetadataRepository.findByCloudAccount(account).stream()
+                .map(FileMetadata::getId)
+                .collect(Collectors.toList());
+        assertThat(fileIds).hasSizeGreaterThanOrEqualTo(1000).hasSize(emulator.googleDriveStore().size());
+
+        long started = System.nanoTime();
+        BatchDeleteResponse response = cloudAccountService.batchDeleteFiles(fileIds);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        assertThat(response.getFailed()).isZero();
+        assertThat(emulator.googleDriveStore().size()).isZero();
+        // Ten envelopes at 10 qps per account; only Drive's 150 qps project share paces the parts.
+        // Charging every part to the account would take about 100 s.
+        assertThat(elapsed).isLessThan(Duration.ofSeconds(15));
+    }
+
+    private List<String> cloudFileIds() {
+        return fileMetadataRepository.findByCloudAccount(account).stream()
+                .map(FileMetadata::getCloudFileId)
+                .collect(Collectors.toList());
+    }
+
+    private static ProviderEmulator startEmulator() {
+        try {
+            return ProviderEmulator.start(0, settings);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
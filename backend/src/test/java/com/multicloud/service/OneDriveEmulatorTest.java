@@ -0,0 +1,169 @@
+package com.multicloud.service;
+
+import com.multicloud.dto.BatchDeleteResponse;
+import com.multicloud.dto.FileDTO;
+import com.multicloud.emulator.EmulatedStore;
+import com.multicloud.emulator.EmulatorSettings;
+import com.multicloud.emulator.ProviderEmulator;
+import com.multicloud.model.CloudAccount;
+import com.multicloud.model.CloudProvider;
+import com.multicloud.model.FileMetadata;
+import com.multicloud.model.User;
+import com.multicloud.repository.CloudAccountRepository;
+import com.multicloud.repository.FileMetadataRepository;
+import com.multicloud.repository.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the application against a {@link ProviderEmulator} standing in for Microsoft Graph,
+ * with the production rate limits, so OneDrive calls go through the real client, limiter and
+ * retry code paths. The upload fragment is four 320 KiB units, so a file just above the 4 MB
+ * simple-upload limit takes several fragments of an upload session.
+ */
+@SpringBootTest(properties = {
+        "sync.scheduler.enabled=false",
+        "tokens.maintenance.enabled=false",
+        "dropbox.longpoll.enabled=false",
+        "onedrive.upload.fragment-size=1310720"})
+@ActiveProfiles({"test", "emulator"})
+class OneDriveEmulatorTest {
+
+    private static final EmulatorSettings settings = new EmulatorSettings();
+    private static final ProviderEmulator emulator = startEmulator();
+
+    @Autowired
+    private CloudAccountService cloudAccountService;
+
+    @Autowired
+    private CloudAccountRepository cloudAccountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    private CloudAccount account;
+    private Long accountId;
+
+    @DynamicPropertySource
+    static void emulatorUrl(DynamicPropertyRegistry registry) {
+        registry.add("provider.emulator.url", emulator::baseUrl);
+    }
+
+    @AfterAll
+    static void stopEmulator() {
+        emulator.close();
+    }
+
+    @BeforeEach
+    void connectAccount() {
+        User user = userRepository.findByUsername("onedrive-emulator").orElseGet(() -> userRepository.save(User.builder()
+                .username("onedrive-emulator")
+                .email("oneonedrive-emulator@example.com")
+                .passwordHash("hash")
+                .build()));
+        account = cloudAccountRepository.save(CloudAccount.builder()
+                .user(user)
+                .providerName(CloudProvider.ONEDRIVE)
+                .accountEmail("oneonedrive-emulator@example.com")
+                .accessToken("emulator-access-token")
+                .refreshToken("emulator-refresh-token")
+                .tokenExpiry(LocalDateTime.now().plusDays(1))
+                .isActive(true)
+                .build());
+        accountId = account.getId();
+    }
+
+    @Test
+    void syncEnumeratesOnceAndThenReadsOnlyTheChanges() throws Exception {
+        emulator.seed(5, 16);
+        EmulatedStore store = emulator.oneDriveStore();
+        assertThat(cloudAccountService.synchronizeAccount(accountId)).isEqualTo(store.size());
+
+        EmulatedStore.Item removed = store.page(0, 1).get(0);
+        store.remove(removed.id());
+        store.put(new EmulatedStore.Item("onedrive-delta-file", "added.bin", removed.parentId(), false,
+                "application/octet-stream", new byte[16], Instant.now(), Instant.now()));
+
+        assertThat(cloudAccountService.synchronizeAccount(accountId)).isEqualTo(2);
+        assertThat(cloudFileIds()).contains("onedrive-delta-file").doesNotContain(removed.id());
+    }
+
+    @Test
+    void uploadAboveTheSimpleLimitGoesThroughAnUploadSession() throws Exception {
+        byte[] content = new byte[5 * 1024 * 1024];
+        new Random(7).nextBytes(content);
+
+        FileDTO uploaded = cloudAccountService.uploadFile(accountId,
+                new MockMultipartFile("file", "session.bin", "application/octet-stream", content), null);
+
+        EmulatedStore.Item stored = emulator.oneDriveStore().get(uploaded.getCloudFileId());
+        assertThat(stored.name()).isEqualTo("session.bin");
+        assertThat(stored.content()).isEqualTo(content);
+        assertThat(uploaded.getFileSize()).isEqualTo(content.length);
+    }
+
+    @Test
+    void throttledCallsAreRetriedAfterTheirRetryAfter() throws Exception {
+        emulator.seed(3, 16);
+        settings.throttleNextCalls(2);
+
+        long started = System.nanoTime();
+        int changes = cloudAccountService.synchronizeAccount(accountId);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        assertThat(changes).isEqualTo(emulator.oneDriveStore().size());
+        assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofSeconds(2L * settings.getRetryAfterSeconds()));
+    }
+
+    @Test
+    void batchDeleteRemovesEveryFileThroughJsonBatches() throws Exception {
+        emulator.seed(45, 16);
+        cloudAccountService.synchronizeAccount(accountId);
+        List<Long> fileIds = fileMetadataRepository.findByCloudAccount(account).stream()
+                .filter(metadata -> !Boolean.TRUE.equals(metadata.getIsFolder()))
+                .map(FileMetadata::getId)
+                .collect(Collectors.toList());
+        assertThat(fileIds).hasSizeGreaterThanOrEqualTo(45);
+
+        // Graph takes at most 20 requests per batch, so this spans three
+        BatchDeleteResponse response = cloudAccountService.batchDeleteFiles(fileIds);
+
+        assertThat(response.getFailed()).isZero();
+        assertThat(emulator.oneDriveStore().size()).isZero();
+    }
+
+    private List<String> cloudFileIds() {
+        return fileMetadataRepository.findByCloudAccount(account).stream()
+                .map(FileMetadata::getCloudFileId)
+                .collect(Collectors.toList());
+    }
+
+    private static ProviderEmulator startEmulator() {
+        try {
+            return ProviderEmulator.start(0, settings);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.multicloud.service;
+
+import com.multicloud.exception.CopySourceException;
+import com.multicloud.exception.ProviderApiException;
+import com.multicloud.exception.ProviderErrorCategory;
+import com.multicloud.exception.ProviderRateLimitExceededException;
+import com.multicloud.model.CloudProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ProviderCallExecutorTest {
+
+    private ProviderCallExecutor executor;
+    private ProviderRateLimiter rateLimiter;
+    private ProviderCircuitBreaker circuitBreaker;
+    private static final Long ACCOUNT_ID = 1L;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ProviderCallExecutor();
+        rateLimiter = mock(ProviderRateLimiter.class);
+        circuitBreaker = mock(ProviderCircuitBreaker.class);
+        ReflectionTestUtils.setField(executor, "rateLimiter", rateLimiter);
+        ReflectionTestUtils.setField(executor, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(executor, "maxAttempts", 4);
+        ReflectionTestUtils.setField(executor, "baseDelayMillis", 1L);
+        ReflectionTestUtils.setField(executor, "maxDelayMillis", 1000L);
+        ReflectionTestUtils.setField(executor, "budgetCapacity", 30d);
+        ReflectionTestUtils.setField(executor, "budgetRefillPerSecond", 0.5d);
+    }
+
+    @Test
+    void retriesIdempotentCallsOnTransientFailures() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = executor.execute(ACCOUNT_ID, CloudProvider.ONEDRIVE, true, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new SocketTimeoutException("read timed out");
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(attempts).hasValue(3);
+        verify(circuitBreaker, times(2)).onFailure(CloudProvider.ONEDRIVE);
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(ACCOUNT_ID, CloudProvider.ONEDRIVE, true, () -> {
+            attempts.incrementAndGet();
+            throw new ProviderApiException(CloudProvider.ONEDRIVE, 503, "unavailable", null);
+        })).isInstanceOf(ProviderApiException.class);
+        assertThat(attempts).hasValue(4);
+    }
+
+    @Test
+    void doesNotRetryPermanentFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(ACCOUNT_ID, CloudProvider.ONEDRIVE, true, () -> {
+            attempts.incrementAndGet();
+            throw new ProviderApiException(CloudProvider.ONEDRIVE, 404, "not found", null);
+        })).isInstanceOf(ProviderApiException.class);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void doesNotRetryNonIdempotentCallsThatMayHaveReachedTheProvider() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(ACCOUNT_ID, CloudProvider.ONEDRIVE, false, () -> {
+            attempts.incrementAndGet();
+            throw new SocketTimeoutException("read timed out");
+        })).isInstanceOf(SocketTimeoutException.class);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void retriesNonIdempotentCallsRejectedBeforeProcessing() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = executor.execute(ACCOUNT_ID, CloudProvider.ONEDRIVE, false, () -> {
+            int attempt = attempts.incrementAndGet();
+            if (attempt == 1) {
+                throw new ConnectException("Connection refused");
+            }
+            if (attempt == 2) {
+                throw new ProviderApiException(CloudProvider.ONEDRIVE, 429, "throttled", null);
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void takesTheRateLimitSlotBeforeTheCircuitPermission() throws Exception {
+        executor.execute(ACCOUNT_ID, CloudProvider.ONEDRIVE, true, () -> "ok");
+
+        InOrder order = inOrder(rateLimiter, circuitBreaker);
+        order.verify(rateLimiter).enter(ACCOUNT_ID, CloudProvider.ONEDRIVE);
+        order.verify(circuitBreaker).acquirePermission(CloudProvider.ONEDRIVE);
+        order.verify(rateLimiter).exit();
+        order.verify(circuitBreaker).onSuccess(CloudProvider.ONEDRIVE);
+    }
+
+    @Test
+    void localRejectionInsideTheCallReleasesThePermissionWithoutRetrying() {
+        AtomicInteger attempts = new AtomicInteger();
+        ProviderRateLimitExceededException rejection = new ProviderRateLimitExceededException(
+                CloudProvider.ONEDRIVE, "Too many requests for cloud account 1, try again shortly", Duration.ofSeconds(1));
+
+        assertThatThrownBy(() -> executor.execute(ACCOUNT_ID, CloudProvider.ONEDRIVE, true, () -> {
+            attempts.incrementAndGet();
+            throw new IOException(rejection.getMessage(), rejection);
+        })).isSameAs(rejection);
+        assertThat(attempts).hasValue(1);
+        verify(circuitBreaker).releasePermission(CloudProvider.ONEDRIVE);
+        verify(circuitBreaker, never()).onFailure(any());
+    }
+
+    @Test
+    void copySourceFailuresStayOutOfTheTargetCircuit() {
+        CopySourceException sourceFailure = new CopySourceException(new SocketTimeoutException("read timed out"));
+
+        assertThatThrownBy(() -> executor.execute(ACCOUNT_ID, CloudProvider.ONEDRIVE, false, () -> {
+            throw sourceFailure;
+        })).isSameAs(sourceFailure);
+        assertThat(sourceFailure.getCategory()).isEqualTo(ProviderErrorCategory.TRANSIENT);
+        verify(circuitBreaker).releasePermission(CloudProvider.ONEDRIVE);
+        verify(circuitBreaker, never()).onFailure(any());
+        verify(circuitBreaker, never()).onSuccess(any());
+    }
+
+    @Test
+    void backoffStaysWithinTheExponentialCeiling() {
+        ReflectionTestUtils.setField(executor, "baseDelayMillis", 100L);
+        ReflectionTestUtils.setField(executor, "maxDelayMillis", 1000L);
+
+        for (int i = 0; i < 200; i++) {
+            assertThat(executor.backoff(1)).isBetween(0L, 100L);
+            assertThat(executor.backoff(3)).isBetween(0L, 400L);
+            assertThat(executor.backoff(10)).isBetween(0L, 1000L);
+            assertThat(executor.backoff(64)).isBetween(0L, 1000L);
+        }
+    }
+
+    @Test
+    void retryBudgetDrainsAndRefillsOverTime() {
+        AtomicLong now = new AtomicLong();
+        ProviderCallExecutor.RetryBudget budget = new ProviderCallExecutor.RetryBudget(2, 1, now::get);
+
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(budget.tryWithdraw()).isFalse();
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(budget.tryWithdraw()).isTrue();
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+    }
+}
@@ -0,0 +1,139 @@
+package com.multicloud.service;
+
+import com.multicloud.exception.ProviderUnavailableException;
+import com.multicloud.model.CloudProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProviderCircuitBreakerTest {
+
+    private static final CloudProvider PROVIDER = CloudProvider.DROPBOX;
+
+    private final AtomicLong now = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private ProviderCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = new ProviderCircuitBreaker();
+        ReflectionTestUtils.setField(circuitBreaker, "enabled", true);
+        ReflectionTestUtils.setField(circuitBreaker, "windowSize", 10);
+        ReflectionTestUtils.setField(circuitBreaker, "minimumCalls", 4);
+        ReflectionTestUtils.setField(circuitBreaker, "failureRateThreshold", 50);
+        ReflectionTestUtils.setField(circuitBreaker, "openDurationMillis", 1000L);
+        ReflectionTestUtils.setField(circuitBreaker, "halfOpenProbes", 2);
+        ReflectionTestUtils.setField(circuitBreaker, "meterRegistry", meterRegistry);
+        circuitBreaker.nanoClock = now::get;
+        circuitBreaker.createCircuits();
+    }
+
+    @Test
+    void staysClosedUntilMinimumCallsAreRecorded() {
+        fail(3);
+
+        assertThat(state()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+        circuitBreaker.acquirePermission(PROVIDER);
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        succeed(2);
+        fail(2);
+
+        assertThat(state()).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.isOpen(PROVIDER)).isTrue();
+        assertThatThrownBy(() -> circuitBreaker.acquirePermission(PROVIDER))
+                .isInstanceOf(ProviderUnavailableException.class);
+    }
+
+    @Test
+    void closesAfterAllProbesSucceed() {
+        fail(4);
+        elapseOpenPeriod();
+
+        circuitBreaker.acquirePermission(PROVIDER);
+        circuitBreaker.acquirePermission(PROVIDER);
+        assertThat(state()).isEqualTo(ProviderCircuitBreaker.State.HALF_OPEN);
+        assertThatThrownBy(() -> circuitBreaker.acquirePermission(PROVIDER))
+                .isInstanceOf(ProviderUnavailableException.class);
+
+        circuitBreaker.onSuccess(PROVIDER);
+        circuitBreaker.onSuccess(PROVIDER);
+
+        assertThat(state()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+        fail(3);
+        assertThat(state()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void reopensWhenAProbeFails() {
+        fail(4);
+        elapseOpenPeriod();
+
+        circuitBreaker.acquirePermission(PROVIDER);
+        circuitBreaker.onFailure(PROVIDER);
+
+        assertThat(state()).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> circuitBreaker.acquirePermission(PROVIDER))
+                .isInstanceOf(ProviderUnavailableException.class);
+    }
+
+    @Test
+    void releasedProbeCanBeClaimedAgain() {
+        fail(4);
+        elapseOpenPeriod();
+
+        circuitBreaker.acquirePermission(PROVIDER);
+        circuitBreaker.acquirePermission(PROVIDER);
+        circuitBreaker.releasePermission(PROVIDER);
+
+        circuitBreaker.acquirePermission(PROVIDER);
+    }
+
+    @Test
+    void publishesStateGauge() {
+        assertThat(gauge()).isZero();
+
+        fail(4);
+        assertThat(gauge()).isEqualTo(1);
+
+        elapseOpenPeriod();
+        circuitBreaker.acquirePermission(PROVIDER);
+        assertThat(gauge()).isEqualTo(2);
+    }
+
+    private void succeed(int calls) {
+        for (int i = 0; i < calls; i++) {
+            circuitBreaker.acquirePermission(PROVIDER);
+            circuitBreaker.onSuccess(PROVIDER);
+        }
+    }
+
+    private void fail(int calls) {
+        for (int i = 0; i < calls; i++) {
+            circuitBreaker.acquirePermission(PROVIDER);
+            circuitBreaker.onFailure(PROVIDER);
+        }
+    }
+
+    private void elapseOpenPeriod() {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+    }
+
+    private ProviderCircuitBreaker.State state() {
+        return circuitBreaker.getStates().get(PROVIDER);
+    }
+
+    private double gauge() {
+        return meterRegistry.get("provider.circuit.state").tag("provider", "dropbox").gauge().value();
+    }
+}
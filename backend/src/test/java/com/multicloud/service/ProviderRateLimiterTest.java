@@ -0,0 +1,135 @@
+package com.multicloud.service;
+
+import com.multicloud.exception.ProviderRateLimitExceededException;
+import com.multicloud.model.CloudProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class ProviderRateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProviderRateLimiter rateLimiter;
+    private static final Long ACCOUNT_ID = 3L;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = new ProviderRateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "enabled", true);
+        ReflectionTestUtils.setField(rateLimiter, "accountQps", 1d);
+        ReflectionTestUtils.setField(rateLimiter, "accountBurst", 1d);
+        ReflectionTestUtils.setField(rateLimiter, "maxWaitMillis", 0L);
+        ReflectionTestUtils.setField(rateLimiter, "environment", new MockEnvironment());
+        ReflectionTestUtils.setField(rateLimiter, "meterRegistry", meterRegistry);
+        rateLimiter.createProviderBuckets();
+    }
+
+    @Test
+    void bucketAdmitsBurstThenQueuesAtConfiguredRate() {
+        AtomicLong now = new AtomicLong();
+        ProviderRateLimiter.TokenBucket bucket = new ProviderRateLimiter.TokenBucket(2, 2, now::get);
+        long second = TimeUnit.SECONDS.toNanos(1);
+
+        assertThat(bucket.reserve(second)).isZero();
+        assertThat(bucket.reserve(second)).isZero();
+        assertThat(bucket.reserve(second)).isCloseTo(second / 2, within(1_000L));
+        assertThat(bucket.reserve(second)).isCloseTo(second, within(1_000L));
+        assertThat(bucket.reserve(second)).isCloseTo(3 * second / 2, within(1_000L));
+
+        now.addAndGet(2 * second);
+        assertThat(bucket.reserve(second)).isZero();
+    }
+
+    @Test
+    void cancelledReservationFreesItsSlot() {
+        AtomicLong now = new AtomicLong();
+        ProviderRateLimiter.TokenBucket bucket = new ProviderRateLimiter.TokenBucket(1, 1, now::get);
+
+        assertThat(bucket.reserve(0)).isZero();
+        assertThat(bucket.reserve(0)).isPositive();
+        bucket.cancelReservation(1);
+        assertThat(bucket.reserve(0)).isZero();
+    }
+
+    @Test
+    void rejectionsAndAdmissionsAreCounted() throws Exception {
+        rateLimiter.acquire(ACCOUNT_ID, CloudProvider.GOOGLE_DRIVE);
+        assertThatThrownBy(() -> rateLimiter.acquire(ACCOUNT_ID, CloudProvider.GOOGLE_DRIVE))
+                .isInstanceOf(ProviderRateLimitExceededException.class);
+
+        assertThat(meterRegistry.get("provider.rate_limit.calls")
+                .tags("provider", "google_drive", "outcome", "admitted").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("provider.rate_limit.calls")
+                .tags("provider", "google_drive", "outcome", "rejected").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("provider.rate_limit.wait")
+                .tags("provider", "google_drive").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectionCarriesTheWaitItWouldHaveNeeded() throws Exception {
+        rateLimiter.acquire(ACCOUNT_ID, CloudProvider.GOOGLE_DRIVE);
+
+        assertThatThrownBy(() -> rateLimiter.acquire(ACCOUNT_ID, CloudProvider.GOOGLE_DRIVE))
+                .isInstanceOfSatisfying(ProviderRateLimitExceededException.class, rejection ->
+                        assertThat(rejection.getRetryAfter()).isBetween(Duration.ofMillis(900), Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void firstRequestAfterEnterUsesTheTokenTakenThere() throws Exception {
+        rateLimiter.enter(ACCOUNT_ID, CloudProvider.GOOGLE_DRIVE);
+        try {
+            rateLimiter.admitRequest();
+            assertThatThrownBy(rateLimiter::admitRequest)
+                    .isInstanceOf(ProviderRateLimitExceededException.class);
+        } finally {
+            rateLimiter.exit();
+        }
+
+        assertThat(ProviderRateLimiter.current()).isNull();
+        rateLimiter.admitRequest();
+    }
+
+    @Test
+    void batchIsChargedToTheAccountOnceAndToTheProviderPerCall() throws Exception {
+        ReflectionTestUtils.setField(rateLimiter, "environment", new MockEnvironment()
+                .withProperty("provider.rate-limit.google-drive.qps", "1")
+                .withProperty("provider.rate-limit.google-drive.burst", "10"));
+        rateLimiter.createProviderBuckets();
+
+        rateLimiter.enter(ACCOUNT_ID, CloudProvider.GOOGLE_DRIVE);
+        try {
+            // The account's single token covers the envelope; the provider's burst pays for every part
+            rateLimiter.admitRequest(10);
+        } finally {
+            rateLimiter.exit();
+        }
+
+        assertThatThrownBy(() -> rateLimiter.acquire(4L, CloudProvider.GOOGLE_DRIVE))
+                .isInstanceOf(ProviderRateLimitExceededException.class)
+                .hasMessageContaining(CloudProvider.GOOGLE_DRIVE.toString());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void evictDropsAccountBucket() throws Exception {
+        rateLimiter.acquire(ACCOUNT_ID, CloudProvider.GOOGLE_DRIVE);
+        Map<Long, ?> accountBuckets = (Map<Long, ?>) ReflectionTestUtils.getField(rateLimiter, "accountBuckets");
+        assertThat(accountBuckets).containsKey(ACCOUNT_ID);
+
+        rateLimiter.evict(3L);
+
+        assertThat(accountBuckets).isEmpty();
+    }
+}
@@ -0,0 +1,168 @@
+package com.multicloud.service;
+
+import com.multicloud.model.CloudAccount;
+import com.multicloud.model.CloudProvider;
+import com.multicloud.model.User;
+import com.multicloud.provider.CloudStorageProvider;
+import com.multicloud.provider.CloudStorageProviderRegistry;
+import com.multicloud.repository.CloudAccountRepository;
+import com.multicloud.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs against H2 with the callers' transactions managed by hand, so the token writes of
+ * {@link TokenManager} are checked against what a caller's rollback or snapshot would do, and
+ * its cache against changes made in the store behind it.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(TokenManager.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenManagerTest {
+
+    @Autowired
+    private TokenManager tokenManager;
+
+    @Autowired
+    private CloudAccountRepository cloudAccountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private CloudStorageProviderRegistry providerRegistry;
+
+    private CloudStorageProvider provider;
+    private CloudAccount account;
+
+    @BeforeEach
+    void setUp() {
+        cloudAccountRepository.deleteAll();
+        userRepository.deleteAll();
+
+        provider = mock(CloudStorageProvider.class);
+        when(providerRegistry.get(CloudProvider.DROPBOX)).thenReturn(provider);
+
+        User user = userRepository.save(User.builder()
+                .username("tokens")
+                .email("tokens@example.com")
+                .passwordHash("hash")
+                .build());
+        account = cloudAccountRepository.save(CloudAccount.builder()
+                .user(user)
+                .providerName(CloudProvider.DROPBOX)
+                .accountEmail("tokens@example.com")
+                .accessToken("access-1")
+                .refreshToken("refresh-1")
+                .tokenExpiry(LocalDateTime.now().minusMinutes(5))
+                .isActive(true)
+                .build());
+    }
+
+    @Test
+    void refreshSurvivesRollbackOfTheCallersTransaction() throws Exception {
+        when(provider.refreshAccessToken("refresh-1")).thenReturn(Map.of(
+                "access_token", "access-2", "refresh_token", "refresh-2", "expires_in", "3600"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try {
+                assertThat(tokenManager.refresh(account.getId(), "access-1")).isEqualTo("access-2");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            // The file operation that needed the token failed afterwards
+            status.setRollbackOnly();
+        });
+
+        CloudAccountRepository.StoredTokens stored = cloudAccountRepository.findTokensById(account.getId()).orElseThrow();
+        assertThat(stored.getAccessToken()).isEqualTo("access-2");
+        assertThat(stored.getRefreshToken()).isEqualTo("refresh-2");
+    }
+
+    @Test
+    void refreshCommittedAfterTheCallersSnapshotIsReusedInsteadOfRepeated() throws Exception {
+        TransactionTemplate caller = new TransactionTemplate(transactionManager);
+        caller.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        TransactionTemplate otherInstance = new TransactionTemplate(transactionManager);
+        otherInstance.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        String token = caller.execute(status -> {
+            // Takes the caller's snapshot before another instance commits its refresh
+            cloudAccountRepository.findTokensById(account.getId()).orElseThrow();
+            otherInstance.executeWithoutResult(other -> cloudAccountRepository
+                    .updateTokens(account.getId(), "access-other", "refresh-other", LocalDateTime.now().plusHours(1)));
+            try {
+                return tokenManager.refresh(account.getId(), "access-1");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(token).isEqualTo("access-other");
+        verify(provider, never()).refreshAccessToken(anyString());
+    }
+
+    @Test
+    void validTokensAreServedFromTheCacheUntilEvicted() throws Exception {
+        cloudAccountRepository.updateTokens(account.getId(), "access-1", "refresh-1", LocalDateTime.now().plusHours(1));
+        assertThat(tokenManager.getAccessToken(account.getId())).isEqualTo("access-1");
+
+        // Replaced behind the cache, as by a reconnect
+        cloudAccountRepository.updateTokens(account.getId(), "access-2", "refresh-2", LocalDateTime.now().plusHours(1));
+        assertThat(tokenManager.getAccessToken(account.getId())).isEqualTo("access-1");
+
+        tokenManager.evict(account.getId());
+        assertThat(tokenManager.getAccessToken(account.getId())).isEqualTo("access-2");
+    }
+
+    @Test
+    void expiringCachedTokenIsReplacedFromTheStoreBeforeAskingTheProvider() throws Exception {
+        cloudAccountRepository.updateTokens(account.getId(), "access-1", "refresh-1", LocalDateTime.now().plusSeconds(30));
+        assertThat(tokenManager.canRefresh(account.getId())).isTrue();
+
+        // Another instance refreshed meanwhile
+        cloudAccountRepository.updateTokens(account.getId(), "access-other", "refresh-other", LocalDateTime.now().plusHours(1));
+
+        assertThat(tokenManager.getAccessToken(account.getId())).isEqualTo("access-other");
+        assertThat(tokenManager.getAccessToken(account.getId())).isEqualTo("access-other");
+        verify(provider, never()).refreshAccessToken(anyString());
+    }
+
+    @Test
+    void refreshedTokensAreWrittenThroughToTheCache() throws Exception {
+        when(provider.refreshAccessToken("refresh-1")).thenReturn(Map.of(
+                "access_token", "access-2", "refresh_token", "refresh-2", "expires_in", "3600"));
+
+        assertThat(tokenManager.getAccessToken(account.getId())).isEqualTo("access-2");
+        assertThat(tokenManager.getAccessToken(account.getId())).isEqualTo("access-2");
+        assertThat(tokenManager.getProvider(account.getId())).isEqualTo(CloudProvider.DROPBOX);
+        verify(provider, times(1)).refreshAccessToken("refresh-1");
+    }
+}
@@ -1,4 +1,4 @@
-import React, { createContext, useState, useContext, useEffect, useCallback } from 'react';
+import React, { createContext, useState, useContext, useEffect, useCallback, useRef } from 'react';
 import { useNavigate } from 'react-router-dom';
 import cloudService from '../services/cloudService';
 import { useAuth } from './AuthContext';
@@ -14,6 +14,7 @@ export const CloudProvider = ({ children }) => {
   const [currentPath, setCurrentPath] = useState('');
   const [uploadProgress, setUploadProgress] = useState({});
   const [storageStats, setStorageStats] = useState(null);
+  const filesRequest = useRef(0);
   const { user } = useAuth();
   const navigate = useNavigate();
 
@@ -44,26 +45,44 @@ export const CloudProvider = ({ children }) => {
     }
   }, [user, selectedAccount]);
 
-  // Fetch files from selected account
-  const fetchFiles = useCallback(async (accountId, path = '') => {
+  // Fetch files from selected account; pass refresh after a change so the account is
+  // re-synced, and keep showing the stored list while the sync runs
+  const fetchFiles = useCallback(async (accountId, path = '', { refresh = false } = {}) => {
     if (!accountId) return;
     
+    // A newer fetch supersedes this one, including its polling
+    const request = ++filesRequest.current;
+    const isCancelled = () => request !== filesRequest.current;
+
     try {
       setLoading(true);
       setError(null);
       
-      const fileList = await cloudService.getFiles(accountId, path);
+      const fileList = await cloudService.getFiles(accountId, path, {
+        refresh,
+        isCancelled,
+        onUpdate: (interim) => {
+          if (!isCancelled()) {
+            setFiles(interim);
+            setLoading(false);
+          }
+        },
+      });
+      if (isCancelled()) return fileList;
       setFiles(fileList);
       setCurrentPath(path);
       
       return fileList;
     } catch (error) {
+      if (isCancelled()) return [];
       console.error('Error fetching files:', error);
       setError(error.message || 'Failed to fetch files');
       setFiles([]);
       return [];
     } finally {
-      setLoading(false);
+      if (!isCancelled()) {
+        setLoading(false);
+      }
     }
   }, []);
 
@@ -114,7 +133,7 @@ export const CloudProvider = ({ children }) => {
       const uploadedFile = await cloudService.uploadFile(accountId, file, path, onProgress);
       
       // Refresh files after upload
-      await fetchFiles(accountId, path);
+      fetchFiles(accountId, path, { refresh: true });
       
       return uploadedFile;
     } catch (error) {
@@ -145,7 +164,7 @@ export const CloudProvider = ({ children }) => {
       const uploadedFiles = await cloudService.uploadMultipleFiles(accountId, files, path, onProgress);
       
       // Refresh files after upload
-      await fetchFiles(accountId, path);
+      fetchFiles(accountId, path, { refresh: true });
       
       return uploadedFiles;
     } catch (error) {
@@ -182,7 +201,7 @@ export const CloudProvider = ({ children }) => {
       
       // Refresh files after deletion
       if (selectedAccount) {
-        await fetchFiles(selectedAccount.id, currentPath);
+        fetchFiles(selectedAccount.id, currentPath, { refresh: true });
       }
       
       return true;
@@ -201,7 +220,7 @@ export const CloudProvider = ({ children }) => {
       
       // Refresh files after deletion
       if (selectedAccount) {
-        await fetchFiles(selectedAccount.id, currentPath);
+        fetchFiles(selectedAccount.id, currentPath, { refresh: true });
       }
       
       return true;
@@ -220,7 +239,7 @@ export const CloudProvider = ({ children }) => {
       
       // Refresh files after rename
       if (selectedAccount) {
-        await fetchFiles(selectedAccount.id, currentPath);
+        fetchFiles(selectedAccount.id, currentPath, { refresh: true });
       }
       
       return true;
@@ -239,7 +258,7 @@ export const CloudProvider = ({ children }) => {
       
       // Refresh files after move
       if (selectedAccount) {
-        await fetchFiles(selectedAccount.id, currentPath);
+        fetchFiles(selectedAccount.id, currentPath, { refresh: true });
       }
       
       return true;
@@ -258,7 +277,7 @@ export const CloudProvider = ({ children }) => {
       
       // Refresh files after copy
       if (selectedAccount) {
-        await fetchFiles(selectedAccount.id, currentPath);
+        fetchFiles(selectedAccount.id, currentPath, { refresh: true });
       }
       
       return true;
@@ -289,7 +308,7 @@ export const CloudProvider = ({ children }) => {
       await cloudService.createFolder(accountId, folderName, parentFolderId);
       
       // Refresh files after creating folder
-      await fetchFiles(accountId, parentFolderId);
+      fetchFiles(accountId, parentFolderId, { refresh: true });
       
       return true;
     } catch (error) {
@@ -366,10 +385,9 @@ export const CloudProvider = ({ children }) => {
   const syncAccount = useCallback(async (accountId) => {
     try {
       setError(null);
-      await cloudService.syncAccount(accountId);
       
-      // Refresh files after sync
-      await fetchFiles(accountId, currentPath);
+      // Re-sync the account and wait for the refreshed list
+      await fetchFiles(accountId, currentPath, { refresh: true });
       
       return true;
     } catch (error) {
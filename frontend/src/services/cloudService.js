@@ -6,6 +6,12 @@ import api from './api';
 const API_BASE_URL = process.env.REACT_APP_API_BASE_URL || 'http://localhost:8080';
 const BACKEND_ROOT = (API_BASE_URL || 'http://localhost:8080').replace(/\/api\/?$/, '');
 
+// Polling of a file list whose sync is still running
+const FILES_SYNC_DEFAULT_POLL_SECONDS = 5;
+const FILES_SYNC_MAX_POLLS = 24;
+
+const sleep = (ms) => new Promise((resolve) => setTimeout(resolve, ms));
+
 const cloudService = {
   // Get all connected cloud accounts
   getCloudAccounts: async () => {
@@ -58,13 +64,30 @@ const cloudService = {
     window.location.href = url;
   },
 
-  // Get files from a cloud account
-  getFiles: async (accountId, path = '') => {
+  // Get files from a cloud account. The list is served from the last background sync:
+  // while the account is still syncing (202 before its first sync, or X-Files-Syncing
+  // after a refresh) the request is repeated after Retry-After, handing each interim
+  // list to onUpdate. `refresh` asks the server to re-sync before serving again.
+  getFiles: async (accountId, path = '', { refresh = false, onUpdate, isCancelled } = {}) => {
     try {
-      const response = await api.get(`/cloud-accounts/${accountId}/files`, {
-        params: { path }
-      });
-      return response.data;
+      let params = { path, refresh };
+      for (let attempt = 0; ; attempt++) {
+        const response = await api.get(`/cloud-accounts/${accountId}/files`, { params });
+        const syncing = response.status === 202 || response.headers['x-files-syncing'] === 'true';
+        if (!syncing || attempt >= FILES_SYNC_MAX_POLLS || isCancelled?.()) {
+          return response.data;
+        }
+        if (response.status !== 202 && onUpdate) {
+          onUpdate(response.data);
+        }
+        const retryAfter = Number(response.headers['retry-after']);
+        await sleep((retryAfter > 0 ? retryAfter : FILES_SYNC_DEFAULT_POLL_SECONDS) * 1000);
+        if (isCancelled?.()) {
+          return response.data;
+        }
+        // The refresh has been requested; later polls only wait for it
+        params = { path };
+      }
     } catch (error) {
       throw error.response?.data || error;
     }
@@ -205,6 +228,30 @@ const cloudService = {
     }
   },
 
+  // Start a batch job, e.g. [{ operation: 'MOVE', fileId, newPath }]
+  submitBatchJob: async (operations) => {
+    try {
+      const response = await api.post('/cloud-accounts/files/batch-jobs', {
+        operations,
+      });
+      return response.data;
+    } catch (error) {
+      throw error.response?.data || error;
+    }
+  },
+
+  // Poll batch job progress
+  getBatchJob: async (jobId, includeItems = false) => {
+    try {
+      const response = await api.get(`/cloud-accounts/files/batch-jobs/${jobId}`, {
+        params: { includeItems },
+      });
+      return response.data;
+    } catch (error) {
+      throw error.response?.data || error;
+    }
+  },
+
   // Rename file
   renameFile: async (fileId, newName) => {
     try {
@@ -307,16 +354,6 @@ const cloudService = {
       throw error.response?.data || error;
     }
   },
-
-  // Sync cloud account
-  syncAccount: async (accountId) => {
-    try {
-      const response = await api.post(`/cloud-accounts/${accountId}/sync`);
-      return response.data;
-    } catch (error) {
-      throw error.response?.data || error;
-    }
-  },
 };
 
 export default cloudService;
\ No newline at end of file